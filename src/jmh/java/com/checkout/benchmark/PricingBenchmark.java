@@ -0,0 +1,221 @@
+package com.checkout.benchmark;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rule parsing, validation and pricing hot paths across catalog sizes, basket lengths and special-price densities.
+ * The methods that only accept single-letter SKUs are measured on {@link Rules}, while the catalog-based methods are measured on
+ * {@link CatalogRules}, whose largest catalog has multi-character SKUs and delimited baskets.
+ * Run with <code>mvn -P benchmark verify</code>; results are written to <code>target/jmh-result.json</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    public abstract static class RuleSet {
+        public final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+        public final InputServiceImpl inputService = new InputServiceImpl();
+        public final Random random = new Random(42);
+        public String[] skus;
+        public String rules;
+        public String[] rulesArray;
+        public Set<PricingRule> parsedRules;
+        public PricingCatalog catalog;
+
+        void load(String[] skus, double specialDensity) {
+            this.skus = skus;
+            val builder = new StringBuilder();
+            for (val sku : skus) {
+                if (builder.length() > 0) builder.append(';');
+                builder.append(sku).append(',').append(10 + random.nextInt(90));
+                if (random.nextDouble() < specialDensity) {
+                    builder.append(',').append(2 + random.nextInt(4)).append(" for ").append(50 + random.nextInt(200));
+                }
+            }
+            rules = builder.toString();
+            rulesArray = rules.split(";");
+            parsedRules = pricingRuleService.parseRules(rulesArray);
+            catalog = pricingRuleService.compileRules(parsedRules);
+        }
+
+        /**
+         * Distinct letters that are their own upper case, so that the rules pass the duplicate SKU check.
+         */
+        static String[] letterSkus(int count) {
+            val skus = new String[count];
+            var found = 0;
+            for (var c = 'A'; found < count && c < Character.MAX_VALUE; c++) {
+                if (Character.isLetter(c) && Character.toUpperCase(c) == c) skus[found++] = String.valueOf(c);
+            }
+            if (found < count) throw new IllegalStateException("Not enough single-character SKUs for a catalog of " + count);
+            return skus;
+        }
+    }
+
+    /**
+     * Catalogs of single-letter SKUs, which every pricing method accepts.
+     */
+    @State(Scope.Benchmark)
+    public static class Rules extends RuleSet {
+        @Param({"10", "1000", "40000"})
+        public int catalogSize;
+
+        @Param({"0.0", "0.5", "1.0"})
+        public double specialDensity;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            load(letterSkus(catalogSize), specialDensity);
+        }
+    }
+
+    /**
+     * Catalogs of single-letter SKUs, or of multi-character SKUs once there are not enough letters, which only the catalog-based methods accept.
+     */
+    @State(Scope.Benchmark)
+    public static class CatalogRules extends RuleSet {
+        @Param({"10", "1000", "100000"})
+        public int catalogSize;
+
+        @Param({"0.0", "0.5", "1.0"})
+        public double specialDensity;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            load(catalogSize <= 1000 ? letterSkus(catalogSize) : multiCharacterSkus(catalogSize), specialDensity);
+        }
+
+        private static String[] multiCharacterSkus(int count) {
+            val skus = new String[count];
+            for (var i = 0; i < count; i++) {
+                skus[i] = String.format("SKU-%06d", i);
+            }
+            return skus;
+        }
+    }
+
+    public abstract static class BasketSet {
+        public String basket;
+
+        void load(RuleSet rules, int basketLength) {
+            val delimited = rules.skus[0].length() > 1;
+            val builder = new StringBuilder(basketLength);
+            for (var i = 0; i < basketLength; i++) {
+                if (delimited && i > 0) builder.append(',');
+                builder.append(rules.skus[rules.random.nextInt(rules.skus.length)]);
+            }
+            basket = builder.toString();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Basket extends BasketSet {
+        @Param({"1", "1000", "1000000"})
+        public int basketLength;
+
+        public Map<String, List<String>> parsedBasket;
+
+        @Setup(Level.Trial)
+        public void setUp(Rules rules) {
+            load(rules, basketLength);
+            parsedBasket = rules.inputService.parseBasket(basket);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CatalogBasket extends BasketSet {
+        @Param({"1", "1000", "1000000"})
+        public int basketLength;
+
+        public BasketCounts basketCounts;
+        public BasketCounts reusedCounts;
+
+        @Setup(Level.Trial)
+        public void setUp(CatalogRules rules) {
+            load(rules, basketLength);
+            basketCounts = rules.inputService.parseBasket(basket, rules.catalog);
+            reusedCounts = new BasketCounts(rules.catalog.size());
+        }
+    }
+
+    @Benchmark
+    public Set<PricingRule> parseRules(CatalogRules rules) {
+        return rules.pricingRuleService.parseRules(rules.rulesArray);
+    }
+
+    @Benchmark
+    public PricingCatalog compileRules(CatalogRules rules) {
+        return rules.pricingRuleService.compileRules(rules.parsedRules);
+    }
+
+    @Benchmark
+    public boolean validatePricingRules(CatalogRules rules) {
+        return rules.inputService.validatePricingRules(rules.rules);
+    }
+
+    @Benchmark
+    public boolean validateBasket(Rules rules, Basket basket) {
+        return rules.inputService.validateBasket(basket.basket, rules.parsedRules);
+    }
+
+    @Benchmark
+    public boolean validateBasketWithCatalog(CatalogRules rules, CatalogBasket basket) {
+        return rules.inputService.validateBasket(basket.basket, rules.catalog);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parseBasket(Rules rules, Basket basket) {
+        return rules.inputService.parseBasket(basket.basket);
+    }
+
+    @Benchmark
+    public BasketCounts parseBasketCounts(CatalogRules rules, CatalogBasket basket) {
+        return rules.inputService.parseBasket(basket.basket, rules.catalog);
+    }
+
+    @Benchmark
+    public BasketCounts parseBasketCountsInto(CatalogRules rules, CatalogBasket basket) {
+        return rules.inputService.parseBasket(basket.basket, rules.catalog, basket.reusedCounts);
+    }
+
+    @Benchmark
+    public double calculateTotal(Rules rules, Basket basket) {
+        return rules.inputService.calculateTotal(basket.parsedBasket, rules.parsedRules);
+    }
+
+    @Benchmark
+    public double calculateTotalWithCatalog(Rules rules, Basket basket) {
+        return rules.inputService.calculateTotal(basket.parsedBasket, rules.catalog);
+    }
+
+    @Benchmark
+    public double calculateTotalWithCounts(CatalogRules rules, CatalogBasket basket) {
+        return rules.inputService.calculateTotal(basket.basketCounts, rules.catalog);
+    }
+}
@@ -0,0 +1,92 @@
+package com.checkout;
+
+import lombok.val;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.String.format;
+
+/**
+ * Command-line options of the form <code>--name value</code>, or <code>--name</code> for a flag.
+ */
+public class CommandLineOptions {
+    private final Map<String, String> values;
+
+    private CommandLineOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static CommandLineOptions parse(String... args) {
+        val values = new HashMap<String, String>();
+        for (var i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException(format("Unexpected argument '%s'", args[i]));
+            }
+            val name = args[i].substring(2);
+            val hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            values.put(name, hasValue ? args[++i] : "true");
+        }
+        return new CommandLineOptions(values);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public Optional<String> get(String name) {
+        return Optional.ofNullable(values.get(name));
+    }
+
+    public Optional<Path> getPath(String name) {
+        return get(name).map(Paths::get);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        try {
+            return get(name).map(value -> parseInt(value)).orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Option --%s must be a number", name), e);
+        }
+    }
+
+    public long getLong(String name, long defaultValue) {
+        try {
+            return get(name).map(value -> parseLong(value)).orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Option --%s must be a number", name), e);
+        }
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        try {
+            return get(name).map(value -> parseDouble(value)).orElse(defaultValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Option --%s must be a number", name), e);
+        }
+    }
+
+    /**
+     * @return The option as an instant, given as an ISO-8601 date-time with an offset, e.g. <code>2026-06-06T12:00Z</code>.
+     */
+    public Optional<Instant> getInstant(String name) {
+        try {
+            return get(name).map(value -> OffsetDateTime.parse(value).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(format("Option --%s must be a date-time with an offset, e.g. 2026-06-06T12:00Z", name), e);
+        }
+    }
+}
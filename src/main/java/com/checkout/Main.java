@@ -1,32 +1,373 @@
 package com.checkout;
 
+import com.checkout.cache.BasketTotalCache;
+import com.checkout.journal.JournalReplayer;
+import com.checkout.journal.JournalWriter;
+import com.checkout.load.LoadGenerator;
+import com.checkout.load.LoadReportFile;
+import com.checkout.load.SyntheticWorkload;
+import com.checkout.load.WorkloadProfile;
+import com.checkout.metrics.PricingMetrics;
+import com.checkout.model.BasketStage;
+import com.checkout.model.CatalogRegistry;
+import com.checkout.model.CatalogSnapshot;
+import com.checkout.model.LoadReport;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingTimeline;
+import com.checkout.model.SkuCountHistogram;
+import com.checkout.render.MoneyFormat;
+import com.checkout.render.ReceiptRenderer;
+import com.checkout.server.PricingHttpServer;
+import com.checkout.service.InputService;
+import com.checkout.service.impl.AggregatePricingServiceImpl;
+import com.checkout.service.impl.BatchPricingServiceImpl;
+import com.checkout.service.impl.CachingInputService;
 import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.JournalingInputService;
+import com.checkout.service.impl.ParallelBatchPricingServiceImpl;
 import com.checkout.service.impl.PricingRuleServiceImpl;
+import com.checkout.service.impl.TracingInputService;
+import com.checkout.service.impl.WatchingPricingCatalogSource;
+import com.checkout.trace.PricingTracer;
 import lombok.val;
 
-import java.util.Locale;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static java.lang.String.format;
-import static java.text.NumberFormat.getCurrencyInstance;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 public class Main {
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final long JOURNAL_SYNC_MILLIS = 100;
+    private static final int TRACE_SAMPLE_RATE = 1024;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        val options = CommandLineOptions.parse(args);
+        PricingMetrics.registerMBeans();
+        if (options.has("metrics-log")) {
+            PricingMetrics.startLogging(options.getInt("metrics-log", 60), System.err);
+        }
+
+        if (options.has("load-test")) {
+            runLoadTest(options);
+        } else if (options.has("aggregate")) {
+            runAggregate(options);
+        } else if (options.has("compile-snapshot")) {
+            runCompileSnapshot(options);
+        } else if (options.has("serve")) {
+            runServer(options);
+        } else if (options.has("replay")) {
+            runReplay(options);
+        } else if (options.has("rules") || options.has("snapshot")) {
+            runBatch(options);
+        } else {
+            runInteractive(options);
+        }
+    }
+
+    private static void runInteractive(CommandLineOptions options) throws IOException {
         val pricingRuleService = new PricingRuleServiceImpl();
-        val inputService = new InputServiceImpl();
+        val inputService = createInputService(options, null);
+        val receiptRenderer = new ReceiptRenderer();
+        val receipt = new StringBuilder(1024);
+        val out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), UTF_8), IO_BUFFER_SIZE);
         do {
             val pricingRules = inputService.loadPricingRules();
             val parsedRules = pricingRuleService.parseRules(pricingRules.split(";"));
+            val catalog = pricingRuleService.compileTimeline(parsedRules).current();
 
-            pricingRuleService.printRules(parsedRules);
+            pricingRuleService.printCatalog(catalog);
 
-            val basketItems = inputService.loadBasket(parsedRules);
-            val parsedBasket = inputService.parseBasket(basketItems);
-            val checkoutTotal = inputService.calculateTotal(parsedBasket, parsedRules);
+            val basketItems = inputService.loadBasket(catalog);
+            val parsedBasket = inputService.parseBasket(basketItems, catalog);
+            val checkoutTotal = inputService.calculateTotalMinor(parsedBasket, catalog);
 
-            val currency = getCurrencyInstance(Locale.UK);
-            System.out.println(format("The checkout total for the basket %s is: %s", basketItems, currency.format(checkoutTotal)));
+            receipt.setLength(0);
+            receiptRenderer.render(parsedBasket, catalog, checkoutTotal, receipt)
+                    .append("The checkout total for the basket ").append(basketItems).append(" is: ");
+            MoneyFormat.append(receipt, checkoutTotal).append('\n');
+            out.append(receipt);
+            out.flush();
 
         } while (inputService.stop());
     }
+
+    /**
+     * Price baskets one per line from <code>--baskets</code> (default stdin) against the rules in <code>--rules</code> or <code>--snapshot</code>,
+     * writing one total per line to <code>--totals</code> (default stdout). With <code>--threads</code> greater than one,
+     * baskets are priced in chunks of <code>--chunk-size</code> characters with at most <code>--in-flight</code> chunks outstanding.
+     * With <code>--receipts</code>, an itemised receipt of each basket is written instead of its total.
+     */
+    private static void runBatch(CommandLineOptions options) throws IOException {
+        val pricingRuleService = new PricingRuleServiceImpl();
+        val cache = createCache(options);
+        val inputService = createInputService(options, cache);
+        val threads = options.getInt("threads", 1);
+        val receipts = options.has("receipts");
+        val batchPricingService = threads > 1
+                ? new ParallelBatchPricingServiceImpl(inputService, threads,
+                        options.getInt("chunk-size", ParallelBatchPricingServiceImpl.DEFAULT_CHUNK_SIZE), options.getInt("in-flight", threads * 4), receipts)
+                : new BatchPricingServiceImpl(inputService, receipts);
+
+        val catalog = loadCatalog(options, pricingRuleService);
+
+        try (Reader baskets = openBaskets(options); Writer totals = openTotals(options)) {
+            val report = batchPricingService.priceBaskets(baskets, totals, catalog);
+            System.err.println(report.getFormattedSummary());
+            if (nonNull(cache)) {
+                System.err.println(cache.getFormattedSummary());
+            }
+        }
+    }
+
+    /**
+     * Reprice the transactions journaled in <code>--replay</code> against the rules in <code>--rules</code> or <code>--snapshot</code>,
+     * writing the old total, new total and delta of each to <code>--totals</code> (default stdout). Rules with validity windows are applied
+     * as they were in effect when each transaction was journaled. With <code>--store</code>, every transaction is repriced against that store's catalog
+     * at <code>--at</code> (default now).
+     */
+    private static void runReplay(CommandLineOptions options) throws IOException {
+        val pricingRuleService = new PricingRuleServiceImpl();
+        val timeline = options.has("store") ? PricingTimeline.of(loadCatalog(options, pricingRuleService)) : loadTimeline(options, pricingRuleService);
+        try (Writer totals = openTotals(options)) {
+            val report = new JournalReplayer(new InputServiceImpl()).replay(options.getPath("replay").orElseThrow(), timeline, totals);
+            System.err.println(report.getFormattedSummary());
+        }
+    }
+
+    /**
+     * Count the baskets in the comma-separated files of <code>--baskets</code> (default stdin) against the rules in <code>--rules</code> or
+     * <code>--snapshot</code>, then write the revenue of those baskets under those rules and under each of the comma-separated rules files
+     * of <code>--candidates</code> to <code>--totals</code> (default stdout), with the change from the first.
+     */
+    private static void runAggregate(CommandLineOptions options) throws IOException {
+        val pricingRuleService = new PricingRuleServiceImpl();
+        val aggregatePricingService = new AggregatePricingServiceImpl();
+        val catalog = loadCatalog(options, pricingRuleService);
+
+        val start = System.nanoTime();
+        val histogram = new SkuCountHistogram(catalog);
+        val basketFiles = options.get("baskets");
+        if (basketFiles.isPresent()) {
+            for (val file : basketFiles.get().split(",")) {
+                try (val baskets = Files.newBufferedReader(Paths.get(file), UTF_8)) {
+                    aggregatePricingService.addBaskets(baskets, histogram);
+                }
+            }
+        } else {
+            try (val baskets = openBaskets(options)) {
+                aggregatePricingService.addBaskets(baskets, histogram);
+            }
+        }
+        val counted = System.nanoTime();
+
+        val names = new ArrayList<String>();
+        val candidates = new ArrayList<PricingCatalog>();
+        names.add(options.get("rules").orElse(options.get("snapshot").orElse("rules")));
+        candidates.add(catalog);
+        for (val file : options.get("candidates").map(files -> files.split(",")).orElse(new String[0])) {
+            names.add(file);
+            candidates.add(pricingRuleService.loadCatalog(Paths.get(file)));
+        }
+        val reports = aggregatePricingService.price(histogram, candidates);
+
+        try (Writer totals = openTotals(options)) {
+            val baseline = reports.get(0).getRevenueMinor();
+            for (var i = 0; i < reports.size(); i++) {
+                val report = reports.get(i);
+                totals.write(format("%s\t%s\t%s\t%d%n", names.get(i), MoneyFormat.format(report.getRevenueMinor()),
+                        MoneyFormat.format(report.getRevenueMinor() - baseline), report.getUnpricedItems()));
+            }
+        }
+        System.err.println(format("Counted %d baskets (%d invalid) into %d SKU counts in %d ms, priced %d rule sets in %d ms",
+                histogram.getBaskets(), histogram.getInvalidBaskets(), histogram.getDistinctPairs(), (counted - start) / 1_000_000,
+                candidates.size(), (System.nanoTime() - counted) / 1_000_000));
+    }
+
+    /**
+     * Generate a synthetic workload and drive it through the pricing path on <code>--lanes</code> threads for <code>--warmup</code> and then
+     * <code>--duration</code> seconds, printing a summary and writing a report to <code>--report</code> if given. With <code>--baseline</code>,
+     * the results are also compared with an earlier report.
+     */
+    private static void runLoadTest(CommandLineOptions options) throws IOException {
+        val profile = WorkloadProfile.builder()
+                .seed(options.getLong("seed", 42))
+                .skus(options.getInt("skus", 10_000))
+                .zipfExponent(options.getDouble("zipf", 1.0))
+                .specialCoverage(options.getDouble("special-coverage", 0.3))
+                .multiOfferCoverage(options.getDouble("multi-offer-coverage", 0.1))
+                .bundles(options.getInt("bundles", 0))
+                .basketLength(WorkloadProfile.BasketLength.valueOf(options.get("basket-length").orElse("geometric").toUpperCase()))
+                .meanBasketLength(options.getInt("mean-basket-length", 12))
+                .invalidBaskets(options.getDouble("invalid-baskets", 0))
+                .baskets(options.getInt("distinct-baskets", 10_000))
+                .build();
+        val workload = SyntheticWorkload.generate(profile);
+        val catalog = new PricingRuleServiceImpl().loadCatalog(new StringReader(workload.getRules()));
+        System.err.println(format("Generated %s", profile.getFormattedSummary()));
+
+        val generator = new LoadGenerator(new InputServiceImpl(), options.getInt("lanes", Runtime.getRuntime().availableProcessors()),
+                options.getInt("warmup", 5) * 1000L, options.getInt("duration", 30) * 1000L);
+        final LoadReport report;
+        try {
+            report = generator.run(workload, catalog);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.err.println(report.getFormattedSummary());
+
+        val baseline = options.getPath("baseline");
+        if (baseline.isPresent()) System.err.print(LoadReportFile.compare(LoadReportFile.read(baseline.get()), report));
+        val reportFile = options.getPath("report");
+        if (reportFile.isPresent()) LoadReportFile.write(report, reportFile.get());
+    }
+
+    /**
+     * Compile and validate the rules in <code>--rules</code> into a catalog snapshot at <code>--compile-snapshot</code>,
+     * which later runs can load with <code>--snapshot</code> instead of parsing the rules again.
+     */
+    private static void runCompileSnapshot(CommandLineOptions options) throws IOException {
+        val started = System.nanoTime();
+        val catalog = new PricingRuleServiceImpl().loadCatalog(options.getPath("rules").orElseThrow(() -> new IllegalArgumentException("--compile-snapshot requires --rules")));
+        val snapshot = options.getPath("compile-snapshot").orElseThrow();
+        CatalogSnapshot.write(catalog, snapshot);
+        System.err.println(format("Compiled %d SKUs and %d bundles to %s in %d ms", catalog.size(), catalog.getBundleCount(), snapshot,
+                (System.nanoTime() - started) / 1_000_000));
+    }
+
+    /**
+     * Load the catalog from the snapshot in <code>--snapshot</code>, verifying its checksum unless <code>--skip-checksum</code> is given,
+     * or otherwise compile it from the rules in <code>--rules</code>, as in effect at <code>--at</code> (default now). With <code>--store</code>,
+     * the rules of that store in the <code>--stores</code> directory override the catalog.
+     */
+    private static PricingCatalog loadCatalog(CommandLineOptions options, PricingRuleServiceImpl pricingRuleService) throws IOException {
+        val timeline = loadTimeline(options, pricingRuleService);
+        val at = options.getInstant("at");
+        val base = at.isPresent() ? timeline.catalogAt(at.get()) : timeline.current();
+        if (!options.has("store")) return base;
+
+        val store = options.get("store").orElseThrow(() -> new IllegalArgumentException("--store requires a store id"));
+        val stores = options.getPath("stores").orElseThrow(() -> new IllegalArgumentException("--store requires --stores"));
+        return new CatalogRegistry(base).register(store, pricingRuleService.loadCatalog(stores.resolve(store + ".txt")));
+    }
+
+    /**
+     * Load the snapshot in <code>--snapshot</code> as a timeline of one version, or otherwise compile the rules in <code>--rules</code>,
+     * which may have validity windows. The basket discounts in <code>--discounts</code>, if given, are compiled into every version.
+     */
+    private static PricingTimeline loadTimeline(CommandLineOptions options, PricingRuleServiceImpl pricingRuleService) throws IOException {
+        val snapshot = options.getPath("snapshot");
+        val timeline = snapshot.isPresent()
+                ? PricingTimeline.of(CatalogSnapshot.load(snapshot.get(), !options.has("skip-checksum")))
+                : pricingRuleService.loadTimeline(options.getPath("rules").orElseThrow(() -> new IllegalArgumentException("Either --rules or --snapshot is required")));
+        return timeline.withStages(loadStages(options, pricingRuleService));
+    }
+
+    private static List<BasketStage> loadStages(CommandLineOptions options, PricingRuleServiceImpl pricingRuleService) throws IOException {
+        val discounts = options.getPath("discounts");
+        return discounts.isPresent() ? pricingRuleService.loadStages(discounts.get()) : Collections.emptyList();
+    }
+
+    /**
+     * Serve pricing over HTTP on port <code>--serve</code>, with the rules in <code>--rules</code> reloaded whenever the file changes.
+     * With <code>--stores</code>, requests can select the catalog of a store whose rules are in that directory, which are reloaded likewise.
+     * The basket discounts in <code>--discounts</code>, if given, are compiled into every catalog. The basket total cache holds the totals of one catalog at a time, so it cannot be combined with stores.
+     * Nor can the journal, which records the whole catalog again whenever consecutive transactions are priced against different catalogs.
+     */
+    private static void runServer(CommandLineOptions options) throws IOException {
+        val stores = options.getPath("stores").orElse(null);
+        if (nonNull(stores) && options.has("cache-size")) throw new IllegalArgumentException("--cache-size cannot be combined with --stores");
+        if (nonNull(stores) && options.has("journal")) throw new IllegalArgumentException("--journal cannot be combined with --stores");
+
+        val inputService = createInputService(options, createCache(options));
+        val pricingRuleService = new PricingRuleServiceImpl();
+        val catalogSource = new WatchingPricingCatalogSource(options.getPath("rules").orElseThrow(() -> new IllegalArgumentException("--serve requires --rules")),
+                stores, loadStages(options, pricingRuleService), inputService, pricingRuleService);
+        catalogSource.start();
+
+        val threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        val server = new PricingHttpServer(options.getInt("serve", 8080), threads, options.getInt("queue", threads * 64), inputService, catalogSource);
+        server.start();
+        System.err.println(format("Serving pricing on port %d with %d worker threads", server.getPort(), threads));
+    }
+
+    /**
+     * With <code>--cache-size</code>, memoize the totals of up to that many distinct baskets, otherwise price every basket.
+     */
+    private static BasketTotalCache createCache(CommandLineOptions options) {
+        if (!options.has("cache-size")) return null;
+
+        val cache = new BasketTotalCache(options.getInt("cache-size", 0));
+        cache.registerMBean();
+        return cache;
+    }
+
+    /**
+     * With <code>--journal</code>, record every priced transaction in that directory. The journal is synced in the background and closed on exit.
+     * With <code>--trace</code>, explain how sampled and selected baskets were priced in that file.
+     */
+    private static InputService createInputService(CommandLineOptions options, BasketTotalCache cache) throws IOException {
+        val inputService = createJournalingInputService(options, cache);
+        val traceFile = options.getPath("trace");
+        if (traceFile.isEmpty()) return inputService;
+
+        val selectedIds = options.get("trace-baskets").map(ids -> List.of(ids.split(","))).orElse(Collections.emptyList());
+        val tracer = new PricingTracer(traceFile.get(), options.getInt("trace-capacity", PricingTracer.DEFAULT_CAPACITY),
+                options.getInt("trace-sample-rate", selectedIds.isEmpty() ? TRACE_SAMPLE_RATE : 0), selectedIds, PricingTracer.DEFAULT_DRAIN_MILLIS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                tracer.close();
+                if (tracer.getDropped() > 0) System.err.println(format("Pricing trace dropped %d baskets", tracer.getDropped()));
+            } catch (IOException e) {
+                System.err.println(format("Could not close pricing trace: %s", e.getMessage()));
+            }
+        }));
+        return new TracingInputService(inputService, tracer);
+    }
+
+    private static InputService createJournalingInputService(CommandLineOptions options, BasketTotalCache cache) throws IOException {
+        val inputService = isNull(cache) ? new InputServiceImpl() : new CachingInputService(new InputServiceImpl(), cache);
+        val journalDirectory = options.getPath("journal");
+        if (journalDirectory.isEmpty()) return inputService;
+
+        val journal = new JournalWriter(journalDirectory.get(), JournalWriter.DEFAULT_SEGMENT_BYTES, JOURNAL_SYNC_MILLIS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println(format("Could not close journal: %s", e.getMessage()));
+            }
+        }));
+        return new JournalingInputService(inputService, journal);
+    }
+
+    private static Reader openBaskets(CommandLineOptions options) throws IOException {
+        val path = options.getPath("baskets");
+        val in = path.isPresent() ? Files.newInputStream(path.get()) : new FileInputStream(FileDescriptor.in);
+        return new InputStreamReader(new BufferedInputStream(in, IO_BUFFER_SIZE), UTF_8);
+    }
+
+    private static Writer openTotals(CommandLineOptions options) throws IOException {
+        val path = options.getPath("totals");
+        val out = path.isPresent() ? Files.newOutputStream(path.get()) : new FileOutputStream(FileDescriptor.out);
+        return new BufferedWriter(new OutputStreamWriter(out, UTF_8), IO_BUFFER_SIZE);
+    }
 }
@@ -0,0 +1,224 @@
+package com.checkout.cache;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.BasketKey;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+import static java.lang.String.format;
+
+/**
+ * A size-bounded, thread-safe cache of basket totals in minor units, keyed by the {@link BasketKey} of the basket's counts.
+ * <p>
+ * Entries are spread over independently locked segments, each evicting its least recently used entry once it is full,
+ * so concurrent lookups rarely contend. The cache is bound to a single {@link PricingCatalog}: the first lookup against a different
+ * catalog, for example after the rules are reloaded, discards every entry, so a stale total is never returned.
+ */
+public class BasketTotalCache implements BasketTotalCacheMXBean {
+    private static final String OBJECT_NAME = "com.checkout:type=BasketTotalCache";
+    private static final int DEFAULT_SEGMENTS = 16;
+    // A LinkedHashMap entry, its table slot and the boxed total
+    private static final int ENTRY_OVERHEAD_BYTES = 40 + 8 + 16;
+
+    private final long maximumSize;
+    private final int segmentMask;
+    private final int segmentCapacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile Generation generation;
+
+    /**
+     * @param maximumSize The maximum number of baskets to cache.
+     */
+    public BasketTotalCache(long maximumSize) {
+        this(maximumSize, DEFAULT_SEGMENTS);
+    }
+
+    BasketTotalCache(long maximumSize, int segments) {
+        if (maximumSize < 1) throw new IllegalArgumentException("Cache size must be at least 1");
+        if (segments < 1) throw new IllegalArgumentException("Segments must be at least 1");
+
+        val segmentCount = Math.min(Integer.highestOneBit(segments), Integer.highestOneBit((int) Math.min(maximumSize, 1 << 30)));
+        this.maximumSize = maximumSize;
+        this.segmentMask = segmentCount - 1;
+        this.segmentCapacity = (int) Math.min(Integer.MAX_VALUE, maximumSize / segmentCount);
+        this.generation = new Generation(null, segmentCount, segmentCapacity);
+    }
+
+    /**
+     * Look up the total of a basket, calculating and caching it on a miss.
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog} the basket is counted against.
+     * @param pricer Calculates the total of the basket on a miss.
+     * @return The total in minor units.
+     */
+    public long totalMinor(BasketCounts basket, PricingCatalog catalog, ToLongBiFunction<BasketCounts, PricingCatalog> pricer) {
+        val key = BasketKey.of(basket);
+        val segment = generationFor(catalog).segments[spread(key.hashCode()) & segmentMask];
+
+        synchronized (segment) {
+            val total = segment.get(key);
+            if (total != null) {
+                hits.increment();
+                return total;
+            }
+        }
+
+        // Price outside the lock; if two threads miss on the same basket concurrently, both calculate the same total
+        misses.increment();
+        val total = pricer.applyAsLong(basket, catalog);
+        synchronized (segment) {
+            if (segment.put(key, total) == null) segment.bytes += key.sizeInBytes() + ENTRY_OVERHEAD_BYTES;
+        }
+        return total;
+    }
+
+    private Generation generationFor(PricingCatalog catalog) {
+        val current = generation;
+        if (current.catalog == catalog) return current;
+
+        synchronized (this) {
+            if (generation.catalog != catalog) {
+                if (generation.catalog != null) invalidations.increment();
+                generation = new Generation(catalog, segmentMask + 1, segmentCapacity);
+            }
+            return generation;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        val hitCount = getHits();
+        val lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public long getSize() {
+        var size = 0L;
+        for (val segment : generation.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        var bytes = 0L;
+        for (val segment : generation.segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized void clear() {
+        generation = new Generation(generation.catalog, segmentMask + 1, segmentCapacity);
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        invalidations.reset();
+    }
+
+    /**
+     * Register this cache as a platform MBean named <code>com.checkout:type=BasketTotalCache</code>, replacing any previous one.
+     */
+    public void registerMBean() {
+        val server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            val name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register basket total cache MBean", e);
+        }
+    }
+
+    public String getFormattedSummary() {
+        return format("Basket total cache: %d hits, %d misses (%.1f%% hit ratio), %d evictions, %d invalidations, %d entries, ~%d KB",
+                getHits(), getMisses(), getHitRatio() * 100, getEvictions(), getInvalidations(), getSize(), getEstimatedBytes() / 1024);
+    }
+
+    /**
+     * The cached totals for a single {@link PricingCatalog}.
+     */
+    private final class Generation {
+        private final PricingCatalog catalog;
+        private final Segment[] segments;
+
+        private Generation(PricingCatalog catalog, int segmentCount, int segmentCapacity) {
+            this.catalog = catalog;
+            this.segments = new Segment[segmentCount];
+            for (var i = 0; i < segmentCount; i++) {
+                segments[i] = new Segment(segmentCapacity);
+            }
+        }
+    }
+
+    /**
+     * An access-ordered map that evicts its least recently used entry once it holds more than its capacity. Guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<BasketKey, Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private long bytes;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BasketKey, Long> eldest) {
+            if (size() <= capacity) return false;
+
+            bytes -= eldest.getKey().sizeInBytes() + ENTRY_OVERHEAD_BYTES;
+            evictions.increment();
+            return true;
+        }
+    }
+}
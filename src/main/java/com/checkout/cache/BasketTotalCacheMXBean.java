@@ -0,0 +1,40 @@
+package com.checkout.cache;
+
+/**
+ * The JMX view of a {@link BasketTotalCache}.
+ */
+public interface BasketTotalCacheMXBean {
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * @return The fraction of lookups that were hits, from <code>0</code> to <code>1</code>.
+     */
+    double getHitRatio();
+
+    /**
+     * @return The number of entries evicted to keep the cache within its maximum size.
+     */
+    long getEvictions();
+
+    /**
+     * @return The number of times the cache was emptied because the pricing rules changed.
+     */
+    long getInvalidations();
+
+    long getSize();
+
+    long getMaximumSize();
+
+    /**
+     * @return An estimate of the heap used by the cached entries, in bytes.
+     */
+    long getEstimatedBytes();
+
+    /**
+     * Empty the cache and reset its counters.
+     */
+    void clear();
+}
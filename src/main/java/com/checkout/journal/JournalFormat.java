@@ -0,0 +1,31 @@
+package com.checkout.journal;
+
+/**
+ * The layout of a journal segment. Varints are encoded as by {@link com.checkout.model.Varints}.
+ * <p>
+ * A segment starts with {@link #MAGIC}, followed by records that each start with a type byte:
+ * <ul>
+ *     <li>{@link #CATALOG}: the 8-byte catalog fingerprint, the varint number of SKUs, then each SKU as a varint length and UTF-8 bytes, in id order.
+ *     Every following transaction was priced against this catalog.</li>
+ *     <li>{@link #TRANSACTION}: the varint total in minor units, the varint length of the basket, then the basket's
+ *     {@link com.checkout.model.BasketKey} encoding of sorted id deltas and counts.</li>
+ *     <li>{@link #TIME}: the varint time in seconds since the epoch. Every following transaction was priced within that second.</li>
+ * </ul>
+ * Each segment repeats the current catalog and time records first, so segments can be read independently. Segments written before time
+ * records were added have none.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x434B4A31; // "CKJ1"
+    static final byte CATALOG = 'C';
+    static final byte TRANSACTION = 'T';
+    static final byte TIME = 'S';
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".ckj";
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,218 @@
+package com.checkout.journal;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingTimeline;
+import com.checkout.model.ReplayReport;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.checkout.journal.JournalFormat.CATALOG;
+import static com.checkout.journal.JournalFormat.MAGIC;
+import static com.checkout.journal.JournalFormat.SEGMENT_PREFIX;
+import static com.checkout.journal.JournalFormat.SEGMENT_SUFFIX;
+import static com.checkout.journal.JournalFormat.TIME;
+import static com.checkout.journal.JournalFormat.TRANSACTION;
+import static com.checkout.model.PricingCatalog.UNKNOWN_SKU;
+import static com.checkout.model.Varints.readVarint;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reprices every transaction in a journal directory against a new {@link PricingCatalog}.
+ * Each segment is memory-mapped and decoded in place; SKUs are mapped from the ids of the catalog each transaction was priced against
+ * to the ids of the new catalog once per catalog record, so repricing a transaction costs one array lookup per distinct SKU.
+ * <p>
+ * For each transaction one line is written: <code>old,new,delta</code> in major units, or <code>old,UNPRICEABLE</code>
+ * if the basket contains a SKU that is not in the new catalog. A truncated record at the end of the last segment, as left by a crash
+ * before a sync, ends the replay; earlier segments were complete before the next was started, so one truncated there is corrupt.
+ * <p>
+ * Against a {@link PricingTimeline}, each transaction is repriced against the version in effect in the second it was journaled.
+ * Every version shares the SKU ids of the timeline's permanent catalog, so the id mapping is unchanged and the version is only looked up
+ * when the journaled time changes. Transactions journaled without a time are repriced against the version in effect when the replay starts.
+ */
+public class JournalReplayer {
+    public static final String UNPRICEABLE = "UNPRICEABLE";
+
+    private final InputService inputService;
+
+    public JournalReplayer(InputService inputService) {
+        this.inputService = inputService;
+    }
+
+    /**
+     * @param directory The journal directory.
+     * @param catalog The new {@link PricingCatalog}.
+     * @param out Where to write the old and new total of each transaction.
+     * @return A {@link ReplayReport} of the aggregate change.
+     * @throws IOException If a segment cannot be read or the output cannot be written.
+     * @throws IllegalStateException If a segment is corrupt.
+     */
+    public ReplayReport replay(Path directory, PricingCatalog catalog, Writer out) throws IOException {
+        return replay(directory, PricingTimeline.of(catalog), out);
+    }
+
+    /**
+     * @param directory The journal directory.
+     * @param timeline The new {@link PricingTimeline}.
+     * @param out Where to write the old and new total of each transaction.
+     * @return A {@link ReplayReport} of the aggregate change.
+     * @throws IOException If a segment cannot be read or the output cannot be written.
+     * @throws IllegalStateException If a segment is corrupt.
+     */
+    public ReplayReport replay(Path directory, PricingTimeline timeline, Writer out) throws IOException {
+        val started = System.nanoTime();
+        val state = new State(timeline);
+        val line = new StringBuilder(64);
+
+        val segments = segments(directory);
+        for (var i = 0; i < segments.size(); i++) {
+            val segment = segments.get(i);
+            try (val channel = FileChannel.open(segment)) {
+                val mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                state.bytes += channel.size();
+                replaySegment(segment, mapped, i == segments.size() - 1, state, line, out);
+            }
+        }
+        out.flush();
+
+        return new ReplayReport(segments.size(), state.transactions, state.unpriceable, state.increased, state.decreased, state.unchanged,
+                state.oldTotal, state.newTotal, state.bytes, System.nanoTime() - started);
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        try (val files = Files.list(directory)) {
+            return files.filter(file -> {
+                        val name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(toList());
+        }
+    }
+
+    private void replaySegment(Path segment, ByteBuffer buffer, boolean last, State state, StringBuilder line, Writer out) throws IOException {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalStateException(format("%s is not a journal segment", segment));
+        }
+
+        state.idMap = null;
+        state.catalog = state.undated;
+        while (buffer.hasRemaining()) {
+            val recordStart = buffer.position();
+            try {
+                val type = buffer.get();
+                if (type == CATALOG) {
+                    readCatalog(buffer, state);
+                } else if (type == TRANSACTION) {
+                    if (state.idMap == null) throw corrupt(segment, recordStart, "transaction before catalog");
+                    replayTransaction(buffer, state, line, out);
+                } else if (type == TIME) {
+                    state.catalog = state.timeline.catalogAt(readVarint(buffer) * 1000L);
+                } else {
+                    throw corrupt(segment, recordStart, "unknown record type " + type);
+                }
+            } catch (BufferUnderflowException e) {
+                if (!last) throw corrupt(segment, recordStart, "truncated record");
+                return;
+            }
+        }
+    }
+
+    private static IllegalStateException corrupt(Path segment, int offset, String reason) {
+        return new IllegalStateException(format("Corrupt journal segment %s at offset %d: %s", segment, offset, reason));
+    }
+
+    private static void readCatalog(ByteBuffer buffer, State state) {
+        buffer.getLong(); // fingerprint
+        val size = (int) readVarint(buffer);
+        val idMap = new int[size];
+        for (var id = 0; id < size; id++) {
+            val length = (int) readVarint(buffer);
+            val sku = new byte[length];
+            buffer.get(sku);
+            idMap[id] = state.timeline.getBase().idOf(new String(sku, UTF_8));
+        }
+        state.idMap = idMap;
+    }
+
+    private void replayTransaction(ByteBuffer buffer, State state, StringBuilder line, Writer out) throws IOException {
+        val oldTotal = readVarint(buffer);
+        val end = (int) readVarint(buffer) + buffer.position();
+        if (end > buffer.limit()) throw new BufferUnderflowException();
+
+        val counts = state.counts;
+        counts.clear();
+        var priceable = true;
+        var id = 0;
+        while (buffer.position() < end) {
+            id += (int) readVarint(buffer);
+            val count = (int) readVarint(buffer);
+            val newId = id < state.idMap.length ? state.idMap[id] : UNKNOWN_SKU;
+            if (newId == UNKNOWN_SKU) {
+                priceable = false;
+            } else if (priceable) {
+                counts.add(newId, count);
+            }
+        }
+
+        state.transactions++;
+        line.setLength(0);
+        appendMinor(line, oldTotal).append(',');
+        if (priceable) {
+            val newTotal = inputService.calculateTotalMinor(counts, state.catalog);
+            val delta = newTotal - oldTotal;
+            appendMinor(appendMinor(line, newTotal).append(','), delta);
+            state.oldTotal += oldTotal;
+            state.newTotal += newTotal;
+            if (delta > 0) state.increased++;
+            else if (delta < 0) state.decreased++;
+            else state.unchanged++;
+        } else {
+            line.append(UNPRICEABLE);
+            state.unpriceable++;
+        }
+        out.append(line.append('\n'));
+    }
+
+    // Format minor units as major units with two decimal places, without allocating
+    static StringBuilder appendMinor(StringBuilder builder, long minor) {
+        if (minor < 0) builder.append('-');
+        val magnitude = Math.abs(minor);
+        val fraction = magnitude % 100;
+        return builder.append(magnitude / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+    }
+
+    private static final class State {
+        private final PricingTimeline timeline;
+        private final PricingCatalog undated;
+        private final BasketCounts counts;
+        private PricingCatalog catalog;
+        private int[] idMap;
+        private long transactions;
+        private long unpriceable;
+        private long increased;
+        private long decreased;
+        private long unchanged;
+        private long oldTotal;
+        private long newTotal;
+        private long bytes;
+
+        private State(PricingTimeline timeline) {
+            this.timeline = timeline;
+            this.undated = timeline.current();
+            this.catalog = undated;
+            this.counts = new BasketCounts(timeline.getBase().size());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.checkout.journal;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.BasketKey;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.checkout.journal.JournalFormat.CATALOG;
+import static com.checkout.journal.JournalFormat.MAGIC;
+import static com.checkout.journal.JournalFormat.SEGMENT_PREFIX;
+import static com.checkout.journal.JournalFormat.SEGMENT_SUFFIX;
+import static com.checkout.journal.JournalFormat.TIME;
+import static com.checkout.journal.JournalFormat.TRANSACTION;
+import static com.checkout.journal.JournalFormat.segmentName;
+import static com.checkout.model.Varints.MAX_VARINT_BYTES;
+import static com.checkout.model.Varints.writeVarint;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends priced transactions to a directory of journal segments, in the layout described by {@link JournalFormat}.
+ * <p>
+ * Records are encoded by the calling thread and copied into a shared buffer, which is written to the segment's {@link FileChannel}
+ * when it fills. Durability uses group commit: {@link #sync(long)} forces the channel once for every record appended so far,
+ * so threads that sync concurrently share a single <code>fsync</code>. With a sync interval, a background thread also syncs periodically.
+ * A writer never appends to existing segments; it starts a new segment after the highest one in the directory.
+ */
+public class JournalWriter implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ScheduledExecutorService syncer;
+    private final Clock clock;
+    private final byte[] timeRecord = new byte[1 + MAX_VARINT_BYTES];
+    private int timeRecordLength;
+    private long second = Long.MIN_VALUE;
+    private FileChannel channel;
+    private int segmentIndex;
+    private long segmentPosition;
+    private PricingCatalog catalog;
+    private byte[] catalogRecord;
+    private long appended;
+    private long durable;
+    private boolean closed;
+
+    /**
+     * @param directory The journal directory, which is created if it does not exist.
+     * @param segmentBytes The size at which to start a new segment.
+     * @param syncIntervalMillis How often to sync in the background, or <code>0</code> to sync only on {@link #sync()} and {@link #close()}.
+     * @throws IOException If the directory or first segment cannot be created.
+     */
+    public JournalWriter(Path directory, long segmentBytes, long syncIntervalMillis) throws IOException {
+        this(directory, segmentBytes, syncIntervalMillis, Clock.systemUTC());
+    }
+
+    JournalWriter(Path directory, long segmentBytes, long syncIntervalMillis, Clock clock) throws IOException {
+        if (segmentBytes < BUFFER_SIZE) throw new IllegalArgumentException("Segment size must be at least " + BUFFER_SIZE + " bytes");
+
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.clock = clock;
+        this.segmentIndex = lastSegmentIndex(this.directory);
+        openSegment();
+
+        if (syncIntervalMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                val thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    private static int lastSegmentIndex(Path directory) throws IOException {
+        try (val files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .mapToInt(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    /**
+     * Append a priced transaction, with the second in which it was appended. The record is buffered, and is only durable once {@link #sync(long)} has returned for its sequence number.
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog} the basket was priced against.
+     * @param totalMinor The total in minor units.
+     * @return The sequence number of the record.
+     * @throws UncheckedIOException If the journal cannot be written.
+     */
+    public long append(BasketCounts basket, PricingCatalog catalog, long totalMinor) {
+        val key = BasketKey.of(basket);
+        val maxLength = 1 + 2 * MAX_VARINT_BYTES + key.length();
+        var record = SCRATCH.get();
+        if (record.length < maxLength) {
+            record = new byte[Math.max(maxLength, record.length * 2)];
+            SCRATCH.set(record);
+        }
+
+        record[0] = TRANSACTION;
+        var length = writeVarint(record, 1, totalMinor);
+        length = writeVarint(record, length, key.length());
+        length = key.writeTo(record, length);
+
+        synchronized (appendLock) {
+            try {
+                if (closed) throw new IllegalStateException("Journal is closed");
+                if (this.catalog != catalog) recordCatalog(catalog);
+                val now = Math.floorDiv(clock.millis(), 1000L);
+                if (now != second) recordTime(now);
+                if (segmentPosition + length > segmentBytes) rollSegment();
+                put(record, length);
+                return ++appended;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to journal " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Make every record appended so far durable.
+     * @throws UncheckedIOException If the journal cannot be written.
+     */
+    public void sync() {
+        long sequence;
+        synchronized (appendLock) {
+            sequence = appended;
+        }
+        sync(sequence);
+    }
+
+    /**
+     * Make the records up to a sequence number durable. If another thread is already syncing, this waits for it,
+     * and returns without forcing the channel again if that sync covered the sequence number.
+     * @param sequence The sequence number returned by {@link #append(BasketCounts, PricingCatalog, long)}.
+     * @throws UncheckedIOException If the journal cannot be written.
+     */
+    public void sync(long sequence) {
+        synchronized (syncLock) {
+            if (durable >= sequence) return;
+
+            try {
+                FileChannel target;
+                long upTo;
+                synchronized (appendLock) {
+                    drain();
+                    target = channel;
+                    upTo = appended;
+                }
+                try {
+                    target.force(false);
+                } catch (ClosedChannelException e) {
+                    // The segment was rolled or the journal closed, both of which force the channel first
+                }
+                durable = upTo;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync journal " + directory, e);
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * @return The number of records appended.
+     */
+    public long getAppended() {
+        synchronized (appendLock) {
+            return appended;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) syncer.shutdownNow();
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (closed) return;
+                closed = true;
+                drain();
+                channel.force(false);
+                channel.close();
+                durable = appended;
+            }
+        }
+    }
+
+    private void recordCatalog(PricingCatalog catalog) throws IOException {
+        val previous = this.catalog;
+        this.catalog = catalog;
+        // A catalog reloaded from unchanged rules needs no new record
+        if (previous != null && previous.getFingerprint() == catalog.getFingerprint()) return;
+
+        var size = 1 + 8 + MAX_VARINT_BYTES;
+        val skus = new byte[catalog.size()][];
+        for (var id = 0; id < skus.length; id++) {
+            skus[id] = catalog.getItem(id).getBytes(UTF_8);
+            size += MAX_VARINT_BYTES + skus[id].length;
+        }
+
+        val record = new byte[size];
+        record[0] = CATALOG;
+        ByteBuffer.wrap(record, 1, 8).putLong(catalog.getFingerprint());
+        var length = writeVarint(record, 9, skus.length);
+        for (val sku : skus) {
+            length = writeVarint(record, length, sku.length);
+            System.arraycopy(sku, 0, record, length, sku.length);
+            length += sku.length;
+        }
+        catalogRecord = Arrays.copyOf(record, length);
+
+        if (segmentPosition + length > segmentBytes) {
+            rollSegment();
+        } else {
+            put(catalogRecord, length);
+        }
+    }
+
+    private void recordTime(long second) throws IOException {
+        this.second = second;
+        timeRecord[0] = TIME;
+        timeRecordLength = writeVarint(timeRecord, 1, second);
+
+        if (segmentPosition + timeRecordLength > segmentBytes) {
+            rollSegment();
+        } else {
+            put(timeRecord, timeRecordLength);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        drain();
+        channel.force(false);
+        channel.close();
+        openSegment();
+        if (catalogRecord != null) put(catalogRecord, catalogRecord.length);
+        if (timeRecordLength > 0) put(timeRecord, timeRecordLength);
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(directory.resolve(segmentName(++segmentIndex)), CREATE_NEW, WRITE);
+        segmentPosition = 0;
+        buffer.putInt(MAGIC);
+        segmentPosition += Integer.BYTES;
+    }
+
+    private void put(byte[] record, int length) throws IOException {
+        if (length > buffer.remaining()) drain();
+        if (length > buffer.capacity()) {
+            write(ByteBuffer.wrap(record, 0, length));
+        } else {
+            buffer.put(record, 0, length);
+        }
+        segmentPosition += length;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
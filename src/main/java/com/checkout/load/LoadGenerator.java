@@ -0,0 +1,234 @@
+package com.checkout.load;
+
+import com.checkout.metrics.LatencyHistogram;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.LoadReport;
+import com.checkout.model.PricingCatalog;
+import com.checkout.render.MoneyFormat;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a {@link SyntheticWorkload} through the whole checkout pricing path on several simulated lanes, each a thread of its own:
+ * validating each basket, parsing it into counts, calculating its total and formatting the total for output, as a till does.
+ * Lanes cycle through the workload's baskets from different starting points for a warm-up period and then a measured period.
+ * During the measured period each lane records the latency of every basket, the baskets completed are sampled once per second
+ * to find the slowest and fastest intervals, and the bytes allocated by the lanes and the garbage collections are counted.
+ * <p>
+ * Every basket is also priced once on the calling thread before the lanes start, and the sum of the totals reported as a checksum,
+ * so reports from two builds can be checked to have priced the same workload the same way.
+ */
+public class LoadGenerator {
+    private static final int WARMUP = 0;
+    private static final int MEASURE = 1;
+    private static final int STOP = 2;
+    private static final long INTERVAL_MILLIS = 1000;
+
+    private final InputService inputService;
+    private final int lanes;
+    private final long warmupMillis;
+    private final long durationMillis;
+    private final LongAdder completed = new LongAdder();
+    private volatile int phase;
+
+    /**
+     * @param lanes The number of lanes, each priced on its own thread.
+     * @param warmupMillis How long to run before measuring.
+     * @param durationMillis How long to measure for.
+     * @throws IllegalArgumentException If there are no lanes or nothing is measured.
+     */
+    public LoadGenerator(InputService inputService, int lanes, long warmupMillis, long durationMillis) {
+        if (lanes < 1) throw new IllegalArgumentException("Load generator needs at least one lane");
+        if (warmupMillis < 0 || durationMillis < 1) throw new IllegalArgumentException("Load generator needs a measured duration");
+        this.inputService = inputService;
+        this.lanes = lanes;
+        this.warmupMillis = warmupMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Run the workload. Not reentrant; use one generator per run.
+     * @param workload The baskets to price.
+     * @param catalog The catalog compiled from the workload's rules.
+     * @return The {@link LoadReport} of the measured period.
+     * @throws InterruptedException If interrupted while the lanes are running, in which case they are stopped.
+     */
+    public LoadReport run(SyntheticWorkload workload, PricingCatalog catalog) throws InterruptedException {
+        val checksum = checksum(workload, catalog);
+
+        val running = new ArrayList<Lane>();
+        for (var lane = 0; lane < lanes; lane++) {
+            running.add(new Lane(lane, workload, catalog));
+        }
+        phase = WARMUP;
+        running.forEach(Thread::start);
+
+        try {
+            Thread.sleep(warmupMillis);
+            val gcCountBefore = gcCount();
+            val gcMillisBefore = gcMillis();
+            val start = System.nanoTime();
+            phase = MEASURE;
+
+            var minInterval = Double.MAX_VALUE;
+            var maxInterval = 0d;
+            var intervalStart = start;
+            var intervalCompleted = 0L;
+            val end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            for (var now = start; now < end; now = System.nanoTime()) {
+                Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(Math.min(end - now, TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS)))));
+                val time = System.nanoTime();
+                val total = completed.sum();
+                val rate = (total - intervalCompleted) * 1_000_000_000d / (time - intervalStart);
+                minInterval = Math.min(minInterval, rate);
+                maxInterval = Math.max(maxInterval, rate);
+                intervalStart = time;
+                intervalCompleted = total;
+            }
+            phase = STOP;
+            val elapsed = System.nanoTime() - start;
+            for (val lane : running) {
+                lane.join();
+            }
+            return report(workload, running, elapsed, minInterval, maxInterval, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore, checksum);
+        } finally {
+            phase = STOP;
+        }
+    }
+
+    private LoadReport report(SyntheticWorkload workload, ArrayList<Lane> lanes, long elapsedNanos, double minInterval, double maxInterval,
+                              long gcCount, long gcMillis, long checksum) {
+        val latencies = new LatencyHistogram();
+        var baskets = 0L;
+        var invalid = 0L;
+        var allocated = 0L;
+        for (val lane : lanes) {
+            if (lane.failure != null) throw new IllegalStateException("Lane " + lane.getName() + " failed", lane.failure);
+            latencies.add(lane.latencies);
+            baskets += lane.baskets;
+            invalid += lane.invalid;
+            allocated = allocated < 0 || lane.allocatedBytes < 0 ? -1 : allocated + lane.allocatedBytes;
+        }
+        return new LoadReport(workload.getProfile().getFormattedSummary(), lanes.size(), baskets, invalid, elapsedNanos, minInterval, maxInterval,
+                latencies.percentile(50), latencies.percentile(90), latencies.percentile(99), latencies.percentile(99.9), latencies.percentile(100),
+                allocated, gcCount, gcMillis, checksum);
+    }
+
+    private long checksum(SyntheticWorkload workload, PricingCatalog catalog) {
+        var checksum = 0L;
+        val counts = new BasketCounts(catalog.size());
+        for (var i = 0; i < workload.getBasketCount(); i++) {
+            val basket = workload.getBasket(i);
+            if (inputService.validateBasket(basket, catalog)) {
+                checksum = Math.addExact(checksum, inputService.calculateTotalMinor(inputService.parseBasket(basket, catalog, counts), catalog));
+            }
+        }
+        return checksum;
+    }
+
+    private static long gcCount() {
+        var count = 0L;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        var millis = 0L;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    // The bytes allocated by the current thread, or -1 if the JVM cannot measure it
+    private static long allocatedBytes() {
+        val threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+
+        val allocation = (com.sun.management.ThreadMXBean) threads;
+        if (!allocation.isThreadAllocatedMemorySupported() || !allocation.isThreadAllocatedMemoryEnabled()) return -1;
+        return allocation.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private final class Lane extends Thread {
+        private final SyntheticWorkload workload;
+        private final PricingCatalog catalog;
+        private final BasketCounts counts;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final StringBuilder output = new StringBuilder(32);
+        private final Writer sink = Writer.nullWriter();
+        private char[] scratch = new char[32];
+        private int next;
+        private long baskets;
+        private long invalid;
+        private long allocatedBytes;
+        private Throwable failure;
+
+        private Lane(int lane, SyntheticWorkload workload, PricingCatalog catalog) {
+            super("load-lane-" + (lane + 1));
+            setDaemon(true);
+            this.workload = workload;
+            this.catalog = catalog;
+            this.counts = new BasketCounts(catalog.size());
+            this.next = (int) ((long) workload.getBasketCount() * lane / lanes);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (phase == WARMUP) {
+                    price(nextBasket());
+                }
+
+                val allocatedBefore = allocatedBytes();
+                while (phase == MEASURE) {
+                    val basket = nextBasket();
+                    val start = System.nanoTime();
+                    val valid = price(basket);
+                    latencies.record(System.nanoTime() - start);
+                    baskets++;
+                    if (!valid) invalid++;
+                    completed.increment();
+                }
+                val allocatedAfter = allocatedBytes();
+                allocatedBytes = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+        }
+
+        private String nextBasket() {
+            val basket = workload.getBasket(next);
+            next = next + 1 == workload.getBasketCount() ? 0 : next + 1;
+            return basket;
+        }
+
+        private boolean price(String basket) {
+            if (!inputService.validateBasket(basket, catalog)) return false;
+
+            val total = inputService.calculateTotalMinor(inputService.parseBasket(basket, catalog, counts), catalog);
+            output.setLength(0);
+            MoneyFormat.append(output, total).append('\n');
+            val length = output.length();
+            if (scratch.length < length) scratch = new char[length];
+            output.getChars(0, length, scratch, 0);
+            try {
+                sink.write(scratch, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.checkout.load;
+
+import com.checkout.model.LoadReport;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes {@link LoadReport}s as plain <code>name=value</code> lines in a fixed order, headed by a comment describing the workload,
+ * so that reports from two builds can be compared with <code>diff</code> or with {@link #compare(Map, LoadReport)}.
+ */
+public final class LoadReportFile {
+    private static final String COMMENT = "#";
+
+    private LoadReportFile() {
+    }
+
+    /**
+     * Write a report, replacing any file already at the path.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(LoadReport report, Path file) throws IOException {
+        val text = new StringBuilder();
+        text.append(COMMENT).append(' ').append(report.getWorkload()).append('\n');
+        for (val metric : report.getMetrics().entrySet()) {
+            text.append(metric.getKey()).append('=').append(metric.getValue()).append('\n');
+        }
+
+        val temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, text.toString().getBytes(UTF_8));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The metrics of a report file, in the order they were written.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a line is not a comment or a numeric <code>name=value</code> pair.
+     */
+    public static Map<String, Double> read(Path file) throws IOException {
+        final Map<String, Double> metrics = new LinkedHashMap<>();
+        for (val line : Files.readAllLines(file, UTF_8)) {
+            if (line.isBlank() || line.startsWith(COMMENT)) continue;
+
+            val separator = line.indexOf('=');
+            try {
+                if (separator < 1) throw new NumberFormatException();
+                metrics.put(line.substring(0, separator).trim(), Double.parseDouble(line.substring(separator + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(format("Invalid line '%s' in load report %s", line, file), e);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @param baseline The metrics of an earlier report, as read by {@link #read(Path)}.
+     * @param report The report to compare with it.
+     * @return One line per metric in both, with the baseline value, the new value and the change in percent, and a warning if the totals differ.
+     */
+    public static String compare(Map<String, Double> baseline, LoadReport report) {
+        val comparison = new StringBuilder();
+        for (val metric : report.getMetrics().entrySet()) {
+            val before = baseline.get(metric.getKey());
+            if (before == null) continue;
+
+            val after = metric.getValue().doubleValue();
+            comparison.append(format("%-28s %16.0f %16.0f", metric.getKey(), before, after));
+            if (before != 0) comparison.append(format(" %+8.1f%%", (after - before) * 100 / Math.abs(before)));
+            comparison.append('\n');
+        }
+
+        val checksum = baseline.get("totalsChecksum");
+        if (checksum != null && checksum != report.getTotalsChecksum()) {
+            comparison.append("WARNING: totals checksum differs from the baseline, so the workload was not priced the same way\n");
+        }
+        return comparison.toString();
+    }
+}
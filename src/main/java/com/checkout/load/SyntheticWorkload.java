@@ -0,0 +1,162 @@
+package com.checkout.load;
+
+import lombok.val;
+
+import java.util.SplittableRandom;
+
+import static java.lang.String.format;
+
+/**
+ * Pricing rules and baskets drawn from a {@link WorkloadProfile}. Rules are generated as text, one per line, so they can be loaded
+ * through the same validation and compilation as real rules. Up to 26 SKUs are single letters and baskets are undelimited, e.g. <code>ABBA</code>;
+ * beyond that SKUs are named <code>SKU-000123</code> and baskets are comma-separated. SKU popularity follows a Zipf distribution over a
+ * shuffled ranking, so the most popular SKUs are spread across the catalog rather than being its first entries. Immutable.
+ */
+public final class SyntheticWorkload {
+    static final String UNKNOWN_SKU = "SKU-UNKNOWN";
+    // With fewer than 26 SKUs, the last letter is never a SKU, so it marks invalid baskets
+    private static final char UNKNOWN_LETTER = 'Z';
+
+    private final WorkloadProfile profile;
+    private final String rules;
+    private final String[] baskets;
+
+    private SyntheticWorkload(WorkloadProfile profile, String rules, String[] baskets) {
+        this.profile = profile;
+        this.rules = rules;
+        this.baskets = baskets;
+    }
+
+    /**
+     * @param profile The distributions to draw from.
+     * @return The workload, which is the same for the same profile.
+     * @throws IllegalArgumentException If the profile is not valid.
+     */
+    public static SyntheticWorkload generate(WorkloadProfile profile) {
+        validate(profile);
+        val random = new SplittableRandom(profile.getSeed());
+        val letters = profile.getSkus() <= 26;
+        val names = new String[profile.getSkus()];
+        val digits = Integer.toString(profile.getSkus() - 1).length();
+        for (var id = 0; id < names.length; id++) {
+            names[id] = letters ? String.valueOf((char) ('A' + id)) : format("SKU-%0" + digits + "d", id);
+        }
+
+        val unitPrices = new long[names.length];
+        val rules = new StringBuilder(names.length * 24);
+        for (var id = 0; id < names.length; id++) {
+            unitPrices[id] = 50 + random.nextInt(4951);
+            rules.append(names[id]).append(',').append(major(unitPrices[id]));
+            if (random.nextDouble() < profile.getSpecialCoverage()) {
+                val quantity = 2 + random.nextInt(4);
+                val discount = 0.6 + random.nextDouble() * 0.3;
+                rules.append(',').append(quantity).append(" for ").append(offerValue(unitPrices[id], quantity, discount));
+                if (random.nextDouble() < profile.getMultiOfferCoverage()) {
+                    val larger = quantity * 2 + random.nextInt(3);
+                    rules.append('|').append(larger).append(" for ").append(offerValue(unitPrices[id], larger, discount - 0.1));
+                }
+            }
+            rules.append('\n');
+        }
+
+        val popularity = new ZipfSampler(names.length, profile.getZipfExponent());
+        val ranking = shuffledIds(names.length, random);
+        for (var bundle = 0; bundle < profile.getBundles(); bundle++) {
+            val items = 2 + random.nextInt(2);
+            var price = 0L;
+            for (var item = 0; item < items; item++) {
+                val id = ranking[random.nextInt(Math.min(names.length, 100))];
+                if (item > 0) rules.append('+');
+                rules.append(names[id]);
+                price += unitPrices[id];
+            }
+            rules.append(',').append(Math.max(1, price * 8 / 1000)).append('\n');
+        }
+
+        val baskets = new String[profile.getBaskets()];
+        val basket = new StringBuilder();
+        for (var i = 0; i < baskets.length; i++) {
+            basket.setLength(0);
+            val length = basketLength(profile, random);
+            for (var item = 0; item < length; item++) {
+                if (!letters && item > 0) basket.append(',');
+                basket.append(names[ranking[popularity.sample(random)]]);
+            }
+            if (random.nextDouble() < profile.getInvalidBaskets()) {
+                if (!letters) basket.append(',');
+                basket.append(letters ? String.valueOf(UNKNOWN_LETTER) : UNKNOWN_SKU);
+            }
+            baskets[i] = basket.toString();
+        }
+        return new SyntheticWorkload(profile, rules.toString(), baskets);
+    }
+
+    private static void validate(WorkloadProfile profile) {
+        if (profile.getSkus() < 1) throw new IllegalArgumentException("A workload needs at least one SKU");
+        if (profile.getSkus() == 26 && profile.getInvalidBaskets() > 0) {
+            throw new IllegalArgumentException("Invalid baskets need a catalog of fewer than 26 or more than 26 SKUs");
+        }
+        if (profile.getBaskets() < 1) throw new IllegalArgumentException("A workload needs at least one basket");
+        if (profile.getMeanBasketLength() < 1) throw new IllegalArgumentException("Mean basket length must be at least 1");
+        if (profile.getBundles() < 0) throw new IllegalArgumentException("Bundles must not be negative");
+        for (val fraction : new double[]{profile.getSpecialCoverage(), profile.getMultiOfferCoverage(), profile.getInvalidBaskets()}) {
+            if (!(fraction >= 0 && fraction <= 1)) throw new IllegalArgumentException("Coverages and rates must be between 0 and 1");
+        }
+    }
+
+    private static String major(long minor) {
+        return format("%d.%02d", minor / 100, minor % 100);
+    }
+
+    private static long offerValue(long unitPrice, int quantity, double discount) {
+        return Math.max(1, (long) (unitPrice * quantity * discount / 100));
+    }
+
+    private static int[] shuffledIds(int size, SplittableRandom random) {
+        val ids = new int[size];
+        for (var id = 0; id < size; id++) {
+            ids[id] = id;
+        }
+        for (var i = size - 1; i > 0; i--) {
+            val j = random.nextInt(i + 1);
+            val swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private static int basketLength(WorkloadProfile profile, SplittableRandom random) {
+        val mean = profile.getMeanBasketLength();
+        switch (profile.getBasketLength()) {
+            case FIXED:
+                return mean;
+            case UNIFORM:
+                return 1 + random.nextInt(2 * mean - 1);
+            default:
+                if (mean == 1) return 1;
+                // The number of trials to the first success with a success probability of 1 / mean, capped to keep the tail finite
+                val trials = 1 + Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - 1d / mean));
+                return (int) Math.min(trials, mean * 100L);
+        }
+    }
+
+    public WorkloadProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return The pricing rules, one per line.
+     */
+    public String getRules() {
+        return rules;
+    }
+
+    public int getBasketCount() {
+        return baskets.length;
+    }
+
+    public String getBasket(int index) {
+        return baskets[index];
+    }
+}
@@ -0,0 +1,60 @@
+package com.checkout.load;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import static java.lang.String.format;
+
+/**
+ * The distributions a {@link SyntheticWorkload} is drawn from. Every field has a default, so a profile only needs to set what it changes,
+ * and the same profile and seed always generate the same rules and baskets.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class WorkloadProfile {
+
+    /**
+     * How the number of items in a basket is distributed around {@link #getMeanBasketLength()}.
+     */
+    public enum BasketLength {
+        /** Every basket has the mean number of items. */
+        FIXED,
+        /** From one item to twice the mean less one, equally likely. */
+        UNIFORM,
+        /** Mostly short baskets with a long tail, as at a supermarket till. */
+        GEOMETRIC
+    }
+
+    @Builder.Default
+    private final long seed = 42;
+    @Builder.Default
+    private final int skus = 10_000;
+    /** The skew of SKU popularity, see {@link ZipfSampler}. */
+    @Builder.Default
+    private final double zipfExponent = 1.0;
+    /** The fraction of SKUs with a special price. */
+    @Builder.Default
+    private final double specialCoverage = 0.3;
+    /** The fraction of SKUs with a special price that have a second multi-buy offer. */
+    @Builder.Default
+    private final double multiOfferCoverage = 0.1;
+    /** The number of bundle deals across popular SKUs. */
+    @Builder.Default
+    private final int bundles = 0;
+    @Builder.Default
+    private final BasketLength basketLength = BasketLength.GEOMETRIC;
+    @Builder.Default
+    private final int meanBasketLength = 12;
+    /** The fraction of baskets containing a SKU that is not in the catalog. */
+    @Builder.Default
+    private final double invalidBaskets = 0.0;
+    /** The number of distinct baskets generated, which the lanes cycle through. */
+    @Builder.Default
+    private final int baskets = 10_000;
+
+    public String getFormattedSummary() {
+        return format("%d SKUs (Zipf %.2f, %.0f%% special, %.0f%% multi-offer, %d bundles), %d baskets (%s length, mean %d, %.1f%% invalid), seed %d",
+                skus, zipfExponent, specialCoverage * 100, multiOfferCoverage * 100, bundles, baskets, basketLength.name().toLowerCase(),
+                meanBasketLength, invalidBaskets * 100, seed);
+    }
+}
@@ -0,0 +1,55 @@
+package com.checkout.load;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks from <code>0</code> to <code>n - 1</code> with a Zipf distribution, where rank <code>k</code> is drawn with probability
+ * proportional to <code>1 / (k + 1)^exponent</code>. An exponent of <code>0</code> is uniform, and around <code>1</code> a few ranks
+ * dominate, as the popularity of products in a shop does. The cumulative distribution is precomputed, so a sample is a binary search.
+ */
+public final class ZipfSampler {
+    private final double[] cumulative;
+
+    /**
+     * @param n The number of ranks.
+     * @param exponent The skew of the distribution, at least <code>0</code>.
+     * @throws IllegalArgumentException If there are no ranks or the exponent is negative.
+     */
+    public ZipfSampler(int n, double exponent) {
+        if (n < 1) throw new IllegalArgumentException("Zipf distribution needs at least one rank");
+        if (exponent < 0 || Double.isNaN(exponent)) throw new IllegalArgumentException("Zipf exponent must not be negative");
+
+        cumulative = new double[n];
+        var sum = 0d;
+        for (var rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (var rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    /**
+     * @return A rank, drawn with the supplied random number generator.
+     */
+    public int sample(SplittableRandom random) {
+        val point = random.nextDouble();
+        val index = Arrays.binarySearch(cumulative, point);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * @return The probability of drawing a rank.
+     */
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
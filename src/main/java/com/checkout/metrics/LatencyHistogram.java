@@ -0,0 +1,87 @@
+package com.checkout.metrics;
+
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of latencies in nanoseconds.
+ * Values below 16ns are counted exactly, and larger values fall into log-linear buckets of 16 sub-buckets per power of two,
+ * so any recorded value is reported to within 6.25%. The histogram always uses 960 counters whatever is recorded,
+ * and recording is a single atomic increment.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(nanos, 0)));
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long count() {
+        var count = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile The percentile, from <code>0</code> to <code>100</code>.
+     * @return The upper bound of the bucket containing the percentile, or <code>0</code> if nothing has been recorded.
+     */
+    public long percentile(double percentile) {
+        val snapshot = new long[BUCKETS];
+        var total = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        val rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Add every value recorded by another histogram to this one, e.g. to combine histograms recorded on separate threads.
+     */
+    public void add(LatencyHistogram other) {
+        for (var i = 0; i < BUCKETS; i++) {
+            val count = other.counts.get(i);
+            if (count != 0) counts.addAndGet(i, count);
+        }
+    }
+
+    public void reset() {
+        for (var i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        val exponent = 63 - Long.numberOfLeadingZeros(value);
+        val subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        val exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        val subBucket = index % SUB_BUCKETS;
+        val width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+    }
+}
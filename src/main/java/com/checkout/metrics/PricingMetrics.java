@@ -0,0 +1,106 @@
+package com.checkout.metrics;
+
+import lombok.val;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low-overhead counters and latency histograms for each {@link PricingStage}.
+ * Every call is counted, and one call in {@link #SAMPLE_RATE} is timed, so the clock is only read on sampled calls.
+ * Recording uses lock-free adders and atomic histogram buckets, and memory is fixed per stage.
+ * <p>
+ * Metrics are on by default. Starting the JVM with <code>-Dcheckout.metrics.disabled=true</code> turns {@link #ENABLED} into a
+ * constant <code>false</code>, and the JIT then removes the recording calls from the hot path entirely.
+ * <code>-Dcheckout.metrics.sampleRate=n</code> (a power of two, default 8) sets how many calls share one timing sample.
+ */
+public final class PricingMetrics {
+    public static final boolean ENABLED = !Boolean.getBoolean("checkout.metrics.disabled");
+    public static final int SAMPLE_RATE = Integer.highestOneBit(Math.max(1, Integer.getInteger("checkout.metrics.sampleRate", 8)));
+    private static final int SAMPLE_MASK = SAMPLE_RATE - 1;
+    private static final String OBJECT_NAME = "com.checkout:type=PricingMetrics,stage=";
+
+    private static final Map<PricingStage, StageMetrics> STAGES = new EnumMap<>(PricingStage.class);
+    private static final StageMetrics[] STAGE_ARRAY = new StageMetrics[PricingStage.values().length];
+
+    static {
+        for (val stage : PricingStage.values()) {
+            STAGE_ARRAY[stage.ordinal()] = new StageMetrics(stage);
+            STAGES.put(stage, STAGE_ARRAY[stage.ordinal()]);
+        }
+    }
+
+    private PricingMetrics() {
+    }
+
+    /**
+     * Mark the start of a call.
+     * @return The start time to pass to {@link #record(PricingStage, long)}, or <code>0</code> if this call is not sampled.
+     */
+    public static long start() {
+        if (!ENABLED || (ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) != 0) return 0;
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a call to a stage.
+     * @param stage The {@link PricingStage}.
+     * @param start The value returned by {@link #start()} at the beginning of the call.
+     */
+    public static void record(PricingStage stage, long start) {
+        if (!ENABLED) return;
+        val metrics = STAGE_ARRAY[stage.ordinal()];
+        metrics.recordCall();
+        if (start != 0) metrics.recordLatency(System.nanoTime() - start);
+    }
+
+    public static StageMetrics stage(PricingStage stage) {
+        return STAGES.get(stage);
+    }
+
+    public static void reset() {
+        STAGES.values().forEach(StageMetrics::reset);
+    }
+
+    /**
+     * Register one platform MBean per stage, named <code>com.checkout:type=PricingMetrics,stage=&lt;STAGE&gt;</code>.
+     * Stages that are already registered are left alone.
+     */
+    public static void registerMBeans() {
+        val server = ManagementFactory.getPlatformMBeanServer();
+        for (val metrics : STAGES.values()) {
+            try {
+                val name = new ObjectName(OBJECT_NAME + metrics.getStage());
+                if (!server.isRegistered(name)) server.registerMBean(metrics, name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not register pricing metrics MBean", e);
+            }
+        }
+    }
+
+    /**
+     * Periodically print a summary line for each stage that has been called.
+     * @param periodSeconds The period between dumps.
+     * @param out Where to print the summaries.
+     * @return The scheduler, which can be shut down to stop logging.
+     */
+    public static ScheduledExecutorService startLogging(long periodSeconds, PrintStream out) {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            val thread = new Thread(runnable, "pricing-metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> STAGES.values().stream()
+                .filter(metrics -> metrics.getCount() > 0)
+                .forEach(metrics -> out.println(metrics.getFormattedSummary())), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return scheduler;
+    }
+}
@@ -0,0 +1,13 @@
+package com.checkout.metrics;
+
+/**
+ * The stages of the pricing path that are measured by {@link PricingMetrics}.
+ */
+public enum PricingStage {
+    VALIDATE_RULES,
+    PARSE_RULES,
+    COMPILE_RULES,
+    VALIDATE_BASKET,
+    PARSE_BASKET,
+    CALCULATE_TOTAL
+}
@@ -0,0 +1,87 @@
+package com.checkout.metrics;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * The call count and sampled latencies of a single {@link PricingStage}.
+ */
+public class StageMetrics implements StageMetricsMXBean {
+    @Getter
+    private final PricingStage stage;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    StageMetrics(PricingStage stage) {
+        this.stage = stage;
+    }
+
+    void recordCall() {
+        count.increment();
+    }
+
+    void recordLatency(long nanos) {
+        latencies.record(nanos);
+        sampledNanos.add(nanos);
+        samples.increment();
+        if (nanos > maxNanos.get()) maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        val sampled = samples.sum();
+        return sampled == 0 ? 0 : (double) sampledNanos.sum() / sampled;
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latencies.percentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return latencies.percentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latencies.percentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latencies.percentile(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        sampledNanos.reset();
+        samples.reset();
+        maxNanos.set(0);
+        latencies.reset();
+    }
+
+    public String getFormattedSummary() {
+        return format("%s count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns",
+                stage, getCount(), getMeanNanos(), getP50Nanos(), getP90Nanos(), getP99Nanos(), getP999Nanos(), getMaxNanos());
+    }
+}
@@ -0,0 +1,35 @@
+package com.checkout.metrics;
+
+/**
+ * The JMX view of the metrics of a single {@link PricingStage}.
+ */
+public interface StageMetricsMXBean {
+
+    /**
+     * @return The number of calls to the stage.
+     */
+    long getCount();
+
+    /**
+     * @return The mean latency of the sampled calls, in nanoseconds.
+     */
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    /**
+     * @return The maximum latency of the sampled calls, in nanoseconds.
+     */
+    long getMaxNanos();
+
+    /**
+     * Reset all counts and latencies to zero.
+     */
+    void reset();
+}
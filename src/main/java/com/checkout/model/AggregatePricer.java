@@ -0,0 +1,73 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.addExact;
+import static java.lang.Math.multiplyExact;
+import static java.lang.String.format;
+
+/**
+ * Prices the baskets of a {@link SkuCountHistogram} in aggregate. Without bundle deals a basket's total is the sum of its line prices,
+ * so the revenue of all the baskets is the sum over every SKU and count of the line price times the number of baskets with that count.
+ * Pricing costs one line price per distinct pair of SKU and count per candidate, however many baskets were counted, and every candidate
+ * is priced in the same pass over the histogram. SKUs are matched to each candidate by item, once per SKU, so candidates may be compiled
+ * from different rules with different SKUs.
+ */
+public final class AggregatePricer {
+
+    private AggregatePricer() {
+    }
+
+    /**
+     * @param histogram The {@link SkuCountHistogram} of the baskets.
+     * @param candidates The catalogs to price the baskets under.
+     * @return An {@link AggregateReport} per candidate, in the same order.
+     * @throws IllegalArgumentException If a candidate has bundle deals or basket-level stages, which price SKUs together.
+     * @throws ArithmeticException If a revenue overflows a <code>long</code>.
+     */
+    public static List<AggregateReport> price(SkuCountHistogram histogram, List<PricingCatalog> candidates) {
+        for (var candidate = 0; candidate < candidates.size(); candidate++) {
+            if (candidates.get(candidate).getBundleCount() != 0) {
+                throw new IllegalArgumentException(format("Candidate %d has bundle deals, which cannot be priced from per-SKU histograms", candidate + 1));
+            }
+            if (candidates.get(candidate).getStageCount() != 0) {
+                throw new IllegalArgumentException(format("Candidate %d has basket discounts, which cannot be priced from per-SKU histograms", candidate + 1));
+            }
+        }
+
+        val catalog = histogram.getCatalog();
+        val revenues = new long[candidates.size()];
+        val unpriced = new long[candidates.size()];
+        val ids = new int[candidates.size()];
+        for (var i = 0; i < histogram.distinctSkus(); i++) {
+            val id = histogram.skuAt(i);
+            for (var candidate = 0; candidate < ids.length; candidate++) {
+                val candidateCatalog = candidates.get(candidate);
+                ids[candidate] = candidateCatalog == catalog ? id : candidateCatalog.idOf(catalog.getItem(id));
+            }
+
+            val pairs = histogram.pairsOf(id);
+            for (var j = 0; j < pairs.length; j += 2) {
+                val count = (int) pairs[j];
+                val frequency = pairs[j + 1];
+                for (var candidate = 0; candidate < ids.length; candidate++) {
+                    if (ids[candidate] == PricingCatalog.UNKNOWN_SKU) {
+                        unpriced[candidate] = addExact(unpriced[candidate], multiplyExact(frequency, (long) count));
+                    } else {
+                        val linePrice = candidates.get(candidate).linePriceMinor(ids[candidate], count);
+                        revenues[candidate] = addExact(revenues[candidate], multiplyExact(linePrice, frequency));
+                    }
+                }
+            }
+        }
+
+        val reports = new ArrayList<AggregateReport>(candidates.size());
+        for (var candidate = 0; candidate < candidates.size(); candidate++) {
+            reports.add(new AggregateReport(candidates.get(candidate).getFingerprint(), histogram.getBaskets(), revenues[candidate], unpriced[candidate]));
+        }
+        return reports;
+    }
+}
@@ -0,0 +1,30 @@
+package com.checkout.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+import static com.checkout.model.PricingCatalog.MINOR_UNIT_DIGITS;
+import static java.lang.String.format;
+
+/**
+ * The revenue of the baskets of a {@link SkuCountHistogram} under one candidate {@link PricingCatalog}.
+ * Items of SKUs the candidate does not price are left out of the revenue and counted instead.
+ */
+@Getter
+@AllArgsConstructor
+public class AggregateReport {
+    private long catalogFingerprint;
+    private long baskets;
+    private long revenueMinor;
+    private long unpricedItems;
+
+    public BigDecimal getRevenue() {
+        return BigDecimal.valueOf(revenueMinor, MINOR_UNIT_DIGITS);
+    }
+
+    public String getFormattedSummary() {
+        return format("Revenue %s from %d baskets (%d items unpriced), catalog %016x", getRevenue(), baskets, unpricedItems, catalogFingerprint);
+    }
+}
@@ -0,0 +1,118 @@
+package com.checkout.model;
+
+/**
+ * A {@link SkuTable} held in primitive arrays indexed by SKU id, with SKUs interned by a {@link SkuDictionary}.
+ */
+final class ArraySkuTable implements SkuTable {
+    private final String[] items;
+    private final double[] unitPrices;
+    private final long[] unitPricesMinor;
+    private final int[] specialQuantities;
+    private final int[] specialValues;
+    private final long[] specialValuesMinor;
+    private final int[][] offers;
+    private final long[][] priceTablesMinor;
+    private final int[] periodQuantities;
+    private final long[] periodValuesMinor;
+    private final SkuDictionary skus;
+
+    ArraySkuTable(String[] items, double[] unitPrices, long[] unitPricesMinor, int[] specialQuantities, int[] specialValues, long[] specialValuesMinor,
+                  int[][] offers, long[][] priceTablesMinor, int[] periodQuantities, long[] periodValuesMinor, SkuDictionary skus) {
+        this.items = items;
+        this.unitPrices = unitPrices;
+        this.unitPricesMinor = unitPricesMinor;
+        this.specialQuantities = specialQuantities;
+        this.specialValues = specialValues;
+        this.specialValuesMinor = specialValuesMinor;
+        this.offers = offers;
+        this.priceTablesMinor = priceTablesMinor;
+        this.periodQuantities = periodQuantities;
+        this.periodValuesMinor = periodValuesMinor;
+        this.skus = skus;
+    }
+
+    @Override
+    public int size() {
+        return items.length;
+    }
+
+    @Override
+    public int idOf(char sku) {
+        return skus.idOf(sku);
+    }
+
+    @Override
+    public int idOf(String sku) {
+        return skus.idOf(sku);
+    }
+
+    @Override
+    public int idOf(CharSequence chars, int from, int to) {
+        return skus.idOf(chars, from, to);
+    }
+
+    @Override
+    public String getItem(int id) {
+        return items[id];
+    }
+
+    @Override
+    public double getUnitPrice(int id) {
+        return unitPrices[id];
+    }
+
+    @Override
+    public long getUnitPriceMinor(int id) {
+        return unitPricesMinor[id];
+    }
+
+    @Override
+    public int getSpecialQuantity(int id) {
+        return specialQuantities[id];
+    }
+
+    @Override
+    public int getSpecialValue(int id) {
+        return specialValues[id];
+    }
+
+    @Override
+    public long getSpecialValueMinor(int id) {
+        return specialValuesMinor[id];
+    }
+
+    @Override
+    public int getMultiOfferCount(int id) {
+        return offers[id] != null ? offers[id].length / 2 : 0;
+    }
+
+    @Override
+    public int getMultiOfferQuantity(int id, int offer) {
+        return offers[id][offer * 2];
+    }
+
+    @Override
+    public int getMultiOfferValue(int id, int offer) {
+        return offers[id][offer * 2 + 1];
+    }
+
+    @Override
+    public int getPriceTableLength(int id) {
+        return priceTablesMinor[id] != null ? priceTablesMinor[id].length : 0;
+    }
+
+    @Override
+    public long getPriceTableEntry(int id, int count) {
+        return priceTablesMinor[id][count];
+    }
+
+    @Override
+    public int getPeriodQuantity(int id) {
+        return periodQuantities[id];
+    }
+
+    @Override
+    public long getPeriodValueMinor(int id) {
+        return periodValuesMinor[id];
+    }
+}
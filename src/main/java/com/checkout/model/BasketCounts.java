@@ -0,0 +1,198 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.checkout.model.Varints.readVarint;
+import static com.checkout.model.Varints.writeVarint;
+import static java.lang.String.format;
+
+/**
+ * The per-SKU item counts of a basket, keyed by {@link PricingCatalog} SKU id.
+ * Counts are held in a primitive array sized to the catalog, and the ids of the SKUs present are tracked separately
+ * so that pricing and {@link #clear()} only visit the SKUs actually in the basket. An instance can be reused across baskets.
+ * <p>
+ * Counts of parts of a basket, such as slices of a huge order counted on several threads or partial scans from several devices,
+ * can be combined with {@link #merge(BasketCounts)}, and written to and read from a compact binary form with
+ * {@link #writeTo(DataOutput, PricingCatalog)} and {@link #readFrom(DataInput, PricingCatalog)} to combine them across processes.
+ */
+public final class BasketCounts {
+    static final int MAGIC = 0x434B4231; // "CKB1"
+    private final int[] counts;
+    private final int[] skuIds;
+    private int distinctSkus;
+    private long totalItems;
+
+    /**
+     * @param catalogSize The number of SKUs in the {@link PricingCatalog} the counts are keyed by.
+     */
+    public BasketCounts(int catalogSize) {
+        this.counts = new int[catalogSize];
+        this.skuIds = new int[catalogSize];
+    }
+
+    /**
+     * Add a single item to the basket.
+     * @param id The SKU id.
+     * @throws ArithmeticException If the count overflows an <code>int</code>.
+     */
+    public void add(int id) {
+        val count = counts[id];
+        if (count == 0) {
+            skuIds[distinctSkus++] = id;
+        }
+        counts[id] = Math.incrementExact(count);
+        totalItems++;
+    }
+
+    /**
+     * Add a number of items of the same SKU to the basket.
+     * @param id The SKU id.
+     * @param count The number of items.
+     */
+    public void add(int id, int count) {
+        if (count <= 0) return;
+        if (counts[id] == 0) {
+            skuIds[distinctSkus++] = id;
+        }
+        counts[id] = Math.addExact(counts[id], count);
+        totalItems += count;
+    }
+
+    /**
+     * Add every item of another basket counted against the same catalog. SKUs new to this basket follow its own in the order
+     * they first occur in the other, so merging the counts of consecutive slices of a basket in order gives the same counts,
+     * in the same order, as counting the whole basket.
+     * @param other The {@link BasketCounts} to add, which is not changed.
+     * @throws ArithmeticException If a count overflows an <code>int</code>.
+     */
+    public void merge(BasketCounts other) {
+        for (var i = 0; i < other.distinctSkus; i++) {
+            val id = other.skuIds[i];
+            add(id, other.counts[id]);
+        }
+    }
+
+    /**
+     * Write the counts in a compact binary form: a magic number, the fingerprint of the catalog, the number of distinct SKUs,
+     * then each SKU id and count as varints, in order of first occurrence.
+     * @param out Where to write the counts.
+     * @param catalog The {@link PricingCatalog} the counts are keyed by.
+     * @throws IOException If the counts cannot be written.
+     */
+    public void writeTo(DataOutput out, PricingCatalog catalog) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(catalog.getFingerprint());
+        writeVarint(out, distinctSkus);
+        for (var i = 0; i < distinctSkus; i++) {
+            writeVarint(out, skuIds[i]);
+            writeVarint(out, counts[skuIds[i]]);
+        }
+    }
+
+    /**
+     * Read counts written by {@link #writeTo(DataOutput, PricingCatalog)}.
+     * @param in Where to read the counts from.
+     * @param catalog The {@link PricingCatalog} the counts must be keyed by.
+     * @return The counts, sized to the catalog.
+     * @throws IOException If the counts cannot be read.
+     * @throws IllegalArgumentException If the counts were written against a catalog with a different fingerprint.
+     * @throws IllegalStateException If the input is not valid counts.
+     */
+    public static BasketCounts readFrom(DataInput in, PricingCatalog catalog) throws IOException {
+        if (in.readInt() != MAGIC) throw new IllegalStateException("Input is not basket counts");
+        val fingerprint = in.readLong();
+        if (fingerprint != catalog.getFingerprint()) {
+            throw new IllegalArgumentException(format("Basket counts were written against catalog %016x, not %016x", fingerprint, catalog.getFingerprint()));
+        }
+
+        val counts = new BasketCounts(catalog.size());
+        val distinct = readCount(in);
+        if (distinct > catalog.size()) throw new IllegalStateException(format("Corrupt basket counts: %d distinct SKUs", distinct));
+        for (var i = 0; i < distinct; i++) {
+            val id = readCount(in);
+            val count = readCount(in);
+            if (id >= catalog.size() || count == 0 || counts.counts[id] != 0) {
+                throw new IllegalStateException(format("Corrupt basket counts: SKU id %d with count %d", id, count));
+            }
+            counts.add(id, count);
+        }
+        return counts;
+    }
+
+    private static int readCount(DataInput in) throws IOException {
+        long value;
+        try {
+            value = readVarint(in);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Corrupt basket counts: malformed varint", e);
+        }
+        if (value < 0 || value > Integer.MAX_VALUE) throw new IllegalStateException(format("Corrupt basket counts: varint %d is out of range", value));
+        return (int) value;
+    }
+
+    /**
+     * @param id The SKU id.
+     * @return The number of items of the SKU in the basket.
+     */
+    public int getCount(int id) {
+        return counts[id];
+    }
+
+    /**
+     * @return The number of distinct SKUs in the basket.
+     */
+    public int distinctSkus() {
+        return distinctSkus;
+    }
+
+    /**
+     * @param index The index, from <code>0</code> to <code>distinctSkus() - 1</code>.
+     * @return The id of the SKU at the index, in order of first occurrence in the basket.
+     */
+    public int skuAt(int index) {
+        return skuIds[index];
+    }
+
+    /**
+     * @return The total number of items in the basket.
+     */
+    public long getTotalItems() {
+        return totalItems;
+    }
+
+    /**
+     * @return The number of SKU ids the counts can hold.
+     */
+    public int capacity() {
+        return counts.length;
+    }
+
+    public boolean isEmpty() {
+        return distinctSkus == 0;
+    }
+
+    /**
+     * Reset all counts to zero so the instance can be reused for another basket.
+     */
+    public void clear() {
+        for (var i = 0; i < distinctSkus; i++) {
+            counts[skuIds[i]] = 0;
+        }
+        distinctSkus = 0;
+        totalItems = 0;
+    }
+
+    @Override
+    public String toString() {
+        val builder = new StringBuilder("{");
+        for (var i = 0; i < distinctSkus; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(skuIds[i]).append('=').append(counts[skuIds[i]]);
+        }
+        return builder.append('}').toString();
+    }
+}
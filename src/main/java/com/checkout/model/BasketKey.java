@@ -0,0 +1,89 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+import static com.checkout.model.Varints.writeVarint;
+
+/**
+ * A canonical, compact encoding of the per-SKU counts of a basket, so that baskets with the same contents in a different order,
+ * such as <code>ABBA</code> and <code>BAAB</code>, have equal keys.
+ * The SKU ids are sorted and written as variable-length deltas, each followed by its variable-length count,
+ * so a typical basket of a few SKUs encodes in a handful of bytes.
+ */
+public final class BasketKey {
+    private static final int OBJECT_OVERHEAD_BYTES = 24;
+    private static final int ARRAY_OVERHEAD_BYTES = 16;
+
+    private final byte[] encoded;
+    private final int hash;
+
+    private BasketKey(byte[] encoded) {
+        this.encoded = encoded;
+        this.hash = Arrays.hashCode(encoded);
+    }
+
+    /**
+     * @param basket The {@link BasketCounts}.
+     * @return The canonical key of the basket's counts.
+     */
+    public static BasketKey of(BasketCounts basket) {
+        val distinct = basket.distinctSkus();
+        val ids = new int[distinct];
+        for (var i = 0; i < distinct; i++) {
+            ids[i] = basket.skuAt(i);
+        }
+        Arrays.sort(ids);
+
+        // Each id delta and count takes at most five bytes
+        val buffer = new byte[distinct * 10];
+        var length = 0;
+        var previous = 0;
+        for (val id : ids) {
+            length = writeVarint(buffer, length, id - previous);
+            length = writeVarint(buffer, length, basket.getCount(id));
+            previous = id;
+        }
+        return new BasketKey(Arrays.copyOf(buffer, length));
+    }
+
+    /**
+     * @return The length of the encoding, in bytes.
+     */
+    public int length() {
+        return encoded.length;
+    }
+
+    /**
+     * Copy the encoding into a buffer.
+     * @param buffer The buffer, with at least {@link #length()} bytes from <code>offset</code>.
+     * @param offset The index to start writing at.
+     * @return The index after the last byte written.
+     */
+    public int writeTo(byte[] buffer, int offset) {
+        System.arraycopy(encoded, 0, buffer, offset, encoded.length);
+        return offset + encoded.length;
+    }
+
+    /**
+     * @return An estimate of the heap used by this key, including its encoding.
+     */
+    public int sizeInBytes() {
+        return OBJECT_OVERHEAD_BYTES + ((ARRAY_OVERHEAD_BYTES + encoded.length + 7) & ~7);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof BasketKey)) return false;
+
+        val key = (BasketKey) other;
+        return hash == key.hash && Arrays.equals(encoded, key.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
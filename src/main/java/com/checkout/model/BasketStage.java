@@ -0,0 +1,37 @@
+package com.checkout.model;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A basket-level adjustment applied once every line of a basket has been priced, such as a percentage-off coupon, a spend-and-save
+ * threshold or a cap on the discount given. A catalog compiled with an ordered list of stages by {@link PricingCatalog#withStages(java.util.List)}
+ * applies them in that order, each to the total left by the stages before it. {@link BasketStages} has the stages the rules files can express;
+ * stores can add their own by implementing this interface.
+ * <p>
+ * A stage only sees the amounts worked out for it in the catalog's single pass over the basket, so it cannot depend on anything else,
+ * and must be immutable and deterministic: the same amounts always give the same total.
+ */
+public interface BasketStage {
+
+    /**
+     * @return The SKUs whose lines the stage applies to, or an empty collection if it applies to the whole basket.
+     */
+    default Collection<String> getItems() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param totalMinor The total of the basket left by the earlier stages, in minor units.
+     * @param eligibleMinor The amount the stage applies to: the sum of the line prices of its SKUs, at most <code>totalMinor</code>,
+     * or <code>totalMinor</code> itself if it applies to the whole basket.
+     * @param subtotalMinor The total of the basket before any stage, including bundle savings.
+     * @return The total after this stage. It is kept between <code>0</code> and <code>subtotalMinor</code>.
+     */
+    long apply(long totalMinor, long eligibleMinor, long subtotalMinor);
+
+    /**
+     * @return The stage as written in a discounts file, e.g. <code>percent,10,A+B</code>, which identifies it in the catalog's fingerprint.
+     */
+    String getRule();
+}
@@ -0,0 +1,199 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.lang.Math.multiplyExact;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The {@link BasketStage}s a discounts file can express, one per rule, with prices in major units as in pricing rules:
+ * <ul>
+ * <li><code>percent,10</code> takes 10% off the basket, and <code>percent,20,A+B</code> 20% off the lines of A and B. Coupons and
+ * loyalty discounts are both percentages off; the discount is rounded down to a whole minor unit.</li>
+ * <li><code>spend,50,5</code> saves 5 on a basket of at least 50, and <code>spend,30,3,A+B</code> saves 3 when the lines of A and B come to at least 30.</li>
+ * <li><code>cap,15</code> limits the discount given by the stages before it to 15.</li>
+ * </ul>
+ */
+public final class BasketStages {
+    public static final String PERCENT = "percent";
+    public static final String SPEND = "spend";
+    public static final String CAP = "cap";
+
+    private BasketStages() {
+    }
+
+    /**
+     * @param percent The percentage off, from 1 to 100.
+     * @param items The SKUs whose lines it applies to, or none for the whole basket.
+     */
+    public static BasketStage percentOff(int percent, Collection<String> items) {
+        if (percent < 1 || percent > 100) throw new IllegalArgumentException(format("Percentage %d must be from 1 to 100", percent));
+        return new PercentOff(percent, List.copyOf(items));
+    }
+
+    /**
+     * @param thresholdMinor The least amount, in minor units, the lines of the SKUs, or the whole basket, must come to.
+     * @param savingMinor The saving in minor units.
+     * @param items The SKUs whose lines count towards the threshold, or none for the whole basket.
+     */
+    public static BasketStage spendAndSave(long thresholdMinor, long savingMinor, Collection<String> items) {
+        if (thresholdMinor < 1) throw new IllegalArgumentException("Spend threshold must be positive");
+        if (savingMinor < 1) throw new IllegalArgumentException("Saving must be positive");
+        return new SpendAndSave(thresholdMinor, savingMinor, List.copyOf(items));
+    }
+
+    /**
+     * @param maximumMinor The largest discount a basket can get, in minor units.
+     */
+    public static BasketStage cap(long maximumMinor) {
+        if (maximumMinor < 0) throw new IllegalArgumentException("Maximum discount cannot be negative");
+        return new Cap(maximumMinor);
+    }
+
+    /**
+     * Parse a single rule of a discounts file.
+     * @param rule The rule, e.g. <code>spend,50,5</code>.
+     * @return The {@link BasketStage}.
+     * @throws IllegalArgumentException If the rule is not valid.
+     */
+    public static BasketStage parse(String rule) {
+        val fields = rule.split(",", -1);
+        val kind = fields[0].trim();
+        switch (kind) {
+            case PERCENT:
+                expectFields(rule, fields, 2, 3);
+                return percentOff(parsePercent(fields[1]), items(fields, 2));
+            case SPEND:
+                expectFields(rule, fields, 3, 4);
+                return spendAndSave(toMinorUnits(kind, fields[1]), toMinorUnits(kind, fields[2]), items(fields, 3));
+            case CAP:
+                expectFields(rule, fields, 2, 2);
+                return cap(toMinorUnits(kind, fields[1]));
+            default:
+                throw new IllegalArgumentException(format("Unknown discount '%s', expected %s, %s or %s", kind, PERCENT, SPEND, CAP));
+        }
+    }
+
+    private static void expectFields(String rule, String[] fields, int min, int max) {
+        if (fields.length < min || fields.length > max) {
+            throw new IllegalArgumentException(min == max
+                    ? format("Discount '%s' needs %d comma-separated fields but has %d", rule, min, fields.length)
+                    : format("Discount '%s' needs %d or %d comma-separated fields but has %d", rule, min, max, fields.length));
+        }
+    }
+
+    private static int parsePercent(String field) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Invalid percentage '%s'", field), e);
+        }
+    }
+
+    private static long toMinorUnits(String kind, String field) {
+        try {
+            return PricingCatalog.toMinorUnits(kind, Double.parseDouble(field));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(format("Invalid amount '%s'", field), e);
+        }
+    }
+
+    private static List<String> items(String[] fields, int index) {
+        if (fields.length <= index) return Collections.emptyList();
+
+        val items = Arrays.stream(fields[index].split(Pattern.quote(PricingRule.BUNDLE_SEPARATOR), -1)).map(String::trim).collect(toList());
+        if (items.contains("")) throw new IllegalArgumentException(format("Invalid SKUs '%s'", fields[index]));
+        return items;
+    }
+
+    private static String rule(String kind, List<String> items, Object... amounts) {
+        val rule = new StringBuilder(kind);
+        for (val amount : amounts) {
+            rule.append(',').append(amount);
+        }
+        if (!items.isEmpty()) rule.append(',').append(String.join(PricingRule.BUNDLE_SEPARATOR, items));
+        return rule.toString();
+    }
+
+    private static String amount(long minor) {
+        return BigDecimal.valueOf(minor, PricingCatalog.MINOR_UNIT_DIGITS).stripTrailingZeros().toPlainString();
+    }
+
+    private static final class PercentOff implements BasketStage {
+        private final int percent;
+        private final List<String> items;
+
+        private PercentOff(int percent, List<String> items) {
+            this.percent = percent;
+            this.items = items;
+        }
+
+        @Override
+        public Collection<String> getItems() {
+            return items;
+        }
+
+        @Override
+        public long apply(long totalMinor, long eligibleMinor, long subtotalMinor) {
+            return totalMinor - multiplyExact(eligibleMinor, (long) percent) / 100;
+        }
+
+        @Override
+        public String getRule() {
+            return rule(PERCENT, items, percent);
+        }
+    }
+
+    private static final class SpendAndSave implements BasketStage {
+        private final long thresholdMinor;
+        private final long savingMinor;
+        private final List<String> items;
+
+        private SpendAndSave(long thresholdMinor, long savingMinor, List<String> items) {
+            this.thresholdMinor = thresholdMinor;
+            this.savingMinor = savingMinor;
+            this.items = items;
+        }
+
+        @Override
+        public Collection<String> getItems() {
+            return items;
+        }
+
+        @Override
+        public long apply(long totalMinor, long eligibleMinor, long subtotalMinor) {
+            return eligibleMinor >= thresholdMinor ? totalMinor - savingMinor : totalMinor;
+        }
+
+        @Override
+        public String getRule() {
+            return rule(SPEND, items, amount(thresholdMinor), amount(savingMinor));
+        }
+    }
+
+    private static final class Cap implements BasketStage {
+        private final long maximumMinor;
+
+        private Cap(long maximumMinor) {
+            this.maximumMinor = maximumMinor;
+        }
+
+        @Override
+        public long apply(long totalMinor, long eligibleMinor, long subtotalMinor) {
+            return Math.max(totalMinor, subtotalMinor - maximumMinor);
+        }
+
+        @Override
+        public String getRule() {
+            return rule(CAP, Collections.emptyList(), amount(maximumMinor));
+        }
+    }
+}
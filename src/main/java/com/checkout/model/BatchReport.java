@@ -0,0 +1,22 @@
+package com.checkout.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import static java.lang.String.format;
+
+@Getter
+@AllArgsConstructor
+public class BatchReport {
+    private long baskets;
+    private long invalidBaskets;
+    private long elapsedNanos;
+
+    public double getBasketsPerSecond() {
+        return elapsedNanos == 0 ? 0 : baskets * 1_000_000_000d / elapsedNanos;
+    }
+
+    public String getFormattedSummary() {
+        return format("Priced %d baskets (%d invalid) in %d ms, %.0f baskets/s", baskets, invalidBaskets, elapsedNanos / 1_000_000, getBasketsPerSecond());
+    }
+}
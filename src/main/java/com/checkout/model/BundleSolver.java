@@ -0,0 +1,209 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the cheapest way to price a basket given a {@link PricingCatalog}'s cross-SKU bundles and each SKU's own line price.
+ * <p>
+ * Only bundles whose items are all in the basket are considered, found through the catalog's index of bundles by their lowest SKU id.
+ * The counts of the SKUs those bundles touch form a state, and the cheapest price of every state reached is memoised, so each distinct
+ * remainder of the basket is solved once. If the number of states visited exceeds the catalog's step budget, the solver stops and
+ * uses a greedy allocation instead, which applies the bundle with the largest saving until none saves anything. The greedy price is never
+ * higher than pricing every line on its own, so a valid price is always returned in bounded time. Not thread-safe; create one per basket.
+ */
+final class BundleSolver {
+    private final PricingCatalog catalog;
+    private final int budget;
+    private int[] skuIds = new int[8];
+    private int skus;
+    private int[] bundles = new int[4];
+    private int[][] bundleSlots = new int[4][];
+    private int applicable;
+    private int[] state;
+    private long[] radix;
+    private final Map<Long, Long> memo = new HashMap<>();
+    private int steps;
+    private boolean exhausted;
+
+    BundleSolver(PricingCatalog catalog, int budget) {
+        this.catalog = catalog;
+        this.budget = budget;
+    }
+
+    /**
+     * @return The total of the basket in minor units.
+     */
+    long totalMinor(BasketCounts basket) {
+        findApplicableBundles(basket);
+
+        var total = 0L;
+        for (var i = 0; i < basket.distinctSkus(); i++) {
+            val id = basket.skuAt(i);
+            if (slotOf(id) < 0) total = Math.addExact(total, catalog.linePriceMinor(id, basket.getCount(id)));
+        }
+        if (applicable == 0) return total;
+
+        state = new int[skus];
+        for (var slot = 0; slot < skus; slot++) {
+            state[slot] = basket.getCount(skuIds[slot]);
+        }
+        return Math.addExact(total, canEncode() ? solveWithinBudget() : greedy());
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    private void findApplicableBundles(BasketCounts basket) {
+        for (var i = 0; i < basket.distinctSkus(); i++) {
+            val candidates = catalog.getBundlesStartingWith(basket.skuAt(i));
+            if (candidates == null) continue;
+
+            for (val bundle : candidates) {
+                if (fits(basket, bundle)) addBundle(bundle);
+            }
+        }
+    }
+
+    private boolean fits(BasketCounts basket, int bundle) {
+        for (var j = 0; j < catalog.getBundleComponentCount(bundle); j++) {
+            if (basket.getCount(catalog.getBundleComponentId(bundle, j)) < catalog.getBundleComponentQuantity(bundle, j)) return false;
+        }
+        return true;
+    }
+
+    private void addBundle(int bundle) {
+        val components = catalog.getBundleComponentCount(bundle);
+        val slots = new int[components * 2];
+        for (var j = 0; j < components; j++) {
+            val id = catalog.getBundleComponentId(bundle, j);
+            var slot = slotOf(id);
+            if (slot < 0) {
+                if (skus == skuIds.length) skuIds = Arrays.copyOf(skuIds, skus * 2);
+                slot = skus++;
+                skuIds[slot] = id;
+            }
+            slots[j * 2] = slot;
+            slots[j * 2 + 1] = catalog.getBundleComponentQuantity(bundle, j);
+        }
+
+        if (applicable == bundles.length) {
+            bundles = Arrays.copyOf(bundles, applicable * 2);
+            bundleSlots = Arrays.copyOf(bundleSlots, applicable * 2);
+        }
+        bundles[applicable] = bundle;
+        bundleSlots[applicable++] = slots;
+    }
+
+    private int slotOf(int id) {
+        for (var slot = 0; slot < skus; slot++) {
+            if (skuIds[slot] == id) return slot;
+        }
+        return -1;
+    }
+
+    // Each state is encoded in a long as a mixed-radix number, which is only possible while the number of states fits
+    private boolean canEncode() {
+        radix = new long[skus];
+        var states = 1L;
+        for (var slot = 0; slot < skus; slot++) {
+            radix[slot] = states;
+            val next = states * (state[slot] + 1L);
+            if (next / (state[slot] + 1L) != states || next < 0) return false;
+            states = next;
+        }
+        return true;
+    }
+
+    private long solveWithinBudget() {
+        val cost = solve(encode());
+        return exhausted ? greedy() : cost;
+    }
+
+    private long encode() {
+        var key = 0L;
+        for (var slot = 0; slot < skus; slot++) {
+            key += state[slot] * radix[slot];
+        }
+        return key;
+    }
+
+    private long solve(long key) {
+        val known = memo.get(key);
+        if (known != null) return known;
+        if (++steps > budget) {
+            exhausted = true;
+            return Long.MAX_VALUE;
+        }
+
+        var best = lines();
+        for (var b = 0; b < applicable && !exhausted; b++) {
+            val slots = bundleSlots[b];
+            if (!fits(slots)) continue;
+
+            var next = key;
+            for (var j = 0; j < slots.length; j += 2) {
+                state[slots[j]] -= slots[j + 1];
+                next -= slots[j + 1] * radix[slots[j]];
+            }
+            val rest = solve(next);
+            for (var j = 0; j < slots.length; j += 2) {
+                state[slots[j]] += slots[j + 1];
+            }
+            if (rest != Long.MAX_VALUE) best = Math.min(best, Math.addExact(catalog.getBundlePriceMinor(bundles[b]), rest));
+        }
+
+        if (!exhausted) memo.put(key, best);
+        return best;
+    }
+
+    private long greedy() {
+        var cost = 0L;
+        for (var iteration = 0; iteration < budget; iteration++) {
+            var bestSaving = 0L;
+            var bestBundle = -1;
+            for (var b = 0; b < applicable; b++) {
+                val slots = bundleSlots[b];
+                if (!fits(slots)) continue;
+
+                var saving = -catalog.getBundlePriceMinor(bundles[b]);
+                for (var j = 0; j < slots.length; j += 2) {
+                    val id = skuIds[slots[j]];
+                    val count = state[slots[j]];
+                    saving += catalog.linePriceMinor(id, count) - catalog.linePriceMinor(id, count - slots[j + 1]);
+                }
+                if (saving > bestSaving) {
+                    bestSaving = saving;
+                    bestBundle = b;
+                }
+            }
+            if (bestBundle < 0) break;
+
+            val slots = bundleSlots[bestBundle];
+            for (var j = 0; j < slots.length; j += 2) {
+                state[slots[j]] -= slots[j + 1];
+            }
+            cost = Math.addExact(cost, catalog.getBundlePriceMinor(bundles[bestBundle]));
+        }
+        return Math.addExact(cost, lines());
+    }
+
+    private boolean fits(int[] slots) {
+        for (var j = 0; j < slots.length; j += 2) {
+            if (state[slots[j]] < slots[j + 1]) return false;
+        }
+        return true;
+    }
+
+    private long lines() {
+        var total = 0L;
+        for (var slot = 0; slot < skus; slot++) {
+            total = Math.addExact(total, catalog.linePriceMinor(skuIds[slot], state[slot]));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,125 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+import static java.util.Objects.isNull;
+
+/**
+ * An immutable list of compiled bundle deals: the name, components and price in minor units of each bundle, and an index of the bundles
+ * by their lowest SKU id. Components are a bundle's distinct SKU ids in ascending order, each followed by its quantity.
+ * Catalogs that share SKU ids, such as store catalogs over a common base, can share one instance.
+ */
+final class Bundles {
+    static final Bundles NONE = new Bundles(new String[0], new int[0][], new long[0]);
+
+    private final String[] names;
+    private final int[][] components;
+    private final long[] pricesMinor;
+    private final int[][] byFirstSku;
+
+    Bundles(String[] names, int[][] components, long[] pricesMinor) {
+        this.names = names;
+        this.components = components;
+        this.pricesMinor = pricesMinor;
+        this.byFirstSku = index(components);
+    }
+
+    // Index each bundle by its lowest SKU id only, so a basket finds every bundle it contains exactly once.
+    // The index only extends to the highest such id, so a large catalog with few bundles does not pay for a slot per SKU.
+    private static int[][] index(int[][] components) {
+        var size = 0;
+        for (val bundle : components) {
+            size = Math.max(size, bundle[0] + 1);
+        }
+
+        val index = new int[size][];
+        for (var bundle = 0; bundle < components.length; bundle++) {
+            val first = components[bundle][0];
+            index[first] = isNull(index[first]) ? new int[]{bundle} : Arrays.copyOf(index[first], index[first].length + 1);
+            index[first][index[first].length - 1] = bundle;
+        }
+        return index;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String getName(int bundle) {
+        return names[bundle];
+    }
+
+    int[] getComponents(int bundle) {
+        return components[bundle];
+    }
+
+    long getPriceMinor(int bundle) {
+        return pricesMinor[bundle];
+    }
+
+    int[] startingWith(int id) {
+        return id < byFirstSku.length ? byFirstSku[id] : null;
+    }
+
+    /**
+     * A bundle can only lower a total if it costs less than the unit prices of its items, or if one of them has a single special price.
+     * Pricing a SKU line without one of those special prices never costs more per extra item than its unit price, which the original
+     * special-price arithmetic does not guarantee.
+     * @param skus The prices to judge the bundle by.
+     * @return <code>true</code> if the bundle may lower the total of some basket, otherwise <code>false</code>.
+     */
+    boolean canLowerTotal(int bundle, SkuTable skus) {
+        var unitTotal = 0L;
+        val bundleComponents = components[bundle];
+        for (var j = 0; j < bundleComponents.length; j += 2) {
+            val id = bundleComponents[j];
+            if (skus.getSpecialQuantity(id) != 0 && skus.getPriceTableLength(id) == 0) return true;
+            unitTotal = Math.addExact(unitTotal, Math.multiplyExact(skus.getUnitPriceMinor(id), (long) bundleComponents[j + 1]));
+        }
+        return pricesMinor[bundle] < unitTotal;
+    }
+
+    /**
+     * @param include Which bundles to keep.
+     * @return The bundles for which <code>include</code> is <code>true</code>, in order, or this instance if that is all of them.
+     */
+    Bundles select(boolean[] include) {
+        var count = 0;
+        for (val included : include) {
+            if (included) count++;
+        }
+        if (count == names.length) return this;
+        if (count == 0) return NONE;
+
+        val selectedNames = new String[count];
+        val selectedComponents = new int[count][];
+        val selectedPrices = new long[count];
+        var next = 0;
+        for (var bundle = 0; bundle < names.length; bundle++) {
+            if (!include[bundle]) continue;
+            selectedNames[next] = names[bundle];
+            selectedComponents[next] = components[bundle];
+            selectedPrices[next++] = pricesMinor[bundle];
+        }
+        return new Bundles(selectedNames, selectedComponents, selectedPrices);
+    }
+
+    /**
+     * @return These bundles followed by the other bundles, or either one if the other is empty.
+     */
+    Bundles concat(Bundles other) {
+        if (other.size() == 0) return this;
+        if (size() == 0) return other;
+
+        val concatenated = size() + other.size();
+        val allNames = Arrays.copyOf(names, concatenated);
+        val allComponents = Arrays.copyOf(components, concatenated);
+        val allPrices = Arrays.copyOf(pricesMinor, concatenated);
+        System.arraycopy(other.names, 0, allNames, size(), other.size());
+        System.arraycopy(other.components, 0, allComponents, size(), other.size());
+        System.arraycopy(other.pricesMinor, 0, allPrices, size(), other.size());
+        return new Bundles(allNames, allComponents, allPrices);
+    }
+}
@@ -0,0 +1,93 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The catalogs of several stores that share a base catalog and differ only in the prices of some SKUs.
+ * Each store's catalog overlays its overrides on the base, so SKU ids, the SKU dictionary and bundles are shared with the base rather than
+ * compiled again per store, and a store costs memory in proportion to its overrides rather than to the size of the catalog.
+ * Overrides priced the same in several stores, such as a regional price, are interned to a single shared instance.
+ * <p>
+ * Looking up a store's catalog is lock-free and thread-safe. Registering a store is thread-safe, and replaces any catalog already registered for it.
+ */
+public final class CatalogRegistry {
+    private final PricingCatalog base;
+    private final Map<String, PricingCatalog> stores = new ConcurrentHashMap<>();
+    private final Map<PricedSku, PricedSku> interned = new HashMap<>();
+
+    /**
+     * @param base The {@link PricingCatalog} every store overrides.
+     */
+    public CatalogRegistry(PricingCatalog base) {
+        this.base = requireNonNull(base);
+    }
+
+    /**
+     * Register the catalog of a store. SKUs of the overrides not in the base are added to the store's catalog after the base's SKUs.
+     * @param store The id of the store.
+     * @param overrides The SKUs the store prices differently from the base, or adds to it.
+     * @return The store's catalog, which is the base itself if the overrides change nothing.
+     * @throws IllegalArgumentException If the overrides contain bundles, which can only be defined by the base.
+     */
+    public PricingCatalog register(String store, PricingCatalog overrides) {
+        requireNonNull(store);
+        final PricingCatalog catalog;
+        synchronized (interned) {
+            catalog = base.overlay(overrides, interned);
+        }
+        stores.put(store, catalog);
+        return catalog;
+    }
+
+    /**
+     * @param store The id of the store.
+     * @return The catalog of the store, or <code>null</code> if the store has not been registered.
+     */
+    public PricingCatalog get(String store) {
+        return store == null ? null : stores.get(store);
+    }
+
+    public PricingCatalog getBase() {
+        return base;
+    }
+
+    /**
+     * @return The ids of the registered stores, in order.
+     */
+    public Set<String> getStores() {
+        return Collections.unmodifiableSet(new TreeSet<>(stores.keySet()));
+    }
+
+    public int getStoreCount() {
+        return stores.size();
+    }
+
+    /**
+     * @return The number of distinct overridden or added SKUs held across every store. Overrides of stores that were replaced are still counted.
+     */
+    public int getInternedCount() {
+        synchronized (interned) {
+            return interned.size();
+        }
+    }
+
+    /**
+     * @param store The id of the store.
+     * @return The number of SKUs the store prices differently from the base or adds to it, or <code>0</code> if it is not registered.
+     */
+    public int getOverrideCount(String store) {
+        val catalog = get(store);
+        if (catalog == null || catalog == base) return 0;
+
+        return ((OverlaySkuTable) catalog.getSkuTable()).getOverrideCount();
+    }
+}
@@ -0,0 +1,361 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes a compiled {@link PricingCatalog} to a versioned, checksummed binary snapshot, and loads a snapshot back as a catalog that
+ * prices directly against the memory-mapped file through a {@link MappedSkuTable}, so no rules are parsed and almost nothing is held on the heap.
+ * <p>
+ * A snapshot is a single file of at most 2GB, in big-endian order and laid out as:
+ * <ul>
+ *     <li>A header of {@link #HEADER_SIZE} bytes: {@link #MAGIC}, {@link #VERSION}, the catalog fingerprint, the number of SKUs,
+ *     the number of hash slots, the length of the character index, the bundle step budget, the offset of each following section,
+ *     the length of the file and a CRC32C of everything after the header.</li>
+ *     <li>A record of {@link #RECORD_SIZE} bytes per SKU in id order: its unit price in minor units, special-price quantity and value,
+ *     the hash of its name, the offset and length of its name, and the offset of its offers if it has several, otherwise <code>0</code>.</li>
+ *     <li>The SKU dictionary's open-addressing hash table of SKU ids, and its index of single-character SKUs by character.</li>
+ *     <li>The SKU names as UTF-16 characters.</li>
+ *     <li>For each SKU with several offers: its period value and quantity, the length of its price table, its number of offers,
+ *     then the price table and the offers as quantity and value pairs.</li>
+ *     <li>The number of bundles, then each bundle's price in minor units, name length, component count, name and components.
+ *     Then the dormant bundles, which cannot lower a total at these prices, in the same form.</li>
+ * </ul>
+ */
+public final class CatalogSnapshot {
+    static final int MAGIC = 0x434B5331; // "CKS1"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+
+    static final int FINGERPRINT = 8;
+    static final int SKU_COUNT = 16;
+    static final int SLOT_COUNT = 20;
+    static final int CHAR_INDEX_LENGTH = 24;
+    static final int BUNDLE_STEP_BUDGET = 28;
+    static final int SLOTS_OFFSET = 32;
+    static final int CHAR_INDEX_OFFSET = 36;
+    static final int NAMES_OFFSET = 40;
+    static final int EXTENSIONS_OFFSET = 44;
+    static final int BUNDLES_OFFSET = 48;
+    static final int LENGTH = 52;
+    static final int CHECKSUM = 56;
+
+    static final int UNIT_PRICE = 0;
+    static final int SPECIAL_QUANTITY = 8;
+    static final int SPECIAL_VALUE = 12;
+    static final int HASH = 16;
+    static final int NAME_OFFSET = 20;
+    static final int NAME_LENGTH = 24;
+    static final int EXTENSION_OFFSET = 28;
+
+    static final int PERIOD_VALUE = 0;
+    static final int PERIOD_QUANTITY = 8;
+    static final int TABLE_LENGTH = 12;
+    static final int OFFER_COUNT = 16;
+    static final int TABLE = 24;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int UNKNOWN_SKU = SkuDictionary.UNKNOWN_SKU;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Write a catalog to a snapshot. The snapshot is written to a temporary file which then atomically replaces the target,
+     * so a process loading the snapshot never sees it half written.
+     * @param catalog The {@link PricingCatalog}.
+     * @param file The snapshot file.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the catalog does not fit in a snapshot, or has basket-level stages, which are loaded separately.
+     */
+    public static void write(PricingCatalog catalog, Path file) throws IOException {
+        if (catalog.getStageCount() != 0) throw new IllegalArgumentException("A catalog snapshot cannot hold basket discounts");
+
+        val skus = catalog.getSkuTable();
+        val size = skus.size();
+
+        val slots = new int[SkuDictionary.tableSize(size)];
+        Arrays.fill(slots, UNKNOWN_SKU);
+        val hashes = new int[size];
+        var nameChars = 0L;
+        var maxChar = -1;
+        var extensionBytes = 0L;
+        for (var id = 0; id < size; id++) {
+            val item = skus.getItem(id);
+            hashes[id] = SkuDictionary.hash(item, 0, item.length());
+            var slot = hashes[id] & (slots.length - 1);
+            while (slots[slot] != UNKNOWN_SKU) slot = (slot + 1) & (slots.length - 1);
+            slots[slot] = id;
+
+            nameChars += item.length();
+            if (item.length() == 1) maxChar = Math.max(maxChar, item.charAt(0));
+            if (skus.getMultiOfferCount(id) != 0) extensionBytes += extensionSize(skus, id);
+        }
+
+        val slotsOffset = HEADER_SIZE + (long) RECORD_SIZE * size;
+        val charIndexOffset = slotsOffset + (long) Integer.BYTES * slots.length;
+        val namesOffset = charIndexOffset + (long) Integer.BYTES * (maxChar + 1);
+        val extensionsOffset = align(namesOffset + Character.BYTES * nameChars);
+        val bundlesOffset = extensionsOffset + extensionBytes;
+        val length = bundlesOffset + bundlesSize(catalog.getBundles()) + bundlesSize(catalog.getDormantBundles());
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(format("A catalog of %d SKUs needs a snapshot of %d bytes, more than the maximum of %d", size, length, Integer.MAX_VALUE));
+        }
+
+        val temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (val channel = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            val out = new Output(channel);
+
+            var nameOffset = namesOffset;
+            var extensionOffset = extensionsOffset;
+            for (var id = 0; id < size; id++) {
+                val hasOffers = skus.getMultiOfferCount(id) != 0;
+                out.putLong(skus.getUnitPriceMinor(id));
+                out.putInt(skus.getSpecialQuantity(id));
+                out.putInt(skus.getSpecialValue(id));
+                out.putInt(hashes[id]);
+                out.putInt((int) nameOffset);
+                out.putInt(skus.getItem(id).length());
+                out.putInt(hasOffers ? (int) extensionOffset : 0);
+                nameOffset += Character.BYTES * skus.getItem(id).length();
+                if (hasOffers) extensionOffset += extensionSize(skus, id);
+            }
+
+            for (val slot : slots) {
+                out.putInt(slot);
+            }
+            for (var c = 0; c <= maxChar; c++) {
+                out.putInt(skus.idOf((char) c));
+            }
+
+            for (var id = 0; id < size; id++) {
+                out.putChars(skus.getItem(id));
+            }
+            out.pad(extensionsOffset);
+
+            for (var id = 0; id < size; id++) {
+                val offers = skus.getMultiOfferCount(id);
+                if (offers == 0) continue;
+
+                val tableLength = skus.getPriceTableLength(id);
+                out.putLong(skus.getPeriodValueMinor(id));
+                out.putInt(skus.getPeriodQuantity(id));
+                out.putInt(tableLength);
+                out.putInt(offers);
+                out.putInt(0);
+                for (var count = 0; count < tableLength; count++) {
+                    out.putLong(skus.getPriceTableEntry(id, count));
+                }
+                for (var offer = 0; offer < offers; offer++) {
+                    out.putInt(skus.getMultiOfferQuantity(id, offer));
+                    out.putInt(skus.getMultiOfferValue(id, offer));
+                }
+            }
+
+            writeBundles(out, catalog.getBundles());
+            writeBundles(out, catalog.getDormantBundles());
+            out.flush();
+
+            val header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(catalog.getFingerprint())
+                    .putInt(size)
+                    .putInt(slots.length)
+                    .putInt(maxChar + 1)
+                    .putInt(catalog.getBundleStepBudget())
+                    .putInt((int) slotsOffset)
+                    .putInt((int) charIndexOffset)
+                    .putInt((int) namesOffset)
+                    .putInt((int) extensionsOffset)
+                    .putInt((int) bundlesOffset)
+                    .putInt((int) length)
+                    .putLong(out.crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private static long bundlesSize(Bundles bundles) {
+        var size = (long) Integer.BYTES;
+        for (var bundle = 0; bundle < bundles.size(); bundle++) {
+            size += Long.BYTES + 2 * Integer.BYTES + Character.BYTES * bundles.getName(bundle).length() + (long) Integer.BYTES * bundles.getComponents(bundle).length;
+        }
+        return size;
+    }
+
+    private static void writeBundles(Output out, Bundles bundles) throws IOException {
+        out.putInt(bundles.size());
+        for (var bundle = 0; bundle < bundles.size(); bundle++) {
+            val components = bundles.getComponents(bundle);
+            out.putLong(bundles.getPriceMinor(bundle));
+            out.putInt(bundles.getName(bundle).length());
+            out.putInt(components.length / 2);
+            out.putChars(bundles.getName(bundle));
+            for (val component : components) {
+                out.putInt(component);
+            }
+        }
+    }
+
+    private static long extensionSize(SkuTable skus, int id) {
+        return TABLE + (long) Long.BYTES * skus.getPriceTableLength(id) + 2L * Integer.BYTES * skus.getMultiOfferCount(id);
+    }
+
+    private static long align(long offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Load a snapshot, verifying its checksum.
+     * @param file The snapshot file.
+     * @return A {@link PricingCatalog} that prices against the mapped file.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalStateException If the file is not a snapshot, is of an unsupported version or is corrupt.
+     */
+    public static PricingCatalog load(Path file) throws IOException {
+        return load(file, true);
+    }
+
+    /**
+     * Load a snapshot. Verifying the checksum reads the whole file; without it, only the pages that pricing touches are ever read.
+     * @param file The snapshot file.
+     * @param verifyChecksum <code>true</code> to verify the checksum of the whole snapshot before using it.
+     * @return A {@link PricingCatalog} that prices against the mapped file.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalStateException If the file is not a snapshot, is of an unsupported version or is corrupt.
+     */
+    public static PricingCatalog load(Path file, boolean verifyChecksum) throws IOException {
+        ByteBuffer buffer;
+        try (val channel = FileChannel.open(file, READ)) {
+            val length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) throw new IllegalStateException(format("%s is not a catalog snapshot", file));
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+
+        if (buffer.getInt(0) != MAGIC) throw new IllegalStateException(format("%s is not a catalog snapshot", file));
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException(format("Catalog snapshot %s has unsupported version %d, expected %d", file, buffer.getInt(4), VERSION));
+        }
+        if (buffer.getInt(LENGTH) != buffer.capacity()) {
+            throw corrupt(file, format("expected %d bytes but found %d", buffer.getInt(LENGTH), buffer.capacity()));
+        }
+        if (verifyChecksum) {
+            val crc = new CRC32C();
+            crc.update(buffer.duplicate().position(HEADER_SIZE));
+            if (crc.getValue() != buffer.getLong(CHECKSUM)) throw corrupt(file, "checksum mismatch");
+        }
+
+        val skus = new MappedSkuTable(buffer.asReadOnlyBuffer());
+        try {
+            return readCatalog(buffer, skus);
+        } catch (RuntimeException e) {
+            throw corrupt(file, e.getMessage());
+        }
+    }
+
+    private static PricingCatalog readCatalog(ByteBuffer buffer, SkuTable skus) {
+        val in = buffer.duplicate().position(buffer.getInt(BUNDLES_OFFSET));
+        val bundles = readBundles(in, skus);
+        val dormantBundles = readBundles(in, skus);
+        return new PricingCatalog(skus, bundles, dormantBundles, buffer.getInt(BUNDLE_STEP_BUDGET), buffer.getLong(FINGERPRINT));
+    }
+
+    private static Bundles readBundles(ByteBuffer in, SkuTable skus) {
+        val count = in.getInt();
+        if (count == 0) return Bundles.NONE;
+
+        val names = new String[count];
+        val components = new int[count][];
+        val prices = new long[count];
+        for (var bundle = 0; bundle < count; bundle++) {
+            prices[bundle] = in.getLong();
+            val name = new char[in.getInt()];
+            components[bundle] = new int[in.getInt() * 2];
+            for (var i = 0; i < name.length; i++) {
+                name[i] = in.getChar();
+            }
+            names[bundle] = new String(name);
+            for (var i = 0; i < components[bundle].length; i++) {
+                components[bundle][i] = in.getInt();
+                if (i % 2 == 0 && (components[bundle][i] < 0 || components[bundle][i] >= skus.size())) {
+                    throw new IllegalStateException(format("bundle %s contains an unknown SKU id", names[bundle]));
+                }
+            }
+        }
+        return new Bundles(names, components, prices);
+    }
+
+    private static IllegalStateException corrupt(Path file, String reason) {
+        return new IllegalStateException(format("Corrupt catalog snapshot %s: %s", file, reason));
+    }
+
+    // Buffers the sections of a snapshot in order, computing their checksum as they are written
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long position = HEADER_SIZE;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putChars(String chars) throws IOException {
+            for (var i = 0; i < chars.length(); i++) {
+                ensure(Character.BYTES);
+                buffer.putChar(chars.charAt(i));
+            }
+        }
+
+        private void pad(long offset) throws IOException {
+            while (position + buffer.position() < offset) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+import static com.checkout.model.PricingCatalog.UNKNOWN_SKU;
+import static java.lang.String.format;
+
+/**
+ * A till session that keeps a running total as items are scanned and voided one at a time.
+ * Each scan or void re-prices only the affected SKU's line, so it costs constant time regardless of the basket size.
+ * Counts are held in a small open-addressing table of the SKUs actually scanned, so an idle session uses a few hundred bytes
+ * no matter how large the shared {@link PricingCatalog} is. A session is not thread-safe; the catalog can be shared by any number of sessions.
+ * If the catalog has bundle deals or basket-level stages, a scan or void can change which bundles or discounts apply, so the whole basket is re-priced instead,
+ * from counts shared by the sessions on a thread rather than held by each session.
+ */
+public final class CheckoutSession {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Catalog-sized counts for re-pricing a whole basket, which are only used within total() and so can be shared by the sessions on a thread
+    private static final ThreadLocal<BasketCounts> BASKET = ThreadLocal.withInitial(() -> new BasketCounts(0));
+
+    private final PricingCatalog catalog;
+    private int[] skuIds = newTable(INITIAL_CAPACITY);
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int distinctSkus;
+    private long itemCount;
+    private long total;
+
+    public CheckoutSession(PricingCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Add one item to the basket.
+     * @param sku The SKU.
+     * @return The running total in minor units.
+     * @throws IllegalArgumentException If the SKU is not in the catalog.
+     */
+    public long scan(String sku) {
+        val slot = slotOf(idOf(sku), true);
+        val count = counts[slot];
+        if (!catalog.isBasketPriced()) {
+            total = Math.addExact(total, catalog.linePriceMinor(skuIds[slot], count + 1) - catalog.linePriceMinor(skuIds[slot], count));
+        }
+        counts[slot] = count + 1;
+        itemCount++;
+        return total();
+    }
+
+    /**
+     * Remove one previously scanned item from the basket.
+     * @param sku The SKU.
+     * @return The running total in minor units.
+     * @throws IllegalArgumentException If the SKU is not in the catalog.
+     * @throws IllegalStateException If no item of the SKU has been scanned.
+     */
+    public long voidItem(String sku) {
+        val slot = slotOf(idOf(sku), false);
+        if (slot == EMPTY || counts[slot] == 0) {
+            throw new IllegalStateException(format("No %s has been scanned", sku));
+        }
+        val count = counts[slot];
+        if (!catalog.isBasketPriced()) {
+            total = Math.addExact(total, catalog.linePriceMinor(skuIds[slot], count - 1) - catalog.linePriceMinor(skuIds[slot], count));
+        }
+        counts[slot] = count - 1;
+        itemCount--;
+        return total();
+    }
+
+    /**
+     * @return The running total in minor units.
+     */
+    public long total() {
+        if (!catalog.isBasketPriced()) return total;
+
+        var basket = BASKET.get();
+        if (basket.capacity() < catalog.size()) {
+            basket = new BasketCounts(catalog.size());
+            BASKET.set(basket);
+        }
+        try {
+            return catalog.totalMinor(addTo(basket));
+        } finally {
+            basket.clear();
+        }
+    }
+
+    /**
+     * @param sku The SKU.
+     * @return The number of items of the SKU currently in the basket.
+     */
+    public int getCount(String sku) {
+        val id = catalog.idOf(sku);
+        if (id == UNKNOWN_SKU) return 0;
+        val slot = slotOf(id, false);
+        return slot == EMPTY ? 0 : counts[slot];
+    }
+
+    /**
+     * @return The number of items currently in the basket.
+     */
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return The basket as {@link BasketCounts} keyed by the session's catalog.
+     */
+    public BasketCounts toBasketCounts() {
+        return addTo(new BasketCounts(catalog.size()));
+    }
+
+    private BasketCounts addTo(BasketCounts basket) {
+        for (var slot = 0; slot < skuIds.length; slot++) {
+            if (skuIds[slot] != EMPTY) basket.add(skuIds[slot], counts[slot]);
+        }
+        return basket;
+    }
+
+    public PricingCatalog getCatalog() {
+        return catalog;
+    }
+
+    private int idOf(String sku) {
+        val id = catalog.idOf(sku);
+        if (id == UNKNOWN_SKU) {
+            throw new IllegalArgumentException(format("SKU %s is not in the pricing rules", sku));
+        }
+        return id;
+    }
+
+    private int slotOf(int id, boolean insert) {
+        val mask = skuIds.length - 1;
+        var slot = mix(id) & mask;
+        while (skuIds[slot] != id) {
+            if (skuIds[slot] == EMPTY) {
+                if (!insert) return EMPTY;
+                if ((distinctSkus + 1) * 2 > skuIds.length) {
+                    grow();
+                    return slotOf(id, true);
+                }
+                skuIds[slot] = id;
+                distinctSkus++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        val oldIds = skuIds;
+        val oldCounts = counts;
+        skuIds = newTable(oldIds.length * 2);
+        counts = new int[oldIds.length * 2];
+        distinctSkus = 0;
+        for (var slot = 0; slot < oldIds.length; slot++) {
+            if (oldIds[slot] != EMPTY) {
+                counts[slotOf(oldIds[slot], true)] = oldCounts[slot];
+            }
+        }
+    }
+
+    private static int mix(int id) {
+        val h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newTable(int capacity) {
+        val table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
@@ -0,0 +1,119 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The {@link BasketStage}s of a catalog, compiled against its SKU ids into a single evaluator. Each SKU id maps to a bit mask of the stages
+ * that apply to its line, so one pass over a basket prices every line once and adds it to the subtotal and to the amount of each of those stages,
+ * in a scratch array reused by every basket priced on a thread. The stages are then applied in order to those amounts alone.
+ * <p>
+ * At most {@link #MAX_SCOPED_STAGES} stages can apply to particular SKUs; any number can apply to the whole basket.
+ * Catalogs that share SKU ids, such as store catalogs and timeline versions over a common base, share one instance:
+ * SKUs added after it was compiled belong to no stage's SKUs. Immutable and thread-safe.
+ */
+final class DiscountPipeline {
+    static final DiscountPipeline NONE = new DiscountPipeline(new BasketStage[0], new int[0], new long[0], 0);
+    static final int MAX_SCOPED_STAGES = Long.SIZE;
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[MAX_SCOPED_STAGES]);
+
+    private final BasketStage[] stages;
+    // The slot of each stage's amount in the scratch array, or -1 if it applies to the whole basket
+    private final int[] slots;
+    private final long[] masks;
+    private final int scoped;
+
+    private DiscountPipeline(BasketStage[] stages, int[] slots, long[] masks, int scoped) {
+        this.stages = stages;
+        this.slots = slots;
+        this.masks = masks;
+        this.scoped = scoped;
+    }
+
+    /**
+     * @throws IllegalArgumentException If a stage applies to a SKU that is not in the table, or more than {@link #MAX_SCOPED_STAGES} stages apply to particular SKUs.
+     */
+    static DiscountPipeline compile(List<BasketStage> stages, SkuTable skus) {
+        if (stages.isEmpty()) return NONE;
+
+        val slots = new int[stages.size()];
+        val masks = new long[skus.size()];
+        var scoped = 0;
+        for (var stage = 0; stage < slots.length; stage++) {
+            val items = stages.get(stage).getItems();
+            if (items.isEmpty()) {
+                slots[stage] = -1;
+                continue;
+            }
+            if (scoped == MAX_SCOPED_STAGES) {
+                throw new IllegalArgumentException(format("At most %d discounts can apply to particular SKUs", MAX_SCOPED_STAGES));
+            }
+
+            for (val item : items) {
+                val id = skus.idOf(item);
+                if (id == PricingCatalog.UNKNOWN_SKU) {
+                    throw new IllegalArgumentException(format("Discount %s applies to unknown SKU %s", stages.get(stage).getRule(), item));
+                }
+                masks[id] |= 1L << scoped;
+            }
+            slots[stage] = scoped++;
+        }
+        return new DiscountPipeline(stages.toArray(new BasketStage[0]), slots, masks, scoped);
+    }
+
+    int size() {
+        return stages.length;
+    }
+
+    BasketStage getStage(int stage) {
+        return stages[stage];
+    }
+
+    long fingerprint(long hash) {
+        for (val stage : stages) {
+            val rule = stage.getRule();
+            for (var i = 0; i < rule.length(); i++) {
+                hash = (hash ^ rule.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ ';') * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return The total of the basket in minor units after every stage.
+     */
+    long totalMinor(PricingCatalog catalog, BasketCounts basket) {
+        val amounts = scoped == 0 ? null : SCRATCH.get();
+        if (scoped != 0) Arrays.fill(amounts, 0, scoped, 0L);
+
+        var subtotal = 0L;
+        val bundled = catalog.getBundleCount() != 0;
+        if (scoped != 0 || !bundled) {
+            for (var i = 0; i < basket.distinctSkus(); i++) {
+                val id = basket.skuAt(i);
+                val linePrice = catalog.linePriceMinor(id, basket.getCount(id));
+                subtotal = Math.addExact(subtotal, linePrice);
+                var mask = id < masks.length ? masks[id] : 0L;
+                while (mask != 0) {
+                    amounts[Long.numberOfTrailingZeros(mask)] += linePrice;
+                    mask &= mask - 1;
+                }
+            }
+        }
+        // Bundles allocate the basket as a whole, so the subtotal comes from the bundle solver and scoped stages see their lines before any bundle saving
+        if (bundled) subtotal = catalog.subtotalMinor(basket);
+
+        var total = subtotal;
+        for (var stage = 0; stage < stages.length; stage++) {
+            val slot = slots[stage];
+            val amount = slot < 0 ? total : Math.min(amounts[slot], total);
+            total = Math.max(0, Math.min(subtotal, stages[stage].apply(total, amount, subtotal)));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,17 @@
+package com.checkout.model;
+
+/**
+ * Which branch of {@link PricingCatalog#linePriceMinor(int, int)} priced a line, as reported by {@link PricingCatalog#lineBranch(int, int)}.
+ */
+public enum LineBranch {
+    /** The SKU has no special price, so every unit is at the unit price. */
+    UNIT_PRICE,
+    /** Whole groups of the special-price quantity are at the special price, and the remainder at the unit price. */
+    SPECIAL_PRICE,
+    /** The original special-price arithmetic did not apply the offer, so the groups, and the remainder, are at the unit price. */
+    SPECIAL_NOT_APPLIED,
+    /** The cheapest combination of several multi-buy offers, read from the precomputed price table. */
+    PRICE_TABLE,
+    /** Beyond the price table: repeats of the offer with the lowest price per unit, and the remainder from the price table. */
+    PRICE_TABLE_REPEATED
+}
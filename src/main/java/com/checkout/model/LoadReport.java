@@ -0,0 +1,80 @@
+package com.checkout.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * The results of driving a synthetic workload through the pricing path on several lanes, measured after a warm-up.
+ * Allocation is <code>-1</code> where the JVM cannot measure it.
+ */
+@Getter
+@AllArgsConstructor
+public class LoadReport {
+    private String workload;
+    private int lanes;
+    private long baskets;
+    private long invalidBaskets;
+    private long elapsedNanos;
+    private double minIntervalBasketsPerSecond;
+    private double maxIntervalBasketsPerSecond;
+    private long p50Nanos;
+    private long p90Nanos;
+    private long p99Nanos;
+    private long p999Nanos;
+    private long maxNanos;
+    private long allocatedBytes;
+    private long gcCount;
+    private long gcMillis;
+    private long totalsChecksum;
+
+    public double getBasketsPerSecond() {
+        return elapsedNanos == 0 ? 0 : baskets * 1_000_000_000d / elapsedNanos;
+    }
+
+    public double getAllocatedBytesPerBasket() {
+        return allocatedBytes < 0 || baskets == 0 ? -1 : (double) allocatedBytes / baskets;
+    }
+
+    public double getAllocatedMegabytesPerSecond() {
+        return allocatedBytes < 0 || elapsedNanos == 0 ? -1 : allocatedBytes * 1_000d / elapsedNanos;
+    }
+
+    /**
+     * @return Every numeric result by a stable name, in a fixed order, for writing to a file and comparing between builds.
+     */
+    public Map<String, Number> getMetrics() {
+        final Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("lanes", lanes);
+        metrics.put("baskets", baskets);
+        metrics.put("invalidBaskets", invalidBaskets);
+        metrics.put("elapsedMillis", elapsedNanos / 1_000_000);
+        metrics.put("basketsPerSecond", Math.round(getBasketsPerSecond()));
+        metrics.put("minIntervalBasketsPerSecond", Math.round(minIntervalBasketsPerSecond));
+        metrics.put("maxIntervalBasketsPerSecond", Math.round(maxIntervalBasketsPerSecond));
+        metrics.put("p50Nanos", p50Nanos);
+        metrics.put("p90Nanos", p90Nanos);
+        metrics.put("p99Nanos", p99Nanos);
+        metrics.put("p999Nanos", p999Nanos);
+        metrics.put("maxNanos", maxNanos);
+        metrics.put("allocatedBytesPerBasket", Math.round(getAllocatedBytesPerBasket()));
+        metrics.put("allocatedMegabytesPerSecond", Math.round(getAllocatedMegabytesPerSecond()));
+        metrics.put("gcCount", gcCount);
+        metrics.put("gcMillis", gcMillis);
+        metrics.put("totalsChecksum", totalsChecksum);
+        return metrics;
+    }
+
+    public String getFormattedSummary() {
+        return format("Priced %d baskets (%d invalid) on %d lanes in %d ms, %.0f baskets/s (%.0f to %.0f per 1s interval)%n"
+                        + "Latency p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n"
+                        + "Allocated %.0f bytes/basket, %.0f MB/s, %d GCs taking %d ms, totals checksum %d",
+                baskets, invalidBaskets, lanes, elapsedNanos / 1_000_000, getBasketsPerSecond(), minIntervalBasketsPerSecond, maxIntervalBasketsPerSecond,
+                p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos,
+                getAllocatedBytesPerBasket(), getAllocatedMegabytesPerSecond(), gcCount, gcMillis, totalsChecksum);
+    }
+}
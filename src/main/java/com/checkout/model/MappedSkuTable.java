@@ -0,0 +1,178 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+
+import static com.checkout.model.CatalogSnapshot.CHAR_INDEX_LENGTH;
+import static com.checkout.model.CatalogSnapshot.CHAR_INDEX_OFFSET;
+import static com.checkout.model.CatalogSnapshot.EXTENSION_OFFSET;
+import static com.checkout.model.CatalogSnapshot.HASH;
+import static com.checkout.model.CatalogSnapshot.HEADER_SIZE;
+import static com.checkout.model.CatalogSnapshot.NAME_LENGTH;
+import static com.checkout.model.CatalogSnapshot.NAME_OFFSET;
+import static com.checkout.model.CatalogSnapshot.OFFER_COUNT;
+import static com.checkout.model.CatalogSnapshot.PERIOD_QUANTITY;
+import static com.checkout.model.CatalogSnapshot.PERIOD_VALUE;
+import static com.checkout.model.CatalogSnapshot.RECORD_SIZE;
+import static com.checkout.model.CatalogSnapshot.SKU_COUNT;
+import static com.checkout.model.CatalogSnapshot.SLOTS_OFFSET;
+import static com.checkout.model.CatalogSnapshot.SLOT_COUNT;
+import static com.checkout.model.CatalogSnapshot.SPECIAL_QUANTITY;
+import static com.checkout.model.CatalogSnapshot.SPECIAL_VALUE;
+import static com.checkout.model.CatalogSnapshot.TABLE;
+import static com.checkout.model.CatalogSnapshot.TABLE_LENGTH;
+import static com.checkout.model.CatalogSnapshot.UNIT_PRICE;
+import static com.checkout.model.SkuDictionary.UNKNOWN_SKU;
+
+/**
+ * A {@link SkuTable} read in place from a memory-mapped {@link CatalogSnapshot}, using only absolute reads so it can be shared between threads.
+ * SKUs are looked up through the snapshot's hash table with the same hash as {@link SkuDictionary}, and names are only decoded
+ * into Strings when asked for, so the heap holds nothing per SKU.
+ */
+final class MappedSkuTable implements SkuTable {
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int slotsOffset;
+    private final int slotMask;
+    private final int charIndexOffset;
+    private final int charIndexLength;
+
+    MappedSkuTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(SKU_COUNT);
+        this.slotsOffset = buffer.getInt(SLOTS_OFFSET);
+        this.slotMask = buffer.getInt(SLOT_COUNT) - 1;
+        this.charIndexOffset = buffer.getInt(CHAR_INDEX_OFFSET);
+        this.charIndexLength = buffer.getInt(CHAR_INDEX_LENGTH);
+    }
+
+    private static int record(int id) {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int idOf(char sku) {
+        return sku < charIndexLength ? buffer.getInt(charIndexOffset + sku * Integer.BYTES) : UNKNOWN_SKU;
+    }
+
+    @Override
+    public int idOf(String sku) {
+        if (sku == null) return UNKNOWN_SKU;
+        return sku.length() == 1 ? idOf(sku.charAt(0)) : idOf(sku, 0, sku.length());
+    }
+
+    @Override
+    public int idOf(CharSequence chars, int from, int to) {
+        val length = to - from;
+        if (length <= 0) return UNKNOWN_SKU;
+
+        val hash = SkuDictionary.hash(chars, from, to);
+        var slot = hash & slotMask;
+        int id;
+        while ((id = buffer.getInt(slotsOffset + slot * Integer.BYTES)) != UNKNOWN_SKU) {
+            if (buffer.getInt(record(id) + HASH) == hash && matches(id, chars, from, length)) return id;
+            slot = (slot + 1) & slotMask;
+        }
+        return UNKNOWN_SKU;
+    }
+
+    private boolean matches(int id, CharSequence chars, int from, int length) {
+        val record = record(id);
+        if (buffer.getInt(record + NAME_LENGTH) != length) return false;
+
+        val name = buffer.getInt(record + NAME_OFFSET);
+        for (var i = 0; i < length; i++) {
+            if (buffer.getChar(name + i * Character.BYTES) != chars.charAt(from + i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String getItem(int id) {
+        val record = record(id);
+        val name = buffer.getInt(record + NAME_OFFSET);
+        val chars = new char[buffer.getInt(record + NAME_LENGTH)];
+        for (var i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar(name + i * Character.BYTES);
+        }
+        return new String(chars);
+    }
+
+    // Prices were exact to two decimal places when compiled, so this is the same double they were parsed from
+    @Override
+    public double getUnitPrice(int id) {
+        return (double) getUnitPriceMinor(id) / 100;
+    }
+
+    @Override
+    public long getUnitPriceMinor(int id) {
+        return buffer.getLong(record(id) + UNIT_PRICE);
+    }
+
+    @Override
+    public int getSpecialQuantity(int id) {
+        return buffer.getInt(record(id) + SPECIAL_QUANTITY);
+    }
+
+    @Override
+    public int getSpecialValue(int id) {
+        return buffer.getInt(record(id) + SPECIAL_VALUE);
+    }
+
+    @Override
+    public long getSpecialValueMinor(int id) {
+        return getSpecialValue(id) * 100L;
+    }
+
+    private int extension(int id) {
+        return buffer.getInt(record(id) + EXTENSION_OFFSET);
+    }
+
+    @Override
+    public int getMultiOfferCount(int id) {
+        val extension = extension(id);
+        return extension != 0 ? buffer.getInt(extension + OFFER_COUNT) : 0;
+    }
+
+    @Override
+    public int getMultiOfferQuantity(int id, int offer) {
+        return buffer.getInt(offers(id) + offer * 2 * Integer.BYTES);
+    }
+
+    @Override
+    public int getMultiOfferValue(int id, int offer) {
+        return buffer.getInt(offers(id) + (offer * 2 + 1) * Integer.BYTES);
+    }
+
+    private int offers(int id) {
+        val extension = extension(id);
+        return extension + TABLE + buffer.getInt(extension + TABLE_LENGTH) * Long.BYTES;
+    }
+
+    @Override
+    public int getPriceTableLength(int id) {
+        val extension = extension(id);
+        return extension != 0 ? buffer.getInt(extension + TABLE_LENGTH) : 0;
+    }
+
+    @Override
+    public long getPriceTableEntry(int id, int count) {
+        return buffer.getLong(extension(id) + TABLE + count * Long.BYTES);
+    }
+
+    @Override
+    public int getPeriodQuantity(int id) {
+        return buffer.getInt(extension(id) + PERIOD_QUANTITY);
+    }
+
+    @Override
+    public long getPeriodValueMinor(int id) {
+        return buffer.getLong(extension(id) + PERIOD_VALUE);
+    }
+}
@@ -0,0 +1,184 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SkuTable} that prices SKUs as a base table does, except for the SKUs it overrides and the SKUs it adds after the base's.
+ * Overridden SKUs keep their base ids and are found in an open-addressing table keyed by id, kept at most half full, so the base is
+ * shared rather than copied however large it is, and a lookup of a SKU that is not overridden usually probes a single empty slot.
+ * Added SKUs take the ids following the base's and are interned by their own {@link SkuDictionary}.
+ */
+final class OverlaySkuTable implements SkuTable {
+    private static final int EMPTY = -1;
+
+    private final SkuTable base;
+    private final int baseSize;
+    private final int[] keys;
+    private final PricedSku[] entries;
+    private final PricedSku[] additions;
+    private final SkuDictionary addedSkus;
+    private final int overrideCount;
+
+    /**
+     * @param overriddenIds The base ids of the overridden SKUs.
+     * @param overrides The pricing of each overridden SKU, in the same order.
+     * @param additions The pricing of each added SKU, in order of id.
+     */
+    OverlaySkuTable(SkuTable base, int[] overriddenIds, PricedSku[] overrides, PricedSku[] additions) {
+        this.base = base;
+        this.baseSize = base.size();
+        this.keys = new int[SkuDictionary.tableSize(overriddenIds.length)];
+        this.entries = new PricedSku[keys.length];
+        this.additions = additions;
+        this.addedSkus = SkuDictionary.of(Arrays.stream(additions).map(PricedSku::getItem).toArray(String[]::new));
+        this.overrideCount = overriddenIds.length + additions.length;
+
+        Arrays.fill(keys, EMPTY);
+        val mask = keys.length - 1;
+        for (var i = 0; i < overriddenIds.length; i++) {
+            var slot = slotOf(overriddenIds[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = overriddenIds[i];
+            entries[slot] = overrides[i];
+        }
+    }
+
+    private static int slotOf(int id) {
+        val h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return The pricing of an overridden or added SKU, or <code>null</code> if the base prices it.
+     */
+    PricedSku entryOf(int id) {
+        if (id >= baseSize) return additions[id - baseSize];
+
+        val mask = keys.length - 1;
+        var slot = slotOf(id) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == id) return entries[slot];
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of overridden and added SKUs.
+     */
+    int getOverrideCount() {
+        return overrideCount;
+    }
+
+    @Override
+    public int size() {
+        return baseSize + additions.length;
+    }
+
+    @Override
+    public int idOf(char sku) {
+        val id = base.idOf(sku);
+        if (id != SkuDictionary.UNKNOWN_SKU) return id;
+        return added(addedSkus.idOf(sku));
+    }
+
+    @Override
+    public int idOf(String sku) {
+        val id = base.idOf(sku);
+        if (id != SkuDictionary.UNKNOWN_SKU) return id;
+        return added(addedSkus.idOf(sku));
+    }
+
+    @Override
+    public int idOf(CharSequence chars, int from, int to) {
+        val id = base.idOf(chars, from, to);
+        if (id != SkuDictionary.UNKNOWN_SKU) return id;
+        return added(addedSkus.idOf(chars, from, to));
+    }
+
+    private int added(int id) {
+        return id == SkuDictionary.UNKNOWN_SKU ? id : baseSize + id;
+    }
+
+    @Override
+    public String getItem(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getItem() : base.getItem(id);
+    }
+
+    @Override
+    public double getUnitPrice(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getUnitPrice() : base.getUnitPrice(id);
+    }
+
+    @Override
+    public long getUnitPriceMinor(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getUnitPriceMinor() : base.getUnitPriceMinor(id);
+    }
+
+    @Override
+    public int getSpecialQuantity(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getSpecialQuantity() : base.getSpecialQuantity(id);
+    }
+
+    @Override
+    public int getSpecialValue(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getSpecialValue() : base.getSpecialValue(id);
+    }
+
+    @Override
+    public long getSpecialValueMinor(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getSpecialValueMinor() : base.getSpecialValueMinor(id);
+    }
+
+    @Override
+    public int getMultiOfferCount(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getMultiOfferCount() : base.getMultiOfferCount(id);
+    }
+
+    @Override
+    public int getMultiOfferQuantity(int id, int offer) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getMultiOfferQuantity(offer) : base.getMultiOfferQuantity(id, offer);
+    }
+
+    @Override
+    public int getMultiOfferValue(int id, int offer) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getMultiOfferValue(offer) : base.getMultiOfferValue(id, offer);
+    }
+
+    @Override
+    public int getPriceTableLength(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getPriceTableLength() : base.getPriceTableLength(id);
+    }
+
+    @Override
+    public long getPriceTableEntry(int id, int count) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getPriceTableEntry(count) : base.getPriceTableEntry(id, count);
+    }
+
+    @Override
+    public int getPeriodQuantity(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getPeriodQuantity() : base.getPeriodQuantity(id);
+    }
+
+    @Override
+    public long getPeriodValueMinor(int id) {
+        val entry = entryOf(id);
+        return entry != null ? entry.getPeriodValueMinor() : base.getPeriodValueMinor(id);
+    }
+}
@@ -0,0 +1,144 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The compiled pricing of a single SKU: its unit price, special price and any multi-buy offers with their price table.
+ * Instances are immutable and compare by value, so identical SKUs across store catalogs can be interned to one shared instance.
+ */
+final class PricedSku {
+    private final String item;
+    private final double unitPrice;
+    private final long unitPriceMinor;
+    private final int specialQuantity;
+    private final int specialValue;
+    private final long specialValueMinor;
+    private final int[] offers;
+    private final long[] priceTableMinor;
+    private final int periodQuantity;
+    private final long periodValueMinor;
+    private final int hash;
+
+    private PricedSku(String item, double unitPrice, long unitPriceMinor, int specialQuantity, int specialValue, long specialValueMinor,
+                      int[] offers, long[] priceTableMinor, int periodQuantity, long periodValueMinor) {
+        this.item = item;
+        this.unitPrice = unitPrice;
+        this.unitPriceMinor = unitPriceMinor;
+        this.specialQuantity = specialQuantity;
+        this.specialValue = specialValue;
+        this.specialValueMinor = specialValueMinor;
+        this.offers = offers;
+        this.priceTableMinor = priceTableMinor;
+        this.periodQuantity = periodQuantity;
+        this.periodValueMinor = periodValueMinor;
+        this.hash = Objects.hash(item, unitPriceMinor, specialQuantity, specialValue, Arrays.hashCode(offers));
+    }
+
+    /**
+     * @return A copy of the pricing of a SKU in a {@link SkuTable}.
+     */
+    static PricedSku of(SkuTable skus, int id) {
+        val offerCount = skus.getMultiOfferCount(id);
+        int[] offers = null;
+        long[] priceTable = null;
+        if (offerCount != 0) {
+            offers = new int[offerCount * 2];
+            for (var offer = 0; offer < offerCount; offer++) {
+                offers[offer * 2] = skus.getMultiOfferQuantity(id, offer);
+                offers[offer * 2 + 1] = skus.getMultiOfferValue(id, offer);
+            }
+            priceTable = new long[skus.getPriceTableLength(id)];
+            for (var count = 0; count < priceTable.length; count++) {
+                priceTable[count] = skus.getPriceTableEntry(id, count);
+            }
+        }
+        return new PricedSku(skus.getItem(id), skus.getUnitPrice(id), skus.getUnitPriceMinor(id), skus.getSpecialQuantity(id), skus.getSpecialValue(id),
+                skus.getSpecialValueMinor(id), offers, priceTable, offerCount != 0 ? skus.getPeriodQuantity(id) : 0, offerCount != 0 ? skus.getPeriodValueMinor(id) : 0);
+    }
+
+    /**
+     * @return <code>true</code> if a SKU in a {@link SkuTable} has the same item and prices, otherwise <code>false</code>.
+     */
+    boolean isPricedAs(SkuTable skus, int id) {
+        if (skus.getUnitPriceMinor(id) != unitPriceMinor || skus.getSpecialQuantity(id) != specialQuantity
+                || skus.getSpecialValue(id) != specialValue || skus.getMultiOfferCount(id) != getMultiOfferCount()) {
+            return false;
+        }
+        for (var offer = 0; offer < getMultiOfferCount(); offer++) {
+            if (skus.getMultiOfferQuantity(id, offer) != getMultiOfferQuantity(offer) || skus.getMultiOfferValue(id, offer) != getMultiOfferValue(offer)) {
+                return false;
+            }
+        }
+        return skus.getItem(id).equals(item);
+    }
+
+    String getItem() {
+        return item;
+    }
+
+    double getUnitPrice() {
+        return unitPrice;
+    }
+
+    long getUnitPriceMinor() {
+        return unitPriceMinor;
+    }
+
+    int getSpecialQuantity() {
+        return specialQuantity;
+    }
+
+    int getSpecialValue() {
+        return specialValue;
+    }
+
+    long getSpecialValueMinor() {
+        return specialValueMinor;
+    }
+
+    int getMultiOfferCount() {
+        return offers != null ? offers.length / 2 : 0;
+    }
+
+    int getMultiOfferQuantity(int offer) {
+        return offers[offer * 2];
+    }
+
+    int getMultiOfferValue(int offer) {
+        return offers[offer * 2 + 1];
+    }
+
+    int getPriceTableLength() {
+        return priceTableMinor != null ? priceTableMinor.length : 0;
+    }
+
+    long getPriceTableEntry(int count) {
+        return priceTableMinor[count];
+    }
+
+    int getPeriodQuantity() {
+        return periodQuantity;
+    }
+
+    long getPeriodValueMinor() {
+        return periodValueMinor;
+    }
+
+    // The price table follows from the offers, so it is left out of equality
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PricedSku)) return false;
+        val other = (PricedSku) o;
+        return hash == other.hash && unitPriceMinor == other.unitPriceMinor && specialQuantity == other.specialQuantity
+                && specialValue == other.specialValue && item.equals(other.item) && Arrays.equals(offers, other.offers);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
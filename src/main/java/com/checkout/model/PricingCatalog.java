@@ -0,0 +1,877 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Math.addExact;
+import static java.lang.Math.multiplyExact;
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * An immutable, compiled view of a set of {@link PricingRule}s.
+ * Each SKU is interned to a dense id by a {@link SkuDictionary}, and its unit price and special price are held in primitive arrays indexed by that id,
+ * so looking up and pricing a SKU is a constant-time operation regardless of the size of the catalog.
+ * <p>
+ * A SKU with a single special price keeps the original special-price arithmetic. A SKU with several multi-buy offers is priced at the
+ * cheapest combination of offers and single units, which is precomputed into a price-by-count table when the catalog is compiled.
+ * Counts beyond the table are priced by repeating the offer with the lowest price per unit, so pricing stays constant-time whatever the number of offers.
+ * <p>
+ * Bundle deals across several SKUs, such as <code>A+B+C</code> for 60, compete with the SKUs' own prices when a whole basket is priced
+ * by {@link #totalMinor(BasketCounts)}, which finds the cheapest allocation of the basket to bundles with a {@link BundleSolver}.
+ * <p>
+ * Basket-level {@link BasketStage}s, such as coupons and spend-and-save thresholds, are compiled into the catalog by {@link #withStages(List)}
+ * and applied in order to every total once the lines and bundles have been priced.
+ */
+public final class PricingCatalog {
+    public static final int UNKNOWN_SKU = SkuDictionary.UNKNOWN_SKU;
+    public static final int MINOR_UNIT_DIGITS = 2;
+    public static final int DEFAULT_PRICE_TABLE_SIZE = 128;
+    static final int MAX_PRICE_TABLE_SIZE = 1 << 16;
+    public static final int DEFAULT_BUNDLE_STEP_BUDGET = 2048;
+
+    private final SkuTable skus;
+    private final Bundles bundles;
+    private final Bundles dormantBundles;
+    private final int bundleStepBudget;
+    private final LongAdder bundleFallbacks = new LongAdder();
+    private final long fingerprint;
+    private final DiscountPipeline stages;
+
+    private PricingCatalog(SkuTable skus, Bundles bundles, Bundles dormantBundles, int bundleStepBudget) {
+        this(skus, bundles, dormantBundles, bundleStepBudget, fingerprint(skus, bundles));
+    }
+
+    /**
+     * @param dormantBundles Bundles that cannot lower any total at these prices, kept so that catalogs overriding the prices can reconsider them.
+     * @param fingerprint The fingerprint of the catalog, as computed when it was compiled from rules.
+     */
+    PricingCatalog(SkuTable skus, Bundles bundles, Bundles dormantBundles, int bundleStepBudget, long fingerprint) {
+        this(skus, bundles, dormantBundles, bundleStepBudget, fingerprint, DiscountPipeline.NONE);
+    }
+
+    private PricingCatalog(SkuTable skus, Bundles bundles, Bundles dormantBundles, int bundleStepBudget, long fingerprint, DiscountPipeline stages) {
+        this.skus = skus;
+        this.bundles = bundles;
+        this.dormantBundles = dormantBundles;
+        this.bundleStepBudget = bundleStepBudget;
+        this.fingerprint = fingerprint;
+        this.stages = stages;
+    }
+
+    // FNV-1a over every SKU and its minor-unit prices, so catalogs compiled from equivalent rules share a fingerprint
+    private static long fingerprint(SkuTable skus, Bundles bundles) {
+        var hash = 0xcbf29ce484222325L;
+        for (var id = 0; id < skus.size(); id++) {
+            hash = fingerprint(hash, skus, id);
+        }
+        return fingerprint(hash, bundles);
+    }
+
+    static long fingerprint(long hash, SkuTable skus, int id) {
+        val item = skus.getItem(id);
+        for (var i = 0; i < item.length(); i++) {
+            hash = (hash ^ item.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ skus.getUnitPriceMinor(id)) * 0x100000001b3L;
+        hash = (hash ^ skus.getSpecialQuantity(id)) * 0x100000001b3L;
+        hash = (hash ^ skus.getSpecialValueMinor(id)) * 0x100000001b3L;
+        for (var offer = 0; offer < skus.getMultiOfferCount(id); offer++) {
+            hash = (hash ^ skus.getMultiOfferQuantity(id, offer)) * 0x100000001b3L;
+            hash = (hash ^ skus.getMultiOfferValue(id, offer)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    static long fingerprint(long hash, Bundles bundles) {
+        for (var bundle = 0; bundle < bundles.size(); bundle++) {
+            for (val component : bundles.getComponents(bundle)) {
+                hash = (hash ^ component) * 0x100000001b3L;
+            }
+            hash = (hash ^ bundles.getPriceMinor(bundle)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Compile the supplied {@link PricingRule}s into a catalog.
+     * Rules without an item are ignored, and if an item appears more than once the first rule wins.
+     * Prices are also converted exactly to minor units (pence) for {@link #linePriceMinor(int, int)}.
+     * @param rules The {@link PricingRule}s.
+     * @return The compiled catalog.
+     * @throws IllegalArgumentException If a price has more than two decimal places or does not fit in minor units, a bundle contains an unknown SKU,
+     * or a rule has a validity window, as those can only be compiled into a {@link PricingTimeline}.
+     */
+    public static PricingCatalog compile(Collection<PricingRule> rules) {
+        val builder = builder(isNull(rules) ? 0 : rules.size());
+        if (nonNull(rules)) {
+            for (val rule : rules) {
+                if (isNull(rule) || isNull(rule.getItem())) continue;
+                if (rule.isWindowed()) {
+                    throw new IllegalArgumentException(format("Rule for %s has a validity window, so it can only be compiled into a timeline", rule.getItem()));
+                }
+
+                if (rule.isBundle()) {
+                    builder.addBundle(rule.getItem(), rule.getBundleItems(), rule.getUnitPrice());
+                } else {
+                    builder.add(rule.getItem(), rule.getUnitPrice(), rule.getSpecialPrices());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A {@link Builder} for adding SKUs to a catalog one at a time.
+     */
+    public static Builder builder() {
+        return builder(16);
+    }
+
+    static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Overlay another catalog's SKUs on this one. A SKU of the overrides with the same item as one of this catalog's replaces its pricing and keeps
+     * its id, and any other SKU is added after this catalog's SKUs. SKUs priced the same as here are ignored, so if nothing differs this catalog is returned.
+     * This catalog's bundles, including dormant ones, are judged again at the overlaid prices, and its instances are reused if none changes.
+     * @param overrides The catalog to overlay, which must not contain bundles.
+     * @param interned Pricing already used by other overlays, which is shared rather than copied and to which new pricing is added.
+     * @return The overlaid catalog, whose fingerprint follows on from this catalog's.
+     * @throws IllegalArgumentException If the overrides contain bundles.
+     */
+    PricingCatalog overlay(PricingCatalog overrides, Map<PricedSku, PricedSku> interned) {
+        if (overrides.bundles.size() != 0 || overrides.dormantBundles.size() != 0) {
+            throw new IllegalArgumentException("Catalog overrides cannot contain bundles");
+        }
+
+        val overriddenIds = new ArrayList<Integer>();
+        val overridden = new ArrayList<PricedSku>();
+        val additions = new ArrayList<PricedSku>();
+        for (var id = 0; id < overrides.size(); id++) {
+            val baseId = skus.idOf(overrides.getItem(id));
+            val priced = PricedSku.of(overrides.skus, id);
+            if (baseId != UNKNOWN_SKU && priced.isPricedAs(skus, baseId)) continue;
+
+            final PricedSku entry = interned.computeIfAbsent(priced, key -> key);
+            if (baseId == UNKNOWN_SKU) {
+                additions.add(entry);
+            } else {
+                overriddenIds.add(baseId);
+                overridden.add(entry);
+            }
+        }
+        if (overridden.isEmpty() && additions.isEmpty()) return this;
+
+        val overlaid = new OverlaySkuTable(skus, overriddenIds.stream().mapToInt(Integer::intValue).toArray(),
+                overridden.toArray(new PricedSku[0]), additions.toArray(new PricedSku[0]));
+
+        val candidates = bundles.concat(dormantBundles);
+        val canLowerTotal = new boolean[candidates.size()];
+        val cannotLowerTotal = new boolean[candidates.size()];
+        var unchanged = true;
+        for (var bundle = 0; bundle < candidates.size(); bundle++) {
+            canLowerTotal[bundle] = candidates.canLowerTotal(bundle, overlaid);
+            cannotLowerTotal[bundle] = !canLowerTotal[bundle];
+            unchanged &= canLowerTotal[bundle] == bundle < bundles.size();
+        }
+        val overlaidBundles = unchanged ? bundles : candidates.select(canLowerTotal);
+        val overlaidDormantBundles = unchanged ? dormantBundles : candidates.select(cannotLowerTotal);
+
+        var hash = fingerprint;
+        for (val id : overriddenIds) {
+            hash = fingerprint((hash ^ id) * 0x100000001b3L, overlaid, id);
+        }
+        for (var id = skus.size(); id < overlaid.size(); id++) {
+            hash = fingerprint(hash, overlaid, id);
+        }
+        return new PricingCatalog(overlaid, overlaidBundles, overlaidDormantBundles, bundleStepBudget, fingerprint(hash, overlaidBundles), stages);
+    }
+
+    /**
+     * Compile basket-level stages into a copy of this catalog, which shares its SKUs and bundles.
+     * @param stages The {@link BasketStage}s, in the order they are applied.
+     * @return The catalog with the stages, whose fingerprint follows on from this catalog's, or this catalog if there are none.
+     * @throws IllegalArgumentException If a stage applies to a SKU that is not in the catalog, or too many stages apply to particular SKUs.
+     * @throws IllegalStateException If this catalog already has stages.
+     */
+    public PricingCatalog withStages(List<BasketStage> stages) {
+        if (stages.isEmpty()) return this;
+        return withStages(DiscountPipeline.compile(stages, skus));
+    }
+
+    /**
+     * @param stages Stages compiled against this catalog's SKU ids, or those of a catalog it overlays.
+     */
+    PricingCatalog withStages(DiscountPipeline stages) {
+        if (this.stages.size() != 0) throw new IllegalStateException("Catalog already has basket stages");
+        return new PricingCatalog(skus, bundles, dormantBundles, bundleStepBudget, stages.fingerprint(fingerprint), stages);
+    }
+
+    /**
+     * @param price A price in major units, e.g. <code>19.99</code>.
+     * @return <code>true</code> if the price is a whole number of minor units, and so can be compiled, otherwise <code>false</code>.
+     */
+    public static boolean isWholeMinorUnits(double price) {
+        return Double.isFinite(price) && BigDecimal.valueOf(price).movePointRight(MINOR_UNIT_DIGITS).stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * Check the prices of a SKU as {@link Builder#add(String, double, List)} does, without adding it to a catalog, such as for a rule
+     * that only takes effect in a {@link PricingTimeline}.
+     * @throws IllegalArgumentException If a price is not valid, an offer quantity is less than one, or the offers need too large a price table.
+     */
+    public static void checkPrices(String item, double unitPrice, List<Pair<Integer, Integer>> specialPrices) {
+        val unitPriceMinor = toMinorUnits(item, unitPrice);
+        if (isNull(specialPrices) || specialPrices.isEmpty()) return;
+        if (specialPrices.size() == 1) {
+            if (specialPrices.get(0).getLeft() != 0) toMinorUnits(item, specialPrices.get(0).getRight());
+            return;
+        }
+
+        val flattened = Builder.flatten(item, specialPrices);
+        Builder.period(item, unitPriceMinor, flattened, Builder.offerValuesMinor(item, flattened));
+    }
+
+    static long toMinorUnits(String item, double price) {
+        try {
+            return BigDecimal.valueOf(price).movePointRight(MINOR_UNIT_DIGITS).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(format("Price %s of %s cannot be represented exactly in minor units", price, item), e);
+        }
+    }
+
+    /**
+     * @return The number of SKUs in the catalog. SKU ids range from <code>0</code> to <code>size() - 1</code>.
+     */
+    public int size() {
+        return skus.size();
+    }
+
+    /**
+     * @return <code>true</code> if the catalog contains no SKUs, otherwise <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return skus.size() == 0;
+    }
+
+    /**
+     * Look up the id of a single-character SKU.
+     * @param sku The SKU.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is not in the catalog.
+     */
+    public int idOf(char sku) {
+        return skus.idOf(sku);
+    }
+
+    /**
+     * Look up the id of a SKU.
+     * @param sku The SKU.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is not in the catalog.
+     */
+    public int idOf(String sku) {
+        return skus.idOf(sku);
+    }
+
+    /**
+     * Look up the id of a SKU held in a region of a character sequence, without copying it.
+     * @param chars The characters containing the SKU.
+     * @param from The index of the first character of the SKU, inclusive.
+     * @param to The index of the last character of the SKU, exclusive.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is not in the catalog.
+     */
+    public int idOf(CharSequence chars, int from, int to) {
+        return skus.idOf(chars, from, to);
+    }
+
+    /**
+     * @return A 64-bit hash of the SKUs, their order and their prices, identifying the version of the rules the catalog was compiled from.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    SkuTable getSkuTable() {
+        return skus;
+    }
+
+    public String getItem(int id) {
+        return skus.getItem(id);
+    }
+
+    public double getUnitPrice(int id) {
+        return skus.getUnitPrice(id);
+    }
+
+    public boolean hasSpecialPrice(int id) {
+        return skus.getSpecialQuantity(id) != 0;
+    }
+
+    public int getSpecialQuantity(int id) {
+        return skus.getSpecialQuantity(id);
+    }
+
+    public int getSpecialValue(int id) {
+        return skus.getSpecialValue(id);
+    }
+
+    public long getUnitPriceMinor(int id) {
+        return skus.getUnitPriceMinor(id);
+    }
+
+    public long getSpecialValueMinor(int id) {
+        return skus.getSpecialValueMinor(id);
+    }
+
+    /**
+     * @param id The SKU id.
+     * @return The number of multi-buy offers of the SKU. Offer <code>0</code> is also its special price.
+     */
+    public int getOfferCount(int id) {
+        val offers = skus.getMultiOfferCount(id);
+        return offers != 0 ? offers : skus.getSpecialQuantity(id) != 0 ? 1 : 0;
+    }
+
+    public int getOfferQuantity(int id, int offer) {
+        return skus.getMultiOfferCount(id) != 0 ? skus.getMultiOfferQuantity(id, offer) : skus.getSpecialQuantity(id);
+    }
+
+    public int getOfferValue(int id, int offer) {
+        return skus.getMultiOfferCount(id) != 0 ? skus.getMultiOfferValue(id, offer) : skus.getSpecialValue(id);
+    }
+
+    /**
+     * @return The number of bundle deals. Bundles that can never lower a total are not compiled.
+     */
+    public int getBundleCount() {
+        return bundles.size();
+    }
+
+    public String getBundleName(int bundle) {
+        return bundles.getName(bundle);
+    }
+
+    public long getBundlePriceMinor(int bundle) {
+        return bundles.getPriceMinor(bundle);
+    }
+
+    /**
+     * @param bundle The bundle index.
+     * @return The number of distinct SKUs in the bundle.
+     */
+    public int getBundleComponentCount(int bundle) {
+        return bundles.getComponents(bundle).length / 2;
+    }
+
+    /**
+     * @param bundle The bundle index.
+     * @param component The component index, in order of SKU id.
+     * @return The SKU id of the component.
+     */
+    public int getBundleComponentId(int bundle, int component) {
+        return bundles.getComponents(bundle)[component * 2];
+    }
+
+    public int getBundleComponentQuantity(int bundle, int component) {
+        return bundles.getComponents(bundle)[component * 2 + 1];
+    }
+
+    int[] getBundlesStartingWith(int id) {
+        return bundles.startingWith(id);
+    }
+
+    Bundles getBundles() {
+        return bundles;
+    }
+
+    Bundles getDormantBundles() {
+        return dormantBundles;
+    }
+
+    int getBundleStepBudget() {
+        return bundleStepBudget;
+    }
+
+    /**
+     * @return The number of basket-level stages applied to every total.
+     */
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    public BasketStage getStage(int stage) {
+        return stages.getStage(stage);
+    }
+
+    DiscountPipeline getStages() {
+        return stages;
+    }
+
+    /**
+     * @return <code>true</code> if a total depends on the whole basket, because of bundle deals or basket-level stages, and so is not
+     * the sum of its line prices, otherwise <code>false</code>.
+     */
+    public boolean isBasketPriced() {
+        return bundles.size() > 0 || stages.size() > 0;
+    }
+
+    /**
+     * @return The number of baskets whose bundle allocation exceeded the step budget and was priced greedily instead.
+     */
+    public long getBundleFallbacks() {
+        return bundleFallbacks.sum();
+    }
+
+    /**
+     * Calculate the exact total of a basket in minor units, allocating its items to the cheapest combination of bundles and line prices
+     * and then applying the basket-level stages. Without bundles or stages this is the sum of {@link #linePriceMinor(int, int)} over the basket.
+     * @param basket The {@link BasketCounts}.
+     * @return The total in minor units.
+     * @throws ArithmeticException If the total overflows a <code>long</code>.
+     */
+    public long totalMinor(BasketCounts basket) {
+        return stages.size() == 0 ? subtotalMinor(basket) : stages.totalMinor(this, basket);
+    }
+
+    // The total before any basket-level stage
+    long subtotalMinor(BasketCounts basket) {
+        if (bundles.size() == 0) {
+            var total = 0L;
+            for (var i = 0; i < basket.distinctSkus(); i++) {
+                val id = basket.skuAt(i);
+                total = addExact(total, linePriceMinor(id, basket.getCount(id)));
+            }
+            return total;
+        }
+
+        val solver = new BundleSolver(this, bundleStepBudget);
+        val total = solver.totalMinor(basket);
+        if (solver.isExhausted()) bundleFallbacks.increment();
+        return total;
+    }
+
+    /**
+     * Calculate the price of a number of units of a single SKU.
+     * @param id The SKU id.
+     * @param count The number of units of the SKU.
+     * @return The line price.
+     */
+    public double linePrice(int id, int count) {
+        if (skus.getPriceTableLength(id) != 0) {
+            return (double) linePriceMinor(id, count) / 100;
+        }
+
+        val quantity = skus.getSpecialQuantity(id);
+        return linePrice(skus.getUnitPrice(id), quantity, quantity == 0 ? 0 : skus.getSpecialValue(id), count);
+    }
+
+    /**
+     * Calculate the price of a number of units of a SKU with at most one special price, for rules that have not been compiled.
+     * @param unitPrice The unit price.
+     * @param quantity The special-price quantity, or <code>0</code> if there is no special price.
+     * @param value The special price.
+     * @param count The number of units of the SKU.
+     * @return The line price.
+     */
+    public static double linePrice(double unitPrice, int quantity, double value, int count) {
+        if (quantity == 0) {
+            return unitPrice * count;
+        }
+
+        // If the SKU has a special price, then check if the # of occurrences (count) of the SKU is a factor of the quantity value in the special price,
+        // and calculate the total price using the remainder and the closest multiple of the special price quantity value to the SKU count.
+        val remainder = count % quantity;
+        val units = (double) (count - remainder) / quantity;
+        return (units * (isSpecialPriceApplied(count, quantity) ? value : unitPrice)) + (remainder * unitPrice);
+    }
+
+    // The original special-price arithmetic only applies the offer when the number of groups is a multiple of, or less than, the quantity
+    private static boolean isSpecialPriceApplied(int count, int quantity) {
+        val units = count / quantity;
+        return units % quantity == 0 || units % quantity == units;
+    }
+
+    /**
+     * Calculate the price of a number of units of a single SKU in minor units, using only integer arithmetic.
+     * Gives the same result as {@link #linePrice(int, int)} without floating-point rounding.
+     * @param id The SKU id.
+     * @param count The number of units of the SKU.
+     * @return The line price in minor units.
+     * @throws ArithmeticException If the line price overflows a <code>long</code>.
+     */
+    public long linePriceMinor(int id, int count) {
+        val tableLength = skus.getPriceTableLength(id);
+        if (tableLength != 0) {
+            if (count < tableLength) return skus.getPriceTableEntry(id, count);
+
+            // Beyond the table, the cheapest combination repeats the offer with the lowest price per unit
+            val period = skus.getPeriodQuantity(id);
+            val repeats = (count - tableLength) / period + 1;
+            return addExact(skus.getPriceTableEntry(id, count - repeats * period), multiplyExact(skus.getPeriodValueMinor(id), (long) repeats));
+        }
+
+        val unitPrice = skus.getUnitPriceMinor(id);
+        val quantity = skus.getSpecialQuantity(id);
+        if (quantity == 0) {
+            return multiplyExact(unitPrice, count);
+        }
+
+        val remainder = count % quantity;
+        val units = (count - remainder) / quantity;
+        val bundlePrice = isSpecialPriceApplied(count, quantity) ? skus.getSpecialValueMinor(id) : unitPrice;
+        return addExact(multiplyExact(bundlePrice, units), multiplyExact(unitPrice, remainder));
+    }
+
+    /**
+     * Explain which branch of {@link #linePriceMinor(int, int)} prices a number of units of a single SKU.
+     * @param id The SKU id.
+     * @param count The number of units of the SKU.
+     * @return The {@link LineBranch}.
+     */
+    public LineBranch lineBranch(int id, int count) {
+        val tableLength = skus.getPriceTableLength(id);
+        if (tableLength != 0) return count < tableLength ? LineBranch.PRICE_TABLE : LineBranch.PRICE_TABLE_REPEATED;
+
+        val quantity = skus.getSpecialQuantity(id);
+        if (quantity == 0) return LineBranch.UNIT_PRICE;
+
+        return isSpecialPriceApplied(count, quantity) ? LineBranch.SPECIAL_PRICE : LineBranch.SPECIAL_NOT_APPLIED;
+    }
+
+    /**
+     * @param id The SKU id.
+     * @param count The number of units of the SKU.
+     * @return The number of whole offer groups in the line: groups of the special-price quantity, or repeats of the cheapest offer
+     * beyond the price table. Lines priced from the unit price or within the price table have none.
+     */
+    public int lineOfferUnits(int id, int count) {
+        val tableLength = skus.getPriceTableLength(id);
+        if (tableLength != 0) return count < tableLength ? 0 : (count - tableLength) / skus.getPeriodQuantity(id) + 1;
+
+        val quantity = skus.getSpecialQuantity(id);
+        return quantity == 0 ? 0 : count / quantity;
+    }
+
+    /**
+     * @param id The SKU id.
+     * @param count The number of units of the SKU.
+     * @return The number of units of the line outside its {@link #lineOfferUnits(int, int)} groups.
+     */
+    public int lineRemainder(int id, int count) {
+        val units = lineOfferUnits(id, count);
+        if (units == 0) return count;
+        return count - units * (skus.getPriceTableLength(id) != 0 ? skus.getPeriodQuantity(id) : skus.getSpecialQuantity(id));
+    }
+
+    /**
+     * Builds a {@link PricingCatalog} incrementally, growing its arrays as SKUs are added,
+     * so that a catalog can be compiled while its rules are still being read.
+     */
+    public static final class Builder {
+        private String[] items;
+        private double[] unitPrices;
+        private long[] unitPricesMinor;
+        private int[] specialQuantities;
+        private int[] specialValues;
+        private long[] specialValuesMinor;
+        private int[][] offers;
+        private long[][] priceTablesMinor;
+        private int[] periodQuantities;
+        private long[] periodValuesMinor;
+        private final Set<String> seen = new HashSet<>();
+        private final List<String> bundleNames = new ArrayList<>();
+        private final List<List<String>> bundleItems = new ArrayList<>();
+        private final List<Long> bundlePricesMinor = new ArrayList<>();
+        private int priceTableSize = DEFAULT_PRICE_TABLE_SIZE;
+        private int bundleStepBudget = DEFAULT_BUNDLE_STEP_BUDGET;
+        private int count;
+
+        private Builder(int expectedSize) {
+            val capacity = Math.max(expectedSize, 1);
+            items = new String[capacity];
+            unitPrices = new double[capacity];
+            unitPricesMinor = new long[capacity];
+            specialQuantities = new int[capacity];
+            specialValues = new int[capacity];
+            specialValuesMinor = new long[capacity];
+            offers = new int[capacity][];
+            priceTablesMinor = new long[capacity][];
+            periodQuantities = new int[capacity];
+            periodValuesMinor = new long[capacity];
+        }
+
+        /**
+         * Set the number of counts to precompute prices for, for SKUs with several offers. A SKU's table is made larger if its offers
+         * need more counts before their cheapest combination becomes periodic.
+         * @param priceTableSize The minimum size of each price table.
+         * @return This builder.
+         */
+        public Builder priceTableSize(int priceTableSize) {
+            if (priceTableSize < 1 || priceTableSize > MAX_PRICE_TABLE_SIZE) {
+                throw new IllegalArgumentException(format("Price table size must be between 1 and %d", MAX_PRICE_TABLE_SIZE));
+            }
+            this.priceTableSize = priceTableSize;
+            return this;
+        }
+
+        /**
+         * Set the number of basket states the bundle solver may visit before it falls back to a greedy allocation.
+         * @param bundleStepBudget The step budget.
+         * @return This builder.
+         */
+        public Builder bundleStepBudget(int bundleStepBudget) {
+            if (bundleStepBudget < 1) throw new IllegalArgumentException("Bundle step budget must be at least 1");
+            this.bundleStepBudget = bundleStepBudget;
+            return this;
+        }
+
+        /**
+         * Add a bundle deal across several SKUs. Its SKUs are resolved when the catalog is built, so they may be added before or after it.
+         * If a bundle with the same name has already been added, the first one wins and this call is ignored.
+         * @param name The name of the bundle, e.g. <code>A+B+C</code>.
+         * @param items The SKUs in the bundle, with a SKU repeated once for every item of it in the bundle.
+         * @param price The price of the bundle.
+         * @return <code>true</code> if the bundle was added, otherwise <code>false</code>.
+         * @throws IllegalArgumentException If the bundle has fewer than two items or its price is not valid.
+         */
+        public boolean addBundle(String name, List<String> items, double price) {
+            if (seen.contains(name)) return false;
+            if (items.size() < 2) throw new IllegalArgumentException(format("Bundle %s must contain at least two items", name));
+
+            bundlePricesMinor.add(toMinorUnits(name, price));
+            bundleNames.add(name);
+            bundleItems.add(items);
+            seen.add(name);
+            return true;
+        }
+
+        /**
+         * Add a SKU with any number of multi-buy offers. With a single offer this is the same as {@link #add(String, double, int, int)}.
+         * @param item The SKU.
+         * @param unitPrice The unit price.
+         * @param specialPrices The offers, as pairs of quantity and price.
+         * @return <code>true</code> if the SKU was added, otherwise <code>false</code>.
+         * @throws IllegalArgumentException If a price is not valid, or an offer quantity is less than one.
+         */
+        public boolean add(String item, double unitPrice, List<Pair<Integer, Integer>> specialPrices) {
+            if (isNull(specialPrices) || specialPrices.isEmpty()) return add(item, unitPrice, 0, 0);
+            if (specialPrices.size() == 1) return add(item, unitPrice, specialPrices.get(0).getLeft(), specialPrices.get(0).getRight());
+
+            val flattened = flatten(item, specialPrices);
+            if (!add(item, unitPrice, flattened[0], flattened[1])) return false;
+
+            val id = count - 1;
+            offers[id] = flattened;
+            compilePriceTable(id, item);
+            return true;
+        }
+
+        /**
+         * Solve the unbounded knapsack of single units and offers for every count in the table.
+         * If at least <code>q * maxQ</code> items are bought, where <code>q</code> is the quantity of the offer with the lowest price per unit
+         * and <code>maxQ</code> the largest quantity, some cheapest combination includes that offer, so from there on the price is periodic.
+         */
+        private void compilePriceTable(int id, String item) {
+            val flattened = offers[id];
+            val unitPrice = unitPricesMinor[id];
+            val offerValues = offerValuesMinor(item, flattened);
+            val period = period(item, unitPrice, flattened, offerValues);
+
+            val table = new long[(int) Math.max(priceTableSize, period[2])];
+            for (var n = 1; n < table.length; n++) {
+                var best = addExact(table[n - 1], unitPrice);
+                for (var i = 0; i < offerValues.length; i++) {
+                    val quantity = flattened[i * 2];
+                    if (quantity <= n) best = Math.min(best, addExact(table[n - quantity], offerValues[i]));
+                }
+                table[n] = best;
+            }
+
+            priceTablesMinor[id] = table;
+            periodQuantities[id] = (int) period[0];
+            periodValuesMinor[id] = period[1];
+        }
+
+        private static int[] flatten(String item, List<Pair<Integer, Integer>> specialPrices) {
+            val flattened = new int[specialPrices.size() * 2];
+            for (var i = 0; i < specialPrices.size(); i++) {
+                val quantity = specialPrices.get(i).getLeft();
+                if (quantity < 1) throw new IllegalArgumentException(format("Offer quantity %d of %s must be at least 1", quantity, item));
+                flattened[i * 2] = quantity;
+                flattened[i * 2 + 1] = specialPrices.get(i).getRight();
+            }
+            return flattened;
+        }
+
+        private static long[] offerValuesMinor(String item, int[] flattened) {
+            val offerValues = new long[flattened.length / 2];
+            for (var i = 0; i < offerValues.length; i++) {
+                offerValues[i] = toMinorUnits(item, flattened[i * 2 + 1]);
+            }
+            return offerValues;
+        }
+
+        /**
+         * @return The quantity and price of the offer with the lowest price per unit, and the count from which prices are periodic.
+         * @throws IllegalArgumentException If the price table up to that count would be larger than the maximum.
+         */
+        private static long[] period(String item, long unitPrice, int[] flattened, long[] offerValues) {
+            var bestQuantity = 1;
+            var bestValue = unitPrice;
+            var maxQuantity = 1;
+            for (var i = 0; i < offerValues.length; i++) {
+                val quantity = flattened[i * 2];
+                maxQuantity = Math.max(maxQuantity, quantity);
+                if (multiplyExact(offerValues[i], (long) bestQuantity) < multiplyExact(bestValue, (long) quantity)) {
+                    bestQuantity = quantity;
+                    bestValue = offerValues[i];
+                }
+            }
+
+            val periodicFrom = (long) bestQuantity * maxQuantity;
+            if (periodicFrom > MAX_PRICE_TABLE_SIZE) {
+                throw new IllegalArgumentException(format("Offers of %s need a price table of %d entries, more than the maximum of %d",
+                        item, periodicFrom, MAX_PRICE_TABLE_SIZE));
+            }
+            return new long[]{bestQuantity, bestValue, periodicFrom};
+        }
+
+        /**
+         * Add a SKU. If the SKU has already been added, the first one wins and this call is ignored.
+         * @param item The SKU.
+         * @param unitPrice The unit price.
+         * @param specialQuantity The special-price quantity, or <code>0</code> if the SKU has no special price.
+         * @param specialValue The special-price value.
+         * @return <code>true</code> if the SKU was added, otherwise <code>false</code>.
+         * @throws IllegalArgumentException If a price has more than two decimal places or does not fit in minor units.
+         */
+        public boolean add(String item, double unitPrice, int specialQuantity, int specialValue) {
+            if (item.isEmpty() || seen.contains(item)) return false;
+
+            val unitPriceMinor = toMinorUnits(item, unitPrice);
+            val specialValueMinor = specialQuantity == 0 ? 0 : toMinorUnits(item, specialValue);
+            if (count == items.length) grow();
+
+            items[count] = item;
+            unitPrices[count] = unitPrice;
+            unitPricesMinor[count] = unitPriceMinor;
+            if (specialQuantity != 0) {
+                specialQuantities[count] = specialQuantity;
+                specialValues[count] = specialValue;
+                specialValuesMinor[count] = specialValueMinor;
+            }
+            seen.add(item);
+            count++;
+            return true;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @throws IllegalArgumentException If a bundle contains a SKU that has not been added.
+         */
+        public PricingCatalog build() {
+            val compiledItems = Arrays.copyOf(items, count);
+            val dictionary = SkuDictionary.of(compiledItems);
+            val skus = new ArraySkuTable(
+                    compiledItems,
+                    Arrays.copyOf(unitPrices, count),
+                    Arrays.copyOf(unitPricesMinor, count),
+                    Arrays.copyOf(specialQuantities, count),
+                    Arrays.copyOf(specialValues, count),
+                    Arrays.copyOf(specialValuesMinor, count),
+                    Arrays.copyOf(offers, count),
+                    Arrays.copyOf(priceTablesMinor, count),
+                    Arrays.copyOf(periodQuantities, count),
+                    Arrays.copyOf(periodValuesMinor, count),
+                    dictionary);
+
+            val candidates = compileBundles(dictionary);
+            val canLowerTotal = new boolean[candidates.size()];
+            val cannotLowerTotal = new boolean[candidates.size()];
+            for (var bundle = 0; bundle < candidates.size(); bundle++) {
+                canLowerTotal[bundle] = candidates.canLowerTotal(bundle, skus);
+                cannotLowerTotal[bundle] = !canLowerTotal[bundle];
+            }
+            return new PricingCatalog(skus, candidates.select(canLowerTotal), candidates.select(cannotLowerTotal), bundleStepBudget);
+        }
+
+        /**
+         * Resolve every bundle and drop any priced at or above another bundle of the same items.
+         * Of the rest, those that can never lower a total at the compiled prices are kept apart as dormant by {@link #build()}.
+         */
+        private Bundles compileBundles(SkuDictionary dictionary) {
+            val cheapest = new HashMap<String, Integer>();
+            for (var bundle = 0; bundle < bundleNames.size(); bundle++) {
+                val key = Arrays.toString(components(dictionary, bundle));
+                val existing = cheapest.get(key);
+                if (isNull(existing) || bundlePricesMinor.get(bundle) < bundlePricesMinor.get(existing)) cheapest.put(key, bundle);
+            }
+
+            val winners = new HashSet<>(cheapest.values());
+            val compiled = new ArrayList<Integer>();
+            for (var bundle = 0; bundle < bundleNames.size(); bundle++) {
+                if (winners.contains(bundle)) compiled.add(bundle);
+            }
+            if (compiled.isEmpty()) return Bundles.NONE;
+
+            return new Bundles(
+                    compiled.stream().map(bundle -> bundleNames.get(bundle)).toArray(String[]::new),
+                    compiled.stream().map(bundle -> components(dictionary, bundle)).toArray(int[][]::new),
+                    compiled.stream().mapToLong(bundlePricesMinor::get).toArray());
+        }
+
+        // The bundle's distinct SKU ids in ascending order, each followed by its quantity
+        private int[] components(SkuDictionary dictionary, int bundle) {
+            final int[] ids = bundleItems.get(bundle).stream().mapToInt(item -> {
+                val id = dictionary.idOf(item);
+                if (id == UNKNOWN_SKU) {
+                    throw new IllegalArgumentException(format("Bundle %s contains unknown SKU %s", bundleNames.get(bundle), item));
+                }
+                return id;
+            }).sorted().toArray();
+
+            val components = new int[ids.length * 2];
+            var length = 0;
+            for (var i = 0; i < ids.length; i++) {
+                if (length > 0 && components[length - 2] == ids[i]) {
+                    components[length - 1]++;
+                } else {
+                    components[length++] = ids[i];
+                    components[length++] = 1;
+                }
+            }
+            return Arrays.copyOf(components, length);
+        }
+
+        private void grow() {
+            val capacity = items.length * 2;
+            items = Arrays.copyOf(items, capacity);
+            unitPrices = Arrays.copyOf(unitPrices, capacity);
+            unitPricesMinor = Arrays.copyOf(unitPricesMinor, capacity);
+            specialQuantities = Arrays.copyOf(specialQuantities, capacity);
+            specialValues = Arrays.copyOf(specialValues, capacity);
+            specialValuesMinor = Arrays.copyOf(specialValuesMinor, capacity);
+            offers = Arrays.copyOf(offers, capacity);
+            priceTablesMinor = Arrays.copyOf(priceTablesMinor, capacity);
+            periodQuantities = Arrays.copyOf(periodQuantities, capacity);
+            periodValuesMinor = Arrays.copyOf(periodValuesMinor, capacity);
+        }
+    }
+}
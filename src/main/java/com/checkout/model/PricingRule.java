@@ -4,25 +4,147 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.val;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 @Getter
 @Builder
 @AllArgsConstructor
 @RequiredArgsConstructor
 public class PricingRule {
+    public static final String OFFER_SEPARATOR = "|";
+    public static final String BUNDLE_SEPARATOR = "+";
+    public static final String WINDOW_SEPARATOR = "..";
+
     private String item;
     private double unitPrice;
     private Pair<Integer, Integer> specialPrice;
+    private List<Pair<Integer, Integer>> specialPrices;
+    private Instant validFrom;
+    private Instant validUntil;
 
     public PricingRule(String item, double unitPrice) {
         this.item = item;
         this.unitPrice = unitPrice;
     }
 
+    public PricingRule(String item, double unitPrice, Pair<Integer, Integer> specialPrice) {
+        this.item = item;
+        this.unitPrice = unitPrice;
+        this.specialPrice = specialPrice;
+    }
+
+    /**
+     * @param specialPrices The multi-buy offers, e.g. <code>3 for 130</code> and <code>5 for 200</code>. The first is also the {@link #getSpecialPrice()}.
+     */
+    public PricingRule(String item, double unitPrice, List<Pair<Integer, Integer>> specialPrices) {
+        this.item = item;
+        this.unitPrice = unitPrice;
+        this.specialPrice = isNull(specialPrices) || specialPrices.isEmpty() ? null : specialPrices.get(0);
+        this.specialPrices = specialPrices;
+    }
+
+    /**
+     * A rule that is only in effect during a validity window, such as a weekend special, and replaces the permanent rule of its SKU while it is.
+     * @param validFrom When the rule comes into effect, or <code>null</code> if it is in effect until <code>validUntil</code>.
+     * @param validUntil When the rule stops being in effect, or <code>null</code> if it stays in effect from <code>validFrom</code>.
+     */
+    public PricingRule(String item, double unitPrice, List<Pair<Integer, Integer>> specialPrices, Instant validFrom, Instant validUntil) {
+        this(item, unitPrice, specialPrices);
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * @return Every multi-buy offer of the rule, or just its {@link #getSpecialPrice()} if it has a single offer.
+     */
+    public List<Pair<Integer, Integer>> getSpecialPrices() {
+        if (nonNull(specialPrices) && !specialPrices.isEmpty()) return specialPrices;
+        return isNull(specialPrice) ? Collections.emptyList() : Collections.singletonList(specialPrice);
+    }
+
+    /**
+     * @return <code>true</code> if the rule is a bundle deal across several SKUs, e.g. <code>A+B+C,60</code>, whose unit price is the price of the bundle.
+     */
+    public boolean isBundle() {
+        return nonNull(item) && item.contains(BUNDLE_SEPARATOR);
+    }
+
+    /**
+     * @return The trimmed SKUs of a bundle, with a SKU repeated once for every item of it in the bundle, or just the item if the rule is not a bundle.
+     */
+    public List<String> getBundleItems() {
+        return Arrays.stream(item.split(Pattern.quote(BUNDLE_SEPARATOR), -1)).map(String::trim).collect(toList());
+    }
+
+    /**
+     * @return <code>true</code> if the rule is only in effect during a validity window, otherwise <code>false</code>.
+     */
+    public boolean isWindowed() {
+        return nonNull(validFrom) || nonNull(validUntil);
+    }
+
+    /**
+     * @return <code>true</code> if the rule is in effect at the instant, which it always is if it has no validity window.
+     */
+    public boolean isActiveAt(Instant instant) {
+        return (isNull(validFrom) || !instant.isBefore(validFrom)) && (isNull(validUntil) || instant.isBefore(validUntil));
+    }
+
+    /**
+     * Parse a validity window of the form <code>&lt;from&gt;..&lt;until&gt;</code>, e.g. <code>2026-06-06T00:00Z..2026-06-08T00:00Z</code>,
+     * where each end is an ISO-8601 date-time with an offset and either, but not both, may be left out. The window includes <code>from</code>
+     * and excludes <code>until</code>.
+     * @return The start and end of the window, either of which may be <code>null</code>.
+     * @throws IllegalArgumentException If the window is not valid or ends before it starts.
+     */
+    public static Pair<Instant, Instant> parseWindow(String window) {
+        val separator = window.indexOf(WINDOW_SEPARATOR);
+        if (separator < 0) throw new IllegalArgumentException(format("invalid validity window '%s', expected <from>..<until>", window));
+
+        val from = parseInstant(window, window.substring(0, separator).trim());
+        val until = parseInstant(window, window.substring(separator + WINDOW_SEPARATOR.length()).trim());
+        if (isNull(from) && isNull(until)) throw new IllegalArgumentException(format("validity window '%s' needs a start or an end", window));
+        if (nonNull(from) && nonNull(until) && !from.isBefore(until)) {
+            throw new IllegalArgumentException(format("validity window '%s' ends before it starts", window));
+        }
+        return Pair.of(from, until);
+    }
+
+    private static Instant parseInstant(String window, String instant) {
+        if (instant.isEmpty()) return null;
+        try {
+            return OffsetDateTime.parse(instant).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(format("invalid validity window '%s', '%s' is not a date-time with an offset", window, instant), e);
+        }
+    }
+
+    /**
+     * @return The validity window, e.g. <code>2026-06-06T00:00:00Z..2026-06-08T00:00:00Z</code>, or an empty string if the rule has none.
+     */
+    public String getFormattedWindow() {
+        if (!isWindowed()) return "";
+        return (isNull(validFrom) ? "" : validFrom.toString()) + WINDOW_SEPARATOR + (isNull(validUntil) ? "" : validUntil.toString());
+    }
+
     public String getFormattedSpecialPrice() {
-        return nonNull(specialPrice) ? specialPrice.getLeft() + " for " + specialPrice.getRight() : "";
+        return getSpecialPrices().stream()
+                .map(offer -> offer.getLeft() + " for " + offer.getRight())
+                .collect(joining(" " + OFFER_SEPARATOR + " "));
     }
 }
@@ -0,0 +1,281 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The versions of a {@link PricingCatalog} over time, for rules with validity windows such as weekend specials or happy hours.
+ * Every boundary of a window starts a new version, which is compiled up front by overlaying the rules in effect on the permanent rules,
+ * so every version shares the SKU ids, dictionary and bundles of the permanent catalog and a basket counted against one version can be priced
+ * against any other. A rule priced the same in several versions is held once.
+ * <p>
+ * Finding the version in effect at an instant is a binary search over the boundaries. The version in effect now is cached with the period it
+ * is in effect for, so {@link #current()} costs a clock read and two comparisons until the next boundary passes. Immutable apart from that
+ * cache, and thread-safe.
+ */
+public final class PricingTimeline {
+    private final PricingCatalog base;
+    private final PricingCatalog[] versions;
+    private final long[] starts;
+    private final Clock clock;
+    private volatile Current current;
+
+    private PricingTimeline(PricingCatalog base, PricingCatalog[] versions, long[] starts, Clock clock) {
+        this.base = base;
+        this.versions = versions;
+        this.starts = starts;
+        this.clock = clock;
+        this.current = new Current(versions[0], Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param catalog The {@link PricingCatalog}.
+     * @return A timeline with the catalog as its only version.
+     */
+    public static PricingTimeline of(PricingCatalog catalog) {
+        return new PricingTimeline(requireNonNull(catalog), new PricingCatalog[]{catalog}, new long[]{Long.MIN_VALUE}, Clock.systemUTC());
+    }
+
+    /**
+     * Compile the supplied {@link PricingRule}s into a timeline: the rules without a validity window into the permanent catalog, as
+     * {@link PricingCatalog#compile(Collection)} would, and the rest into the versions.
+     * @param rules The {@link PricingRule}s.
+     * @return The compiled timeline.
+     * @throws IllegalArgumentException If a rule is not valid, as for {@link PricingCatalog#compile(Collection)} and {@link Builder#build(PricingCatalog)}.
+     */
+    public static PricingTimeline compile(Collection<PricingRule> rules) {
+        val permanent = new ArrayList<PricingRule>();
+        val builder = builder();
+        if (nonNull(rules)) {
+            for (val rule : rules) {
+                if (isNull(rule) || !rule.isWindowed()) {
+                    permanent.add(rule);
+                } else {
+                    builder.add(rule);
+                }
+            }
+        }
+        return builder.build(PricingCatalog.compile(permanent));
+    }
+
+    /**
+     * Compile basket-level stages into every version, as {@link PricingCatalog#withStages(List)} does. The stages are compiled once and
+     * shared by every version.
+     * @param stages The {@link BasketStage}s, in the order they are applied.
+     * @return The timeline with the stages, or this timeline if there are none.
+     * @throws IllegalArgumentException If a stage applies to a SKU that is not in the permanent catalog, or too many stages apply to particular SKUs.
+     */
+    public PricingTimeline withStages(List<BasketStage> stages) {
+        if (stages.isEmpty()) return this;
+
+        val compiled = DiscountPipeline.compile(stages, base.getSkuTable());
+        val stagedBase = base.withStages(compiled);
+        val staged = new PricingCatalog[versions.length];
+        for (var version = 0; version < versions.length; version++) {
+            staged[version] = versions[version] == base ? stagedBase : versions[version].withStages(compiled);
+        }
+        return new PricingTimeline(stagedBase, staged, starts, clock);
+    }
+
+    /**
+     * @return A {@link Builder} for adding rules with validity windows to a permanent catalog.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The catalog of the permanent rules, which every version overlays.
+     */
+    public PricingCatalog getBase() {
+        return base;
+    }
+
+    public int getVersionCount() {
+        return versions.length;
+    }
+
+    public PricingCatalog getVersion(int version) {
+        return versions[version];
+    }
+
+    /**
+     * @return When the version comes into effect, in milliseconds since the epoch, or {@link Long#MIN_VALUE} for the first version.
+     * Each version stays in effect until the next one starts.
+     */
+    public long getVersionStart(int version) {
+        return starts[version];
+    }
+
+    /**
+     * @param epochMillis The instant, in milliseconds since the epoch.
+     * @return The catalog in effect at the instant.
+     */
+    public PricingCatalog catalogAt(long epochMillis) {
+        return versions[versionAt(epochMillis)];
+    }
+
+    public PricingCatalog catalogAt(Instant instant) {
+        return catalogAt(instant.toEpochMilli());
+    }
+
+    /**
+     * @return The catalog in effect now, by the timeline's clock.
+     */
+    public PricingCatalog current() {
+        val now = clock.millis();
+        val cached = current;
+        if (now >= cached.from && now < cached.until) return cached.catalog;
+
+        val version = versionAt(now);
+        val next = version + 1 < starts.length ? starts[version + 1] : Long.MAX_VALUE;
+        current = new Current(versions[version], starts[version], next);
+        return versions[version];
+    }
+
+    private int versionAt(long epochMillis) {
+        var low = 1;
+        var high = starts.length - 1;
+        while (low <= high) {
+            val middle = (low + high) >>> 1;
+            if (starts[middle] <= epochMillis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private static final class Current {
+        private final PricingCatalog catalog;
+        private final long from;
+        private final long until;
+
+        private Current(PricingCatalog catalog, long from, long until) {
+            this.catalog = catalog;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
+    public static final class Builder {
+        private final List<PricingRule> windowed = new ArrayList<>();
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a rule with a validity window, which replaces the permanent rule of its SKU, unit price and offers alike, while it is in effect.
+         * @param rule The {@link PricingRule}.
+         * @return This builder.
+         * @throws IllegalArgumentException If the rule has no validity window or is a bundle.
+         */
+        public Builder add(PricingRule rule) {
+            if (!rule.isWindowed()) throw new IllegalArgumentException(format("Rule for %s has no validity window", rule.getItem()));
+            if (rule.isBundle()) throw new IllegalArgumentException(format("Bundle %s cannot have a validity window", rule.getItem()));
+            windowed.add(rule);
+            return this;
+        }
+
+        /**
+         * Set the clock that {@link PricingTimeline#current()} reads, the system UTC clock by default.
+         * @return This builder.
+         */
+        public Builder clock(Clock clock) {
+            this.clock = requireNonNull(clock);
+            return this;
+        }
+
+        /**
+         * Compile a version for every period between the boundaries of the validity windows. Consecutive periods priced the same are merged.
+         * @param base The catalog of the permanent rules.
+         * @return The timeline.
+         * @throws IllegalArgumentException If a rule is for a SKU without a permanent rule, two rules for a SKU overlap, or a price is not valid.
+         */
+        public PricingTimeline build(PricingCatalog base) {
+            val byStart = new ArrayList<>(windowed);
+            byStart.sort(Comparator.comparingLong(Builder::start));
+            val byEnd = new ArrayList<>(windowed);
+            byEnd.sort(Comparator.comparingLong(Builder::end));
+
+            val boundaries = new TreeSet<Long>();
+            val lastEnds = new HashMap<String, PricingRule>();
+            for (val rule : byStart) {
+                if (base.idOf(rule.getItem()) == PricingCatalog.UNKNOWN_SKU) {
+                    throw new IllegalArgumentException(format("Rule for %s has a validity window but %s has no permanent rule", rule.getItem(), rule.getItem()));
+                }
+                val previous = lastEnds.put(rule.getItem(), rule);
+                if (previous != null && end(previous) > start(rule)) {
+                    throw new IllegalArgumentException(format("Rules for %s overlap: %s and %s",
+                            rule.getItem(), previous.getFormattedWindow(), rule.getFormattedWindow()));
+                }
+                if (start(rule) != Long.MIN_VALUE) boundaries.add(start(rule));
+                if (end(rule) != Long.MAX_VALUE) boundaries.add(end(rule));
+            }
+
+            val versions = new ArrayList<PricingCatalog>(boundaries.size() + 1);
+            val starts = new ArrayList<Long>(boundaries.size() + 1);
+            val interned = new HashMap<PricedSku, PricedSku>();
+            val active = new LinkedHashMap<String, PricingRule>();
+            var started = 0;
+            var ended = 0;
+            var from = Long.MIN_VALUE;
+            while (true) {
+                while (ended < byEnd.size() && end(byEnd.get(ended)) <= from) {
+                    val rule = byEnd.get(ended++);
+                    active.remove(rule.getItem(), rule);
+                }
+                while (started < byStart.size() && start(byStart.get(started)) <= from) {
+                    val rule = byStart.get(started++);
+                    if (end(rule) > from) active.put(rule.getItem(), rule);
+                }
+
+                val version = overlay(base, active.values(), interned);
+                if (versions.isEmpty() || versions.get(versions.size() - 1) != version) {
+                    versions.add(version);
+                    starts.add(from);
+                }
+
+                val next = boundaries.higher(from);
+                if (next == null) break;
+                from = next;
+            }
+            return new PricingTimeline(base, versions.toArray(new PricingCatalog[0]), starts.stream().mapToLong(Long::longValue).toArray(), clock);
+        }
+
+        private static PricingCatalog overlay(PricingCatalog base, Collection<PricingRule> rules, Map<PricedSku, PricedSku> interned) {
+            if (rules.isEmpty()) return base;
+
+            val overrides = PricingCatalog.builder(rules.size());
+            for (val rule : rules) {
+                overrides.add(rule.getItem(), rule.getUnitPrice(), rule.getSpecialPrices());
+            }
+            return base.overlay(overrides.build(), interned);
+        }
+
+        private static long start(PricingRule rule) {
+            return isNull(rule.getValidFrom()) ? Long.MIN_VALUE : rule.getValidFrom().toEpochMilli();
+        }
+
+        private static long end(PricingRule rule) {
+            return isNull(rule.getValidUntil()) ? Long.MAX_VALUE : rule.getValidUntil().toEpochMilli();
+        }
+    }
+}
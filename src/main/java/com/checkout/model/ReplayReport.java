@@ -0,0 +1,43 @@
+package com.checkout.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+import static com.checkout.model.PricingCatalog.MINOR_UNIT_DIGITS;
+import static java.lang.String.format;
+
+@Getter
+@AllArgsConstructor
+public class ReplayReport {
+    private long segments;
+    private long transactions;
+    private long unpriceableTransactions;
+    private long increased;
+    private long decreased;
+    private long unchanged;
+    private long oldTotalMinor;
+    private long newTotalMinor;
+    private long bytes;
+    private long elapsedNanos;
+
+    /**
+     * @return The change in the sum of totals of the transactions that could be repriced, in minor units.
+     */
+    public long getDeltaMinor() {
+        return newTotalMinor - oldTotalMinor;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1_000d / elapsedNanos;
+    }
+
+    public String getFormattedSummary() {
+        return format("Replayed %d transactions from %d segments (%d unpriceable) in %d ms, %.0f MB/s%n"
+                        + "Old total %s, new total %s, delta %s (%d increased, %d decreased, %d unchanged)",
+                transactions, segments, unpriceableTransactions, elapsedNanos / 1_000_000, getMegabytesPerSecond(),
+                BigDecimal.valueOf(oldTotalMinor, MINOR_UNIT_DIGITS), BigDecimal.valueOf(newTotalMinor, MINOR_UNIT_DIGITS),
+                BigDecimal.valueOf(getDeltaMinor(), MINOR_UNIT_DIGITS), increased, decreased, unchanged);
+    }
+}
@@ -0,0 +1,147 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * For every SKU, how many baskets contained each number of units of it, e.g. SKU <code>A</code> was bought once in 9,000 baskets
+ * and three times in 400. SKUs are keyed by the id of the {@link PricingCatalog} the baskets were counted against.
+ * <p>
+ * As the total of a basket without bundle deals is the sum of its line prices, the revenue of any number of baskets can be worked out from their
+ * histogram with one line price per distinct SKU and count, see {@link AggregatePricer}. Counts below {@link #DENSE_COUNTS} are held in
+ * an array per SKU, and rarer larger counts in a map, so adding a basket is a few array increments. Not thread-safe.
+ */
+public final class SkuCountHistogram {
+    static final int DENSE_COUNTS = 64;
+
+    private final PricingCatalog catalog;
+    private final long[][] dense;
+    private final List<Map<Integer, Long>> sparse;
+    private final int[] skuIds;
+    private int distinctSkus;
+    private int distinctPairs;
+    private long baskets;
+    private long invalidBaskets;
+
+    /**
+     * @param catalog The {@link PricingCatalog} baskets are counted against, which identifies the SKUs.
+     */
+    public SkuCountHistogram(PricingCatalog catalog) {
+        this.catalog = catalog;
+        this.dense = new long[catalog.size()][];
+        this.sparse = new ArrayList<>(Collections.nCopies(catalog.size(), null));
+        this.skuIds = new int[catalog.size()];
+    }
+
+    /**
+     * Add every line of a basket.
+     * @param basket The {@link BasketCounts}, counted against the histogram's catalog.
+     */
+    public void add(BasketCounts basket) {
+        for (var i = 0; i < basket.distinctSkus(); i++) {
+            val id = basket.skuAt(i);
+            add(id, basket.getCount(id), 1);
+        }
+        baskets++;
+    }
+
+    /**
+     * Count a basket that could not be priced, such as one with an unknown SKU.
+     */
+    public void addInvalid() {
+        invalidBaskets++;
+    }
+
+    /**
+     * Add a number of baskets that each contained the same number of units of a SKU. This does not count the baskets themselves.
+     * @param id The SKU id.
+     * @param count The number of units, at least <code>1</code>.
+     * @param frequency The number of baskets.
+     */
+    public void add(int id, int count, long frequency) {
+        if (count < 1) throw new IllegalArgumentException("Count must be at least 1");
+        if (frequency == 0) return;
+        if (dense[id] == null && sparse.get(id) == null) skuIds[distinctSkus++] = id;
+
+        if (count < DENSE_COUNTS) {
+            if (dense[id] == null) dense[id] = new long[DENSE_COUNTS];
+            if (dense[id][count] == 0) distinctPairs++;
+            dense[id][count] = Math.addExact(dense[id][count], frequency);
+        } else {
+            if (sparse.get(id) == null) sparse.set(id, new HashMap<>());
+            if (sparse.get(id).merge(count, frequency, Math::addExact).equals(frequency)) distinctPairs++;
+        }
+    }
+
+    /**
+     * @return The number of baskets that contained exactly <code>count</code> units of the SKU.
+     */
+    public long getFrequency(int id, int count) {
+        if (count < 1) return 0;
+        if (count < DENSE_COUNTS) return dense[id] == null ? 0 : dense[id][count];
+        return sparse.get(id) == null ? 0 : sparse.get(id).getOrDefault(count, 0L);
+    }
+
+    public PricingCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return The number of SKUs bought in any basket.
+     */
+    public int distinctSkus() {
+        return distinctSkus;
+    }
+
+    /**
+     * @param index The index, from <code>0</code> to <code>distinctSkus() - 1</code>.
+     * @return The id of the SKU at the index, in order of first occurrence.
+     */
+    public int skuAt(int index) {
+        return skuIds[index];
+    }
+
+    /**
+     * @return The number of distinct pairs of SKU and count, which is what aggregate pricing costs.
+     */
+    public int getDistinctPairs() {
+        return distinctPairs;
+    }
+
+    public long getBaskets() {
+        return baskets;
+    }
+
+    public long getInvalidBaskets() {
+        return invalidBaskets;
+    }
+
+    /**
+     * @return The counts of a SKU bought in any basket, in ascending order, each followed by its frequency.
+     */
+    long[] pairsOf(int id) {
+        val sparseCounts = sparse.get(id) == null ? new Integer[0] : sparse.get(id).keySet().toArray(new Integer[0]);
+        Arrays.sort(sparseCounts);
+
+        val pairs = new long[(DENSE_COUNTS + sparseCounts.length) * 2];
+        var length = 0;
+        if (dense[id] != null) {
+            for (var count = 1; count < DENSE_COUNTS; count++) {
+                if (dense[id][count] == 0) continue;
+                pairs[length++] = count;
+                pairs[length++] = dense[id][count];
+            }
+        }
+        for (val count : sparseCounts) {
+            pairs[length++] = count;
+            pairs[length++] = sparse.get(id).get(count);
+        }
+        return Arrays.copyOf(pairs, length);
+    }
+}
@@ -0,0 +1,137 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * An immutable dictionary interning SKUs of any length to dense int ids.
+ * SKUs are held in an open-addressing hash table with their hashes cached, and the table is kept at most half full,
+ * so a lookup hashes the key once and usually compares against a single candidate however large the dictionary is.
+ * Keys can be looked up from a region of any {@link CharSequence}, so tokens in a basket never have to be copied into Strings.
+ * Single-character SKUs are additionally indexed by character for the undelimited basket format.
+ */
+public final class SkuDictionary {
+    public static final int UNKNOWN_SKU = -1;
+
+    private final String[] skus;
+    private final int[] hashes;
+    private final int[] slots;
+    private final int[] charIndex;
+
+    private SkuDictionary(String[] skus, int[] hashes, int[] slots, int[] charIndex) {
+        this.skus = skus;
+        this.hashes = hashes;
+        this.slots = slots;
+        this.charIndex = charIndex;
+    }
+
+    /**
+     * Intern the supplied SKUs. The id of each SKU is its index in the array.
+     * @param skus The distinct SKUs.
+     * @return The dictionary.
+     * @throws IllegalArgumentException If a SKU is empty or appears more than once.
+     */
+    public static SkuDictionary of(String... skus) {
+        val hashes = new int[skus.length];
+        val slots = new int[tableSize(skus.length)];
+        Arrays.fill(slots, UNKNOWN_SKU);
+        val mask = slots.length - 1;
+
+        var maxChar = -1;
+        for (var id = 0; id < skus.length; id++) {
+            val sku = skus[id];
+            if (sku.isEmpty()) throw new IllegalArgumentException("SKU must not be empty");
+
+            hashes[id] = hash(sku, 0, sku.length());
+            var slot = hashes[id] & mask;
+            while (slots[slot] != UNKNOWN_SKU) {
+                if (skus[slots[slot]].equals(sku)) throw new IllegalArgumentException(format("Duplicate SKU %s", sku));
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+            if (sku.length() == 1) maxChar = Math.max(maxChar, sku.charAt(0));
+        }
+
+        val charIndex = new int[maxChar + 1];
+        Arrays.fill(charIndex, UNKNOWN_SKU);
+        for (var id = 0; id < skus.length; id++) {
+            if (skus[id].length() == 1) charIndex[skus[id].charAt(0)] = id;
+        }
+        return new SkuDictionary(skus.clone(), hashes, slots, charIndex);
+    }
+
+    public int size() {
+        return skus.length;
+    }
+
+    /**
+     * @param sku A single-character SKU.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is not in the dictionary.
+     */
+    public int idOf(char sku) {
+        return sku < charIndex.length ? charIndex[sku] : UNKNOWN_SKU;
+    }
+
+    /**
+     * @param sku The SKU.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is null or not in the dictionary.
+     */
+    public int idOf(String sku) {
+        if (sku == null) return UNKNOWN_SKU;
+        return sku.length() == 1 ? idOf(sku.charAt(0)) : idOf(sku, 0, sku.length());
+    }
+
+    /**
+     * Look up the SKU held in a region of a character sequence.
+     * @param chars The characters containing the SKU.
+     * @param from The index of the first character of the SKU, inclusive.
+     * @param to The index of the last character of the SKU, exclusive.
+     * @return The SKU id, or {@link #UNKNOWN_SKU} if the SKU is not in the dictionary.
+     */
+    public int idOf(CharSequence chars, int from, int to) {
+        val length = to - from;
+        if (length <= 0) return UNKNOWN_SKU;
+
+        val hash = hash(chars, from, to);
+        val mask = slots.length - 1;
+        var slot = hash & mask;
+        int id;
+        while ((id = slots[slot]) != UNKNOWN_SKU) {
+            if (hashes[id] == hash && matches(skus[id], chars, from, length)) return id;
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN_SKU;
+    }
+
+    /**
+     * @param id The SKU id.
+     * @return The SKU.
+     */
+    public String skuOf(int id) {
+        return skus[id];
+    }
+
+    private static boolean matches(String sku, CharSequence chars, int from, int length) {
+        if (sku.length() != length) return false;
+        for (var i = 0; i < length; i++) {
+            if (sku.charAt(i) != chars.charAt(from + i)) return false;
+        }
+        return true;
+    }
+
+    static int hash(CharSequence chars, int from, int to) {
+        var h = 0;
+        for (var i = from; i < to; i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(2, entries) * 2 - 1) << 1;
+    }
+}
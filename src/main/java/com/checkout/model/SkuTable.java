@@ -0,0 +1,52 @@
+package com.checkout.model;
+
+/**
+ * The per-SKU storage behind a {@link PricingCatalog}: the SKU dictionary, prices and offers of every SKU, indexed by dense SKU id.
+ * Implementations hold the data in on-heap arrays, as compiled from rules, or read it in place from a mapped {@link CatalogSnapshot}.
+ * Implementations must be immutable and thread-safe.
+ */
+interface SkuTable {
+
+    int size();
+
+    int idOf(char sku);
+
+    int idOf(String sku);
+
+    int idOf(CharSequence chars, int from, int to);
+
+    String getItem(int id);
+
+    double getUnitPrice(int id);
+
+    long getUnitPriceMinor(int id);
+
+    /**
+     * @return The quantity of the first offer of the SKU, or <code>0</code> if it has none.
+     */
+    int getSpecialQuantity(int id);
+
+    int getSpecialValue(int id);
+
+    long getSpecialValueMinor(int id);
+
+    /**
+     * @return The number of offers of a SKU with several offers, or <code>0</code> if it has at most a single special price.
+     */
+    int getMultiOfferCount(int id);
+
+    int getMultiOfferQuantity(int id, int offer);
+
+    int getMultiOfferValue(int id, int offer);
+
+    /**
+     * @return The length of the precomputed price-by-count table of a SKU with several offers, or <code>0</code> if it has none.
+     */
+    int getPriceTableLength(int id);
+
+    long getPriceTableEntry(int id, int count);
+
+    int getPeriodQuantity(int id);
+
+    long getPeriodValueMinor(int id);
+}
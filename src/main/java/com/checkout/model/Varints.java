@@ -0,0 +1,76 @@
+package com.checkout.model;
+
+import lombok.val;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned variable-length integers, as used by {@link BasketKey}, {@link BasketCounts} and the transaction journal:
+ * seven bits per byte, least significant group first, with the high bit set on every byte but the last.
+ */
+public final class Varints {
+    /**
+     * The most bytes a <code>long</code> takes.
+     */
+    public static final int MAX_VARINT_BYTES = 10;
+
+    private Varints() {
+    }
+
+    /**
+     * @param buffer Where to write the value, with at least {@link #MAX_VARINT_BYTES} bytes free from <code>offset</code>.
+     * @param offset The index of the first byte to write.
+     * @param value The value, treated as unsigned.
+     * @return The index after the last byte written.
+     */
+    public static int writeVarint(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    public static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * @param buffer The buffer, positioned at the value, and left after it.
+     * @return The value.
+     * @throws IllegalStateException If the value is longer than {@link #MAX_VARINT_BYTES}.
+     */
+    public static long readVarint(ByteBuffer buffer) {
+        var value = 0L;
+        for (var shift = 0; shift < 64; shift += 7) {
+            val b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint at offset " + buffer.position());
+    }
+
+    /**
+     * @param in Where to read the value from.
+     * @return The value.
+     * @throws IOException If the value cannot be read.
+     * @throws IllegalStateException If the value is longer than {@link #MAX_VARINT_BYTES}.
+     */
+    public static long readVarint(DataInput in) throws IOException {
+        var value = 0L;
+        for (var shift = 0; shift < 64; shift += 7) {
+            val b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+}
@@ -0,0 +1,81 @@
+package com.checkout.render;
+
+import lombok.val;
+
+import java.io.IOException;
+
+/**
+ * Formats amounts in minor units (pence) as UK currency, e.g. <code>£1,234.56</code>, the same way as
+ * <code>NumberFormat.getCurrencyInstance(Locale.UK)</code>, but by appending digits directly without creating a formatter or any intermediate objects.
+ */
+public final class MoneyFormat {
+    public static final char CURRENCY_SYMBOL = '£';
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (var i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * @param out Where to append the amount.
+     * @param minor The amount in minor units.
+     * @return <code>out</code>.
+     */
+    public static StringBuilder append(StringBuilder out, long minor) {
+        try {
+            append((Appendable) out, minor);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * @param out Where to append the amount.
+     * @param minor The amount in minor units.
+     * @throws IOException If the amount cannot be appended.
+     */
+    public static void append(Appendable out, long minor) throws IOException {
+        if (minor < 0) out.append('-');
+        out.append(CURRENCY_SYMBOL);
+
+        // Negate into the negative range so that Long.MIN_VALUE is handled too
+        val negative = minor < 0 ? minor : -minor;
+        val major = -(negative / 100);
+        val fraction = (int) -(negative % 100);
+
+        var digits = 1;
+        while (digits < POWERS_OF_TEN.length && major >= POWERS_OF_TEN[digits]) digits++;
+        for (var digit = digits - 1; digit >= 0; digit--) {
+            out.append((char) ('0' + major / POWERS_OF_TEN[digit] % 10));
+            if (digit > 0 && digit % 3 == 0) out.append(',');
+        }
+        out.append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    /**
+     * @param minor The amount in minor units.
+     * @return The number of characters {@link #append(Appendable, long)} writes for the amount.
+     */
+    public static int length(long minor) {
+        val negative = minor < 0 ? minor : -minor;
+        val major = -(negative / 100);
+        var digits = 1;
+        while (digits < POWERS_OF_TEN.length && major >= POWERS_OF_TEN[digits]) digits++;
+        return (minor < 0 ? 1 : 0) + 1 + digits + (digits - 1) / 3 + 3;
+    }
+
+    /**
+     * @param minor The amount in minor units.
+     * @return The formatted amount.
+     */
+    public static String format(long minor) {
+        return append(new StringBuilder(16), minor).toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.checkout.render;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+
+/**
+ * Renders an itemised receipt: one line per SKU in the basket with its count, the offer applied and its line total,
+ * then any saving from bundle deals, or from those and basket discounts if the catalog has any, and the basket total. For example:
+ * <pre>
+ * A    x3  3 for 130   £130.00
+ * C    x1               £20.00
+ * Total                £150.00
+ * </pre>
+ * Offer labels and column widths are worked out once per {@link PricingCatalog} and reused, and lines are appended straight to the
+ * caller's buffer, so rendering a receipt allocates nothing once the buffer has grown. Thread-safe.
+ */
+public class ReceiptRenderer {
+    static final String BUNDLES = "Bundles";
+    static final String DISCOUNTS = "Discounts";
+    static final String TOTAL = "Total";
+    private static final int MAX_ITEM_WIDTH = 24;
+    private static final int AMOUNT_WIDTH = 12;
+
+    private volatile Layout layout;
+
+    /**
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog} the basket is counted against.
+     * @param totalMinor The total of the basket in minor units, as priced by the caller.
+     * @param out Where to append the receipt, which ends with a line break.
+     * @return <code>out</code>.
+     */
+    public StringBuilder render(BasketCounts basket, PricingCatalog catalog, long totalMinor, StringBuilder out) {
+        val layout = layoutOf(catalog);
+
+        var linesTotal = 0L;
+        for (var i = 0; i < basket.distinctSkus(); i++) {
+            val id = basket.skuAt(i);
+            val count = basket.getCount(id);
+            val linePrice = catalog.linePriceMinor(id, count);
+            linesTotal = Math.addExact(linesTotal, linePrice);
+
+            val start = out.length();
+            out.append(catalog.getItem(id));
+            pad(out, start + layout.itemWidth + 1);
+            out.append('x').append(count);
+            pad(out, start + layout.itemWidth + layout.countWidth + 3);
+            // The original special-price arithmetic does not always apply the offer, so only label lines that were discounted
+            if (linePrice < count * catalog.getUnitPriceMinor(id)) out.append(layout.offerLabels[id]);
+            amount(out, start, layout.lineWidth, linePrice);
+        }
+
+        if (totalMinor != linesTotal) {
+            val start = out.length();
+            out.append(catalog.getStageCount() == 0 ? BUNDLES : DISCOUNTS);
+            amount(out, start, layout.lineWidth, totalMinor - linesTotal);
+        }
+        val start = out.length();
+        out.append(TOTAL);
+        amount(out, start, layout.lineWidth, totalMinor);
+        return out;
+    }
+
+    private Layout layoutOf(PricingCatalog catalog) {
+        val current = layout;
+        if (current != null && current.catalog == catalog) return current;
+
+        val created = new Layout(catalog);
+        layout = created;
+        return created;
+    }
+
+    private static void amount(StringBuilder out, int lineStart, int lineWidth, long minor) {
+        out.append(' ');
+        pad(out, lineStart + lineWidth - MoneyFormat.length(minor));
+        MoneyFormat.append(out, minor).append('\n');
+    }
+
+    private static void pad(StringBuilder out, int column) {
+        while (out.length() < column) out.append(' ');
+    }
+
+    private static final class Layout {
+        private final PricingCatalog catalog;
+        private final String[] offerLabels;
+        private final int itemWidth;
+        private final int countWidth = 5;
+        private final int lineWidth;
+
+        private Layout(PricingCatalog catalog) {
+            this.catalog = catalog;
+            this.offerLabels = new String[catalog.size()];
+
+            var itemWidth = Math.max(catalog.getStageCount() == 0 ? BUNDLES.length() : DISCOUNTS.length(), TOTAL.length());
+            var offerWidth = 0;
+            for (var id = 0; id < catalog.size(); id++) {
+                itemWidth = Math.max(itemWidth, Math.min(MAX_ITEM_WIDTH, catalog.getItem(id).length()));
+                offerLabels[id] = RuleTableRenderer.offers(catalog, id);
+                offerWidth = Math.max(offerWidth, offerLabels[id].length());
+            }
+            this.itemWidth = itemWidth;
+            this.lineWidth = itemWidth + countWidth + 3 + offerWidth + AMOUNT_WIDTH;
+        }
+    }
+}
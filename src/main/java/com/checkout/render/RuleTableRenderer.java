@@ -0,0 +1,89 @@
+package com.checkout.render;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Renders pricing rules as a table of item, unit price and special price, sorted by item.
+ * The table of a {@link PricingCatalog} is sorted and rendered once and then reused for as long as the same catalog is rendered,
+ * so printing the rules of an unchanged catalog costs a single write. Thread-safe.
+ */
+public class RuleTableRenderer {
+    private static final List<String> TABLE_HEADERS = List.of("Item", "Unit Price", "Special Price");
+    private static final String COLUMN_SPACE = format("%1$10s", "");
+
+    private volatile Rendered last;
+
+    /**
+     * @param catalog The {@link PricingCatalog}.
+     * @return The table of the catalog's SKUs and bundles, ending with a line break.
+     */
+    public String render(PricingCatalog catalog) {
+        val rendered = last;
+        if (rendered != null && rendered.catalog == catalog) return rendered.table;
+
+        val rows = new ArrayList<String[]>(catalog.size() + catalog.getBundleCount());
+        for (var id = 0; id < catalog.size(); id++) {
+            rows.add(new String[]{catalog.getItem(id), String.valueOf(catalog.getUnitPrice(id)), offers(catalog, id)});
+        }
+        for (var bundle = 0; bundle < catalog.getBundleCount(); bundle++) {
+            rows.add(new String[]{catalog.getBundleName(bundle), String.valueOf((double) catalog.getBundlePriceMinor(bundle) / 100), ""});
+        }
+        val table = table(rows);
+        last = new Rendered(catalog, table);
+        return table;
+    }
+
+    /**
+     * @param rules The {@link PricingRule}s.
+     * @return The table of the rules, ending with a line break, or an empty string if there are no rules or any rule is <code>null</code>.
+     */
+    public static String render(Collection<PricingRule> rules) {
+        if (rules == null || rules.isEmpty() || rules.stream().anyMatch(Objects::isNull)) return "";
+
+        val rows = new ArrayList<String[]>(rules.size());
+        for (val rule : rules) {
+            rows.add(new String[]{rule.getItem(), String.valueOf(rule.getUnitPrice()), rule.getFormattedSpecialPrice()});
+        }
+        return table(rows);
+    }
+
+    // The offers of a SKU as they are written in the rules, e.g. "3 for 130 | 5 for 200", shared with receipts so both describe offers alike
+    static String offers(PricingCatalog catalog, int id) {
+        val offers = new StringBuilder();
+        for (var offer = 0; offer < catalog.getOfferCount(id); offer++) {
+            if (offer > 0) offers.append(' ').append(PricingRule.OFFER_SEPARATOR).append(' ');
+            offers.append(catalog.getOfferQuantity(id, offer)).append(" for ").append(catalog.getOfferValue(id, offer));
+        }
+        return offers.toString();
+    }
+
+    private static String table(List<String[]> rows) {
+        rows.sort(Comparator.comparing(row -> row[0]));
+        val table = new StringBuilder(32 * (rows.size() + 1));
+        table.append(String.join(COLUMN_SPACE, TABLE_HEADERS)).append('\n');
+        for (val row : rows) {
+            table.append(row[0]).append(COLUMN_SPACE).append(row[1]).append(COLUMN_SPACE).append(row[2]).append('\n');
+        }
+        return table.toString();
+    }
+
+    private static final class Rendered {
+        private final PricingCatalog catalog;
+        private final String table;
+
+        private Rendered(PricingCatalog catalog, String table) {
+            this.catalog = catalog;
+            this.table = table;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.checkout.server;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.InputService;
+import com.checkout.service.PricingCatalogSource;
+import com.checkout.service.impl.BasketLinePricer;
+import com.checkout.trace.PricingTracer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An embedded HTTP pricing service built on the JDK's <code>com.sun.net.httpserver</code>.
+ * <ul>
+ *     <li><code>POST /price</code> prices a single basket in the request body.</li>
+ *     <li><code>POST /price/batch</code> prices baskets one per line, returning one total per line in the same order.</li>
+ *     <li><code>GET /health</code> reports that the server is up.</li>
+ * </ul>
+ * Either pricing endpoint takes an optional <code>store</code> query parameter, e.g. <code>/price?store=0042</code>, to price against the catalog
+ * of that store rather than the catalog shared by every store. A store the catalog source does not know gets a 404.
+ * An optional <code>basket</code> query parameter, e.g. <code>/price?basket=R-1042</code>, names the basket or session for a {@link PricingTracer},
+ * which traces it if the id is selected; every basket of a batch shares the id.
+ * Requests are handled on a fixed pool of worker threads with a bounded queue. When the queue is full the accepting thread prices
+ * the request itself, which stops it accepting more connections until it catches up. Every response has a known length,
+ * so HTTP/1.1 connections are kept alive between requests. Each worker reuses its pricing state across requests, whichever catalog they use.
+ */
+public class PricingHttpServer implements Closeable {
+    public static final int DEFAULT_MAX_BODY_BYTES = 16 << 20;
+    private static final String STORE_PARAMETER = "store=";
+    private static final String BASKET_PARAMETER = "basket=";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_TOO_LARGE = 413;
+    private static final int HTTP_UNPROCESSABLE = 422;
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final ThreadLocal<BasketLinePricer> pricers = new ThreadLocal<>();
+    private final InputService inputService;
+    private final PricingCatalogSource catalogSource;
+    private final int maxBodyBytes;
+
+    public PricingHttpServer(int port, int threads, int queueCapacity, InputService inputService, PricingCatalogSource catalogSource) throws IOException {
+        this(port, threads, queueCapacity, DEFAULT_MAX_BODY_BYTES, inputService, catalogSource);
+    }
+
+    public PricingHttpServer(int port, int threads, int queueCapacity, int maxBodyBytes, InputService inputService, PricingCatalogSource catalogSource) throws IOException {
+        this.inputService = inputService;
+        this.catalogSource = catalogSource;
+        this.maxBodyBytes = maxBodyBytes;
+
+        val threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            val thread = new Thread(runnable, "http-pricer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(workers);
+        this.server.createContext("/price", exchange -> handleSafely(exchange, false));
+        this.server.createContext("/price/batch", exchange -> handleSafely(exchange, true));
+        this.server.createContext("/health", exchange -> respond(exchange, HTTP_OK, "OK\n"));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return The port the server is listening on, which is useful when it was started on port <code>0</code>.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void handleSafely(HttpExchange exchange, boolean batch) throws IOException {
+        try {
+            handle(exchange, batch);
+        } catch (RuntimeException e) {
+            respond(exchange, HTTP_SERVER_ERROR, e.getClass().getSimpleName() + ": " + e.getMessage() + "\n");
+        }
+    }
+
+    private void handle(HttpExchange exchange, boolean batch) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, HTTP_BAD_METHOD, "Use POST\n");
+            return;
+        }
+
+        val body = readBody(exchange);
+        if (body == null) {
+            respond(exchange, HTTP_TOO_LARGE, "Request body is too large\n");
+            return;
+        }
+
+        val store = storeOf(exchange.getRequestURI().getRawQuery());
+        val catalog = catalogSource.current(store);
+        if (catalog == null) {
+            respond(exchange, HTTP_NOT_FOUND, "Unknown store " + store + "\n");
+            return;
+        }
+
+        val basketId = basketOf(exchange.getRequestURI().getRawQuery());
+        if (basketId != null) PricingTracer.bindBasketId(basketId);
+        try {
+            price(exchange, body, catalog, batch);
+        } finally {
+            if (basketId != null) PricingTracer.unbindBasketId();
+        }
+    }
+
+    private void price(HttpExchange exchange, String body, PricingCatalog catalog, boolean batch) throws IOException {
+        val pricer = pricer(catalog);
+        val totals = new StringBuilder(batch ? body.length() : 16);
+        if (batch) {
+            var lineStart = 0;
+            for (var i = 0; i < body.length(); i++) {
+                if (body.charAt(i) != '\n') continue;
+                pricer.price(body, lineStart, i, totals);
+                lineStart = i + 1;
+            }
+            if (lineStart < body.length()) pricer.price(body, lineStart, body.length(), totals);
+            respond(exchange, HTTP_OK, totals);
+        } else {
+            var end = body.length();
+            while (end > 0 && (body.charAt(end - 1) == '\n' || body.charAt(end - 1) == '\r')) end--;
+            val valid = pricer.price(body, 0, end, totals);
+            respond(exchange, valid ? HTTP_OK : HTTP_UNPROCESSABLE, totals);
+        }
+    }
+
+    private BasketLinePricer pricer(PricingCatalog catalog) {
+        val pricer = pricers.get();
+        if (pricer == null) {
+            val created = new BasketLinePricer(inputService, catalog);
+            pricers.set(created);
+            return created;
+        }
+        return pricer.getCatalog() == catalog ? pricer : pricer.use(catalog);
+    }
+
+    /**
+     * @return The decoded value of the <code>store</code> parameter of a query string, or <code>null</code> if it has none.
+     */
+    static String storeOf(String query) {
+        return parameterOf(query, STORE_PARAMETER);
+    }
+
+    /**
+     * @return The decoded value of the <code>basket</code> parameter of a query string, or <code>null</code> if it has none.
+     */
+    static String basketOf(String query) {
+        return parameterOf(query, BASKET_PARAMETER);
+    }
+
+    private static String parameterOf(String query, String prefix) {
+        if (query == null) return null;
+
+        for (val parameter : query.split("&")) {
+            if (parameter.startsWith(prefix)) return URLDecoder.decode(parameter.substring(prefix.length()), UTF_8);
+        }
+        return null;
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        try (val in = exchange.getRequestBody()) {
+            val body = new ByteArrayOutputStream();
+            val buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (body.size() + read > maxBodyBytes) return null;
+                body.write(buffer, 0, read);
+            }
+            return body.toString(UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        val bytes = body.toString().getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (val out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
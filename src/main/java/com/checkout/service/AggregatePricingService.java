@@ -0,0 +1,32 @@
+package com.checkout.service;
+
+import com.checkout.model.AggregateReport;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.SkuCountHistogram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * This class prices large numbers of baskets in aggregate, for what-if studies of candidate pricing rules.
+ */
+public interface AggregatePricingService {
+
+    /**
+     * Count baskets read one per line into a histogram, in a single streaming pass. Invalid baskets are counted but not added.
+     * @param baskets The baskets, one per line.
+     * @param histogram The {@link SkuCountHistogram} to add to, whose catalog the baskets are validated against.
+     * @return The histogram.
+     * @throws IOException If the baskets cannot be read.
+     */
+    SkuCountHistogram addBaskets(Reader baskets, SkuCountHistogram histogram) throws IOException;
+
+    /**
+     * Work out the revenue of the counted baskets under each candidate catalog, in a single pass over the histogram.
+     * @param histogram The {@link SkuCountHistogram}.
+     * @param candidates The candidate {@link PricingCatalog}s, which must not have bundle deals.
+     * @return An {@link AggregateReport} per candidate, in the same order.
+     */
+    List<AggregateReport> price(SkuCountHistogram histogram, List<PricingCatalog> candidates);
+}
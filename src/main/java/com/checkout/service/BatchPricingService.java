@@ -0,0 +1,30 @@
+package com.checkout.service;
+
+import com.checkout.model.BatchReport;
+import com.checkout.model.PricingCatalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * This class prices a stream of baskets without user interaction.
+ */
+public interface BatchPricingService {
+
+    /**
+     * The output line written in place of a total for a basket that fails validation.
+     */
+    String INVALID_BASKET = "INVALID";
+
+    /**
+     * Price baskets read one per line, writing one checkout total per line in the same order.
+     * Invalid baskets are written as {@link #INVALID_BASKET} so that output lines stay aligned with input lines.
+     * @param baskets The baskets, one per line.
+     * @param totals The writer for the checkout totals.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The {@link BatchReport} for the run.
+     * @throws IOException If the baskets cannot be read or the totals cannot be written.
+     */
+    BatchReport priceBaskets(Reader baskets, Writer totals, PricingCatalog catalog) throws IOException;
+}
@@ -1,7 +1,11 @@
 package com.checkout.service;
 
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
 import com.checkout.model.PricingRule;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,6 +21,15 @@ public interface InputService {
      */
     String loadPricingRules();
 
+    /**
+     * Read in pricing rules from a file, one or more <code>;</code>-separated rules per line.
+     * @param file The rules file.
+     * @return The validated pricing rules, <code>;</code>-separated.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the rules are not valid.
+     */
+    String loadPricingRules(Path file) throws IOException;
+
     /**
      * Validate the user-supplied pricing rules.
      * @param rules The pricing rules.
@@ -31,6 +44,14 @@ public interface InputService {
      */
     String loadBasket(Set<PricingRule> rules);
 
+    /**
+     * Read in a user-supplied SKU basket, validated against a compiled {@link PricingCatalog}.
+     * SKUs may be single letters, e.g. <code>ABBA</code>, or of any length separated by commas, e.g. <code>APL-001,BAN-002</code>.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The list of SKUs in the basket.
+     */
+    String loadBasket(PricingCatalog catalog);
+
     /**
      * Validate the user-supplied SKUs in the basket.
      * @param basket The basket.
@@ -39,6 +60,14 @@ public interface InputService {
      */
     boolean validateBasket(String basket, Set<PricingRule> rules);
 
+    /**
+     * Validate the user-supplied SKUs in the basket against a compiled {@link PricingCatalog}, without allocating.
+     * @param basket The basket.
+     * @param catalog The {@link PricingCatalog}.
+     * @return <code>true</code> if they are valid, otherwise <code>false</code>.
+     */
+    boolean validateBasket(String basket, PricingCatalog catalog);
+
     /**
      * Parse the basket of SKUs.
      * @param basket The user-supplied basket.
@@ -46,6 +75,24 @@ public interface InputService {
      */
     Map<String, List<String>> parseBasket(String basket);
 
+    /**
+     * Validate and count the basket of SKUs in a single pass.
+     * @param basket The user-supplied basket.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The {@link BasketCounts}, which are empty if the basket is invalid.
+     */
+    BasketCounts parseBasket(String basket, PricingCatalog catalog);
+
+    /**
+     * Validate and count the basket of SKUs in a single pass into counts owned by the caller, so they can be reused between baskets.
+     * @param basket The user-supplied basket.
+     * @param catalog The {@link PricingCatalog}.
+     * @param into The {@link BasketCounts} to clear and count into, which must be able to hold every SKU of the catalog.
+     * @return <code>into</code>, which is empty if the basket is invalid.
+     * @throws IllegalArgumentException If <code>into</code> cannot hold every SKU of the catalog.
+     */
+    BasketCounts parseBasket(String basket, PricingCatalog catalog, BasketCounts into);
+
     /**
      * Calculate the checkout total.
      * @param basket The basket.
@@ -54,6 +101,31 @@ public interface InputService {
      */
     double calculateTotal(Map<String, List<String>> basket, Set<PricingRule> rules);
 
+    /**
+     * Calculate the checkout total against a compiled {@link PricingCatalog}.
+     * @param basket The basket.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The checkout total.
+     */
+    double calculateTotal(Map<String, List<String>> basket, PricingCatalog catalog);
+
+    /**
+     * Calculate the checkout total of counted basket items against a compiled {@link PricingCatalog}.
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The checkout total.
+     */
+    double calculateTotal(BasketCounts basket, PricingCatalog catalog);
+
+    /**
+     * Calculate the exact checkout total of counted basket items in minor units (pence), using only integer arithmetic.
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog}.
+     * @return The checkout total in minor units.
+     * @throws ArithmeticException If the total overflows a <code>long</code>.
+     */
+    long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog);
+
     /**
      * Determine whether the user would like to stop or start again.
      * @return <code>true</code> if they would like to stop, otherwise <code>false</code>.
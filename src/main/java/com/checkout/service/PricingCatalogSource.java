@@ -0,0 +1,25 @@
+package com.checkout.service;
+
+import com.checkout.model.PricingCatalog;
+
+/**
+ * A source of the {@link PricingCatalog} currently in effect, which may change over time.
+ */
+public interface PricingCatalogSource {
+
+    /**
+     * Get the current catalog snapshot. This never blocks, and the returned catalog is immutable,
+     * so callers should read it once per basket and price the whole basket against that snapshot.
+     * @return The current {@link PricingCatalog}.
+     */
+    PricingCatalog current();
+
+    /**
+     * Get the current catalog snapshot of a store, with the same guarantees as {@link #current()}.
+     * @param store The id of the store, or <code>null</code> for the catalog shared by every store.
+     * @return The current {@link PricingCatalog} of the store, or <code>null</code> if the store is not known.
+     */
+    default PricingCatalog current(String store) {
+        return store == null ? current() : null;
+    }
+}
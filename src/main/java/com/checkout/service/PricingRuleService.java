@@ -1,7 +1,16 @@
 package com.checkout.service;
 
+import com.checkout.model.BasketStage;
+import com.checkout.model.BasketStages;
+import com.checkout.model.CatalogRegistry;
+import com.checkout.model.PricingCatalog;
 import com.checkout.model.PricingRule;
+import com.checkout.model.PricingTimeline;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -16,9 +25,98 @@ public interface PricingRuleService {
      */
     Set<PricingRule> parseRules(String[] rules);
 
+    /**
+     * Compile the supplied set of {@link PricingRule}s to a {@link PricingCatalog} for constant-time lookup by SKU.
+     * @param rules The {@link PricingRule}s.
+     * @return The compiled {@link PricingCatalog}.
+     */
+    PricingCatalog compileRules(Set<PricingRule> rules);
+
+    /**
+     * Compile the supplied set of {@link PricingRule}s, some of which may have validity windows, to a {@link PricingTimeline} of catalog versions.
+     * @param rules The {@link PricingRule}s.
+     * @return The compiled {@link PricingTimeline}.
+     */
+    PricingTimeline compileTimeline(Set<PricingRule> rules);
+
+    /**
+     * Read, validate and compile pricing rules in a single streaming pass.
+     * Rules are separated by <code>;</code> or line breaks, and cannot have validity windows.
+     * @param rules The pricing rules.
+     * @return The compiled {@link PricingCatalog}.
+     * @throws IOException If the rules cannot be read.
+     * @throws RuleFormatException If a rule is not valid, with the line and column of the problem.
+     */
+    PricingCatalog loadCatalog(Reader rules) throws IOException;
+
+    /**
+     * Read, validate and compile pricing rules from a file in a single streaming pass.
+     * @param file The rules file.
+     * @return The compiled {@link PricingCatalog}.
+     * @throws IOException If the file cannot be read.
+     * @throws RuleFormatException If a rule is not valid, with the line and column of the problem.
+     */
+    PricingCatalog loadCatalog(Path file) throws IOException;
+
+    /**
+     * Read, validate and compile pricing rules, some of which may have validity windows, to a {@link PricingTimeline} of catalog versions.
+     * A rule with a validity window, e.g. <code>A,50,3 for 120,2026-06-06T00:00Z..2026-06-08T00:00Z</code>, replaces the permanent rule of its SKU
+     * while it is in effect.
+     * @param rules The pricing rules.
+     * @return The compiled {@link PricingTimeline}.
+     * @throws IOException If the rules cannot be read.
+     * @throws RuleFormatException If a rule is not valid, with the line and column of the problem.
+     */
+    PricingTimeline loadTimeline(Reader rules) throws IOException;
+
+    /**
+     * Read, validate and compile pricing rules from a file to a {@link PricingTimeline}, as {@link #loadTimeline(Reader)} does.
+     * @param file The rules file.
+     * @return The compiled {@link PricingTimeline}.
+     * @throws IOException If the file cannot be read.
+     * @throws RuleFormatException If a rule is not valid, with the line and column of the problem.
+     */
+    PricingTimeline loadTimeline(Path file) throws IOException;
+
+    /**
+     * Read an ordered list of basket-level discounts, one per rule, separated by <code>;</code> or line breaks, e.g. <code>percent,10</code>,
+     * <code>spend,50,5</code> or <code>cap,15</code> as described by {@link BasketStages}. They are compiled into a catalog or timeline by its
+     * <code>withStages</code> method and applied in the order they are read.
+     * @param discounts The discount rules.
+     * @return The {@link BasketStage}s, in order.
+     * @throws IOException If the discounts cannot be read.
+     * @throws RuleFormatException If a discount is not valid, with the line and column of the problem.
+     */
+    List<BasketStage> loadStages(Reader discounts) throws IOException;
+
+    /**
+     * Read an ordered list of basket-level discounts from a file, as {@link #loadStages(Reader)} does.
+     * @param file The discounts file.
+     * @return The {@link BasketStage}s, in order.
+     * @throws IOException If the file cannot be read.
+     * @throws RuleFormatException If a discount is not valid, with the line and column of the problem.
+     */
+    List<BasketStage> loadStages(Path file) throws IOException;
+
+    /**
+     * Load the rules of every store in a directory as overrides of a base catalog, one file named <code>&lt;store&gt;.txt</code> per store.
+     * @param base The {@link PricingCatalog} the stores override.
+     * @param directory The directory of store rules.
+     * @return The {@link CatalogRegistry} of the stores.
+     * @throws IOException If the directory or a file cannot be read.
+     * @throws IllegalArgumentException If the rules of a store are not valid or contain bundles.
+     */
+    CatalogRegistry loadStores(PricingCatalog base, Path directory) throws IOException;
+
     /**
      * Print the supplied set of {@link PricingRule}s.
      * @param rules The {@link PricingRule}s.
      */
     void printRules(Set<PricingRule> rules);
+
+    /**
+     * Print the SKUs and bundles of the supplied {@link PricingCatalog}, sorted by item.
+     * @param catalog The {@link PricingCatalog}.
+     */
+    void printCatalog(PricingCatalog catalog);
 }
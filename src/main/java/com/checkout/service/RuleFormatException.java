@@ -0,0 +1,27 @@
+package com.checkout.service;
+
+import lombok.Getter;
+
+import static java.lang.String.format;
+
+/**
+ * Thrown when a pricing rule cannot be parsed, identifying where in the input the problem was found.
+ */
+@Getter
+public class RuleFormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    public RuleFormatException(int line, int column, String message) {
+        super(format("Line %d, column %d: %s", line, column, message));
+        this.line = line;
+        this.column = column;
+    }
+
+    public RuleFormatException(int line, int column, String message, Throwable cause) {
+        this(line, column, message);
+        initCause(cause);
+    }
+}
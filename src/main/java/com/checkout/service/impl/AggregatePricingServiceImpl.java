@@ -0,0 +1,73 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.AggregatePricer;
+import com.checkout.model.AggregateReport;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.SkuCountHistogram;
+import com.checkout.service.AggregatePricingService;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.List;
+
+public class AggregatePricingServiceImpl implements AggregatePricingService {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final int bufferSize;
+
+    public AggregatePricingServiceImpl() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    AggregatePricingServiceImpl(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public SkuCountHistogram addBaskets(Reader baskets, SkuCountHistogram histogram) throws IOException {
+        val catalog = histogram.getCatalog();
+        val counts = new BasketCounts(catalog.size());
+        val buffer = new char[bufferSize];
+        val block = CharBuffer.wrap(buffer);
+        val carry = new StringBuilder();
+
+        int read;
+        while ((read = baskets.read(buffer, 0, buffer.length)) != -1) {
+            var lineStart = 0;
+            for (var i = 0; i < read; i++) {
+                if (buffer[i] != '\n') continue;
+
+                if (carry.length() > 0) {
+                    carry.append(buffer, lineStart, i - lineStart);
+                    count(carry, 0, carry.length(), catalog, counts, histogram);
+                    carry.setLength(0);
+                } else {
+                    count(block, lineStart, i, catalog, counts, histogram);
+                }
+                lineStart = i + 1;
+            }
+            carry.append(buffer, lineStart, read - lineStart);
+        }
+        if (carry.length() > 0) count(carry, 0, carry.length(), catalog, counts, histogram);
+        return histogram;
+    }
+
+    private static void count(CharSequence line, int from, int to, PricingCatalog catalog, BasketCounts counts, SkuCountHistogram histogram) {
+        if (to > from && line.charAt(to - 1) == '\r') to--;
+
+        counts.clear();
+        if (BasketParser.count(line, from, to, catalog, counts)) {
+            histogram.add(counts);
+        } else {
+            histogram.addInvalid();
+        }
+    }
+
+    @Override
+    public List<AggregateReport> price(SkuCountHistogram histogram, List<PricingCatalog> candidates) {
+        return AggregatePricer.price(histogram, candidates);
+    }
+}
@@ -0,0 +1,98 @@
+package com.checkout.service.impl;
+
+import com.checkout.metrics.PricingMetrics;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.render.MoneyFormat;
+import com.checkout.render.ReceiptRenderer;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.checkout.metrics.PricingStage.PARSE_BASKET;
+import static com.checkout.service.BatchPricingService.INVALID_BASKET;
+
+/**
+ * Prices one basket line at a time, reusing its counts and output buffer between lines, and between catalogs when switched with
+ * {@link #use(PricingCatalog)}. Not thread-safe.
+ */
+public class BasketLinePricer {
+    private final InputService inputService;
+    private PricingCatalog catalog;
+    private BasketCounts counts;
+    private final ReceiptRenderer receiptRenderer;
+    private final StringBuilder output = new StringBuilder(256);
+    private char[] scratch = new char[256];
+
+    public BasketLinePricer(InputService inputService, PricingCatalog catalog) {
+        this(inputService, catalog, false);
+    }
+
+    /**
+     * @param receipts <code>true</code> to write an itemised receipt of each basket, followed by an empty line, instead of just its total.
+     */
+    public BasketLinePricer(InputService inputService, PricingCatalog catalog, boolean receipts) {
+        this.inputService = inputService;
+        this.catalog = catalog;
+        this.counts = new BasketCounts(catalog.size());
+        this.receiptRenderer = receipts ? new ReceiptRenderer() : null;
+    }
+
+    /**
+     * Price a single basket and append its total, or {@link com.checkout.service.BatchPricingService#INVALID_BASKET}, and a line break.
+     * A trailing carriage return is ignored so that CRLF input is accepted.
+     * @return <code>true</code> if the basket is valid, otherwise <code>false</code>.
+     */
+    public boolean price(CharSequence line, int from, int to, Appendable out) throws IOException {
+        if (to > from && line.charAt(to - 1) == '\r') to--;
+
+        counts.clear();
+        val start = PricingMetrics.start();
+        val valid = BasketParser.count(line, from, to, catalog, counts);
+        PricingMetrics.record(PARSE_BASKET, start);
+        if (!valid) {
+            out.append(INVALID_BASKET).append('\n');
+            if (receiptRenderer != null) out.append('\n');
+            return false;
+        }
+
+        val total = inputService.calculateTotalMinor(counts, catalog);
+        output.setLength(0);
+        if (receiptRenderer != null) {
+            receiptRenderer.render(counts, catalog, total, output).append('\n');
+        } else {
+            MoneyFormat.append(output, total).append('\n');
+        }
+        write(out);
+        return true;
+    }
+
+    // Writer.append(CharSequence) copies the sequence to a String, so write through a reused array instead
+    private void write(Appendable out) throws IOException {
+        if (!(out instanceof Writer)) {
+            out.append(output);
+            return;
+        }
+
+        val length = output.length();
+        if (scratch.length < length) scratch = new char[Math.max(length, scratch.length * 2)];
+        output.getChars(0, length, scratch, 0);
+        ((Writer) out).write(scratch, 0, length);
+    }
+
+    /**
+     * Price against another catalog from now on, such as the catalog of another store. The counts are kept if they can hold every SKU of the catalog.
+     * @return This pricer.
+     */
+    public BasketLinePricer use(PricingCatalog catalog) {
+        if (counts.capacity() < catalog.size()) counts = new BasketCounts(catalog.size());
+        this.catalog = catalog;
+        return this;
+    }
+
+    public PricingCatalog getCatalog() {
+        return catalog;
+    }
+}
@@ -0,0 +1,86 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+
+import static com.checkout.model.PricingCatalog.UNKNOWN_SKU;
+
+/**
+ * Single-pass validation and counting of basket items against a {@link PricingCatalog}, without allocating per item.
+ * Two basket formats are accepted: the original undelimited format, where every character is a single-letter SKU (e.g. <code>ABBA</code>),
+ * and a delimited format for SKUs of any length, separated by {@link #DELIMITER} (e.g. <code>APL-001,BAN-002,APL-001</code>).
+ * A basket is read in the undelimited format first and, only if that fails, as delimited SKUs, so existing baskets are unaffected.
+ */
+public final class BasketParser {
+    public static final char DELIMITER = ',';
+
+    private BasketParser() {
+    }
+
+    /**
+     * Validate a basket and count its items in one pass.
+     * If the basket is invalid the counts are cleared.
+     * @param basket The characters containing the basket.
+     * @param from The index of the first character of the basket, inclusive.
+     * @param to The index of the last character of the basket, exclusive.
+     * @param catalog The {@link PricingCatalog}.
+     * @param counts The {@link BasketCounts} to add the items to.
+     * @return <code>true</code> if the basket is valid, otherwise <code>false</code>.
+     */
+    public static boolean count(CharSequence basket, int from, int to, PricingCatalog catalog, BasketCounts counts) {
+        if (countCharacters(basket, from, to, catalog, counts)) return true;
+
+        counts.clear();
+        if (countDelimited(basket, from, to, catalog, counts)) return true;
+
+        counts.clear();
+        return false;
+    }
+
+    /**
+     * Validate a basket without counting its items.
+     * @param basket The characters containing the basket.
+     * @param from The index of the first character of the basket, inclusive.
+     * @param to The index of the last character of the basket, exclusive.
+     * @param catalog The {@link PricingCatalog}.
+     * @return <code>true</code> if the basket is valid, otherwise <code>false</code>.
+     */
+    public static boolean validate(CharSequence basket, int from, int to, PricingCatalog catalog) {
+        return countCharacters(basket, from, to, catalog, null) || countDelimited(basket, from, to, catalog, null);
+    }
+
+    /**
+     * Every character must be a letter and a SKU in the catalog.
+     */
+    static boolean countCharacters(CharSequence basket, int from, int to, PricingCatalog catalog, BasketCounts counts) {
+        for (var i = from; i < to; i++) {
+            val sku = basket.charAt(i);
+            val id = catalog.idOf(sku);
+            if (id == UNKNOWN_SKU || !Character.isLetter(sku)) return false;
+            if (counts != null) counts.add(id);
+        }
+        return to > from;
+    }
+
+    /**
+     * Every delimited token, ignoring surrounding whitespace, must be a SKU in the catalog.
+     */
+    static boolean countDelimited(CharSequence basket, int from, int to, PricingCatalog catalog, BasketCounts counts) {
+        var tokenStart = from;
+        for (var i = from; i <= to; i++) {
+            if (i < to && basket.charAt(i) != DELIMITER) continue;
+
+            var start = tokenStart;
+            var end = i;
+            while (start < end && Character.isWhitespace(basket.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(basket.charAt(end - 1))) end--;
+
+            val id = catalog.idOf(basket, start, end);
+            if (id == UNKNOWN_SKU) return false;
+            if (counts != null) counts.add(id);
+            tokenStart = i + 1;
+        }
+        return true;
+    }
+}
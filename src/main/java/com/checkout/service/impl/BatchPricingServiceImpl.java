@@ -0,0 +1,84 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BatchReport;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.BatchPricingService;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Prices baskets on the calling thread, reading large blocks of characters and pricing each line in place.
+ * Only a line that straddles two blocks is copied, so memory use is bounded by the block size and the longest line.
+ */
+public class BatchPricingServiceImpl implements BatchPricingService {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputService inputService;
+    private final int bufferSize;
+    private final boolean receipts;
+
+    public BatchPricingServiceImpl(InputService inputService) {
+        this(inputService, false);
+    }
+
+    /**
+     * @param receipts <code>true</code> to write an itemised receipt of each basket instead of just its total.
+     */
+    public BatchPricingServiceImpl(InputService inputService, boolean receipts) {
+        this(inputService, DEFAULT_BUFFER_SIZE, receipts);
+    }
+
+    BatchPricingServiceImpl(InputService inputService, int bufferSize) {
+        this(inputService, bufferSize, false);
+    }
+
+    BatchPricingServiceImpl(InputService inputService, int bufferSize, boolean receipts) {
+        this.inputService = inputService;
+        this.bufferSize = bufferSize;
+        this.receipts = receipts;
+    }
+
+    @Override
+    public BatchReport priceBaskets(Reader baskets, Writer totals, PricingCatalog catalog) throws IOException {
+        val start = System.nanoTime();
+        val pricer = new BasketLinePricer(inputService, catalog, receipts);
+        val buffer = new char[bufferSize];
+        val block = CharBuffer.wrap(buffer);
+        val carry = new StringBuilder();
+
+        var count = 0L;
+        var invalid = 0L;
+        int read;
+        while ((read = baskets.read(buffer, 0, buffer.length)) != -1) {
+            var lineStart = 0;
+            for (var i = 0; i < read; i++) {
+                if (buffer[i] != '\n') continue;
+
+                boolean valid;
+                if (carry.length() > 0) {
+                    carry.append(buffer, lineStart, i - lineStart);
+                    valid = pricer.price(carry, 0, carry.length(), totals);
+                    carry.setLength(0);
+                } else {
+                    valid = pricer.price(block, lineStart, i, totals);
+                }
+                count++;
+                if (!valid) invalid++;
+                lineStart = i + 1;
+            }
+            carry.append(buffer, lineStart, read - lineStart);
+        }
+
+        if (carry.length() > 0) {
+            count++;
+            if (!pricer.price(carry, 0, carry.length(), totals)) invalid++;
+        }
+        totals.flush();
+        return new BatchReport(count, invalid, System.nanoTime() - start);
+    }
+}
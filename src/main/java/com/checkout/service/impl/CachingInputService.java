@@ -0,0 +1,33 @@
+package com.checkout.service.impl;
+
+import com.checkout.cache.BasketTotalCache;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.InputService;
+
+import static org.apache.commons.lang3.ObjectUtils.anyNull;
+
+/**
+ * An {@link InputService} that memoizes exact basket totals in a {@link BasketTotalCache},
+ * so that repeat baskets, in any item order, are priced once per set of pricing rules. Totals are calculated by a delegate on a miss.
+ */
+public class CachingInputService extends ForwardingInputService {
+    private final BasketTotalCache cache;
+
+    public CachingInputService(InputService delegate, BasketTotalCache cache) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    @Override
+    public long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog) {
+        if (anyNull(basket, catalog) || basket.isEmpty() || catalog.isEmpty()) {
+            return 0;
+        }
+        return cache.totalMinor(basket, catalog, delegate::calculateTotalMinor);
+    }
+
+    public BasketTotalCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,111 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import com.checkout.service.InputService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.ObjectUtils.anyNull;
+
+/**
+ * An {@link InputService} that forwards every call to a delegate, for decorators that only change how totals are calculated.
+ * A decorator overrides {@link #calculateTotalMinor(BasketCounts, PricingCatalog)}, and totals against a catalog in major units are
+ * calculated through it, so they are decorated too. {@link #calculateTotal(Map, Set)} prices uncompiled rules, which have no catalog
+ * to decorate against, so it is forwarded as is.
+ */
+public abstract class ForwardingInputService implements InputService {
+    protected final InputService delegate;
+
+    protected ForwardingInputService(InputService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String loadPricingRules() {
+        return delegate.loadPricingRules();
+    }
+
+    @Override
+    public String loadPricingRules(Path file) throws IOException {
+        return delegate.loadPricingRules(file);
+    }
+
+    @Override
+    public boolean validatePricingRules(String rules) {
+        return delegate.validatePricingRules(rules);
+    }
+
+    @Override
+    public String loadBasket(Set<PricingRule> rules) {
+        return delegate.loadBasket(rules);
+    }
+
+    @Override
+    public String loadBasket(PricingCatalog catalog) {
+        return delegate.loadBasket(catalog);
+    }
+
+    @Override
+    public boolean validateBasket(String basket, Set<PricingRule> rules) {
+        return delegate.validateBasket(basket, rules);
+    }
+
+    @Override
+    public boolean validateBasket(String basket, PricingCatalog catalog) {
+        return delegate.validateBasket(basket, catalog);
+    }
+
+    @Override
+    public Map<String, List<String>> parseBasket(String basket) {
+        return delegate.parseBasket(basket);
+    }
+
+    @Override
+    public BasketCounts parseBasket(String basket, PricingCatalog catalog) {
+        return delegate.parseBasket(basket, catalog);
+    }
+
+    @Override
+    public BasketCounts parseBasket(String basket, PricingCatalog catalog, BasketCounts into) {
+        return delegate.parseBasket(basket, catalog, into);
+    }
+
+    @Override
+    public double calculateTotal(Map<String, List<String>> basket, Set<PricingRule> rules) {
+        return delegate.calculateTotal(basket, rules);
+    }
+
+    @Override
+    public double calculateTotal(Map<String, List<String>> basket, PricingCatalog catalog) {
+        if (anyNull(basket, catalog) || basket.isEmpty() || catalog.isEmpty()) {
+            return 0;
+        }
+        return calculateTotal(InputServiceImpl.countsOf(basket, catalog), catalog);
+    }
+
+    @Override
+    public double calculateTotal(BasketCounts basket, PricingCatalog catalog) {
+        return (double) calculateTotalMinor(basket, catalog) / 100;
+    }
+
+    @Override
+    public long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog) {
+        return delegate.calculateTotalMinor(basket, catalog);
+    }
+
+    @Override
+    public boolean stop() {
+        return delegate.stop();
+    }
+
+    @Override
+    public boolean validateContinue(String continueInput) {
+        return delegate.validateContinue(continueInput);
+    }
+}
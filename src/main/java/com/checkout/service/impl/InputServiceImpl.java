@@ -1,19 +1,37 @@
 package com.checkout.service.impl;
 
+import com.checkout.metrics.PricingMetrics;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
 import com.checkout.model.PricingRule;
 import com.checkout.service.InputService;
 import lombok.NoArgsConstructor;
 import lombok.val;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static com.checkout.metrics.PricingStage.CALCULATE_TOTAL;
+import static com.checkout.metrics.PricingStage.PARSE_BASKET;
+import static com.checkout.metrics.PricingStage.VALIDATE_BASKET;
+import static com.checkout.metrics.PricingStage.VALIDATE_RULES;
+import static java.lang.Double.parseDouble;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
 import static java.util.Collections.emptyMap;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.lang3.ObjectUtils.anyNull;
@@ -22,6 +40,8 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @NoArgsConstructor
 public class InputServiceImpl implements InputService {
+    // Counts huge baskets in slices on the common pool, and anything shorter on the calling thread
+    private static final ParallelBasketCounter BASKET_COUNTER = new ParallelBasketCounter();
 
     private Scanner input;
 
@@ -38,41 +58,105 @@ public class InputServiceImpl implements InputService {
     }
 
     @Override
-    public boolean validatePricingRules(String rules) {
-        if (isBlank(rules)) {
-            return false;
+    public String loadPricingRules(Path file) throws IOException {
+        val pricingRules = Files.readAllLines(file, UTF_8).stream()
+                .flatMap(line -> stream(line.split(";")))
+                .map(String::trim)
+                .filter(rule -> !rule.isEmpty())
+                .collect(joining(";"));
+
+        if (!validatePricingRules(pricingRules)) {
+            throw new IllegalArgumentException(format("Invalid pricing rules in %s", file));
         }
+        return pricingRules;
+    }
+
+    @Override
+    public boolean validatePricingRules(String rules) {
+        val start = PricingMetrics.start();
+        try {
+            if (isBlank(rules)) {
+                return false;
+            }
 
-        val rulesArray = rules.split(";");
-        if (rulesArray.length == 0) return false;
+            val rulesArray = rules.split(";");
+            if (rulesArray.length == 0) return false;
 
-        for (val row: rulesArray) {
-            if (!row.contains(",")) return false;
-        }
+            for (val row: rulesArray) {
+                if (!row.contains(",")) return false;
+            }
+
+            val invalidSKULabel = stream(rulesArray)
+                    .map(row -> row.toUpperCase().charAt(0))
+                    .anyMatch(c -> !Character.isLetter(c));
+            if (invalidSKULabel) return false;
+
+            val invalidRowLength = stream(rulesArray)
+                    .map(row -> row.split(","))
+                    .anyMatch(row -> row.length < 2 || row.length > 4);
+            if (invalidRowLength) return false;
 
-        val invalidSKULabel = stream(rulesArray)
-                .map(row -> row.toUpperCase().charAt(0))
-                .anyMatch(c -> !Character.isLetter(c));
-        if (invalidSKULabel) return false;
+            // Prices are compiled to exact minor units, so a fraction of a penny cannot be priced
+            val invalidPrice = stream(rulesArray)
+                    .map(row -> row.split(","))
+                    .anyMatch(row -> !isValidPrice(row[1]));
+            if (invalidPrice) return false;
 
-        val invalidRowLength = stream(rulesArray)
-                .map(row -> row.split(","))
-                .anyMatch(row -> row.length < 2 || row.length > 3);
-        if (invalidRowLength) return false;
+            // A SKU has one permanent rule, and rules with a validity window replace it while they are in effect
+            val skuList = stream(rulesArray)
+                    .map(row -> row.split(","))
+                    .filter(row -> row.length < 4)
+                    .map(row -> row[0].trim().toUpperCase())
+                    .collect(toList());
+            val hasDuplicates = skuList.size() != new HashSet<>(skuList).size();
+            if (hasDuplicates) return false;
 
-        val skuList = stream(rulesArray)
-                .map(row -> row.toUpperCase().charAt(0))
-                .collect(toList());
-        val hasDuplicates = skuList.size() != skuList.stream().distinct().count();
-        if (hasDuplicates) return false;
+            val invalidWindow = stream(rulesArray)
+                    .map(row -> row.split(","))
+                    .filter(row -> row.length == 4)
+                    .anyMatch(row -> !skuList.contains(row[0].trim().toUpperCase()) || !isValidWindow(row[3]));
+            if (invalidWindow) return false;
 
-        val invalidSpecialPrice = stream(rulesArray)
-                .map(row -> row.split(","))
-                .filter(arr -> arr.length == 3)
-                .anyMatch(row -> !row[2].contains("for"));
-        if (invalidSpecialPrice) return false;
+            val invalidSpecialPrice = stream(rulesArray)
+                    .map(row -> row.split(","))
+                    .filter(arr -> arr.length == 3 || arr.length == 4 && !arr[2].isBlank())
+                    .flatMap(row -> stream(row[2].split(Pattern.quote(PricingRule.OFFER_SEPARATOR), -1)))
+                    .anyMatch(offer -> !offer.contains("for"));
+            if (invalidSpecialPrice) return false;
 
-        return true;
+            // Bundles have no special price, and every item in them must be a SKU with its own rule
+            val rows = stream(rulesArray).map(row -> row.split(",")).collect(toList());
+            val skus = rows.stream()
+                    .map(row -> row[0].trim())
+                    .filter(sku -> !sku.contains(PricingRule.BUNDLE_SEPARATOR))
+                    .collect(toSet());
+            val invalidBundle = rows.stream()
+                    .filter(row -> row[0].contains(PricingRule.BUNDLE_SEPARATOR))
+                    .anyMatch(row -> row.length != 2 || stream(row[0].split(Pattern.quote(PricingRule.BUNDLE_SEPARATOR), -1))
+                            .anyMatch(item -> !skus.contains(item.trim())));
+            if (invalidBundle) return false;
+
+            return true;
+        } finally {
+            PricingMetrics.record(VALIDATE_RULES, start);
+        }
+    }
+
+    private static boolean isValidPrice(String price) {
+        try {
+            return PricingCatalog.isWholeMinorUnits(parseDouble(price.trim()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValidWindow(String window) {
+        try {
+            PricingRule.parseWindow(window);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
     @Override
@@ -87,31 +171,101 @@ public class InputServiceImpl implements InputService {
         return transactionList;
     }
 
+    @Override
+    public String loadBasket(PricingCatalog catalog) {
+        String transactionList;
+        do {
+            input = new Scanner(System.in);
+            System.out.println("Please input basket items in the format, e.g. ABBABBA, or separate SKUs with commas, e.g. APL-001,BAN-002. Ensure that the supplied SKUs exist in the current pricing rule.");
+            transactionList = input.nextLine();
+
+        } while (!validateBasket(transactionList, catalog));
+        return transactionList;
+    }
+
     @Override
     public boolean validateBasket(String basket, Set<PricingRule> rules) {
-        if (isBlank(basket)) {
-            return false;
-        }
+        val start = PricingMetrics.start();
+        try {
+            if (isBlank(basket)) {
+                return false;
+            }
 
-        val transactionArr = basket.split("");
-        if (stream(transactionArr).anyMatch(t -> !isAlpha(t))) {
-            return false;
+            val transactionArr = basket.split("");
+            if (stream(transactionArr).anyMatch(t -> !isAlpha(t))) {
+                return false;
+            }
+
+            val skuSet = rules.stream().map(PricingRule::getItem).collect(toSet());
+            if (stream(transactionArr).anyMatch(t -> !skuSet.contains(t))) {
+                return false;
+            }
+            return true;
+        } finally {
+            PricingMetrics.record(VALIDATE_BASKET, start);
         }
+    }
 
-        val skuSet = rules.stream().map(PricingRule::getItem).collect(toSet());
-        if (stream(transactionArr).anyMatch(t -> !skuSet.contains(t))) {
-            return false;
+    @Override
+    public boolean validateBasket(String basket, PricingCatalog catalog) {
+        val start = PricingMetrics.start();
+        try {
+            if (anyNull(basket, catalog)) {
+                return false;
+            }
+            return BASKET_COUNTER.validate(basket, 0, basket.length(), catalog);
+        } finally {
+            PricingMetrics.record(VALIDATE_BASKET, start);
         }
-        return true;
     }
 
     @Override
     public Map<String, List<String>> parseBasket(String basket) {
-        if (isBlank(basket) || stream(basket.split("")).anyMatch(str -> !isAlpha(str))) {
-            return emptyMap();
+        val start = PricingMetrics.start();
+        try {
+            if (isBlank(basket) || stream(basket.split("")).anyMatch(str -> !isAlpha(str))) {
+                return emptyMap();
+            }
+
+            return stream(basket.split("")).collect(Collectors.groupingBy(sku -> sku));
+        } finally {
+            PricingMetrics.record(PARSE_BASKET, start);
         }
+    }
 
-        return stream(basket.split("")).collect(Collectors.groupingBy(sku -> sku));
+    @Override
+    public BasketCounts parseBasket(String basket, PricingCatalog catalog) {
+        val start = PricingMetrics.start();
+        try {
+            if (anyNull(basket, catalog)) {
+                return new BasketCounts(0);
+            }
+
+            val counts = new BasketCounts(catalog.size());
+            BASKET_COUNTER.count(basket, 0, basket.length(), catalog, counts);
+            return counts;
+        } finally {
+            PricingMetrics.record(PARSE_BASKET, start);
+        }
+    }
+
+    @Override
+    public BasketCounts parseBasket(String basket, PricingCatalog catalog, BasketCounts into) {
+        val start = PricingMetrics.start();
+        try {
+            into.clear();
+            if (anyNull(basket, catalog)) {
+                return into;
+            }
+            if (into.capacity() < catalog.size()) {
+                throw new IllegalArgumentException(format("Basket counts of capacity %d cannot hold a catalog of %d SKUs", into.capacity(), catalog.size()));
+            }
+
+            BASKET_COUNTER.count(basket, 0, basket.length(), catalog, into);
+            return into;
+        } finally {
+            PricingMetrics.record(PARSE_BASKET, start);
+        }
     }
 
     @Override
@@ -120,35 +274,101 @@ public class InputServiceImpl implements InputService {
             return 0;
         }
 
-        return basket.entrySet().stream().mapToDouble(entry -> {
-            val sku = entry.getKey();
-            val list = entry.getValue();
-            val optional = rules.stream()
-                    .filter(rule -> nonNull(rule.getItem()) && rule.getItem().equals(sku))
-                    .findFirst();
-
-            if (optional.isPresent()) {
-                val pricingRule = optional.get();
-                val specialRule = pricingRule.getSpecialPrice();
-                val unitPrice = pricingRule.getUnitPrice();
-
-                // If the SKU has a special price, then check if the # of occurrences (count) of the SKU is a factor of the quantity value in the special price,
-                // and calculate the total price using the remainder and the closest multiple of the special price quantity value to the SKU count.
-                if (nonNull(specialRule)) {
-                    val quantity = specialRule.getLeft();
-                    val value = specialRule.getRight();
-                    val count = list.size();
-                    val remainder = count % quantity;
-                    val units = (double) (count - remainder) / quantity;
-                    return (units * (units % quantity == 0 || units % quantity == units ? value : unitPrice)) + (remainder * unitPrice);
-                } else {
-                    return unitPrice * list.size();
+        // Rules built in code can have prices in fractions of a penny, which cannot be compiled, so they keep the original per-rule arithmetic
+        if (rules.stream().anyMatch(rule -> nonNull(rule) && !PricingCatalog.isWholeMinorUnits(rule.getUnitPrice()))) {
+            return calculateUncompiledTotal(basket, rules);
+        }
+        return calculateTotal(basket, PricingCatalog.compile(rules));
+    }
+
+    private static double calculateUncompiledTotal(Map<String, List<String>> basket, Set<PricingRule> rules) {
+        val rulesBySku = new HashMap<String, PricingRule>();
+        for (val rule : rules) {
+            if (nonNull(rule) && nonNull(rule.getItem())) rulesBySku.putIfAbsent(rule.getItem(), rule);
+        }
+
+        var total = 0d;
+        for (val entry : basket.entrySet()) {
+            val rule = rulesBySku.get(entry.getKey());
+            if (isNull(rule)) continue;
+
+            val specialPrice = rule.getSpecialPrice();
+            total += isNull(specialPrice)
+                    ? PricingCatalog.linePrice(rule.getUnitPrice(), 0, 0, entry.getValue().size())
+                    : PricingCatalog.linePrice(rule.getUnitPrice(), specialPrice.getLeft(), specialPrice.getRight(), entry.getValue().size());
+        }
+        return total;
+    }
+
+    @Override
+    public double calculateTotal(Map<String, List<String>> basket, PricingCatalog catalog) {
+        val start = PricingMetrics.start();
+        try {
+            if (anyNull(basket, catalog) || basket.isEmpty() || catalog.isEmpty()) {
+                return 0;
+            }
+
+            if (catalog.isBasketPriced()) {
+                return (double) catalog.totalMinor(countsOf(basket, catalog)) / 100;
+            }
+
+            var total = 0d;
+            for (val entry : basket.entrySet()) {
+                val id = catalog.idOf(entry.getKey());
+                if (id != PricingCatalog.UNKNOWN_SKU) {
+                    total += catalog.linePrice(id, entry.getValue().size());
                 }
-            } else {
+            }
+            return total;
+        } finally {
+            PricingMetrics.record(CALCULATE_TOTAL, start);
+        }
+    }
+
+    // The counts of the SKUs of a parsed basket that are in the catalog
+    static BasketCounts countsOf(Map<String, List<String>> basket, PricingCatalog catalog) {
+        val counts = new BasketCounts(catalog.size());
+        for (val entry : basket.entrySet()) {
+            val id = catalog.idOf(entry.getKey());
+            if (id != PricingCatalog.UNKNOWN_SKU) counts.add(id, entry.getValue().size());
+        }
+        return counts;
+    }
+
+    @Override
+    public double calculateTotal(BasketCounts basket, PricingCatalog catalog) {
+        val start = PricingMetrics.start();
+        try {
+            if (anyNull(basket, catalog) || basket.isEmpty() || catalog.isEmpty()) {
                 return 0;
             }
+            if (catalog.isBasketPriced()) {
+                return (double) catalog.totalMinor(basket) / 100;
+            }
+
+            var total = 0d;
+            for (var i = 0; i < basket.distinctSkus(); i++) {
+                val id = basket.skuAt(i);
+                total += catalog.linePrice(id, basket.getCount(id));
+            }
+            return total;
+        } finally {
+            PricingMetrics.record(CALCULATE_TOTAL, start);
+        }
+    }
 
-        }).sum();
+    @Override
+    public long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog) {
+        val start = PricingMetrics.start();
+        try {
+            if (anyNull(basket, catalog) || basket.isEmpty() || catalog.isEmpty()) {
+                return 0;
+            }
+
+            return catalog.totalMinor(basket);
+        } finally {
+            PricingMetrics.record(CALCULATE_TOTAL, start);
+        }
     }
 
     @Override
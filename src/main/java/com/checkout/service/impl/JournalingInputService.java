@@ -0,0 +1,35 @@
+package com.checkout.service.impl;
+
+import com.checkout.journal.JournalWriter;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import static org.apache.commons.lang3.ObjectUtils.anyNull;
+
+/**
+ * An {@link InputService} that records every exact basket total it calculates in a {@link JournalWriter},
+ * so that priced transactions can later be replayed against new rules. Totals are calculated by a delegate, such as a {@link CachingInputService}.
+ */
+public class JournalingInputService extends ForwardingInputService {
+    private final JournalWriter journal;
+
+    public JournalingInputService(InputService delegate, JournalWriter journal) {
+        super(delegate);
+        this.journal = journal;
+    }
+
+    @Override
+    public long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog) {
+        val total = delegate.calculateTotalMinor(basket, catalog);
+        if (!anyNull(basket, catalog) && !basket.isEmpty()) {
+            journal.append(basket, catalog, total);
+        }
+        return total;
+    }
+
+    public JournalWriter getJournal() {
+        return journal;
+    }
+}
@@ -0,0 +1,152 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.lang.String.format;
+
+/**
+ * Validates and counts huge baskets, such as wholesale orders of millions of items, by splitting them into slices that are counted on a
+ * {@link ForkJoinPool}, each into its own {@link BasketCounts}, and merging the slices' counts in order. An undelimited basket is split anywhere,
+ * and a delimited one just before a {@link BasketParser#DELIMITER}, so no SKU is cut in two, and the result is the same as
+ * {@link BasketParser#count(CharSequence, int, int, PricingCatalog, BasketCounts)}, including the order of first occurrence of the SKUs.
+ * Baskets too short for two slices are counted on the calling thread. Each slice's counts are sized to the catalog. Thread-safe, provided the
+ * basket is not changed while it is counted.
+ */
+public final class ParallelBasketCounter {
+    public static final int DEFAULT_MIN_SLICE_LENGTH = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int minSliceLength;
+
+    /**
+     * Count on the common pool, in up to one slice per processor of at least {@link #DEFAULT_MIN_SLICE_LENGTH} characters.
+     */
+    public ParallelBasketCounter() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_SLICE_LENGTH);
+    }
+
+    /**
+     * @param pool The pool to count slices on. The calling thread counts the first slice itself.
+     * @param parallelism The largest number of slices to split a basket into.
+     * @param minSliceLength The smallest number of characters in a slice.
+     */
+    public ParallelBasketCounter(ForkJoinPool pool, int parallelism, int minSliceLength) {
+        if (parallelism < 1 || minSliceLength < 1) {
+            throw new IllegalArgumentException(format("Invalid counter configuration: parallelism=%d, minSliceLength=%d", parallelism, minSliceLength));
+        }
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.minSliceLength = minSliceLength;
+    }
+
+    /**
+     * Validate a basket and count its items, as {@link BasketParser#count(CharSequence, int, int, PricingCatalog, BasketCounts)} does.
+     * If the basket is invalid the counts are cleared.
+     * @return <code>true</code> if the basket is valid, otherwise <code>false</code>.
+     * @throws ArithmeticException If a count overflows an <code>int</code>.
+     */
+    public boolean count(CharSequence basket, int from, int to, PricingCatalog catalog, BasketCounts counts) {
+        val slices = slices(from, to);
+        if (slices < 2) return BasketParser.count(basket, from, to, catalog, counts);
+
+        var parts = new BasketCounts[slices];
+        if (!countSlices(basket, characterBounds(from, to, slices), catalog, true, parts)) {
+            val bounds = delimitedBounds(basket, from, to, slices);
+            parts = new BasketCounts[bounds.length / 2];
+            if (!countSlices(basket, bounds, catalog, false, parts)) {
+                counts.clear();
+                return false;
+            }
+        }
+
+        for (val part : parts) {
+            counts.merge(part);
+        }
+        return true;
+    }
+
+    /**
+     * Validate a basket without counting its items, as {@link BasketParser#validate(CharSequence, int, int, PricingCatalog)} does.
+     * @return <code>true</code> if the basket is valid, otherwise <code>false</code>.
+     */
+    public boolean validate(CharSequence basket, int from, int to, PricingCatalog catalog) {
+        val slices = slices(from, to);
+        if (slices < 2) return BasketParser.validate(basket, from, to, catalog);
+
+        return countSlices(basket, characterBounds(from, to, slices), catalog, true, null)
+                || countSlices(basket, delimitedBounds(basket, from, to, slices), catalog, false, null);
+    }
+
+    private int slices(int from, int to) {
+        return Math.min(parallelism, (to - from) / minSliceLength);
+    }
+
+    // The start and end of each slice, in pairs
+    private static int[] characterBounds(int from, int to, int slices) {
+        val bounds = new int[slices * 2];
+        for (var slice = 0; slice < slices; slice++) {
+            bounds[slice * 2] = split(from, to, slices, slice);
+            bounds[slice * 2 + 1] = split(from, to, slices, slice + 1);
+        }
+        return bounds;
+    }
+
+    // Each slice ends just before a delimiter and the next starts just after it, so every token, even an empty one, is in exactly one slice
+    private static int[] delimitedBounds(CharSequence basket, int from, int to, int slices) {
+        val bounds = new int[slices * 2];
+        var length = 0;
+        var start = from;
+        for (var slice = 1; slice < slices; slice++) {
+            var end = Math.max(start, split(from, to, slices, slice));
+            while (end < to && basket.charAt(end) != BasketParser.DELIMITER) end++;
+            if (end == to) break;
+
+            bounds[length++] = start;
+            bounds[length++] = end;
+            start = end + 1;
+        }
+        bounds[length++] = start;
+        bounds[length++] = to;
+        return Arrays.copyOf(bounds, length);
+    }
+
+    private static int split(int from, int to, int slices, int slice) {
+        return from + (int) ((long) (to - from) * slice / slices);
+    }
+
+    /**
+     * @param parts The counts of each slice, filled in if every slice is valid, or <code>null</code> to only validate.
+     * @return <code>true</code> if every slice is valid, otherwise <code>false</code>.
+     */
+    private boolean countSlices(CharSequence basket, int[] bounds, PricingCatalog catalog, boolean characters, BasketCounts[] parts) {
+        val slices = bounds.length / 2;
+        val tasks = new ArrayList<ForkJoinTask<Boolean>>(slices - 1);
+        for (var slice = 1; slice < slices; slice++) {
+            val index = slice;
+            tasks.add(pool.submit(() -> countSlice(basket, bounds, index, catalog, characters, parts)));
+        }
+
+        var valid = countSlice(basket, bounds, 0, catalog, characters, parts);
+        for (val task : tasks) {
+            valid &= task.join();
+        }
+        return valid;
+    }
+
+    private static boolean countSlice(CharSequence basket, int[] bounds, int slice, PricingCatalog catalog, boolean characters, BasketCounts[] parts) {
+        val counts = parts == null ? null : new BasketCounts(catalog.size());
+        if (parts != null) parts[slice] = counts;
+
+        val from = bounds[slice * 2];
+        val to = bounds[slice * 2 + 1];
+        return characters ? BasketParser.countCharacters(basket, from, to, catalog, counts) : BasketParser.countDelimited(basket, from, to, catalog, counts);
+    }
+}
@@ -0,0 +1,169 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BatchReport;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.BatchPricingService;
+import com.checkout.service.InputService;
+import lombok.val;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * Prices baskets on a fixed pool of worker threads.
+ * The calling thread reads the input in chunks that end on a line break, submits each chunk to the pool and writes the
+ * results back in input order. At most <code>maxInFlight</code> chunks are read ahead of the writer, which bounds memory
+ * use and applies backpressure to the reader when the workers or the output fall behind.
+ */
+public class ParallelBatchPricingServiceImpl implements BatchPricingService {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+
+    private final InputService inputService;
+    private final int threads;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final boolean receipts;
+
+    public ParallelBatchPricingServiceImpl(InputService inputService, int threads) {
+        this(inputService, threads, DEFAULT_CHUNK_SIZE, threads * 4);
+    }
+
+    public ParallelBatchPricingServiceImpl(InputService inputService, int threads, int chunkSize, int maxInFlight) {
+        this(inputService, threads, chunkSize, maxInFlight, false);
+    }
+
+    /**
+     * @param receipts <code>true</code> to write an itemised receipt of each basket instead of just its total.
+     */
+    public ParallelBatchPricingServiceImpl(InputService inputService, int threads, int chunkSize, int maxInFlight, boolean receipts) {
+        if (threads < 1 || chunkSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException(format("Invalid batch configuration: threads=%d, chunkSize=%d, maxInFlight=%d", threads, chunkSize, maxInFlight));
+        }
+        this.inputService = inputService;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.receipts = receipts;
+    }
+
+    @Override
+    public BatchReport priceBaskets(Reader baskets, Writer totals, PricingCatalog catalog) throws IOException {
+        val start = System.nanoTime();
+        val pricers = ThreadLocal.withInitial(() -> new BasketLinePricer(inputService, catalog, receipts));
+        val executor = newWorkerPool();
+        val inFlight = new ArrayDeque<Future<ChunkResult>>(maxInFlight);
+
+        var count = 0L;
+        var invalid = 0L;
+        try {
+            var carry = new char[0];
+            var eof = false;
+            while (!eof) {
+                val chunk = Arrays.copyOf(carry, carry.length + chunkSize);
+                var length = carry.length;
+                int read = 0;
+                while (length < chunk.length && (read = baskets.read(chunk, length, chunk.length - length)) != -1) {
+                    length += read;
+                }
+                eof = read == -1;
+
+                var end = length;
+                if (!eof) {
+                    while (end > 0 && chunk[end - 1] != '\n') end--;
+                }
+                carry = Arrays.copyOfRange(chunk, end, length);
+                if (end == 0) continue;
+
+                val chunkEnd = end;
+                inFlight.add(executor.submit(() -> priceChunk(pricers.get(), chunk, chunkEnd)));
+                if (inFlight.size() >= maxInFlight) {
+                    val result = await(inFlight.poll());
+                    result.output.writeTo(totals);
+                    count += result.baskets;
+                    invalid += result.invalid;
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                val result = await(inFlight.poll());
+                result.output.writeTo(totals);
+                count += result.baskets;
+                invalid += result.invalid;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        totals.flush();
+        return new BatchReport(count, invalid, System.nanoTime() - start);
+    }
+
+    private static ChunkResult priceChunk(BasketLinePricer pricer, char[] chunk, int length) {
+        val lines = CharBuffer.wrap(chunk);
+        val result = new ChunkResult(length + (length >> 2));
+        try {
+            var lineStart = 0;
+            for (var i = 0; i < length; i++) {
+                if (chunk[i] != '\n') continue;
+                result.add(pricer.price(lines, lineStart, i, result.output));
+                lineStart = i + 1;
+            }
+            if (lineStart < length) {
+                result.add(pricer.price(lines, lineStart, length, result.output));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private ExecutorService newWorkerPool() {
+        val threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            val thread = new Thread(runnable, "batch-pricer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ChunkResult await(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pricing baskets", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static class ChunkResult {
+        private final CharArrayWriter output;
+        private long baskets;
+        private long invalid;
+
+        ChunkResult(int capacity) {
+            this.output = new CharArrayWriter(capacity);
+        }
+
+        void add(boolean valid) {
+            baskets++;
+            if (!valid) invalid++;
+        }
+    }
+}
@@ -1,52 +1,210 @@
 package com.checkout.service.impl;
 
+import com.checkout.metrics.PricingMetrics;
+import com.checkout.model.BasketStage;
+import com.checkout.model.BasketStages;
+import com.checkout.model.CatalogRegistry;
+import com.checkout.model.PricingCatalog;
 import com.checkout.model.PricingRule;
+import com.checkout.model.PricingTimeline;
+import com.checkout.render.RuleTableRenderer;
 import com.checkout.service.PricingRuleService;
+import com.checkout.service.RuleFormatException;
 import lombok.NoArgsConstructor;
 import lombok.val;
 import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.regex.Pattern;
 
+import static com.checkout.metrics.PricingStage.COMPILE_RULES;
+import static com.checkout.metrics.PricingStage.PARSE_RULES;
 import static java.lang.Double.parseDouble;
 import static java.lang.Integer.parseInt;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptySet;
 import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 @NoArgsConstructor
 public class PricingRuleServiceImpl implements PricingRuleService {
-    private static final List<String> TABLE_HEADERS = List.of("Item", "Unit Price", "Special Price");
-    private static final String COLUMN_SPACE = format("%1$10s", "");
+    static final String STORE_SUFFIX = ".txt";
+
+    private final RuleTableRenderer ruleTableRenderer = new RuleTableRenderer();
 
     @Override
     public Set<PricingRule> parseRules(String[] rules) {
-        if (isNull(rules) || rules.length == 0) return emptySet();
+        val start = PricingMetrics.start();
+        try {
+            if (isNull(rules) || rules.length == 0) return emptySet();
+
+            return Arrays.stream(rules)
+                    .filter(row -> row.contains(","))
+                    .map(row -> {
+                        val rowDetails = row.split(",");
+                        val item = rowDetails[0].trim();
+                        if (rowDetails.length == 4) {
+                            val window = PricingRule.parseWindow(rowDetails[3]);
+                            return new PricingRule(item, parseDouble(rowDetails[1]), parseSpecialPrices(rowDetails[2]), window.getLeft(), window.getRight());
+                        } else if (rowDetails.length == 3) {
+                            return new PricingRule(item, parseDouble(rowDetails[1]), parseSpecialPrices(rowDetails[2]));
+                        } else {
+                            return new PricingRule(item, parseDouble(rowDetails[1]));
+                        }
+                    })
+                    .collect(toSet());
+        } finally {
+            PricingMetrics.record(PARSE_RULES, start);
+        }
+    }
+
+    private static List<Pair<Integer, Integer>> parseSpecialPrices(String specialPrices) {
+        if (specialPrices.isBlank()) return Collections.emptyList();
+
+        return Arrays.stream(specialPrices.split(Pattern.quote(PricingRule.OFFER_SEPARATOR)))
+                .map(offer -> offer.trim().replace(" ", "").split("for"))
+                .map(offer -> (Pair<Integer, Integer>) new MutablePair<>(parseInt(offer[0]), parseInt(offer[1])))
+                .collect(toList());
+    }
+
+    @Override
+    public PricingCatalog compileRules(Set<PricingRule> rules) {
+        val start = PricingMetrics.start();
+        try {
+            return PricingCatalog.compile(rules);
+        } finally {
+            PricingMetrics.record(COMPILE_RULES, start);
+        }
+    }
+
+    @Override
+    public PricingTimeline compileTimeline(Set<PricingRule> rules) {
+        val start = PricingMetrics.start();
+        try {
+            return PricingTimeline.compile(rules);
+        } finally {
+            PricingMetrics.record(COMPILE_RULES, start);
+        }
+    }
+
+    @Override
+    public PricingCatalog loadCatalog(Reader rules) throws IOException {
+        val start = PricingMetrics.start();
+        try {
+            return new StreamingRuleLoader().load(rules);
+        } finally {
+            PricingMetrics.record(PARSE_RULES, start);
+        }
+    }
 
-        return Arrays.stream(rules)
-                .filter(row -> row.contains(","))
-                .map(row -> {
-                    val rowDetails = row.split(",");
-                    if (rowDetails.length == 3) {
-                        val specialPrice = rowDetails[2].trim().replace(" ", "").split("for");
-                        return new PricingRule(rowDetails[0], parseDouble(rowDetails[1]), new MutablePair<>(parseInt(specialPrice[0]), parseInt(specialPrice[1])));
-                    } else {
-                        return new PricingRule(rowDetails[0], parseDouble(rowDetails[1]));
-                    }
-                })
-                .collect(toSet());
+    @Override
+    public PricingCatalog loadCatalog(Path file) throws IOException {
+        try (val reader = Files.newBufferedReader(file, UTF_8)) {
+            return loadCatalog(reader);
+        }
+    }
+
+    @Override
+    public PricingTimeline loadTimeline(Reader rules) throws IOException {
+        val start = PricingMetrics.start();
+        try {
+            return new StreamingRuleLoader().loadTimeline(rules, PricingTimeline.builder());
+        } finally {
+            PricingMetrics.record(PARSE_RULES, start);
+        }
+    }
+
+    @Override
+    public PricingTimeline loadTimeline(Path file) throws IOException {
+        try (val reader = Files.newBufferedReader(file, UTF_8)) {
+            return loadTimeline(reader);
+        }
+    }
+
+    @Override
+    public List<BasketStage> loadStages(Reader discounts) throws IOException {
+        val text = new BufferedReader(discounts).lines().collect(joining("\n"));
+        val stages = new ArrayList<BasketStage>();
+        var line = 1;
+        var column = 1;
+        var from = 0;
+        for (var i = 0; i <= text.length(); i++) {
+            val c = i < text.length() ? text.charAt(i) : '\n';
+            if (c != ';' && c != '\n') continue;
+
+            val rule = text.substring(from, i);
+            if (!rule.isBlank()) {
+                val indent = rule.length() - rule.stripLeading().length();
+                try {
+                    stages.add(BasketStages.parse(rule.strip()));
+                } catch (IllegalArgumentException e) {
+                    throw new RuleFormatException(line, column + indent, e.getMessage(), e);
+                }
+            }
+            column += i - from + 1;
+            if (c == '\n') {
+                line++;
+                column = 1;
+            }
+            from = i + 1;
+        }
+        return stages;
+    }
+
+    @Override
+    public List<BasketStage> loadStages(Path file) throws IOException {
+        try (val reader = Files.newBufferedReader(file, UTF_8)) {
+            return loadStages(reader);
+        }
+    }
+
+    @Override
+    public CatalogRegistry loadStores(PricingCatalog base, Path directory) throws IOException {
+        val registry = new CatalogRegistry(base);
+        for (val file : storeFiles(directory)) {
+            val name = file.getFileName().toString();
+            val store = name.substring(0, name.length() - STORE_SUFFIX.length());
+            try {
+                registry.register(store, loadCatalog(file));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(format("Rules of store %s are not valid: %s", store, e.getMessage()), e);
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * @return The store rules files in a directory, sorted by name.
+     */
+    static List<Path> storeFiles(Path directory) throws IOException {
+        try (val files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(STORE_SUFFIX) && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(toList());
+        }
     }
 
     @Override
     public void printRules(Set<PricingRule> rules) {
-        if (isNull(rules) || rules.isEmpty() || rules.stream().anyMatch(Objects::isNull)) {
-            return;
+        val table = RuleTableRenderer.render(rules);
+        if (!table.isEmpty()) {
+            System.out.print(table);
+            System.out.flush();
         }
+    }
 
-        System.out.println(String.join(COLUMN_SPACE, TABLE_HEADERS));
-        rules.stream()
-                .sorted(Comparator.comparing(PricingRule::getItem))
-                .forEach(rule -> System.out.println(rule.getItem() + COLUMN_SPACE + rule.getUnitPrice() + COLUMN_SPACE + rule.getFormattedSpecialPrice()));
+    @Override
+    public void printCatalog(PricingCatalog catalog) {
+        System.out.print(ruleTableRenderer.render(catalog));
+        System.out.flush();
     }
 }
@@ -0,0 +1,258 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import com.checkout.model.PricingTimeline;
+import com.checkout.service.RuleFormatException;
+import lombok.val;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.parseInt;
+import static java.lang.String.format;
+
+/**
+ * Reads pricing rules from a {@link Reader} and compiles them into a {@link PricingCatalog} in a single pass.
+ * Rules are separated by <code>;</code> or line breaks, blank rules are skipped, and each rule is validated with the same checks as
+ * {@link InputServiceImpl#validatePricingRules(String)} and parsed as {@link PricingRuleServiceImpl#parseRules(String[])} would,
+ * as soon as it has been read. Only the current rule is buffered, so memory use is proportional to the catalog rather than the text.
+ * Bundle rules, such as <code>A+B+C,60</code>, may come before the rules of their SKUs, so their SKUs are checked once every rule has been read,
+ * and so are rules with a validity window, such as <code>A,50,3 for 120,2026-06-06T00:00Z..2026-06-08T00:00Z</code>, which can only be loaded
+ * into a {@link PricingTimeline}.
+ */
+class StreamingRuleLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final PricingCatalog.Builder catalog = PricingCatalog.builder();
+    // The line each SKU was first defined on, by upper-case SKU, which is also how SKUs are looked up once every rule has been read
+    private final Map<String, Integer> firstLines = new HashMap<>();
+    private final List<PendingBundle> bundles = new ArrayList<>();
+    private final List<PendingWindow> windows = new ArrayList<>();
+    private final StringBuilder rule = new StringBuilder();
+    private int line = 1;
+    private int column = 1;
+    private int ruleLine;
+    private int ruleColumn;
+
+    /**
+     * @throws RuleFormatException If a rule is not valid or has a validity window, with the line and column of the problem.
+     */
+    PricingCatalog load(Reader rules) throws IOException {
+        val catalog = read(rules);
+        if (!windows.isEmpty()) {
+            val window = windows.get(0);
+            throw new RuleFormatException(window.line, window.column, format("rule for %s has a validity window, which needs a timeline", window.rule.getItem()));
+        }
+        return catalog;
+    }
+
+    /**
+     * @param timeline A builder with the clock the timeline should read, to which the rules with a validity window are added.
+     * @throws RuleFormatException If a rule is not valid, with the line and column of the problem.
+     */
+    PricingTimeline loadTimeline(Reader rules, PricingTimeline.Builder timeline) throws IOException {
+        val catalog = read(rules);
+        windows.sort(Comparator.comparing((PendingWindow window) -> window.rule.getItem().trim())
+                .thenComparing(window -> window.rule.getValidFrom(), Comparator.nullsFirst(Comparator.<Instant>naturalOrder())));
+        PendingWindow previous = null;
+        for (val window : windows) {
+            val sku = window.rule.getItem().trim();
+            if (!firstLines.containsKey(sku.toUpperCase())) {
+                throw new RuleFormatException(window.line, window.column, format("rule for %s has a validity window but no permanent rule", sku));
+            }
+            if (previous != null && previous.rule.getItem().trim().equals(sku) && overlaps(previous.rule, window.rule)) {
+                throw new RuleFormatException(window.line, window.column, format("validity window of %s overlaps the one on line %d", sku, previous.line));
+            }
+            timeline.add(window.rule);
+            previous = window;
+        }
+        return timeline.build(catalog);
+    }
+
+    private static boolean overlaps(PricingRule earlier, PricingRule later) {
+        return earlier.getValidUntil() == null || later.getValidFrom() == null || earlier.getValidUntil().isAfter(later.getValidFrom());
+    }
+
+    private PricingCatalog read(Reader rules) throws IOException {
+        val buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = rules.read(buffer, 0, buffer.length)) != -1) {
+            for (var i = 0; i < read; i++) {
+                accept(buffer[i]);
+            }
+        }
+        endRule();
+
+        for (val bundle : bundles) {
+            for (val item : bundle.items) {
+                if (!firstLines.containsKey(item.toUpperCase())) {
+                    throw new RuleFormatException(bundle.line, bundle.column, format("bundle %s contains unknown SKU %s", bundle.name, item));
+                }
+            }
+        }
+        return catalog.build();
+    }
+
+    private void accept(char c) {
+        if (c == ';' || c == '\n') {
+            endRule();
+        } else if (rule.length() > 0 || !Character.isWhitespace(c)) {
+            if (rule.length() == 0) {
+                ruleLine = line;
+                ruleColumn = column;
+            }
+            rule.append(c);
+        }
+
+        if (c == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+    }
+
+    private void endRule() {
+        var length = rule.length();
+        while (length > 0 && Character.isWhitespace(rule.charAt(length - 1))) length--;
+        if (length > 0) {
+            rule.setLength(length);
+            parseRule(rule.toString());
+        }
+        rule.setLength(0);
+    }
+
+    private void parseRule(String row) {
+        if (!row.contains(",")) {
+            throw error(0, "expected <SKU>,<unit price> and optional <special price>");
+        }
+        if (!Character.isLetter(row.toUpperCase().charAt(0))) {
+            throw error(0, "SKU must start with a letter");
+        }
+
+        val fields = row.split(",");
+        if (fields.length < 2 || fields.length > 4) {
+            throw error(0, format("expected 2 to 4 comma-separated fields but found %d", fields.length));
+        }
+
+        val item = fields[0].trim();
+        val windowed = fields.length == 4;
+        val sku = item.toUpperCase();
+        val firstLine = windowed ? null : firstLines.putIfAbsent(sku, ruleLine);
+        if (firstLine != null) {
+            throw error(0, format("duplicate SKU %s, first defined on line %d", item, firstLine));
+        }
+
+        val priceOffset = fields[0].length() + 1;
+        double unitPrice;
+        try {
+            unitPrice = parseDouble(fields[1]);
+        } catch (NumberFormatException e) {
+            throw error(priceOffset, format("invalid unit price '%s'", fields[1]), e);
+        }
+
+        if (item.contains(PricingRule.BUNDLE_SEPARATOR)) {
+            if (windowed) {
+                throw error(priceOffset + fields[1].length() + fields[2].length() + 2, "a bundle cannot have a validity window");
+            }
+            if (fields.length != 2) {
+                throw error(priceOffset + fields[1].length() + 1, "a bundle cannot have a special price");
+            }
+            val bundle = new PendingBundle(item, new PricingRule(item, unitPrice).getBundleItems(), ruleLine, ruleColumn);
+            try {
+                catalog.addBundle(item, bundle.items, unitPrice);
+            } catch (IllegalArgumentException e) {
+                throw error(0, e.getMessage(), e);
+            }
+            bundles.add(bundle);
+            return;
+        }
+        val specialPrices = new ArrayList<Pair<Integer, Integer>>();
+        // A rule with a validity window may leave its special price empty, e.g. A,45,,2026-06-06T00:00Z..
+        if (fields.length >= 3 && !(windowed && fields[2].trim().isEmpty())) {
+            var offerOffset = priceOffset + fields[1].length() + 1;
+            for (val offer : fields[2].split(Pattern.quote(PricingRule.OFFER_SEPARATOR), -1)) {
+                specialPrices.add(parseOffer(offer, offerOffset));
+                offerOffset += offer.length() + PricingRule.OFFER_SEPARATOR.length();
+            }
+        }
+
+        if (windowed) {
+            try {
+                PricingCatalog.checkPrices(item, unitPrice, specialPrices);
+            } catch (IllegalArgumentException e) {
+                throw error(priceOffset, e.getMessage(), e);
+            }
+            Pair<Instant, Instant> window;
+            try {
+                window = PricingRule.parseWindow(fields[3]);
+            } catch (IllegalArgumentException e) {
+                throw error(priceOffset + fields[1].length() + fields[2].length() + 2, e.getMessage(), e);
+            }
+            windows.add(new PendingWindow(new PricingRule(item, unitPrice, specialPrices, window.getLeft(), window.getRight()), ruleLine, ruleColumn));
+            return;
+        }
+
+        try {
+            catalog.add(item, unitPrice, specialPrices);
+        } catch (IllegalArgumentException e) {
+            throw error(priceOffset, e.getMessage(), e);
+        }
+    }
+
+    private Pair<Integer, Integer> parseOffer(String offer, int offset) {
+        if (!offer.contains("for")) {
+            throw error(offset, format("invalid special price '%s', expected <quantity> for <price>", offer));
+        }
+        val specialPrice = offer.trim().replace(" ", "").split("for");
+        try {
+            return Pair.of(parseInt(specialPrice[0]), parseInt(specialPrice[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw error(offset, format("invalid special price '%s', expected <quantity> for <price>", offer), e);
+        }
+    }
+
+    private RuleFormatException error(int offset, String message) {
+        return new RuleFormatException(ruleLine, ruleColumn + offset, message);
+    }
+
+    private RuleFormatException error(int offset, String message, Throwable cause) {
+        return new RuleFormatException(ruleLine, ruleColumn + offset, message, cause);
+    }
+
+    private static final class PendingWindow {
+        private final PricingRule rule;
+        private final int line;
+        private final int column;
+
+        private PendingWindow(PricingRule rule, int line, int column) {
+            this.rule = rule;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    private static final class PendingBundle {
+        private final String name;
+        private final List<String> items;
+        private final int line;
+        private final int column;
+
+        private PendingBundle(String name, List<String> items, int line, int column) {
+            this.name = name;
+            this.items = items;
+            this.line = line;
+            this.column = column;
+        }
+    }
+}
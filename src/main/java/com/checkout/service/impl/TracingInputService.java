@@ -0,0 +1,35 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.InputService;
+import com.checkout.trace.PricingTracer;
+import lombok.val;
+
+import static org.apache.commons.lang3.ObjectUtils.anyNull;
+
+/**
+ * An {@link InputService} that explains how sampled or selected baskets were priced in a {@link PricingTracer}.
+ * Totals are calculated by a delegate, such as a {@link JournalingInputService}, and traced afterwards, so a trace never changes a total.
+ */
+public class TracingInputService extends ForwardingInputService {
+    private final PricingTracer tracer;
+
+    public TracingInputService(InputService delegate, PricingTracer tracer) {
+        super(delegate);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public long calculateTotalMinor(BasketCounts basket, PricingCatalog catalog) {
+        val total = delegate.calculateTotalMinor(basket, catalog);
+        if (!anyNull(basket, catalog) && !basket.isEmpty()) {
+            tracer.trace(basket, catalog, total);
+        }
+        return total;
+    }
+
+    public PricingTracer getTracer() {
+        return tracer;
+    }
+}
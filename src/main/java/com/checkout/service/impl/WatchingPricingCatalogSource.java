@@ -0,0 +1,286 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketStage;
+import com.checkout.model.CatalogRegistry;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingTimeline;
+import com.checkout.service.InputService;
+import com.checkout.service.PricingCatalogSource;
+import com.checkout.service.PricingRuleService;
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A {@link PricingCatalogSource} backed by a rules file that is reloaded in the background whenever the file changes.
+ * A changed file is validated and compiled off the pricing path, and only a valid catalog is published, by a single volatile
+ * write, so readers never block and never see a partially built catalog. If the new file is invalid the previous snapshot stays in effect.
+ * Changes are debounced so that a file written in several steps is read once it has settled; replacing the file with an atomic
+ * rename is still the safest way to publish new rules.
+ * <p>
+ * Given a directory of store rules, each store's catalog overrides the rules file in a {@link CatalogRegistry}, which is rebuilt and
+ * published together with the base catalog whenever the rules file or any store's file changes.
+ * <p>
+ * Rules with validity windows are compiled into a {@link PricingTimeline}, and {@link #current()} returns the version in effect now,
+ * so scheduled promotions start and end without the file being touched. They cannot be combined with store rules.
+ * <p>
+ * Basket-level discounts are compiled into every catalog, including the stores', each time the rules are reloaded.
+ */
+public class WatchingPricingCatalogSource implements PricingCatalogSource, Closeable {
+    static final long DEFAULT_SETTLE_MILLIS = 200;
+
+    private final Path rulesFile;
+    private final Path storesDirectory;
+    private final InputService inputService;
+    private final PricingRuleService pricingRuleService;
+    private final List<BasketStage> stages;
+    private final long settleMillis;
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failedReloads = new AtomicLong();
+    private volatile Compiled compiled;
+    private String pricingRules;
+    private Map<Path, String> storeRules;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Load the rules file. The file is not watched until {@link #start()} is called.
+     * @throws IOException If the rules file cannot be read.
+     * @throws IllegalArgumentException If the rules are not valid.
+     */
+    public WatchingPricingCatalogSource(Path rulesFile, InputService inputService, PricingRuleService pricingRuleService) throws IOException {
+        this(rulesFile, null, inputService, pricingRuleService, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * Load the rules file and the rules of every store, one file named <code>&lt;store&gt;.txt</code> per store. Neither is watched until {@link #start()} is called.
+     * @param storesDirectory The directory of store rules, or <code>null</code> if there are no stores.
+     * @throws IOException If a rules file cannot be read.
+     * @throws IllegalArgumentException If the rules are not valid.
+     */
+    public WatchingPricingCatalogSource(Path rulesFile, Path storesDirectory, InputService inputService, PricingRuleService pricingRuleService) throws IOException {
+        this(rulesFile, storesDirectory, Collections.emptyList(), inputService, pricingRuleService, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * Load the rules file and the rules of every store, as above, and compile basket-level discounts into their catalogs.
+     * @param stages The {@link BasketStage}s, in the order they are applied.
+     * @throws IllegalArgumentException If the rules are not valid, or a discount applies to a SKU without a rule.
+     */
+    public WatchingPricingCatalogSource(Path rulesFile, Path storesDirectory, List<BasketStage> stages, InputService inputService,
+                                        PricingRuleService pricingRuleService) throws IOException {
+        this(rulesFile, storesDirectory, stages, inputService, pricingRuleService, DEFAULT_SETTLE_MILLIS);
+    }
+
+    WatchingPricingCatalogSource(Path rulesFile, Path storesDirectory, InputService inputService, PricingRuleService pricingRuleService,
+                                 long settleMillis) throws IOException {
+        this(rulesFile, storesDirectory, Collections.emptyList(), inputService, pricingRuleService, settleMillis);
+    }
+
+    WatchingPricingCatalogSource(Path rulesFile, Path storesDirectory, List<BasketStage> stages, InputService inputService,
+                                 PricingRuleService pricingRuleService, long settleMillis) throws IOException {
+        this.rulesFile = rulesFile.toAbsolutePath();
+        this.storesDirectory = isNull(storesDirectory) ? null : storesDirectory.toAbsolutePath();
+        this.inputService = inputService;
+        this.pricingRuleService = pricingRuleService;
+        this.stages = List.copyOf(stages);
+        this.settleMillis = settleMillis;
+        this.pricingRules = inputService.loadPricingRules(this.rulesFile);
+        this.storeRules = loadStoreRules();
+        this.compiled = compile(pricingRules, storeRules);
+    }
+
+    @Override
+    public PricingCatalog current() {
+        return compiled.timeline.current();
+    }
+
+    @Override
+    public PricingCatalog current(String store) {
+        return isNull(store) ? current() : compiled.registry.get(store);
+    }
+
+    /**
+     * @return The registry of the current store catalogs, which has no stores if there is no directory of store rules.
+     */
+    public CatalogRegistry getRegistry() {
+        return compiled.registry;
+    }
+
+    /**
+     * @return The current versions of the rules over time, which has a single version if no rule has a validity window.
+     */
+    public PricingTimeline getTimeline() {
+        return compiled.timeline;
+    }
+
+    /**
+     * Start watching the rules file for changes on a background daemon thread.
+     * @throws IOException If the file system cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) return;
+
+        watchService = FileSystems.getDefault().newWatchService();
+        rulesFile.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        if (nonNull(storesDirectory) && !storesDirectory.equals(rulesFile.getParent())) {
+            storesDirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+        watcher = new Thread(this::watch, "pricing-rules-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Re-read, validate and compile the rules file and any store rules, and publish them if they are all valid and any has changed.
+     * @return <code>true</code> if the current snapshot is now the contents of the file, otherwise <code>false</code>.
+     */
+    public synchronized boolean reload() {
+        try {
+            val rules = inputService.loadPricingRules(rulesFile);
+            val stores = loadStoreRules();
+            if (!rules.equals(pricingRules) || !stores.equals(storeRules)) {
+                compiled = compile(rules, stores);
+                pricingRules = rules;
+                storeRules = stores;
+                reloads.incrementAndGet();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failedReloads.incrementAndGet();
+            System.err.println(format("Keeping current pricing rules, %s could not be loaded: %s", failedFile(e), e.getMessage()));
+            return false;
+        }
+    }
+
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    public long getFailedReloadCount() {
+        return failedReloads.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (isNull(watchService)) return;
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    private Map<Path, String> loadStoreRules() throws IOException {
+        val rules = new TreeMap<Path, String>();
+        if (isNull(storesDirectory)) return rules;
+
+        for (val file : PricingRuleServiceImpl.storeFiles(storesDirectory)) {
+            if (file.equals(rulesFile)) continue;
+            try {
+                rules.put(file, inputService.loadPricingRules(file));
+            } catch (FileSystemException e) {
+                throw e;
+            } catch (IOException e) {
+                throw (IOException) new FileSystemException(file.toString(), null, e.getMessage()).initCause(e);
+            } catch (IllegalArgumentException e) {
+                throw new RulesFileException(file, e.getMessage(), e);
+            }
+        }
+        return rules;
+    }
+
+    // The file a reload failed on, which is the rules file unless a store's file could not be read or is not valid
+    private Path failedFile(Exception e) {
+        if (e instanceof RulesFileException) return ((RulesFileException) e).file;
+        if (e instanceof FileSystemException && nonNull(((FileSystemException) e).getFile())) return Path.of(((FileSystemException) e).getFile());
+        return rulesFile;
+    }
+
+    private Compiled compile(String rules, Map<Path, String> stores) {
+        val timeline = pricingRuleService.compileTimeline(pricingRuleService.parseRules(rules.split(";"))).withStages(stages);
+        if (timeline.getVersionCount() > 1 && !stores.isEmpty()) {
+            throw new IllegalArgumentException("Rules with a validity window cannot be combined with store rules");
+        }
+
+        val registry = new CatalogRegistry(timeline.getBase());
+        for (val store : stores.entrySet()) {
+            val name = store.getKey().getFileName().toString();
+            try {
+                registry.register(name.substring(0, name.length() - PricingRuleServiceImpl.STORE_SUFFIX.length()), compile(store.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new RulesFileException(store.getKey(), format("Rules of store %s are not valid: %s", name, e.getMessage()), e);
+            }
+        }
+        return new Compiled(timeline, registry);
+    }
+
+    private PricingCatalog compile(String rules) {
+        return pricingRuleService.compileRules(pricingRuleService.parseRules(rules.split(";")));
+    }
+
+    private boolean isStoreRules(Object context) {
+        return nonNull(storesDirectory) && context instanceof Path && context.toString().endsWith(PricingRuleServiceImpl.STORE_SUFFIX);
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var key = watchService.take();
+                var changed = false;
+                // Keep draining events until the directory has been quiet for the settle period
+                while (key != null) {
+                    for (val event : key.pollEvents()) {
+                        if (rulesFile.getFileName().equals(event.context()) || isStoreRules(event.context())) changed = true;
+                    }
+                    key.reset();
+                    key = watchService.poll(settleMillis, TimeUnit.MILLISECONDS);
+                }
+                if (changed) reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close()
+        }
+    }
+
+    // The timeline and the store catalogs are published together, so a reader never sees one from a different reload than the other
+    private static final class Compiled {
+        private final PricingTimeline timeline;
+        private final CatalogRegistry registry;
+
+        private Compiled(PricingTimeline timeline, CatalogRegistry registry) {
+            this.timeline = timeline;
+            this.registry = registry;
+        }
+    }
+
+    // Store rules that are not valid, which names the store's file so a failed reload is not blamed on the rules file
+    private static final class RulesFileException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path file;
+
+        private RulesFileException(Path file, String message, Throwable cause) {
+            super(message, cause);
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.checkout.trace;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.LineBranch;
+import com.checkout.model.PricingCatalog;
+import com.checkout.render.MoneyFormat;
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Records how sampled baskets were priced, so that a disputed total can be explained: for each SKU its count, the {@link LineBranch}
+ * that priced it, its offer groups and remainder and its line total, then the basket's total and any saving from bundles or discounts.
+ * <p>
+ * Baskets are traced one in {@link #getSampleRate()}, and always when the basket id bound to the pricing thread with {@link #bindBasketId(String)}
+ * is one of the selected ids. A traced basket claims one slot for its header and one per SKU in a preallocated ring buffer of primitive arrays,
+ * with a single compare-and-set, fills them in and publishes each slot with an ordered write. A background thread drains published slots
+ * in order to a text file, for example:
+ * <pre>
+ * 2026-10-18T12:00:00.123Z basket=R-1042 catalog=3f2a9c0d1e4b5a67 lines=£180.00 bundles=-£10.00 total=£170.00
+ *   A x4 SPECIAL_PRICE units=1 remainder=1 line=£180.00
+ * </pre>
+ * Recording never blocks and never allocates: when the buffer is full the basket is dropped and counted in {@link #getDropped()}.
+ * Tracing is off unless a tracer is installed, with a {@link com.checkout.service.impl.TracingInputService}, so an untraced pricing path does not pay for it at all.
+ */
+public class PricingTracer implements Closeable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_DRAIN_MILLIS = 100;
+    private static final byte HEADER = -1;
+    private static final LineBranch[] BRANCHES = LineBranch.values();
+    private static final ThreadLocal<String> BASKET_ID = new ThreadLocal<>();
+
+    private final int mask;
+    private final int sampleRate;
+    private final int sampleMask;
+    private final Set<String> selectedIds;
+    private final Clock clock;
+    private final Writer out;
+    private final ScheduledExecutorService drainer;
+
+    // One entry per slot. A header uses the id, time and line sum, and a line the SKU, count, offer units and remainder
+    private final byte[] kinds;
+    private final String[] basketIds;
+    private final PricingCatalog[] catalogs;
+    private final long[] times;
+    private final long[] amounts;
+    private final long[] lineSums;
+    private final int[] skuIds;
+    private final int[] counts;
+    private final int[] units;
+    private final int[] remainders;
+    // The sequence number of the record in each slot, plus one, once it is published
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final StringBuilder line = new StringBuilder(128);
+    private volatile long drained;
+    private boolean closed;
+
+    /**
+     * @param file The trace file, which is appended to if it exists.
+     * @param capacity The number of slots in the ring buffer, rounded down to a power of two. A basket takes one slot, plus one per SKU in it.
+     * @param sampleRate How many baskets share one trace, rounded down to a power of two, or <code>0</code> to trace only selected baskets.
+     * @param selectedIds The ids of the baskets or sessions to trace whenever they are priced.
+     * @param drainIntervalMillis How often to drain the buffer to the file, or <code>0</code> to drain only on {@link #drain()} and {@link #close()}.
+     * @throws IOException If the trace file cannot be opened.
+     */
+    public PricingTracer(Path file, int capacity, int sampleRate, Collection<String> selectedIds, long drainIntervalMillis) throws IOException {
+        this(file, capacity, sampleRate, selectedIds, drainIntervalMillis, Clock.systemUTC());
+    }
+
+    PricingTracer(Path file, int capacity, int sampleRate, Collection<String> selectedIds, long drainIntervalMillis, Clock clock) throws IOException {
+        if (capacity < 2 || sampleRate < 0) {
+            throw new IllegalArgumentException(format("Invalid tracer configuration: capacity=%d, sampleRate=%d", capacity, sampleRate));
+        }
+
+        val slots = Integer.highestOneBit(capacity);
+        this.mask = slots - 1;
+        this.sampleRate = sampleRate == 0 ? 0 : Integer.highestOneBit(sampleRate);
+        this.sampleMask = this.sampleRate - 1;
+        this.selectedIds = Set.copyOf(selectedIds);
+        this.clock = clock;
+        this.kinds = new byte[slots];
+        this.basketIds = new String[slots];
+        this.catalogs = new PricingCatalog[slots];
+        this.times = new long[slots];
+        this.amounts = new long[slots];
+        this.lineSums = new long[slots];
+        this.skuIds = new int[slots];
+        this.counts = new int[slots];
+        this.units = new int[slots];
+        this.remainders = new int[slots];
+        this.published = new AtomicLongArray(slots);
+        this.out = Files.newBufferedWriter(file, UTF_8, CREATE, WRITE, APPEND);
+
+        if (drainIntervalMillis > 0) {
+            drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                val thread = new Thread(runnable, "pricing-trace-drain");
+                thread.setDaemon(true);
+                return thread;
+            });
+            drainer.scheduleWithFixedDelay(this::drainQuietly, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            drainer = null;
+        }
+    }
+
+    /**
+     * Bind the id of the basket or session the calling thread is about to price, so that it can be selected for tracing and appears in its trace.
+     * @param basketId The id.
+     */
+    public static void bindBasketId(String basketId) {
+        BASKET_ID.set(basketId);
+    }
+
+    public static void unbindBasketId() {
+        BASKET_ID.remove();
+    }
+
+    /**
+     * Trace a priced basket if it is selected or sampled.
+     * @param basket The {@link BasketCounts}.
+     * @param catalog The {@link PricingCatalog} the basket was priced against.
+     * @param totalMinor The total of the basket in minor units.
+     * @return <code>true</code> if the basket was recorded, otherwise <code>false</code>.
+     */
+    public boolean trace(BasketCounts basket, PricingCatalog catalog, long totalMinor) {
+        if (!selectedIds.isEmpty()) {
+            val basketId = BASKET_ID.get();
+            if (basketId != null && selectedIds.contains(basketId)) return record(basketId, basket, catalog, totalMinor);
+        }
+        if (sampleRate == 0 || (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return false;
+        return record(BASKET_ID.get(), basket, catalog, totalMinor);
+    }
+
+    private boolean record(String basketId, BasketCounts basket, PricingCatalog catalog, long totalMinor) {
+        val lines = basket.distinctSkus();
+        val start = claim(lines + 1);
+        if (start < 0) {
+            dropped.increment();
+            return false;
+        }
+
+        // The total has already been priced, so none of its lines can overflow
+        var lineSum = 0L;
+        for (var i = 0; i < lines; i++) {
+            val slot = (int) (start + 1 + i) & mask;
+            val id = basket.skuAt(i);
+            val count = basket.getCount(id);
+            val lineTotal = catalog.linePriceMinor(id, count);
+            kinds[slot] = (byte) catalog.lineBranch(id, count).ordinal();
+            catalogs[slot] = catalog;
+            skuIds[slot] = id;
+            counts[slot] = count;
+            units[slot] = catalog.lineOfferUnits(id, count);
+            remainders[slot] = catalog.lineRemainder(id, count);
+            amounts[slot] = lineTotal;
+            lineSum += lineTotal;
+        }
+
+        val header = (int) start & mask;
+        kinds[header] = HEADER;
+        basketIds[header] = basketId;
+        catalogs[header] = catalog;
+        times[header] = clock.millis();
+        amounts[header] = totalMinor;
+        lineSums[header] = lineSum;
+
+        for (var sequence = start; sequence <= start + lines; sequence++) {
+            published.lazySet((int) sequence & mask, sequence + 1);
+        }
+        recorded.increment();
+        return true;
+    }
+
+    /**
+     * @return The sequence number of the first of <code>slots</code> contiguous slots, or <code>-1</code> if the buffer does not have room for them.
+     */
+    private long claim(int slots) {
+        while (true) {
+            val start = claimed.get();
+            if (start + slots - drained > mask + 1) return -1;
+            if (claimed.compareAndSet(start, start + slots)) return start;
+        }
+    }
+
+    /**
+     * Write every record published so far to the trace file, stopping at the first slot that has been claimed but not yet published.
+     * @return The number of slots written.
+     * @throws IOException If the trace file cannot be written.
+     */
+    public synchronized int drain() throws IOException {
+        if (closed) return 0;
+
+        var sequence = drained;
+        val end = claimed.get();
+        val start = sequence;
+        while (sequence < end) {
+            val slot = (int) sequence & mask;
+            if (published.get(slot) != sequence + 1) break;
+
+            line.setLength(0);
+            if (kinds[slot] == HEADER) {
+                appendHeader(slot, sequence);
+            } else {
+                appendLine(slot);
+            }
+            out.append(line);
+            basketIds[slot] = null;
+            catalogs[slot] = null;
+            sequence++;
+        }
+
+        if (sequence == start) return 0;
+        out.flush();
+        drained = sequence;
+        return (int) (sequence - start);
+    }
+
+    private void appendHeader(int slot, long sequence) {
+        val catalog = catalogs[slot];
+        val total = amounts[slot];
+        val lineSum = lineSums[slot];
+        line.append(Instant.ofEpochMilli(times[slot])).append(" basket=");
+        if (basketIds[slot] != null) {
+            line.append(basketIds[slot]);
+        } else {
+            line.append('#').append(sequence);
+        }
+        line.append(" catalog=").append(format("%016x", catalog.getFingerprint())).append(" lines=");
+        MoneyFormat.append(line, lineSum);
+        if (total != lineSum) {
+            line.append(catalog.getStageCount() == 0 ? " bundles=" : " discounts=");
+            MoneyFormat.append(line, total - lineSum);
+        }
+        line.append(" total=");
+        MoneyFormat.append(line, total).append('\n');
+    }
+
+    private void appendLine(int slot) {
+        line.append("  ").append(catalogs[slot].getItem(skuIds[slot]))
+                .append(" x").append(counts[slot])
+                .append(' ').append(BRANCHES[kinds[slot]])
+                .append(" units=").append(units[slot])
+                .append(" remainder=").append(remainders[slot])
+                .append(" line=");
+        MoneyFormat.append(line, amounts[slot]).append('\n');
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (IOException e) {
+            System.err.println(format("Could not write pricing trace: %s", e.getMessage()));
+        }
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return How many baskets share one trace, or <code>0</code> if only selected baskets are traced.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return The number of baskets recorded in the buffer.
+     */
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * @return The number of baskets that were due to be traced but did not fit in the buffer.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop draining in the background, write the records published so far and close the trace file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (drainer != null) drainer.shutdownNow();
+        drain();
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.checkout.cache;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongBiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BasketTotalCacheTest {
+
+    private final AtomicInteger pricings = new AtomicInteger();
+    private final ToLongBiFunction<BasketCounts, PricingCatalog> pricer = (basket, catalog) -> {
+        pricings.incrementAndGet();
+        var total = 0L;
+        for (var i = 0; i < basket.distinctSkus(); i++) {
+            total += catalog.linePriceMinor(basket.skuAt(i), basket.getCount(basket.skuAt(i)));
+        }
+        return total;
+    };
+
+    private static PricingCatalog catalog(double unitPriceOfA) {
+        val builder = PricingCatalog.builder();
+        builder.add("A", unitPriceOfA, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 20, 0, 0);
+        return builder.build();
+    }
+
+    private static BasketCounts counts(PricingCatalog catalog, String basket) {
+        val counts = new BasketCounts(catalog.size());
+        for (val sku : basket.toCharArray()) {
+            counts.add(catalog.idOf(sku));
+        }
+        return counts;
+    }
+
+    @Test
+    public void testTotalMinor() {
+        val underTest = new BasketTotalCache(100);
+        val catalog = catalog(50);
+
+        // Happy Path
+        assertThat(underTest.totalMinor(counts(catalog, "ABBA"), catalog, pricer)).isEqualTo(14500);
+
+        // Same items in a different order are a hit
+        assertThat(underTest.totalMinor(counts(catalog, "BAAB"), catalog, pricer)).isEqualTo(14500);
+        assertThat(underTest.totalMinor(counts(catalog, "ABBAC"), catalog, pricer)).isEqualTo(16500);
+        assertThat(pricings.get()).isEqualTo(2);
+        assertThat(underTest.getHits()).isEqualTo(1);
+        assertThat(underTest.getMisses()).isEqualTo(2);
+        assertThat(underTest.getHitRatio()).isEqualTo(1d / 3);
+        assertThat(underTest.getSize()).isEqualTo(2);
+        assertThat(underTest.getEstimatedBytes()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testInvalidatedWhenCatalogChanges() {
+        val underTest = new BasketTotalCache(100);
+        val catalog = catalog(50);
+        underTest.totalMinor(counts(catalog, "AB"), catalog, pricer);
+
+        val reloaded = catalog(60);
+        assertThat(underTest.totalMinor(counts(reloaded, "AB"), reloaded, pricer)).isEqualTo(9000);
+        assertThat(pricings.get()).isEqualTo(2);
+        assertThat(underTest.getInvalidations()).isEqualTo(1);
+        assertThat(underTest.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        val underTest = new BasketTotalCache(2, 1);
+        val catalog = catalog(50);
+        underTest.totalMinor(counts(catalog, "A"), catalog, pricer);
+        underTest.totalMinor(counts(catalog, "B"), catalog, pricer);
+        underTest.totalMinor(counts(catalog, "A"), catalog, pricer);
+        underTest.totalMinor(counts(catalog, "C"), catalog, pricer);
+
+        // B was least recently used
+        assertThat(underTest.getEvictions()).isEqualTo(1);
+        assertThat(underTest.getSize()).isEqualTo(2);
+        underTest.totalMinor(counts(catalog, "A"), catalog, pricer);
+        underTest.totalMinor(counts(catalog, "B"), catalog, pricer);
+        assertThat(pricings.get()).isEqualTo(4);
+
+        underTest.clear();
+        assertThat(underTest.getSize()).isZero();
+        assertThat(underTest.getHits()).isZero();
+    }
+
+    @Test
+    public void testInvalidSize() {
+        assertThatThrownBy(() -> new BasketTotalCache(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
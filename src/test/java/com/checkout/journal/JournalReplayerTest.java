@@ -0,0 +1,200 @@
+package com.checkout.journal;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.Varints;
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.JournalingInputService;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JournalReplayerTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private final JournalReplayer underTest = new JournalReplayer(inputService);
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (val file : Files.list(directory).toArray(Path[]::new)) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    private PricingCatalog catalog(String rules) {
+        return pricingRuleService.compileRules(pricingRuleService.parseRules(rules.split(";")));
+    }
+
+    private void journal(PricingCatalog catalog, String... baskets) throws IOException {
+        try (val journal = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0)) {
+            for (val basket : baskets) {
+                val counts = inputService.parseBasket(basket, catalog);
+                journal.append(counts, catalog, inputService.calculateTotalMinor(counts, catalog));
+            }
+        }
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        journal(catalog("A,50,3 for 130;B,30,2 for 45;C,20"), "AAABBC", "ABBA", "C");
+        journal(catalog("D,15;C,20"), "DDC");
+
+        // Happy Path: A is cheaper, B and C are unchanged, D is not in the new rules
+        val out = new StringWriter();
+        val report = underTest.replay(directory, catalog("A,40,3 for 100;B,30,2 for 45;C,20;E,10"), out);
+        assertThat(out.toString()).isEqualTo("195.00,165.00,-30.00\n145.00,125.00,-20.00\n20.00,20.00,0.00\n50.00,UNPRICEABLE\n");
+        assertThat(report.getSegments()).isEqualTo(2);
+        assertThat(report.getTransactions()).isEqualTo(4);
+        assertThat(report.getUnpriceableTransactions()).isEqualTo(1);
+        assertThat(report.getDecreased()).isEqualTo(2);
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getIncreased()).isZero();
+        assertThat(report.getOldTotalMinor()).isEqualTo(36000);
+        assertThat(report.getDeltaMinor()).isEqualTo(-5000);
+        assertThat(report.getFormattedSummary()).contains("delta -50.00");
+    }
+
+    @Test
+    public void testReplayJournalingInputService() throws IOException {
+        val catalog = catalog("A,50,3 for 130;B,30,2 for 45;C,20");
+        try (val journal = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0)) {
+            val journaling = new JournalingInputService(inputService, journal);
+
+            // Happy Path - totals in major units are journaled too
+            assertThat(journaling.calculateTotal(inputService.parseBasket("AAABBC", catalog), catalog)).isEqualTo(195);
+            assertThat(journaling.calculateTotal(inputService.parseBasket("C"), catalog)).isEqualTo(20);
+            assertThat(journaling.calculateTotalMinor(inputService.parseBasket("AB", catalog), catalog)).isEqualTo(8_000);
+        }
+
+        val report = underTest.replay(directory, catalog, new StringWriter());
+        assertThat(report.getTransactions()).isEqualTo(3);
+        assertThat(report.getOldTotalMinor()).isEqualTo(29_500);
+    }
+
+    @Test
+    public void testReplayTimeline() throws IOException {
+        val friday = Instant.parse("2026-06-05T12:00:00Z");
+        val saturday = Instant.parse("2026-06-06T12:00:00Z");
+        val monday = Instant.parse("2026-06-08T12:00:00Z");
+        val clock = new SettableClock();
+        val catalog = catalog("A,50;B,30");
+        try (val journal = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0, clock)) {
+            val baskets = new String[]{"A", "A", "AB", "A"};
+            val times = new Instant[]{friday, saturday, saturday.plusMillis(1500), monday};
+            for (var i = 0; i < baskets.length; i++) {
+                clock.instant = times[i];
+                val counts = inputService.parseBasket(baskets[i], catalog);
+                journal.append(counts, catalog, inputService.calculateTotalMinor(counts, catalog));
+            }
+        }
+
+        // Happy Path: each transaction is repriced against the rules in effect when it was journaled
+        val timeline = pricingRuleService.loadTimeline(new StringReader("A,50;B,30;A,40,,2026-06-06T00:00Z..2026-06-08T00:00Z"));
+        val out = new StringWriter();
+        val report = underTest.replay(directory, timeline, out);
+        assertThat(out.toString()).isEqualTo("50.00,50.00,0.00\n50.00,40.00,-10.00\n80.00,70.00,-10.00\n50.00,50.00,0.00\n");
+        assertThat(report.getDecreased()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReplayUndatedTransactions() throws IOException {
+        // A segment without time records, as journaled before they were added: a catalog of A, and a transaction of one A for 50.00
+        val segment = ByteBuffer.allocate(64).putInt(JournalFormat.MAGIC).put(JournalFormat.CATALOG).putLong(0).put((byte) 1).put((byte) 1).put((byte) 'A');
+        val transaction = new byte[Varints.MAX_VARINT_BYTES + 4];
+        transaction[0] = JournalFormat.TRANSACTION;
+        var length = Varints.writeVarint(transaction, 1, 5000);
+        length = Varints.writeVarint(transaction, length, 2);
+        length = Varints.writeVarint(transaction, length, 0);
+        length = Varints.writeVarint(transaction, length, 1);
+        segment.put(transaction, 0, length);
+        Files.write(directory.resolve("journal-000001.ckj"), Arrays.copyOf(segment.array(), segment.position()));
+
+        // Repriced against the rules in effect now
+        val timeline = pricingRuleService.loadTimeline(new StringReader("A,50;A,40,,2000-01-01T00:00Z.."));
+        val out = new StringWriter();
+        underTest.replay(directory, timeline, out);
+        assertThat(out.toString()).isEqualTo("50.00,40.00,-10.00\n");
+    }
+
+    @Test
+    public void testTruncatedSegment() throws IOException {
+        val catalog = catalog("A,50,3 for 130;B,30,2 for 45");
+        journal(catalog, "AB", "AAB");
+        val segment = JournalReplayer.segments(directory).get(0);
+        try (val channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        val out = new StringWriter();
+        assertThat(underTest.replay(directory, catalog, out).getTransactions()).isEqualTo(1);
+        assertThat(out.toString()).isEqualTo("80.00,80.00,0.00\n");
+
+        // Only the last segment can be torn by a crash, so a truncated earlier one is corrupt
+        journal(catalog, "A");
+        assertThatThrownBy(() -> underTest.replay(directory, catalog, new StringWriter()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("truncated record");
+    }
+
+    @Test
+    public void testCorruptSegment() throws IOException {
+        Files.write(directory.resolve("journal-000001.ckj"), new byte[]{1, 2, 3, 4, 5});
+        assertThatThrownBy(() -> underTest.replay(directory, catalog("A,50"), new StringWriter()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("is not a journal segment");
+    }
+
+    @Test
+    public void testAppendMinor() {
+        assertThat(JournalReplayer.appendMinor(new StringBuilder(), 123456).toString()).isEqualTo("1234.56");
+        assertThat(JournalReplayer.appendMinor(new StringBuilder(), 5).toString()).isEqualTo("0.05");
+        assertThat(JournalReplayer.appendMinor(new StringBuilder(), -1050).toString()).isEqualTo("-10.50");
+    }
+
+    // A clock that stays at the instant it was last set to, so each append is journaled at a known time
+    private static final class SettableClock extends Clock {
+        private Instant instant = Instant.EPOCH;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.checkout.journal;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JournalWriterTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private final PricingCatalog catalog = pricingRuleService.compileRules(pricingRuleService.parseRules("A,50,3 for 130;B,30,2 for 45;C,20".split(";")));
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (val file : Files.list(directory).toArray(Path[]::new)) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    private long append(JournalWriter journal, String basket) {
+        val counts = inputService.parseBasket(basket, catalog);
+        return journal.append(counts, catalog, inputService.calculateTotalMinor(counts, catalog));
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        // Happy Path
+        try (val underTest = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0)) {
+            assertThat(append(underTest, "AAABBC")).isEqualTo(1);
+            assertThat(append(underTest, "ABBA")).isEqualTo(2);
+            underTest.sync();
+            assertThat(underTest.getAppended()).isEqualTo(2);
+        }
+        val segments = JournalReplayer.segments(directory);
+        assertThat(segments).hasSize(1);
+        assertThat(Files.size(segments.get(0))).isLessThan(64);
+
+        // A new writer starts a new segment
+        try (val underTest = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0)) {
+            append(underTest, "C");
+        }
+        assertThat(JournalReplayer.segments(directory)).extracting(path -> path.getFileName().toString())
+                .containsExactly("journal-000001.ckj", "journal-000002.ckj");
+
+        // Closed
+        val closed = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 0);
+        closed.close();
+        assertThatThrownBy(() -> append(closed, "A")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testRollsSegments() throws IOException {
+        try (val underTest = new JournalWriter(directory, 1 << 16, 0)) {
+            for (var i = 0; i < 20_000; i++) {
+                append(underTest, "AAABBC");
+            }
+        }
+        assertThat(JournalReplayer.segments(directory).size()).isGreaterThan(1);
+
+        // Every segment carries the catalog, so all transactions can be replayed
+        val report = new JournalReplayer(inputService).replay(directory, catalog, new StringWriter());
+        assertThat(report.getTransactions()).isEqualTo(20_000);
+        assertThat(report.getUnchanged()).isEqualTo(20_000);
+    }
+
+    @Test
+    public void testRecordsTime() throws IOException {
+        val saturday = Instant.parse("2026-06-06T12:00:00Z");
+        try (val underTest = new JournalWriter(directory, 1 << 16, 0, Clock.fixed(saturday, ZoneOffset.UTC))) {
+            for (var i = 0; i < 20_000; i++) {
+                append(underTest, "AAABBC");
+            }
+        }
+
+        // Every segment carries the time, so every transaction is repriced against the weekend special
+        val timeline = pricingRuleService.loadTimeline(new StringReader("A,50,3 for 130;B,30,2 for 45;C,20;A,40,,2026-06-06T00:00Z..2026-06-08T00:00Z"));
+        val report = new JournalReplayer(inputService).replay(directory, timeline, new StringWriter());
+        assertThat(JournalReplayer.segments(directory).size()).isGreaterThan(1);
+        assertThat(report.getTransactions()).isEqualTo(20_000);
+        assertThat(report.getDecreased()).isEqualTo(20_000);
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        try (val underTest = new JournalWriter(directory, JournalWriter.DEFAULT_SEGMENT_BYTES, 10)) {
+            val executor = Executors.newFixedThreadPool(4);
+            val tasks = new ArrayList<Callable<Void>>();
+            for (var thread = 0; thread < 4; thread++) {
+                tasks.add(() -> {
+                    for (var i = 0; i < 1000; i++) {
+                        underTest.sync(append(underTest, "ABC"));
+                    }
+                    return null;
+                });
+            }
+            for (val future : executor.invokeAll(tasks)) future.get();
+            executor.shutdown();
+            assertThat(underTest.getAppended()).isEqualTo(4000);
+        }
+
+        val report = new JournalReplayer(inputService).replay(directory, catalog, new StringWriter());
+        assertThat(report.getTransactions()).isEqualTo(4000);
+    }
+}
@@ -0,0 +1,55 @@
+package com.checkout.load;
+
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadGeneratorTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+
+    @Test
+    public void testRun() throws Exception {
+        val workload = SyntheticWorkload.generate(WorkloadProfile.builder().skus(500).invalidBaskets(0.1).baskets(1_000).build());
+        val catalog = new PricingRuleServiceImpl().loadCatalog(new StringReader(workload.getRules()));
+
+        // Happy Path
+        val underTest = new LoadGenerator(inputService, 2, 50, 300);
+        val report = underTest.run(workload, catalog);
+        assertThat(report.getLanes()).isEqualTo(2);
+        assertThat(report.getBaskets()).isPositive();
+        assertThat(report.getInvalidBaskets()).isPositive().isLessThan(report.getBaskets());
+        assertThat(report.getElapsedNanos()).isGreaterThanOrEqualTo(300_000_000L);
+        assertThat(report.getBasketsPerSecond()).isPositive();
+        assertThat(report.getMinIntervalBasketsPerSecond()).isPositive().isLessThanOrEqualTo(report.getMaxIntervalBasketsPerSecond());
+        assertThat(report.getP50Nanos()).isPositive()
+                .isLessThanOrEqualTo(report.getP90Nanos());
+        assertThat(report.getP99Nanos()).isLessThanOrEqualTo(report.getP999Nanos());
+        assertThat(report.getP999Nanos()).isLessThanOrEqualTo(report.getMaxNanos());
+        assertThat(report.getWorkload()).contains("500 SKUs");
+
+        // The checksum is the sum of the totals of every valid basket, whatever the lanes priced
+        var checksum = 0L;
+        for (var i = 0; i < workload.getBasketCount(); i++) {
+            val basket = workload.getBasket(i);
+            if (inputService.validateBasket(basket, catalog)) checksum += inputService.calculateTotalMinor(inputService.parseBasket(basket, catalog), catalog);
+        }
+        assertThat(report.getTotalsChecksum()).isEqualTo(checksum);
+        assertThat(new LoadGenerator(inputService, 1, 0, 50).run(workload, catalog).getTotalsChecksum()).isEqualTo(checksum);
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThatThrownBy(() -> new LoadGenerator(inputService, 0, 0, 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LoadGenerator(inputService, 1, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package com.checkout.load;
+
+import com.checkout.model.LoadReport;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadReportFileTest {
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("load");
+        file = directory.resolve("load.properties");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (val path : Files.list(directory).toArray(Path[]::new)) Files.delete(path);
+        Files.delete(directory);
+    }
+
+    private static LoadReport report(long baskets, long p99Nanos, long checksum) {
+        return new LoadReport("100 SKUs", 4, baskets, 10, 2_000_000_000L, 400, 600, 1_000, 2_000, p99Nanos, 8_000, 9_000,
+                baskets * 1_000, 3, 12, checksum);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        // Happy Path
+        LoadReportFile.write(report(1_000, 4_000, 123), file);
+        val lines = Files.readAllLines(file);
+        assertThat(lines.get(0)).isEqualTo("# 100 SKUs");
+        assertThat(lines).contains("baskets=1000", "basketsPerSecond=500", "p99Nanos=4000", "allocatedBytesPerBasket=1000", "totalsChecksum=123");
+
+        val metrics = LoadReportFile.read(file);
+        assertThat(metrics.keySet()).containsExactlyElementsOf(report(1_000, 4_000, 123).getMetrics().keySet());
+        assertThat(metrics.get("allocatedMegabytesPerSecond")).isEqualTo(1.0);
+
+        // Invalid line
+        Files.write(file, List.of("# comment", "baskets=many"));
+        assertThatThrownBy(() -> LoadReportFile.read(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("baskets=many");
+    }
+
+    @Test
+    public void testCompare() throws IOException {
+        LoadReportFile.write(report(1_000, 4_000, 123), file);
+
+        // Happy Path
+        var comparison = LoadReportFile.compare(LoadReportFile.read(file), report(1_500, 3_000, 123));
+        assertThat(comparison).containsPattern("basketsPerSecond +500 +750 +\\+50\\.0%");
+        assertThat(comparison).containsPattern("p99Nanos +4000 +3000 +-25\\.0%");
+        assertThat(comparison).doesNotContain("WARNING");
+
+        // Different totals
+        comparison = LoadReportFile.compare(LoadReportFile.read(file), report(1_000, 4_000, 124));
+        assertThat(comparison).contains("WARNING: totals checksum differs");
+    }
+}
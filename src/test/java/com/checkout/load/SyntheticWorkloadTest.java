@@ -0,0 +1,106 @@
+package com.checkout.load;
+
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SyntheticWorkloadTest {
+
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private final InputServiceImpl inputService = new InputServiceImpl();
+
+    @Test
+    public void testGenerate() throws IOException {
+        val profile = WorkloadProfile.builder().skus(2_000).bundles(10).invalidBaskets(0.05).baskets(5_000).build();
+        val underTest = SyntheticWorkload.generate(profile);
+
+        // Happy Path - the rules are valid and every basket is valid unless it was made invalid on purpose
+        val catalog = pricingRuleService.loadCatalog(new StringReader(underTest.getRules()));
+        assertThat(catalog.size()).isEqualTo(2_000);
+        assertThat(catalog.getBundleCount()).isPositive();
+        var invalid = 0;
+        var items = 0L;
+        for (var i = 0; i < underTest.getBasketCount(); i++) {
+            val basket = underTest.getBasket(i);
+            val valid = inputService.validateBasket(basket, catalog);
+            assertThat(valid).isEqualTo(!basket.contains(SyntheticWorkload.UNKNOWN_SKU));
+            if (!valid) invalid++;
+            else items += inputService.parseBasket(basket, catalog).getTotalItems();
+        }
+        assertThat((double) invalid / underTest.getBasketCount()).isCloseTo(0.05, within(0.015));
+        assertThat((double) items / (underTest.getBasketCount() - invalid)).isCloseTo(12, within(1.0));
+
+        // Special-price coverage
+        var specials = 0;
+        for (var id = 0; id < catalog.size(); id++) {
+            if (catalog.hasSpecialPrice(id)) specials++;
+        }
+        assertThat((double) specials / catalog.size()).isCloseTo(0.3, within(0.05));
+
+        // The same profile generates the same workload
+        val again = SyntheticWorkload.generate(profile);
+        assertThat(again.getRules()).isEqualTo(underTest.getRules());
+        for (var i = 0; i < underTest.getBasketCount(); i++) {
+            assertThat(again.getBasket(i)).isEqualTo(underTest.getBasket(i));
+        }
+        assertThat(SyntheticWorkload.generate(profile.toBuilder().seed(43).build()).getBasket(0)).isNotEqualTo(underTest.getBasket(0));
+    }
+
+    @Test
+    public void testPopularity() throws IOException {
+        val underTest = SyntheticWorkload.generate(WorkloadProfile.builder().skus(1_000).zipfExponent(1.2).baskets(2_000).build());
+        val catalog = pricingRuleService.loadCatalog(new StringReader(underTest.getRules()));
+
+        // A handful of SKUs make up a large share of all items
+        val counts = new HashMap<Integer, Long>();
+        var items = 0L;
+        for (var i = 0; i < underTest.getBasketCount(); i++) {
+            val basket = inputService.parseBasket(underTest.getBasket(i), catalog);
+            for (var j = 0; j < basket.distinctSkus(); j++) {
+                counts.merge(basket.skuAt(j), (long) basket.getCount(basket.skuAt(j)), Long::sum);
+            }
+            items += basket.getTotalItems();
+        }
+        val top = counts.values().stream().sorted((a, b) -> Long.compare(b, a)).limit(10).mapToLong(Long::longValue).sum();
+        assertThat((double) top / items).isGreaterThan(0.4);
+    }
+
+    @Test
+    public void testLetters() throws IOException {
+        val underTest = SyntheticWorkload.generate(WorkloadProfile.builder().skus(5).basketLength(WorkloadProfile.BasketLength.FIXED)
+                .meanBasketLength(4).invalidBaskets(0.5).baskets(100).build());
+        val catalog = pricingRuleService.loadCatalog(new StringReader(underTest.getRules()));
+
+        // Single-letter SKUs in undelimited baskets, with Z marking invalid ones
+        assertThat(catalog.idOf('A')).isNotNegative();
+        for (var i = 0; i < underTest.getBasketCount(); i++) {
+            val basket = underTest.getBasket(i);
+            assertThat(basket).matches("[A-E]{4}Z?");
+            assertThat(inputService.validateBasket(basket, catalog)).isEqualTo(basket.length() == 4);
+        }
+    }
+
+    @Test
+    public void testInvalidProfile() {
+        assertThatThrownBy(() -> SyntheticWorkload.generate(WorkloadProfile.builder().skus(0).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SyntheticWorkload.generate(WorkloadProfile.builder().specialCoverage(1.5).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SyntheticWorkload.generate(WorkloadProfile.builder().skus(26).invalidBaskets(0.1).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SyntheticWorkload.generate(WorkloadProfile.builder().meanBasketLength(0).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.checkout.load;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ZipfSamplerTest {
+
+    @Test
+    public void testSample() {
+        val underTest = new ZipfSampler(1000, 1.0);
+        val random = new SplittableRandom(7);
+
+        // Happy Path - draws follow the probabilities, with rank 0 twice as likely as rank 1
+        val draws = new int[underTest.size()];
+        val samples = 1_000_000;
+        for (var i = 0; i < samples; i++) {
+            draws[underTest.sample(random)]++;
+        }
+        for (val rank : new int[]{0, 1, 9, 99}) {
+            assertThat((double) draws[rank] / samples).isCloseTo(underTest.probability(rank), within(0.003));
+        }
+        assertThat(underTest.probability(0)).isCloseTo(2 * underTest.probability(1), within(1e-12));
+
+        // The same seed draws the same ranks
+        val first = new SplittableRandom(11);
+        val second = new SplittableRandom(11);
+        for (var i = 0; i < 100; i++) {
+            assertThat(underTest.sample(first)).isEqualTo(underTest.sample(second));
+        }
+    }
+
+    @Test
+    public void testUniform() {
+        val underTest = new ZipfSampler(4, 0);
+        for (var rank = 0; rank < 4; rank++) {
+            assertThat(underTest.probability(rank)).isCloseTo(0.25, within(1e-12));
+        }
+
+        // A single rank is always drawn
+        assertThat(new ZipfSampler(1, 2).sample(new SplittableRandom())).isZero();
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThatThrownBy(() -> new ZipfSampler(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ZipfSampler(10, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.checkout.metrics;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        // Small values are exact
+        for (var value = 0L; value < 32; value++) {
+            assertThat(LatencyHistogram.upperBound(LatencyHistogram.indexOf(value))).isEqualTo(value);
+        }
+
+        // Larger values are within 1/16 of their bucket's upper bound
+        for (var value = 32L; value < 1L << 40; value = value * 3 / 2 + 1) {
+            val upperBound = LatencyHistogram.upperBound(LatencyHistogram.indexOf(value));
+            assertThat(upperBound).isGreaterThanOrEqualTo(value);
+            assertThat(upperBound - value).isLessThanOrEqualTo(value / 16);
+        }
+        assertThat(LatencyHistogram.upperBound(LatencyHistogram.indexOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testPercentile() {
+        val underTest = new LatencyHistogram();
+
+        // Nothing recorded
+        assertThat(underTest.percentile(99)).isZero();
+
+        // Happy Path
+        for (var value = 1; value <= 1000; value++) {
+            underTest.record(value);
+        }
+        assertThat(underTest.count()).isEqualTo(1000);
+        assertThat(underTest.percentile(50)).isBetween(500L, 532L);
+        assertThat(underTest.percentile(99)).isBetween(990L, 1023L);
+        assertThat(underTest.percentile(99.9)).isBetween(999L, 1023L);
+        assertThat(underTest.percentile(100)).isBetween(1000L, 1023L);
+
+        underTest.reset();
+        assertThat(underTest.count()).isZero();
+    }
+
+    @Test
+    public void testAdd() {
+        val underTest = new LatencyHistogram();
+        val other = new LatencyHistogram();
+        for (var value = 1; value <= 500; value++) {
+            underTest.record(value);
+            other.record(value + 500);
+        }
+
+        // Happy Path
+        underTest.add(other);
+        assertThat(underTest.count()).isEqualTo(1000);
+        assertThat(underTest.percentile(50)).isBetween(500L, 532L);
+        assertThat(other.count()).isEqualTo(500);
+
+        // Adding an empty histogram changes nothing
+        underTest.add(new LatencyHistogram());
+        assertThat(underTest.count()).isEqualTo(1000);
+    }
+}
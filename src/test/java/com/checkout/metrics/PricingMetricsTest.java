@@ -0,0 +1,58 @@
+package com.checkout.metrics;
+
+import com.checkout.service.impl.InputServiceImpl;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static com.checkout.metrics.PricingStage.CALCULATE_TOTAL;
+import static com.checkout.metrics.PricingStage.VALIDATE_RULES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PricingMetricsTest {
+
+    @Before
+    public void setUp() {
+        PricingMetrics.reset();
+    }
+
+    @Test
+    public void testRecord() {
+        // Every call is counted, only sampled calls are timed
+        for (var i = 0; i < 1000; i++) {
+            PricingMetrics.record(CALCULATE_TOTAL, PricingMetrics.start());
+        }
+        PricingMetrics.record(CALCULATE_TOTAL, System.nanoTime() - 5_000);
+
+        val metrics = PricingMetrics.stage(CALCULATE_TOTAL);
+        assertThat(metrics.getCount()).isEqualTo(1001);
+        assertThat(metrics.getMaxNanos()).isGreaterThanOrEqualTo(5_000);
+        assertThat(metrics.getP999Nanos()).isGreaterThan(0);
+        assertThat(metrics.getFormattedSummary()).startsWith("CALCULATE_TOTAL count=1001");
+
+        metrics.reset();
+        assertThat(metrics.getCount()).isZero();
+    }
+
+    @Test
+    public void testServicesAreInstrumented() {
+        new InputServiceImpl().validatePricingRules("A,50;B,30");
+        assertThat(PricingMetrics.stage(VALIDATE_RULES).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRegisterMBeans() throws Exception {
+        PricingMetrics.registerMBeans();
+        PricingMetrics.registerMBeans();
+        PricingMetrics.record(VALIDATE_RULES, 0);
+
+        val name = new ObjectName("com.checkout:type=PricingMetrics,stage=VALIDATE_RULES");
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count")).isEqualTo(1L);
+    }
+}
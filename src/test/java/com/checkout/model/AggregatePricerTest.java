@@ -0,0 +1,102 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AggregatePricerTest {
+
+    private static PricingCatalog catalog(int specialValueOfA, double priceOfC, boolean withD) {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, specialValueOfA);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", priceOfC, 0, 0);
+        builder.add("E", 7.99, Arrays.asList(new MutablePair<>(3, 20), new MutablePair<>(5, 30)));
+        if (withD) builder.add("D", 15, 0, 0);
+        return builder.build();
+    }
+
+    @Test
+    public void testPrice() {
+        val base = catalog(130, 20, true);
+        val histogram = new SkuCountHistogram(base);
+        val random = new Random(3);
+        val baskets = new BasketCounts[2_000];
+        for (var i = 0; i < baskets.length; i++) {
+            baskets[i] = new BasketCounts(base.size());
+            for (var item = random.nextInt(20); item >= 0; item--) {
+                baskets[i].add(random.nextInt(base.size()));
+            }
+            histogram.add(baskets[i]);
+        }
+
+        // Happy Path - the revenue under every candidate equals the sum of each basket priced on its own
+        val promotion = catalog(120, 18.5, true);
+        val reordered = PricingCatalog.builder();
+        reordered.add("C", 25, 0, 0);
+        reordered.add("A", 50, 0, 0);
+        reordered.add("B", 30, 2, 45);
+        reordered.add("E", 8, 0, 0);
+        val withoutD = reordered.build();
+        val reports = AggregatePricer.price(histogram, Arrays.asList(base, promotion, withoutD));
+        assertThat(reports).hasSize(3);
+
+        var expectedBase = 0L;
+        var expectedPromotion = 0L;
+        var expectedWithoutD = 0L;
+        var itemsOfD = 0L;
+        for (val basket : baskets) {
+            expectedBase += base.totalMinor(basket);
+            expectedPromotion += promotion.totalMinor(basket);
+            for (var i = 0; i < basket.distinctSkus(); i++) {
+                val id = basket.skuAt(i);
+                val candidateId = withoutD.idOf(base.getItem(id));
+                if (candidateId < 0) itemsOfD += basket.getCount(id);
+                else expectedWithoutD += withoutD.linePriceMinor(candidateId, basket.getCount(id));
+            }
+        }
+        assertThat(reports.get(0).getRevenueMinor()).isEqualTo(expectedBase);
+        assertThat(reports.get(0).getUnpricedItems()).isZero();
+        assertThat(reports.get(0).getBaskets()).isEqualTo(2_000);
+        assertThat(reports.get(0).getCatalogFingerprint()).isEqualTo(base.getFingerprint());
+        assertThat(reports.get(1).getRevenueMinor()).isEqualTo(expectedPromotion).isLessThan(expectedBase);
+
+        // SKUs missing from a candidate are counted rather than priced
+        assertThat(reports.get(2).getRevenueMinor()).isEqualTo(expectedWithoutD);
+        assertThat(reports.get(2).getUnpricedItems()).isEqualTo(itemsOfD).isPositive();
+
+        // No candidates or no baskets
+        assertThat(AggregatePricer.price(histogram, Collections.emptyList())).isEmpty();
+        assertThat(AggregatePricer.price(new SkuCountHistogram(base), Collections.singletonList(base)).get(0).getRevenueMinor()).isZero();
+    }
+
+    @Test
+    public void testPriceRejectsBundles() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 0, 0);
+        builder.add("B", 30, 0, 0);
+        builder.addBundle("A+B", Arrays.asList("A", "B"), 60);
+        val bundled = builder.build();
+
+        assertThatThrownBy(() -> AggregatePricer.price(new SkuCountHistogram(bundled), Arrays.asList(catalog(130, 20, false), bundled)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Candidate 2 has bundle deals");
+
+        // Basket discounts depend on the whole basket too
+        val discounted = catalog(130, 20, false).withStages(List.of(BasketStages.percentOff(10, List.of())));
+        assertThatThrownBy(() -> AggregatePricer.price(new SkuCountHistogram(discounted), List.of(discounted)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Candidate 1 has basket discounts");
+    }
+}
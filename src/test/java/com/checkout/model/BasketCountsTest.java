@@ -0,0 +1,166 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BasketCountsTest {
+
+    @Test
+    public void testAdd() {
+        val counts = new BasketCounts(3);
+        assertThat(counts.isEmpty()).isTrue();
+
+        // Happy Path - SKUs are tracked in order of first occurrence
+        counts.add(2);
+        counts.add(0);
+        counts.add(2);
+        counts.add(1, 5);
+        assertThat(counts.getCount(0)).isEqualTo(1);
+        assertThat(counts.getCount(1)).isEqualTo(5);
+        assertThat(counts.getCount(2)).isEqualTo(2);
+        assertThat(counts.distinctSkus()).isEqualTo(3);
+        assertThat(counts.skuAt(0)).isEqualTo(2);
+        assertThat(counts.skuAt(1)).isZero();
+        assertThat(counts.skuAt(2)).isEqualTo(1);
+        assertThat(counts.getTotalItems()).isEqualTo(8);
+
+        // Non-positive counts are ignored
+        counts.add(0, 0);
+        counts.add(0, -1);
+        assertThat(counts.getCount(0)).isEqualTo(1);
+
+        // Counts overflow an int
+        counts.add(1, Integer.MAX_VALUE - 5);
+        assertThatThrownBy(() -> counts.add(1)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> counts.add(1, 1)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void testClear() {
+        val counts = new BasketCounts(2);
+        counts.add(0);
+        counts.add(1, 3);
+
+        counts.clear();
+        assertThat(counts.isEmpty()).isTrue();
+        assertThat(counts.getCount(0)).isZero();
+        assertThat(counts.getCount(1)).isZero();
+        assertThat(counts.getTotalItems()).isZero();
+
+        // Counts can be reused after clearing
+        counts.add(1);
+        assertThat(counts.distinctSkus()).isEqualTo(1);
+        assertThat(counts.getCount(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testMerge() {
+        val first = new BasketCounts(3);
+        first.add(2);
+        first.add(0, 2);
+        val second = new BasketCounts(3);
+        second.add(1);
+        second.add(2, 3);
+
+        // Happy Path - new SKUs follow in the order they first occur in the merged counts
+        first.merge(second);
+        assertThat(first.toString()).isEqualTo("{2=4, 0=2, 1=1}");
+        assertThat(first.getTotalItems()).isEqualTo(7);
+        assertThat(second.toString()).isEqualTo("{1=1, 2=3}");
+
+        // Merging empty counts changes nothing
+        first.merge(new BasketCounts(3));
+        assertThat(first.toString()).isEqualTo("{2=4, 0=2, 1=1}");
+
+        // Counts cannot overflow
+        val full = new BasketCounts(3);
+        full.add(0, Integer.MAX_VALUE);
+        assertThatThrownBy(() -> full.merge(first)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        val catalog = catalog(200);
+        val counts = new BasketCounts(catalog.size());
+        counts.add(150, 1000);
+        counts.add(3);
+        counts.add(150);
+
+        // Happy Path
+        val read = BasketCounts.readFrom(input(write(counts, catalog)), catalog);
+        assertThat(read.toString()).isEqualTo("{150=1001, 3=1}");
+        assertThat(read.getTotalItems()).isEqualTo(1002);
+        assertThat(read.capacity()).isEqualTo(catalog.size());
+        assertThat(BasketCounts.readFrom(input(write(new BasketCounts(catalog.size()), catalog)), catalog).isEmpty()).isTrue();
+
+        // Counts written against one catalog cannot be read against another
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(write(counts, catalog)), catalog(201)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("were written against catalog");
+    }
+
+    @Test
+    public void testReadRejectsCorruptInput() throws IOException {
+        val catalog = catalog(2);
+        val counts = new BasketCounts(catalog.size());
+        counts.add(1, 2);
+        val bytes = write(counts, catalog);
+
+        // Not basket counts
+        val magic = bytes.clone();
+        magic[0] = 0;
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(magic), catalog)).isInstanceOf(IllegalStateException.class);
+
+        // Unknown SKU id, zero count and truncated input - the id, then the count, follow the magic, fingerprint and distinct count
+        val id = bytes.clone();
+        id[13] = 2;
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(id), catalog)).isInstanceOf(IllegalStateException.class).hasMessageContaining("SKU id 2");
+        val count = bytes.clone();
+        count[14] = 0;
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(count), catalog)).isInstanceOf(IllegalStateException.class).hasMessageContaining("count 0");
+        val distinct = bytes.clone();
+        distinct[12] = 3;
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(distinct), catalog)).isInstanceOf(IllegalStateException.class).hasMessageContaining("3 distinct");
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(Arrays.copyOf(bytes, 14)), catalog)).isInstanceOf(IOException.class);
+
+        // SKU id is a varint that decodes to a negative number
+        val negative = new ByteArrayOutputStream();
+        val out = new DataOutputStream(negative);
+        out.write(bytes, 0, 13);
+        Varints.writeVarint(out, -1);
+        Varints.writeVarint(out, 2);
+        assertThatThrownBy(() -> BasketCounts.readFrom(input(negative.toByteArray()), catalog))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("Corrupt basket counts");
+    }
+
+    private static PricingCatalog catalog(int size) {
+        val builder = PricingCatalog.builder();
+        for (var i = 0; i < size; i++) {
+            builder.add("SKU-" + i, 1, 0, 0);
+        }
+        return builder.build();
+    }
+
+    private static byte[] write(BasketCounts counts, PricingCatalog catalog) throws IOException {
+        val bytes = new ByteArrayOutputStream();
+        counts.writeTo(new DataOutputStream(bytes), catalog);
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,40 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BasketKeyTest {
+
+    private static BasketCounts counts(int... ids) {
+        val counts = new BasketCounts(1000);
+        for (val id : ids) {
+            counts.add(id);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testOf() {
+        // Happy Path
+        assertThat(BasketKey.of(counts(0, 1, 1, 0))).isEqualTo(BasketKey.of(counts(1, 0, 0, 1)));
+        assertThat(BasketKey.of(counts(0, 1, 1, 0)).hashCode()).isEqualTo(BasketKey.of(counts(1, 0, 0, 1)).hashCode());
+        assertThat(BasketKey.of(counts(0, 1, 1, 0)).length()).isEqualTo(4);
+
+        // Different counts or SKUs
+        assertThat(BasketKey.of(counts(0, 1, 1))).isNotEqualTo(BasketKey.of(counts(0, 0, 1)));
+        assertThat(BasketKey.of(counts(0, 2))).isNotEqualTo(BasketKey.of(counts(0, 1)));
+
+        // Large ids and counts take more than one byte
+        val large = new BasketCounts(1000);
+        large.add(999, 100_000);
+        assertThat(BasketKey.of(large).length()).isEqualTo(5);
+
+        // Empty basket
+        assertThat(BasketKey.of(counts()).length()).isZero();
+    }
+}
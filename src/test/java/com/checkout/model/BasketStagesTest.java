@@ -0,0 +1,61 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BasketStagesTest {
+
+    @Test
+    public void testParse() {
+        // Happy Path
+        var stage = BasketStages.parse("percent,10");
+        assertThat(stage.getItems()).isEmpty();
+        assertThat(stage.apply(18000, 18000, 18000)).isEqualTo(16200);
+        assertThat(stage.getRule()).isEqualTo("percent,10");
+
+        stage = BasketStages.parse("percent, 20 ,A+ B");
+        assertThat(stage.getItems()).containsExactly("A", "B");
+        assertThat(stage.apply(18000, 5000, 18000)).isEqualTo(17000);
+        assertThat(stage.getRule()).isEqualTo("percent,20,A+B");
+
+        stage = BasketStages.parse("spend,49.50,5");
+        assertThat(stage.apply(4950, 4950, 4950)).isEqualTo(4450);
+        assertThat(stage.apply(4949, 4949, 4949)).isEqualTo(4949);
+        assertThat(stage.getRule()).isEqualTo("spend,49.5,5");
+        assertThat(BasketStages.parse("spend,30,3,DRINK-COLA-330ML").getItems()).containsExactly("DRINK-COLA-330ML");
+
+        stage = BasketStages.parse("cap,15");
+        assertThat(stage.apply(9000, 9000, 18000)).isEqualTo(16500);
+        assertThat(stage.apply(17000, 17000, 18000)).isEqualTo(17000);
+        assertThat(stage.getRule()).isEqualTo("cap,15");
+
+        // A parsed rule parses to the same rule
+        for (val rule : List.of("percent,100,A", "spend,0.01,0.01", "cap,0")) {
+            assertThat(BasketStages.parse(BasketStages.parse(rule).getRule()).getRule()).isEqualTo(rule);
+        }
+    }
+
+    @Test
+    public void testParseRejectsInvalidRules() {
+        // Unknown kind or wrong number of fields
+        assertThatThrownBy(() -> BasketStages.parse("bogof,A")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown discount 'bogof'");
+        assertThatThrownBy(() -> BasketStages.parse("percent")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("needs 2 or 3");
+        assertThatThrownBy(() -> BasketStages.parse("cap,15,A")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("needs 2");
+
+        // Invalid amounts or SKUs
+        assertThatThrownBy(() -> BasketStages.parse("percent,0")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("from 1 to 100");
+        assertThatThrownBy(() -> BasketStages.parse("percent,ten")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid percentage");
+        assertThatThrownBy(() -> BasketStages.parse("spend,50,0")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Saving must be positive");
+        assertThatThrownBy(() -> BasketStages.parse("spend,50.001,5")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("cannot be represented");
+        assertThatThrownBy(() -> BasketStages.parse("cap,-1")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("cannot be negative");
+        assertThatThrownBy(() -> BasketStages.parse("percent,10,A+")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid SKUs");
+    }
+}
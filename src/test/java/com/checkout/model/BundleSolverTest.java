@@ -0,0 +1,126 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BundleSolverTest {
+
+    private static BasketCounts counts(PricingCatalog catalog, String basket) {
+        val counts = new BasketCounts(catalog.size());
+        for (val sku : basket.toCharArray()) {
+            counts.add(catalog.idOf(sku));
+        }
+        return counts;
+    }
+
+    @Test
+    public void testTotalMinor() {
+        val catalog = PricingCatalog.compile(List.of(
+                new PricingRule("A", 50, new MutablePair<>(3, 130)),
+                new PricingRule("B", 30, new MutablePair<>(2, 45)),
+                new PricingRule("C", 20),
+                new PricingRule("A+B+C", 60),
+                new PricingRule("B+C", 45)));
+
+        // Happy Path: one bundle
+        assertThat(catalog.totalMinor(counts(catalog, "ABC"))).isEqualTo(6_000);
+
+        // Bundles compete with the special price of A: 60 + AA beats AAA + (B+C)
+        assertThat(catalog.totalMinor(counts(catalog, "AAABC"))).isEqualTo(6_000 + 10_000);
+        assertThat(catalog.totalMinor(counts(catalog, "AAAABCBC"))).isEqualTo(2 * 6_000 + 10_000);
+
+        // No bundle applies
+        assertThat(catalog.totalMinor(counts(catalog, "AAB"))).isEqualTo(13_000);
+        assertThat(catalog.getBundleFallbacks()).isZero();
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearch() {
+        val random = new Random(5);
+        for (var trial = 0; trial < 200; trial++) {
+            val rules = new ArrayList<PricingRule>();
+            for (var sku = 'A'; sku <= 'D'; sku++) {
+                val unitPrice = 10 + random.nextInt(40);
+                rules.add(random.nextInt(3) == 0
+                        ? new PricingRule(String.valueOf(sku), unitPrice, new MutablePair<>(2 + random.nextInt(3), unitPrice + random.nextInt(unitPrice * 2)))
+                        : new PricingRule(String.valueOf(sku), unitPrice));
+            }
+            for (var bundle = 0; bundle < 1 + random.nextInt(4); bundle++) {
+                val name = new StringBuilder();
+                for (var item = 0; item < 2 + random.nextInt(2); item++) {
+                    if (item > 0) name.append('+');
+                    name.append((char) ('A' + random.nextInt(4)));
+                }
+                rules.add(new PricingRule(name.toString(), 20 + random.nextInt(80)));
+            }
+            val catalog = PricingCatalog.compile(rules);
+
+            val basket = new StringBuilder();
+            for (var item = 0; item < random.nextInt(12); item++) {
+                basket.append((char) ('A' + random.nextInt(4)));
+            }
+            val counts = counts(catalog, basket.toString());
+            assertThat(catalog.totalMinor(counts)).as("%s priced with %s", basket, rules.size()).isEqualTo(exhaustive(catalog, counts, 0));
+        }
+    }
+
+    // Try every multiset of bundles, applying them in non-decreasing order
+    private static long exhaustive(PricingCatalog catalog, BasketCounts counts, int fromBundle) {
+        var best = 0L;
+        for (var i = 0; i < counts.distinctSkus(); i++) {
+            best += catalog.linePriceMinor(counts.skuAt(i), counts.getCount(counts.skuAt(i)));
+        }
+        for (var bundle = fromBundle; bundle < catalog.getBundleCount(); bundle++) {
+            var fits = true;
+            for (var j = 0; j < catalog.getBundleComponentCount(bundle); j++) {
+                fits &= counts.getCount(catalog.getBundleComponentId(bundle, j)) >= catalog.getBundleComponentQuantity(bundle, j);
+            }
+            if (!fits) continue;
+
+            val rest = new BasketCounts(catalog.size());
+            for (var i = 0; i < counts.distinctSkus(); i++) {
+                rest.add(counts.skuAt(i), counts.getCount(counts.skuAt(i)));
+            }
+            val remaining = new BasketCounts(catalog.size());
+            for (var i = 0; i < rest.distinctSkus(); i++) {
+                val id = rest.skuAt(i);
+                var count = rest.getCount(id);
+                for (var j = 0; j < catalog.getBundleComponentCount(bundle); j++) {
+                    if (catalog.getBundleComponentId(bundle, j) == id) count -= catalog.getBundleComponentQuantity(bundle, j);
+                }
+                remaining.add(id, count);
+            }
+            best = Math.min(best, catalog.getBundlePriceMinor(bundle) + exhaustive(catalog, remaining, bundle));
+        }
+        return best;
+    }
+
+    @Test
+    public void testFallsBackWhenBudgetIsExhausted() {
+        val builder = PricingCatalog.builder().bundleStepBudget(10);
+        builder.add("A", 50, 0, 0);
+        builder.add("B", 30, 0, 0);
+        builder.add("C", 20, 0, 0);
+        builder.addBundle("A+B", List.of("A", "B"), 60);
+        builder.addBundle("B+C", List.of("B", "C"), 40);
+        val catalog = builder.build();
+
+        // Greedy applies the bundle with the largest saving, A+B, as often as it can
+        val counts = new BasketCounts(catalog.size());
+        counts.add(catalog.idOf('A'), 100);
+        counts.add(catalog.idOf('B'), 100);
+        counts.add(catalog.idOf('C'), 100);
+        assertThat(catalog.totalMinor(counts)).isLessThan(100 * (5_000 + 3_000 + 2_000));
+        assertThat(catalog.getBundleFallbacks()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.checkout.model.PricingCatalog.UNKNOWN_SKU;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogRegistryTest {
+
+    private static PricingCatalog base() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 20, 0, 0);
+        builder.add("D", 15, 0, 0);
+        builder.add("E", 7.99, Arrays.asList(offer(3, 20), offer(5, 30)));
+        builder.addBundle("A+B+C", Arrays.asList("A", "B", "C"), 60);
+        // Dormant at base prices, as C+D costs 35
+        builder.addBundle("C+D", Arrays.asList("C", "D"), 40);
+        return builder.build();
+    }
+
+    // The rules of a store, compiled on their own as overrides and compiled in full after the base's SKUs for comparison
+    private static PricingCatalog store(PricingCatalog.Builder builder) {
+        builder.add("A", 50, 3, 130);
+        builder.add("C", 25, 0, 0);
+        builder.add("D", 20, 0, 0);
+        builder.add("E", 7.99, Arrays.asList(offer(3, 18), offer(5, 30)));
+        builder.add("F", 4.5, 2, 8);
+        builder.add("€", 0.05, 0, 0);
+        return builder.build();
+    }
+
+    private static PricingCatalog flat() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 25, 0, 0);
+        builder.add("D", 20, 0, 0);
+        builder.add("E", 7.99, Arrays.asList(offer(3, 18), offer(5, 30)));
+        builder.addBundle("A+B+C", Arrays.asList("A", "B", "C"), 60);
+        builder.addBundle("C+D", Arrays.asList("C", "D"), 40);
+        return store(builder);
+    }
+
+    private static Pair<Integer, Integer> offer(int quantity, int value) {
+        return new MutablePair<>(quantity, value);
+    }
+
+    private static BasketCounts counts(PricingCatalog catalog, List<String> basket) {
+        val counts = new BasketCounts(catalog.size());
+        for (val sku : basket) {
+            counts.add(catalog.idOf(sku));
+        }
+        return counts;
+    }
+
+    @Test
+    public void testRegister() {
+        val base = base();
+        val underTest = new CatalogRegistry(base);
+
+        // Happy Path - the store prices every basket as its rules compiled in full would
+        val catalog = underTest.register("0042", store(PricingCatalog.builder()));
+        val flat = flat();
+        assertThat(catalog.size()).isEqualTo(flat.size());
+        for (var id = 0; id < flat.size(); id++) {
+            val item = flat.getItem(id);
+            assertThat(catalog.getItem(id)).isEqualTo(item);
+            assertThat(catalog.idOf(item)).isEqualTo(id);
+            assertThat(catalog.idOf("[" + item + "]", 1, item.length() + 1)).isEqualTo(id);
+            assertThat(catalog.getUnitPrice(id)).isEqualTo(flat.getUnitPrice(id));
+            assertThat(catalog.getOfferCount(id)).isEqualTo(flat.getOfferCount(id));
+            for (var count = 0; count < 200; count++) {
+                assertThat(catalog.linePriceMinor(id, count)).isEqualTo(flat.linePriceMinor(id, count));
+                assertThat(catalog.linePrice(id, count)).isEqualTo(flat.linePrice(id, count));
+            }
+        }
+        assertThat(catalog.idOf('F')).isEqualTo(flat.idOf('F'));
+        assertThat(catalog.idOf('€')).isEqualTo(flat.idOf('€'));
+        assertThat(catalog.idOf('Z')).isEqualTo(UNKNOWN_SKU);
+        assertThat(catalog.idOf("AB")).isEqualTo(UNKNOWN_SKU);
+
+        // The dormant bundle lowers totals at the store's prices
+        assertThat(base.getBundleCount()).isEqualTo(1);
+        assertThat(catalog.getBundleCount()).isEqualTo(2);
+        for (val basket : Arrays.asList(
+                Arrays.asList("A", "B", "C"),
+                Arrays.asList("C", "D", "D"),
+                Arrays.asList("A", "A", "A", "B", "C", "C", "D", "E", "E", "E", "F", "F", "€"))) {
+            assertThat(catalog.totalMinor(counts(catalog, basket))).isEqualTo(flat.totalMinor(counts(flat, basket)));
+        }
+
+        // Only SKUs priced differently are overrides, and the base is untouched
+        assertThat(underTest.getOverrideCount("0042")).isEqualTo(5);
+        assertThat(underTest.get("0042")).isSameAs(catalog);
+        assertThat(catalog.getFingerprint()).isNotEqualTo(base.getFingerprint());
+        assertThat(base.getUnitPrice(base.idOf('C'))).isEqualTo(20);
+        assertThat(base.idOf('F')).isEqualTo(UNKNOWN_SKU);
+
+        // Unknown store
+        assertThat(underTest.get("0043")).isNull();
+        assertThat(underTest.get(null)).isNull();
+        assertThat(underTest.getOverrideCount("0043")).isZero();
+    }
+
+    @Test
+    public void testRegisterSharesUnchangedPricing() {
+        val base = base();
+        val underTest = new CatalogRegistry(base);
+
+        // Overrides priced as the base change nothing
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("C", 20, 0, 0);
+        assertThat(underTest.register("0001", builder.build())).isSameAs(base);
+        assertThat(underTest.register("0002", PricingCatalog.builder().build())).isSameAs(base);
+        assertThat(underTest.getOverrideCount("0001")).isZero();
+
+        // Bundles are shared while no bundle changes state
+        val raised = PricingCatalog.builder();
+        raised.add("A", 55, 3, 130);
+        val catalog = underTest.register("0003", raised.build());
+        assertThat(catalog.getBundles()).isSameAs(base.getBundles());
+        assertThat(catalog.getDormantBundles()).isSameAs(base.getDormantBundles());
+        assertThat(underTest.getStores()).containsExactly("0001", "0002", "0003");
+        assertThat(underTest.getStoreCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRegisterInternsOverrides() {
+        val underTest = new CatalogRegistry(base());
+
+        // Stores with the same override share a single copy of it
+        val first = underTest.register("0001", store(PricingCatalog.builder()));
+        val second = underTest.register("0002", store(PricingCatalog.builder()));
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getFingerprint()).isEqualTo(first.getFingerprint());
+        assertThat(underTest.getInternedCount()).isEqualTo(5);
+
+        val firstSkus = (OverlaySkuTable) first.getSkuTable();
+        val secondSkus = (OverlaySkuTable) second.getSkuTable();
+        for (var id = 0; id < first.size(); id++) {
+            assertThat(secondSkus.entryOf(id)).isSameAs(firstSkus.entryOf(id));
+        }
+        assertThat(firstSkus.entryOf(first.idOf('B'))).isNull();
+
+        // Re-registering a store replaces its catalog
+        val builder = PricingCatalog.builder();
+        builder.add("B", 35, 0, 0);
+        val replaced = underTest.register("0002", builder.build());
+        assertThat(underTest.get("0002")).isSameAs(replaced);
+        assertThat(replaced.getUnitPriceMinor(replaced.idOf('B'))).isEqualTo(3500);
+        assertThat(replaced.getUnitPriceMinor(replaced.idOf('C'))).isEqualTo(2000);
+    }
+
+    @Test
+    public void testRegisterRejectsBundles() {
+        val underTest = new CatalogRegistry(base());
+
+        val builder = PricingCatalog.builder();
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 25, 0, 0);
+        builder.addBundle("B+C", Arrays.asList("B", "C"), 40);
+        val overrides = builder.build();
+        assertThatThrownBy(() -> underTest.register("0001", overrides))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot contain bundles");
+        assertThat(underTest.get("0001")).isNull();
+    }
+}
@@ -0,0 +1,183 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.checkout.model.PricingCatalog.UNKNOWN_SKU;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogSnapshotTest {
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        file = directory.resolve("catalog.cks");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (val path : Files.list(directory).toArray(Path[]::new)) Files.delete(path);
+        Files.delete(directory);
+    }
+
+    private static PricingCatalog catalog() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 20, 0, 0);
+        builder.add("DRINK-COLA-330ML", 1.25, 0, 0);
+        builder.add("E", 7.99, Arrays.asList(offer(3, 20), offer(5, 30), offer(12, 60)));
+        builder.add("€", 0.05, 0, 0);
+        builder.addBundle("A+B+C", Arrays.asList("A", "B", "C"), 60);
+        builder.addBundle("C+C+E", Arrays.asList("C", "C", "E"), 45);
+        builder.addBundle("C+€", Arrays.asList("C", "€"), 25);
+        return builder.build();
+    }
+
+    private static Pair<Integer, Integer> offer(int quantity, int value) {
+        return new MutablePair<>(quantity, value);
+    }
+
+    private static BasketCounts counts(PricingCatalog catalog, List<String> basket) {
+        val counts = new BasketCounts(catalog.size());
+        for (val sku : basket) {
+            counts.add(catalog.idOf(sku));
+        }
+        return counts;
+    }
+
+    @Test
+    public void testWriteAndLoad() throws IOException {
+        val compiled = catalog();
+        CatalogSnapshot.write(compiled, file);
+
+        // Happy Path
+        val underTest = CatalogSnapshot.load(file);
+        assertThat(underTest.size()).isEqualTo(compiled.size());
+        assertThat(underTest.getFingerprint()).isEqualTo(compiled.getFingerprint());
+        for (var id = 0; id < compiled.size(); id++) {
+            val item = compiled.getItem(id);
+            assertThat(underTest.getItem(id)).isEqualTo(item);
+            assertThat(underTest.idOf(item)).isEqualTo(id);
+            assertThat(underTest.idOf("[" + item + "]", 1, item.length() + 1)).isEqualTo(id);
+            assertThat(underTest.getUnitPrice(id)).isEqualTo(compiled.getUnitPrice(id));
+            assertThat(underTest.getSpecialQuantity(id)).isEqualTo(compiled.getSpecialQuantity(id));
+            assertThat(underTest.getSpecialValueMinor(id)).isEqualTo(compiled.getSpecialValueMinor(id));
+            assertThat(underTest.getOfferCount(id)).isEqualTo(compiled.getOfferCount(id));
+            for (var offer = 0; offer < compiled.getOfferCount(id); offer++) {
+                assertThat(underTest.getOfferQuantity(id, offer)).isEqualTo(compiled.getOfferQuantity(id, offer));
+                assertThat(underTest.getOfferValue(id, offer)).isEqualTo(compiled.getOfferValue(id, offer));
+            }
+            for (var count = 0; count < 1_000; count++) {
+                assertThat(underTest.linePriceMinor(id, count)).isEqualTo(compiled.linePriceMinor(id, count));
+                assertThat(underTest.linePrice(id, count)).isEqualTo(compiled.linePrice(id, count));
+            }
+        }
+        assertThat(underTest.idOf('A')).isEqualTo(compiled.idOf('A'));
+        assertThat(underTest.idOf('€')).isEqualTo(compiled.idOf('€'));
+
+        // Unknown SKUs
+        assertThat(underTest.idOf('Z')).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf("DRINK-COLA-500ML")).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf((String) null)).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf("", 0, 0)).isEqualTo(UNKNOWN_SKU);
+
+        // Bundles
+        assertThat(underTest.getBundleCount()).isEqualTo(2);
+        assertThat(underTest.getBundleName(1)).isEqualTo("C+C+E");
+        for (val basket : Arrays.asList(
+                Arrays.asList("A", "B", "C"),
+                Arrays.asList("A", "A", "A", "B", "C", "C", "E", "E", "E"),
+                Arrays.asList("C", "C", "C", "C", "E", "E", "DRINK-COLA-330ML", "€"))) {
+            assertThat(underTest.totalMinor(counts(underTest, basket))).isEqualTo(compiled.totalMinor(counts(compiled, basket)));
+        }
+
+        // Dormant bundles are kept for store catalogs that raise prices
+        assertThat(underTest.getDormantBundles().size()).isEqualTo(1);
+        assertThat(underTest.getDormantBundles().getName(0)).isEqualTo("C+€");
+        val overrides = PricingCatalog.builder();
+        overrides.add("€", 10, 0, 0);
+        assertThat(new CatalogRegistry(underTest).register("0001", overrides.build()).getBundleCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testWriteIsRepeatable() throws IOException {
+        CatalogSnapshot.write(catalog(), file);
+        val original = Files.readAllBytes(file);
+
+        // A snapshot written from a loaded snapshot is identical, and replaces the file
+        val copy = directory.resolve("copy.cks");
+        CatalogSnapshot.write(CatalogSnapshot.load(file), copy);
+        CatalogSnapshot.write(CatalogSnapshot.load(copy), file);
+        assertThat(Files.readAllBytes(copy)).isEqualTo(original);
+        assertThat(Files.readAllBytes(file)).isEqualTo(original);
+    }
+
+    @Test
+    public void testEmptyCatalog() throws IOException {
+        CatalogSnapshot.write(PricingCatalog.builder().build(), file);
+
+        val underTest = CatalogSnapshot.load(file);
+        assertThat(underTest.isEmpty()).isTrue();
+        assertThat(underTest.idOf('A')).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf("AB")).isEqualTo(UNKNOWN_SKU);
+    }
+
+    @Test
+    public void testLoadRejectsInvalidSnapshots() throws IOException {
+        CatalogSnapshot.write(catalog(), file);
+        val bytes = Files.readAllBytes(file);
+
+        // Corrupt payload is caught by the checksum, unless verification is skipped
+        val corrupt = bytes.clone();
+        corrupt[CatalogSnapshot.HEADER_SIZE + CatalogSnapshot.UNIT_PRICE + 7] ^= 1;
+        Files.write(file, corrupt);
+        assertThatThrownBy(() -> CatalogSnapshot.load(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("checksum mismatch");
+        assertThat(CatalogSnapshot.load(file, false).getUnitPriceMinor(0)).isEqualTo(5001);
+
+        // Truncated
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThatThrownBy(() -> CatalogSnapshot.load(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Corrupt catalog snapshot");
+
+        // Unsupported version
+        val version = bytes.clone();
+        ByteBuffer.wrap(version).putInt(4, CatalogSnapshot.VERSION + 1);
+        Files.write(file, version);
+        assertThatThrownBy(() -> CatalogSnapshot.load(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("unsupported version");
+
+        // Discounts are loaded separately
+        assertThatThrownBy(() -> CatalogSnapshot.write(catalog().withStages(List.of(BasketStages.cap(10))), file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot hold basket discounts");
+
+        // Not a snapshot
+        Files.write(file, "A,50,3 for 130;B,30,2 for 45".getBytes());
+        assertThatThrownBy(() -> CatalogSnapshot.load(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("is not a catalog snapshot");
+    }
+}
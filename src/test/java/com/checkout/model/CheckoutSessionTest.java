@@ -0,0 +1,132 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CheckoutSessionTest {
+
+    private PricingCatalog catalog;
+
+    @Before
+    public void setUp() {
+        catalog = PricingCatalog.compile(List.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45)),
+                new PricingRule("C", 20)
+        ));
+    }
+
+    @Test
+    public void testScan() {
+        val underTest = new CheckoutSession(catalog);
+        assertThat(underTest.total()).isZero();
+
+        // Happy Path - running total crosses special-price boundaries
+        assertThat(underTest.scan("A")).isEqualTo(5_000);
+        assertThat(underTest.scan("B")).isEqualTo(8_000);
+        assertThat(underTest.scan("A")).isEqualTo(13_000);
+        assertThat(underTest.scan("B")).isEqualTo(14_500);
+        assertThat(underTest.scan("A")).isEqualTo(17_500);
+        assertThat(underTest.getCount("A")).isEqualTo(3);
+        assertThat(underTest.getItemCount()).isEqualTo(5);
+
+        // SKU is not in the catalog
+        assertThatThrownBy(() -> underTest.scan("D")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> underTest.scan(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testScanWithBundles() {
+        val underTest = new CheckoutSession(PricingCatalog.compile(List.of(
+                new PricingRule("A", 50), new PricingRule("B", 30), new PricingRule("C", 20), new PricingRule("A+B+C", 60))));
+
+        // Completing the bundle re-prices the items already scanned
+        assertThat(underTest.scan("A")).isEqualTo(5_000);
+        assertThat(underTest.scan("B")).isEqualTo(8_000);
+        assertThat(underTest.scan("C")).isEqualTo(6_000);
+        assertThat(underTest.voidItem("B")).isEqualTo(7_000);
+
+        // Sessions on the same thread re-price their own baskets
+        val other = new CheckoutSession(underTest.getCatalog());
+        assertThat(other.scan("B")).isEqualTo(3_000);
+        assertThat(underTest.scan("B")).isEqualTo(6_000);
+        assertThat(other.total()).isEqualTo(3_000);
+        assertThat(underTest.total()).isEqualTo(underTest.getCatalog().totalMinor(underTest.toBasketCounts()));
+    }
+
+    @Test
+    public void testScanWithStages() {
+        val underTest = new CheckoutSession(PricingCatalog.compile(List.of(new PricingRule("A", 50), new PricingRule("B", 30)))
+                .withStages(List.of(BasketStages.percentOff(10, List.of()))));
+
+        // Basket discounts apply to the running total of a catalog without bundles
+        assertThat(underTest.scan("A")).isEqualTo(4_500);
+        assertThat(underTest.scan("A")).isEqualTo(9_000);
+        assertThat(underTest.scan("B")).isEqualTo(11_700);
+        assertThat(underTest.voidItem("A")).isEqualTo(7_200);
+    }
+
+    @Test
+    public void testVoidItem() {
+        val underTest = new CheckoutSession(catalog);
+
+        // Nothing has been scanned
+        assertThatThrownBy(() -> underTest.voidItem("A")).isInstanceOf(IllegalStateException.class);
+
+        // Happy Path
+        underTest.scan("A");
+        underTest.scan("A");
+        underTest.scan("A");
+        assertThat(underTest.voidItem("A")).isEqualTo(10_000);
+        assertThat(underTest.voidItem("A")).isEqualTo(5_000);
+        assertThat(underTest.voidItem("A")).isZero();
+        assertThatThrownBy(() -> underTest.voidItem("A")).isInstanceOf(IllegalStateException.class);
+        assertThat(underTest.getItemCount()).isZero();
+    }
+
+    @Test
+    public void testTotalMatchesBasketPricing() {
+        val random = new Random(3);
+        val skus = new String[]{"A", "B", "C"};
+        val underTest = new CheckoutSession(catalog);
+        for (var i = 0; i < 10_000; i++) {
+            val sku = skus[random.nextInt(skus.length)];
+            if (random.nextInt(4) == 0 && underTest.getCount(sku) > 0) {
+                underTest.voidItem(sku);
+            } else {
+                underTest.scan(sku);
+            }
+
+            val basket = underTest.toBasketCounts();
+            var expected = 0L;
+            for (var j = 0; j < basket.distinctSkus(); j++) {
+                expected += catalog.linePriceMinor(basket.skuAt(j), basket.getCount(basket.skuAt(j)));
+            }
+            assertThat(underTest.total()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testManySkus() {
+        val rules = new ArrayList<PricingRule>();
+        for (var c = 'A'; c <= 'Z'; c++) rules.add(new PricingRule(String.valueOf(c), 1));
+        val underTest = new CheckoutSession(PricingCatalog.compile(rules));
+
+        // The table grows past its initial capacity
+        for (var c = 'A'; c <= 'Z'; c++) underTest.scan(String.valueOf(c));
+        assertThat(underTest.total()).isEqualTo(26 * 100);
+        for (var c = 'A'; c <= 'Z'; c++) assertThat(underTest.getCount(String.valueOf(c))).isEqualTo(1);
+    }
+}
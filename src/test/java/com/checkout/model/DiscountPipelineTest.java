@@ -0,0 +1,160 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.checkout.model.BasketStages.cap;
+import static com.checkout.model.BasketStages.percentOff;
+import static com.checkout.model.BasketStages.spendAndSave;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DiscountPipelineTest {
+    private static final List<String> BASKET = Collections.emptyList();
+
+    private static PricingCatalog catalog(boolean bundles) {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 0, 0);
+        builder.add("C", 20, 0, 0);
+        builder.add("D", 0.15, 0, 0);
+        if (bundles) builder.addBundle("B+C", Arrays.asList("B", "C"), 40);
+        return builder.build();
+    }
+
+    private static BasketCounts basket(PricingCatalog catalog, String items) {
+        val counts = new BasketCounts(catalog.size());
+        for (val item : items.toCharArray()) {
+            counts.add(catalog.idOf(item));
+        }
+        return counts;
+    }
+
+    private static long total(List<BasketStage> stages, String items) {
+        val catalog = catalog(false).withStages(stages);
+        return catalog.totalMinor(basket(catalog, items));
+    }
+
+    @Test
+    public void testTotalMinor() {
+        // Happy Path - AAABC is 180 before any discount
+        assertThat(total(List.of(spendAndSave(15000, 2000, BASKET)), "AAABC")).isEqualTo(16000);
+        assertThat(total(List.of(spendAndSave(18001, 2000, BASKET)), "AAABC")).isEqualTo(18000);
+        assertThat(total(List.of(percentOff(10, BASKET)), "AAABC")).isEqualTo(16200);
+        assertThat(total(List.of(percentOff(20, List.of("B", "C"))), "AAABC")).isEqualTo(17000);
+        assertThat(total(List.of(spendAndSave(5000, 500, List.of("B", "C"))), "AAABC")).isEqualTo(17500);
+        assertThat(total(List.of(spendAndSave(5000, 500, List.of("B", "C"))), "AAAB")).isEqualTo(16000);
+
+        // Stages apply in order, each to the total left by the ones before it
+        assertThat(total(List.of(spendAndSave(15000, 2000, BASKET), percentOff(10, BASKET)), "AAABC")).isEqualTo(14400);
+        assertThat(total(List.of(percentOff(10, BASKET), spendAndSave(15000, 2000, BASKET)), "AAABC")).isEqualTo(14200);
+        assertThat(total(List.of(percentOff(50, BASKET), cap(1500)), "AAABC")).isEqualTo(16500);
+        assertThat(total(List.of(cap(1500), percentOff(50, BASKET)), "AAABC")).isEqualTo(9000);
+
+        // Discounts are rounded down to a whole minor unit, and totals stay between zero and the undiscounted total
+        assertThat(total(List.of(percentOff(10, BASKET)), "D")).isEqualTo(14);
+        assertThat(total(List.of(spendAndSave(10, 100, BASKET)), "D")).isEqualTo(0);
+        assertThat(total(List.of(percentOff(10, BASKET)), "")).isZero();
+
+        // A stage for particular SKUs never takes off more than is left
+        assertThat(total(List.of(spendAndSave(100, 17000, BASKET), percentOff(100, List.of("A"))), "AAABC")).isZero();
+        assertThat(total(List.of(spendAndSave(100, 17000, BASKET), percentOff(50, List.of("A"))), "AAABC")).isEqualTo(500);
+    }
+
+    @Test
+    public void testTotalMinorWithBundles() {
+        val catalog = catalog(true).withStages(List.of(percentOff(10, BASKET)));
+
+        // Happy Path - the bundle saving comes first, at 130 + 40
+        assertThat(catalog.totalMinor(basket(catalog, "AAABC"))).isEqualTo(15300);
+
+        // Stages for particular SKUs discount their lines before any bundle saving
+        val scoped = catalog(true).withStages(List.of(percentOff(50, List.of("C"))));
+        assertThat(scoped.totalMinor(basket(scoped, "AAABC"))).isEqualTo(16000);
+        assertThat(scoped.getBundleCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWithStages() {
+        val base = catalog(false);
+        val stages = List.of(spendAndSave(15000, 2000, BASKET), percentOff(10, List.of("A")));
+
+        // Happy Path
+        val underTest = base.withStages(stages);
+        assertThat(underTest.size()).isEqualTo(base.size());
+        assertThat(underTest.getStageCount()).isEqualTo(2);
+        assertThat(underTest.getStage(1).getRule()).isEqualTo("percent,10,A");
+        assertThat(base.getStageCount()).isZero();
+        assertThat(base.withStages(Collections.emptyList())).isSameAs(base);
+
+        // The fingerprint follows the stages and their order
+        assertThat(underTest.getFingerprint()).isNotEqualTo(base.getFingerprint());
+        assertThat(catalog(false).withStages(stages).getFingerprint()).isEqualTo(underTest.getFingerprint());
+        val reversed = new ArrayList<>(stages);
+        Collections.reverse(reversed);
+        assertThat(base.withStages(reversed).getFingerprint()).isNotEqualTo(underTest.getFingerprint());
+
+        // Invalid stages
+        assertThatThrownBy(() -> base.withStages(List.of(percentOff(10, List.of("Z")))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Discount percent,10,Z applies to unknown SKU Z");
+        val tooMany = new ArrayList<BasketStage>();
+        for (var i = 0; i <= DiscountPipeline.MAX_SCOPED_STAGES; i++) tooMany.add(percentOff(1, List.of("A")));
+        assertThatThrownBy(() -> base.withStages(tooMany))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most 64 discounts");
+        assertThatThrownBy(() -> underTest.withStages(stages)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testStoreCatalogsAndTimelines() {
+        val base = catalog(false).withStages(List.of(percentOff(10, List.of("A")), cap(1000)));
+
+        // Store catalogs keep the stages, and SKUs they add belong to no stage's SKUs
+        val overrides = PricingCatalog.builder();
+        overrides.add("A", 40, 0, 0);
+        overrides.add("E", 100, 0, 0);
+        val store = new CatalogRegistry(base).register("0001", overrides.build());
+        assertThat(store.getStageCount()).isEqualTo(2);
+        val counts = basket(store, "AAE");
+        assertThat(store.totalMinor(counts)).isEqualTo(8000 - 800 + 10000);
+
+        // Every version of a timeline gets the stages
+        val saturday = Instant.parse("2026-06-06T00:00:00Z");
+        val timeline = PricingTimeline.builder()
+                .add(new PricingRule("A", 40, null, saturday, null))
+                .build(catalog(false))
+                .withStages(List.of(percentOff(10, List.of("A"))));
+        assertThat(timeline.getBase().getStageCount()).isEqualTo(1);
+        assertThat(timeline.catalogAt(0).totalMinor(basket(timeline.getBase(), "AAAB"))).isEqualTo(13000 - 1300 + 3000);
+        assertThat(timeline.catalogAt(saturday).totalMinor(basket(timeline.getBase(), "AAAB"))).isEqualTo(12000 - 1200 + 3000);
+        assertThat(timeline.catalogAt(saturday).getFingerprint()).isNotEqualTo(timeline.getBase().getFingerprint());
+    }
+
+    @Test
+    public void testPluggableStage() {
+        // A stage that halves every basket with an odd total
+        val stage = new BasketStage() {
+            @Override
+            public long apply(long totalMinor, long eligibleMinor, long subtotalMinor) {
+                return totalMinor % 2 == 1 ? totalMinor / 2 : totalMinor;
+            }
+
+            @Override
+            public String getRule() {
+                return "odd,50";
+            }
+        };
+        assertThat(total(List.of(stage), "D")).isEqualTo(7);
+        assertThat(total(List.of(stage), "DD")).isEqualTo(30);
+    }
+}
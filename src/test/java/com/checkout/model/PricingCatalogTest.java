@@ -0,0 +1,267 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PricingCatalogTest {
+
+    @Test
+    public void testCompile() {
+        // Rules are null, empty or contain null rules
+        assertThat(PricingCatalog.compile(null).isEmpty()).isTrue();
+        assertThat(PricingCatalog.compile(emptySet()).isEmpty()).isTrue();
+        assertThat(PricingCatalog.compile(asList(null, new PricingRule(null, 10))).isEmpty()).isTrue();
+
+        // Duplicate items - first rule wins
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 50), new PricingRule("A", 30)));
+        assertThat(catalog.size()).isEqualTo(1);
+        assertThat(catalog.getUnitPrice(catalog.idOf('A'))).isEqualTo(50);
+
+        // Happy Path
+        val rules = List.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45)),
+                new PricingRule("C", 20)
+        );
+        val compiled = PricingCatalog.compile(rules);
+        assertThat(compiled.size()).isEqualTo(3);
+        for (val rule : rules) {
+            val id = compiled.idOf(rule.getItem());
+            assertThat(compiled.getItem(id)).isEqualTo(rule.getItem());
+            assertThat(compiled.getUnitPrice(id)).isEqualTo(rule.getUnitPrice());
+        }
+        assertThat(compiled.hasSpecialPrice(compiled.idOf('A'))).isTrue();
+        assertThat(compiled.getSpecialQuantity(compiled.idOf('A'))).isEqualTo(3);
+        assertThat(compiled.getSpecialValue(compiled.idOf('A'))).isEqualTo(130);
+        assertThat(compiled.hasSpecialPrice(compiled.idOf('C'))).isFalse();
+    }
+
+    @Test
+    public void testCompileMinorUnits() {
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 0.5, new MutablePair<>(3,1)), new PricingRule("B", 19.99)));
+        assertThat(catalog.getUnitPriceMinor(catalog.idOf('A'))).isEqualTo(50);
+        assertThat(catalog.getSpecialValueMinor(catalog.idOf('A'))).isEqualTo(100);
+        assertThat(catalog.getUnitPriceMinor(catalog.idOf('B'))).isEqualTo(1999);
+
+        // Prices with fractions of a penny are rejected
+        assertThatThrownBy(() -> PricingCatalog.compile(List.of(new PricingRule("A", 0.333)))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(PricingCatalog.isWholeMinorUnits(19.99)).isTrue();
+        assertThat(PricingCatalog.isWholeMinorUnits(50)).isTrue();
+        assertThat(PricingCatalog.isWholeMinorUnits(0.333)).isFalse();
+        assertThat(PricingCatalog.isWholeMinorUnits(Double.NaN)).isFalse();
+    }
+
+    @Test
+    public void testIdOf() {
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 50), new PricingRule("BC", 30)));
+
+        // SKU is null or not in the catalog
+        assertThat(catalog.idOf(null)).isEqualTo(PricingCatalog.UNKNOWN_SKU);
+        assertThat(catalog.idOf('Z')).isEqualTo(PricingCatalog.UNKNOWN_SKU);
+        assertThat(catalog.idOf('\uffff')).isEqualTo(PricingCatalog.UNKNOWN_SKU);
+        assertThat(catalog.idOf("D")).isEqualTo(PricingCatalog.UNKNOWN_SKU);
+
+        // Happy Path
+        assertThat(catalog.idOf('A')).isEqualTo(catalog.idOf("A"));
+        assertThat(catalog.getItem(catalog.idOf("BC"))).isEqualTo("BC");
+    }
+
+    @Test
+    public void testLinePrice() {
+        val catalog = PricingCatalog.compile(List.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("C", 20)
+        ));
+        val a = catalog.idOf('A');
+        val c = catalog.idOf('C');
+
+        // No special price
+        assertThat(catalog.linePrice(c, 0)).isZero();
+        assertThat(catalog.linePrice(c, 3)).isEqualTo(60);
+
+        // Special price
+        assertThat(catalog.linePrice(a, 2)).isEqualTo(100);
+        assertThat(catalog.linePrice(a, 3)).isEqualTo(130);
+        assertThat(catalog.linePrice(a, 4)).isEqualTo(180);
+        assertThat(catalog.linePrice(a, 9)).isEqualTo(390);
+
+        // Uncompiled rules, which may have prices in fractions of a penny, are priced the same way
+        for (var count = 0; count < 20; count++) {
+            assertThat(PricingCatalog.linePrice(50, 3, 130, count)).isEqualTo(catalog.linePrice(a, count));
+        }
+        assertThat(PricingCatalog.linePrice(0.125, 0, 0, 4)).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testLinePriceMinor() {
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 50, new MutablePair<>(3,130)), new PricingRule("C", 0.2)));
+        val a = catalog.idOf('A');
+        val c = catalog.idOf('C');
+
+        assertThat(catalog.linePriceMinor(c, 3)).isEqualTo(60);
+        assertThat(catalog.linePriceMinor(a, 4)).isEqualTo(18_000);
+        assertThat(catalog.linePriceMinor(a, 12)).isEqualTo(20_000);
+
+        // Overflow is detected
+        val expensive = PricingCatalog.compile(List.of(new PricingRule("A", 5e16)));
+        assertThatThrownBy(() -> expensive.linePriceMinor(0, 2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    public void testLineBranch() {
+        val catalog = PricingCatalog.compile(List.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 50, List.of(new MutablePair<>(3, 130), new MutablePair<>(5, 200))),
+                new PricingRule("C", 20)
+        ));
+        val a = catalog.idOf('A');
+        val b = catalog.idOf('B');
+        val c = catalog.idOf('C');
+
+        // No special price
+        assertThat(catalog.lineBranch(c, 3)).isEqualTo(LineBranch.UNIT_PRICE);
+        assertThat(catalog.lineOfferUnits(c, 3)).isZero();
+        assertThat(catalog.lineRemainder(c, 3)).isEqualTo(3);
+
+        // Special price, and where the original arithmetic does not apply it
+        assertThat(catalog.lineBranch(a, 4)).isEqualTo(LineBranch.SPECIAL_PRICE);
+        assertThat(catalog.lineOfferUnits(a, 4)).isEqualTo(1);
+        assertThat(catalog.lineRemainder(a, 4)).isEqualTo(1);
+        assertThat(catalog.lineBranch(a, 12)).isEqualTo(LineBranch.SPECIAL_NOT_APPLIED);
+        assertThat(catalog.lineOfferUnits(a, 12)).isEqualTo(4);
+        assertThat(catalog.lineRemainder(a, 12)).isZero();
+
+        // Several offers, within and beyond the price table
+        assertThat(catalog.lineBranch(b, 8)).isEqualTo(LineBranch.PRICE_TABLE);
+        assertThat(catalog.lineOfferUnits(b, 8)).isZero();
+        assertThat(catalog.lineRemainder(b, 8)).isEqualTo(8);
+        assertThat(catalog.lineBranch(b, 1_000_003)).isEqualTo(LineBranch.PRICE_TABLE_REPEATED);
+        assertThat((long) catalog.lineOfferUnits(b, 1_000_003) * 5 + catalog.lineRemainder(b, 1_000_003)).isEqualTo(1_000_003);
+        assertThat(catalog.lineRemainder(b, 1_000_003)).isLessThan(PricingCatalog.DEFAULT_PRICE_TABLE_SIZE);
+    }
+
+    @Test
+    public void testLinePriceMinorMatchesLinePrice() {
+        val random = new Random(7);
+        for (var trial = 0; trial < 1000; trial++) {
+            val unitPrice = random.nextInt(10_000) / 4d;
+            val rule = random.nextBoolean()
+                    ? new PricingRule("A", unitPrice, new MutablePair<>(1 + random.nextInt(6), random.nextInt(500)))
+                    : new PricingRule("A", unitPrice);
+            val catalog = PricingCatalog.compile(List.of(rule));
+            for (var count = 0; count < 200; count++) {
+                assertThat(catalog.linePriceMinor(0, count)).isEqualTo(Math.round(catalog.linePrice(0, count) * 100));
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleOffers() {
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 50, List.of(new MutablePair<>(3, 130), new MutablePair<>(5, 200)))));
+        assertThat(catalog.getOfferCount(0)).isEqualTo(2);
+        assertThat(catalog.getOfferQuantity(0, 1)).isEqualTo(5);
+        assertThat(catalog.getOfferValue(0, 1)).isEqualTo(200);
+        assertThat(catalog.getSpecialQuantity(0)).isEqualTo(3);
+
+        // Happy Path: the cheapest combination of offers and single units
+        assertThat(catalog.linePriceMinor(0, 2)).isEqualTo(10_000);
+        assertThat(catalog.linePriceMinor(0, 3)).isEqualTo(13_000);
+        assertThat(catalog.linePriceMinor(0, 6)).isEqualTo(25_000);
+        assertThat(catalog.linePriceMinor(0, 8)).isEqualTo(33_000);
+        assertThat(catalog.linePriceMinor(0, 12)).isEqualTo(50_000);
+        assertThat(catalog.linePrice(0, 12)).isEqualTo(500);
+
+        // Beyond the price table
+        assertThat(catalog.linePriceMinor(0, 1_000_003)).isEqualTo(4_000_000_000L + 13_000);
+
+        // Offer quantity must be positive
+        assertThatThrownBy(() -> PricingCatalog.compile(List.of(new PricingRule("A", 50, List.of(new MutablePair<>(0, 1), new MutablePair<>(2, 1))))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testCheckPrices() {
+        // Happy Path
+        PricingCatalog.checkPrices("A", 50, null);
+        PricingCatalog.checkPrices("A", 0.5, List.of(new MutablePair<>(3, 130)));
+        PricingCatalog.checkPrices("A", 50, List.of(new MutablePair<>(3, 130), new MutablePair<>(5, 200)));
+
+        // The same prices the builder rejects
+        assertThatThrownBy(() -> PricingCatalog.checkPrices("A", 50.001, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PricingCatalog.checkPrices("A", 50, List.of(new MutablePair<>(0, 1), new MutablePair<>(2, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PricingCatalog.checkPrices("A", 50, List.of(new MutablePair<>(1, 1), new MutablePair<>(PricingCatalog.MAX_PRICE_TABLE_SIZE, 1))))
+                .hasMessageContaining("need a price table");
+    }
+
+    @Test
+    public void testMultipleOffersMatchBruteForce() {
+        val random = new Random(11);
+        for (var trial = 0; trial < 200; trial++) {
+            val unitPrice = 1 + random.nextInt(100);
+            val offers = new ArrayList<Pair<Integer, Integer>>();
+            val offerCount = 2 + random.nextInt(3);
+            for (var i = 0; i < offerCount; i++) {
+                val quantity = 2 + random.nextInt(9);
+                offers.add(new MutablePair<>(quantity, random.nextInt(quantity * unitPrice + 1)));
+            }
+            val builder = PricingCatalog.builder().priceTableSize(1 + random.nextInt(20));
+            builder.add("A", unitPrice, offers);
+            val compiled = builder.build();
+
+            // Unbounded knapsack solved directly up to well beyond the table
+            val expected = new long[1000];
+            for (var count = 1; count < expected.length; count++) {
+                expected[count] = expected[count - 1] + unitPrice * 100L;
+                for (val offer : offers) {
+                    if (offer.getLeft() <= count) expected[count] = Math.min(expected[count], expected[count - offer.getLeft()] + offer.getRight() * 100L);
+                }
+                assertThat(compiled.linePriceMinor(0, count)).isEqualTo(expected[count]);
+            }
+        }
+    }
+
+    @Test
+    public void testBundles() {
+        val catalog = PricingCatalog.compile(List.of(
+                new PricingRule("A", 50, new MutablePair<>(3, 130)),
+                new PricingRule("B", 30),
+                new PricingRule("C", 20),
+                new PricingRule("C+B+B", 70),
+                new PricingRule("B+B+C", 75),
+                new PricingRule("B+C", 50),
+                new PricingRule("A+B", 90)));
+
+        // Happy Path: components are sorted by SKU id and repeated SKUs are counted
+        assertThat(catalog.getBundleCount()).isEqualTo(2);
+        assertThat(catalog.getBundleName(0)).isEqualTo("C+B+B");
+        assertThat(catalog.getBundleComponentCount(0)).isEqualTo(2);
+        assertThat(catalog.getBundleComponentId(0, 0)).isEqualTo(catalog.idOf('B'));
+        assertThat(catalog.getBundleComponentQuantity(0, 0)).isEqualTo(2);
+        assertThat(catalog.getBundlePriceMinor(0)).isEqualTo(7_000);
+
+        // B+C saves nothing over its unit prices, but A+B may beat A's special price arithmetic
+        assertThat(catalog.getBundleName(1)).isEqualTo("A+B");
+        assertThat(catalog.idOf("A+B")).isEqualTo(PricingCatalog.UNKNOWN_SKU);
+
+        // Bundle contains an unknown SKU or a single item
+        assertThatThrownBy(() -> PricingCatalog.compile(List.of(new PricingRule("A", 50), new PricingRule("A+D", 40))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown SKU D");
+        assertThatThrownBy(() -> PricingCatalog.builder().addBundle("A", List.of("A"), 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,11 +1,16 @@
 package com.checkout.model;
 
+import lombok.val;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.time.Instant;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PricingRuleTest {
@@ -19,5 +24,50 @@ public class PricingRuleTest {
         // Special price is null
         pricingRule = PricingRule.builder().build();
         assertThat(pricingRule.getFormattedSpecialPrice()).isEmpty();
+
+        // Several offers
+        pricingRule = new PricingRule("A", 50, List.of(new ImmutablePair<>(3, 130), new ImmutablePair<>(5, 200)));
+        assertThat(pricingRule.getFormattedSpecialPrice()).isEqualTo("3 for 130 | 5 for 200");
+        assertThat(pricingRule.getSpecialPrice()).isEqualTo(new ImmutablePair<>(3, 130));
+    }
+
+    @Test
+    public void testParseWindow() {
+        // Happy Path
+        var window = PricingRule.parseWindow("2026-06-06T00:00Z..2026-06-08T01:00+01:00");
+        assertThat(window.getLeft()).isEqualTo(Instant.parse("2026-06-06T00:00:00Z"));
+        assertThat(window.getRight()).isEqualTo(Instant.parse("2026-06-08T00:00:00Z"));
+
+        // Open at either end
+        window = PricingRule.parseWindow(" ..2026-06-08T00:00Z");
+        assertThat(window.getLeft()).isNull();
+        assertThat(window.getRight()).isEqualTo(Instant.parse("2026-06-08T00:00:00Z"));
+        assertThat(PricingRule.parseWindow("2026-06-06T00:00Z..").getRight()).isNull();
+
+        // Invalid windows
+        assertThatThrownBy(() -> PricingRule.parseWindow("..")).hasMessageContaining("needs a start or an end");
+        assertThatThrownBy(() -> PricingRule.parseWindow("2026-06-06")).hasMessageContaining("expected <from>..<until>");
+        assertThatThrownBy(() -> PricingRule.parseWindow("2026-06-06..2026-06-08")).hasMessageContaining("not a date-time with an offset");
+        assertThatThrownBy(() -> PricingRule.parseWindow("2026-06-08T00:00Z..2026-06-08T00:00Z")).hasMessageContaining("ends before it starts");
+    }
+
+    @Test
+    public void testIsActiveAt() {
+        val saturday = Instant.parse("2026-06-06T00:00:00Z");
+        val monday = Instant.parse("2026-06-08T00:00:00Z");
+        val pricingRule = new PricingRule("A", 45, null, saturday, monday);
+
+        // Happy Path - the window includes its start and excludes its end
+        assertThat(pricingRule.isWindowed()).isTrue();
+        assertThat(pricingRule.isActiveAt(saturday)).isTrue();
+        assertThat(pricingRule.isActiveAt(saturday.minusMillis(1))).isFalse();
+        assertThat(pricingRule.isActiveAt(monday)).isFalse();
+        assertThat(pricingRule.getFormattedWindow()).isEqualTo("2026-06-06T00:00:00Z..2026-06-08T00:00:00Z");
+
+        // Rules without a window are always in effect
+        assertThat(new PricingRule("A", 50).isWindowed()).isFalse();
+        assertThat(new PricingRule("A", 50).isActiveAt(saturday)).isTrue();
+        assertThat(new PricingRule("A", 50).getFormattedWindow()).isEmpty();
+        assertThat(new PricingRule("A", 45, null, null, monday).getFormattedWindow()).isEqualTo("..2026-06-08T00:00:00Z");
     }
-}
\ No newline at end of file
+}
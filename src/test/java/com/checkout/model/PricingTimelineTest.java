@@ -0,0 +1,208 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PricingTimelineTest {
+    private static final Instant FRIDAY = Instant.parse("2026-06-05T00:00:00Z");
+    private static final Instant SATURDAY = Instant.parse("2026-06-06T00:00:00Z");
+    private static final Instant SATURDAY_EVENING = Instant.parse("2026-06-06T17:00:00Z");
+    private static final Instant SATURDAY_NIGHT = Instant.parse("2026-06-06T19:00:00Z");
+    private static final Instant MONDAY = Instant.parse("2026-06-08T00:00:00Z");
+
+    private static PricingCatalog base() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 0, 0);
+        builder.add("C", 20, 0, 0);
+        builder.addBundle("B+C", Arrays.asList("B", "C"), 48);
+        return builder.build();
+    }
+
+    private static List<Pair<Integer, Integer>> offer(int quantity, int value) {
+        return Collections.singletonList(new MutablePair<>(quantity, value));
+    }
+
+    private static BasketCounts basket(PricingCatalog catalog, String items) {
+        val counts = new BasketCounts(catalog.size());
+        for (val item : items.toCharArray()) {
+            counts.add(catalog.idOf(item));
+        }
+        return counts;
+    }
+
+    @Test
+    public void testBuild() {
+        val base = base();
+
+        // Happy Path - a weekend special on A and a happy hour on C on Saturday evening
+        val underTest = PricingTimeline.builder()
+                .add(new PricingRule("A", 50, offer(3, 120), SATURDAY, MONDAY))
+                .add(new PricingRule("C", 15, null, SATURDAY_EVENING, SATURDAY_NIGHT))
+                .build(base);
+        assertThat(underTest.getBase()).isSameAs(base);
+        assertThat(underTest.getVersionCount()).isEqualTo(5);
+        assertThat(underTest.getVersion(0)).isSameAs(base);
+        assertThat(underTest.getVersion(4)).isSameAs(base);
+        assertThat(underTest.getVersionStart(0)).isEqualTo(Long.MIN_VALUE);
+        assertThat(underTest.getVersionStart(1)).isEqualTo(SATURDAY.toEpochMilli());
+        assertThat(underTest.getVersionStart(2)).isEqualTo(SATURDAY_EVENING.toEpochMilli());
+        assertThat(underTest.getVersionStart(3)).isEqualTo(SATURDAY_NIGHT.toEpochMilli());
+        assertThat(underTest.getVersionStart(4)).isEqualTo(MONDAY.toEpochMilli());
+
+        // Versions share SKU ids, and the weekend special is held once in both of its versions
+        val counts = basket(base, "AAABC");
+        assertThat(underTest.catalogAt(FRIDAY).totalMinor(counts)).isEqualTo(13000 + 4800);
+        assertThat(underTest.catalogAt(SATURDAY).totalMinor(counts)).isEqualTo(12000 + 4800);
+        assertThat(underTest.catalogAt(SATURDAY_EVENING.minusMillis(1)).totalMinor(counts)).isEqualTo(12000 + 4800);
+        assertThat(underTest.catalogAt(SATURDAY_EVENING).totalMinor(counts)).isEqualTo(12000 + 3000 + 1500);
+        assertThat(underTest.catalogAt(SATURDAY_NIGHT).totalMinor(counts)).isEqualTo(12000 + 4800);
+        assertThat(underTest.catalogAt(MONDAY)).isSameAs(base);
+        assertThat(underTest.catalogAt(Long.MIN_VALUE)).isSameAs(base);
+        assertThat(underTest.catalogAt(Long.MAX_VALUE)).isSameAs(base);
+        assertThat(underTest.getVersion(2).getSkuTable().size()).isEqualTo(base.size());
+        assertThat(((OverlaySkuTable) underTest.getVersion(2).getSkuTable()).entryOf(base.idOf('A')))
+                .isSameAs(((OverlaySkuTable) underTest.getVersion(1).getSkuTable()).entryOf(base.idOf('A')));
+
+        // The bundle no longer saves anything while C is on happy hour, so it is dormant in that version only
+        assertThat(underTest.getVersion(2).getBundleCount()).isZero();
+        assertThat(underTest.getVersion(3).getBundleCount()).isEqualTo(1);
+        assertThat(underTest.getVersion(2).getFingerprint()).isNotEqualTo(underTest.getVersion(1).getFingerprint());
+    }
+
+    @Test
+    public void testBuildMergesAndOpenEndedWindows() {
+        val base = base();
+
+        // A window priced the same as the permanent rule adds no version, and windows may be open at either end
+        val underTest = PricingTimeline.builder()
+                .add(new PricingRule("A", 50, offer(3, 130), SATURDAY, MONDAY))
+                .add(new PricingRule("B", 25, null, null, SATURDAY))
+                .add(new PricingRule("C", 18, null, MONDAY, null))
+                .build(base);
+        assertThat(underTest.getVersionCount()).isEqualTo(3);
+        assertThat(underTest.catalogAt(FRIDAY).getUnitPrice(base.idOf('B'))).isEqualTo(25);
+        assertThat(underTest.catalogAt(SATURDAY)).isSameAs(base);
+        assertThat(underTest.catalogAt(MONDAY.plusSeconds(86_400 * 365)).getUnitPrice(base.idOf('C'))).isEqualTo(18);
+
+        // Without windows the timeline is just the base
+        assertThat(PricingTimeline.builder().build(base).getVersionCount()).isEqualTo(1);
+        assertThat(PricingTimeline.of(base).current()).isSameAs(base);
+    }
+
+    @Test
+    public void testBuildRejectsInvalidRules() {
+        val base = base();
+
+        // Overlapping windows for a SKU
+        assertThatThrownBy(() -> PricingTimeline.builder()
+                .add(new PricingRule("A", 45, null, SATURDAY, MONDAY))
+                .add(new PricingRule("A", 40, null, SATURDAY_EVENING, SATURDAY_NIGHT))
+                .build(base))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Rules for A overlap");
+
+        // Adjacent windows do not overlap
+        assertThat(PricingTimeline.builder()
+                .add(new PricingRule("A", 45, null, SATURDAY, SATURDAY_EVENING))
+                .add(new PricingRule("A", 40, null, SATURDAY_EVENING, MONDAY))
+                .build(base)
+                .getVersionCount()).isEqualTo(4);
+
+        // SKU without a permanent rule
+        assertThatThrownBy(() -> PricingTimeline.builder().add(new PricingRule("D", 45, null, SATURDAY, MONDAY)).build(base))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("D has no permanent rule");
+
+        // Rule without a window, or a bundle
+        assertThatThrownBy(() -> PricingTimeline.builder().add(new PricingRule("A", 45)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("has no validity window");
+        assertThatThrownBy(() -> PricingTimeline.builder().add(new PricingRule("B+C", 45, null, SATURDAY, MONDAY)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot have a validity window");
+    }
+
+    @Test
+    public void testCurrent() {
+        val clock = new MutableClock(FRIDAY.toEpochMilli());
+        val underTest = PricingTimeline.builder()
+                .add(new PricingRule("A", 45, null, SATURDAY, MONDAY))
+                .clock(clock)
+                .build(base());
+        val id = underTest.getBase().idOf('A');
+
+        // Happy Path - the cached version advances at the boundary
+        assertThat(underTest.current()).isSameAs(underTest.getBase());
+        clock.millis = SATURDAY.toEpochMilli() - 1;
+        assertThat(underTest.current()).isSameAs(underTest.getBase());
+        clock.millis = SATURDAY.toEpochMilli();
+        assertThat(underTest.current().getUnitPrice(id)).isEqualTo(45);
+        clock.millis = MONDAY.toEpochMilli();
+        assertThat(underTest.current()).isSameAs(underTest.getBase());
+
+        // The clock going backwards is followed too
+        clock.millis = SATURDAY_EVENING.toEpochMilli();
+        assertThat(underTest.current().getUnitPrice(id)).isEqualTo(45);
+    }
+
+    @Test
+    public void testCompile() {
+        val underTest = PricingTimeline.compile(Arrays.asList(
+                new PricingRule("A", 50, new MutablePair<>(3, 130)),
+                new PricingRule("A", 50, offer(3, 120), SATURDAY, MONDAY),
+                new PricingRule("B", 30)));
+        assertThat(underTest.getBase().size()).isEqualTo(2);
+        assertThat(underTest.getVersionCount()).isEqualTo(3);
+        assertThat(underTest.catalogAt(SATURDAY).getSpecialValueMinor(underTest.getBase().idOf('A'))).isEqualTo(12000);
+
+        // A plain catalog cannot hold rules with windows
+        assertThatThrownBy(() -> PricingCatalog.compile(List.of(new PricingRule("A", 50, offer(3, 120), SATURDAY, MONDAY))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("has a validity window");
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
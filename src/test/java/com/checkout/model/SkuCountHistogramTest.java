@@ -0,0 +1,62 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SkuCountHistogramTest {
+
+    private static PricingCatalog catalog() {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 20, 0, 0);
+        return builder.build();
+    }
+
+    @Test
+    public void testAdd() {
+        val catalog = catalog();
+        val underTest = new SkuCountHistogram(catalog);
+        val basket = new BasketCounts(catalog.size());
+
+        // Happy Path
+        basket.add(0, 3);
+        basket.add(2, 1);
+        underTest.add(basket);
+        basket.clear();
+        basket.add(0, 3);
+        underTest.add(basket);
+        underTest.addInvalid();
+
+        assertThat(underTest.getBaskets()).isEqualTo(2);
+        assertThat(underTest.getInvalidBaskets()).isEqualTo(1);
+        assertThat(underTest.getFrequency(0, 3)).isEqualTo(2);
+        assertThat(underTest.getFrequency(2, 1)).isEqualTo(1);
+        assertThat(underTest.getFrequency(1, 1)).isZero();
+        assertThat(underTest.getFrequency(0, 0)).isZero();
+        assertThat(underTest.distinctSkus()).isEqualTo(2);
+        assertThat(underTest.skuAt(0)).isZero();
+        assertThat(underTest.skuAt(1)).isEqualTo(2);
+        assertThat(underTest.getDistinctPairs()).isEqualTo(2);
+
+        // Large counts
+        underTest.add(1, 1_000, 5);
+        underTest.add(1, 1_000, 2);
+        underTest.add(1, SkuCountHistogram.DENSE_COUNTS, 1);
+        underTest.add(1, 2, 4);
+        assertThat(underTest.getFrequency(1, 1_000)).isEqualTo(7);
+        assertThat(underTest.getDistinctPairs()).isEqualTo(5);
+        assertThat(underTest.pairsOf(1)).containsExactly(2, 4, SkuCountHistogram.DENSE_COUNTS, 1, 1_000, 7);
+
+        // Zero frequencies and counts
+        underTest.add(1, 3, 0);
+        assertThat(underTest.getDistinctPairs()).isEqualTo(5);
+        assertThatThrownBy(() -> underTest.add(1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
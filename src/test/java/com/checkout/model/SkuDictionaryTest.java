@@ -0,0 +1,67 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.CharBuffer;
+
+import static com.checkout.model.SkuDictionary.UNKNOWN_SKU;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SkuDictionaryTest {
+
+    @Test
+    public void testOf() {
+        // SKUs are empty or duplicated
+        assertThatThrownBy(() -> SkuDictionary.of("A", "")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SkuDictionary.of("APL-001", "B", "APL-001")).isInstanceOf(IllegalArgumentException.class);
+
+        // Happy Path - ids are array indexes
+        val underTest = SkuDictionary.of("A", "APL-001", "B");
+        assertThat(underTest.size()).isEqualTo(3);
+        assertThat(underTest.skuOf(1)).isEqualTo("APL-001");
+        assertThat(SkuDictionary.of().size()).isZero();
+    }
+
+    @Test
+    public void testIdOf() {
+        val underTest = SkuDictionary.of("A", "APL-001", "BAN-002", "B");
+
+        // SKU is null, empty or not in the dictionary
+        assertThat(underTest.idOf((String) null)).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf("")).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf("APL")).isEqualTo(UNKNOWN_SKU);
+        assertThat(underTest.idOf('C')).isEqualTo(UNKNOWN_SKU);
+        assertThat(SkuDictionary.of().idOf("A")).isEqualTo(UNKNOWN_SKU);
+
+        // Happy Path
+        assertThat(underTest.idOf('A')).isZero();
+        assertThat(underTest.idOf("B")).isEqualTo(3);
+        assertThat(underTest.idOf("BAN-002")).isEqualTo(2);
+
+        // Regions of other character sequences
+        val basket = "APL-001,BAN-002";
+        assertThat(underTest.idOf(basket, 0, 7)).isEqualTo(1);
+        assertThat(underTest.idOf(basket, 8, 15)).isEqualTo(2);
+        assertThat(underTest.idOf(CharBuffer.wrap(basket.toCharArray()), 8, 15)).isEqualTo(2);
+        assertThat(underTest.idOf(basket, 0, 1)).isZero();
+        assertThat(underTest.idOf(basket, 3, 3)).isEqualTo(UNKNOWN_SKU);
+    }
+
+    @Test
+    public void testLargeDictionary() {
+        val skus = new String[200_000];
+        for (var i = 0; i < skus.length; i++) {
+            skus[i] = String.format("SKU-%06d", i);
+        }
+        val underTest = SkuDictionary.of(skus);
+        for (var i = 0; i < skus.length; i++) {
+            assertThat(underTest.idOf(skus[i])).isEqualTo(i);
+        }
+        assertThat(underTest.idOf("SKU-200000")).isEqualTo(UNKNOWN_SKU);
+    }
+}
@@ -0,0 +1,47 @@
+package com.checkout.model;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VarintsTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (val value : new long[]{0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1}) {
+            // Happy Path - the array and stream encodings are the same
+            val buffer = new byte[Varints.MAX_VARINT_BYTES];
+            val length = Varints.writeVarint(buffer, 0, value);
+            val bytes = new ByteArrayOutputStream();
+            Varints.writeVarint(new DataOutputStream(bytes), value);
+            assertThat(bytes.toByteArray()).isEqualTo(Arrays.copyOf(buffer, length));
+
+            assertThat(Varints.readVarint(ByteBuffer.wrap(buffer, 0, length))).isEqualTo(value);
+            assertThat(Varints.readVarint(new DataInputStream(new ByteArrayInputStream(buffer, 0, length)))).isEqualTo(value);
+        }
+        assertThat(Varints.writeVarint(new byte[Varints.MAX_VARINT_BYTES], 0, 127)).isEqualTo(1);
+        assertThat(Varints.writeVarint(new byte[Varints.MAX_VARINT_BYTES], 0, -1)).isEqualTo(Varints.MAX_VARINT_BYTES);
+    }
+
+    @Test
+    public void testReadRejectsMalformedInput() {
+        val continued = new byte[Varints.MAX_VARINT_BYTES + 1];
+        Arrays.fill(continued, (byte) 0x80);
+
+        assertThatThrownBy(() -> Varints.readVarint(ByteBuffer.wrap(continued))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Varints.readVarint(new DataInputStream(new ByteArrayInputStream(continued)))).isInstanceOf(IllegalStateException.class);
+    }
+}
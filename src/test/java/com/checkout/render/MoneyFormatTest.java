@@ -0,0 +1,50 @@
+package com.checkout.render;
+
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Random;
+
+import static java.text.NumberFormat.getCurrencyInstance;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MoneyFormatTest {
+
+    @Test
+    public void testFormat() {
+        // Happy Path
+        assertThat(MoneyFormat.format(0)).isEqualTo("£0.00");
+        assertThat(MoneyFormat.format(5)).isEqualTo("£0.05");
+        assertThat(MoneyFormat.format(13000)).isEqualTo("£130.00");
+        assertThat(MoneyFormat.format(123456789)).isEqualTo("£1,234,567.89");
+        assertThat(MoneyFormat.format(-150)).isEqualTo("-£1.50");
+        assertThat(MoneyFormat.format(Long.MIN_VALUE)).isEqualTo("-£92,233,720,368,547,758.08");
+        assertThat(MoneyFormat.format(Long.MAX_VALUE)).isEqualTo("£92,233,720,368,547,758.07");
+    }
+
+    @Test
+    public void testFormatMatchesNumberFormat() {
+        val currency = getCurrencyInstance(Locale.UK);
+        val random = new Random(17);
+        for (var i = 0; i < 10_000; i++) {
+            val minor = i < 2_000 ? i - 1_000 : random.nextLong() >> random.nextInt(64);
+            val expected = currency.format(BigDecimal.valueOf(minor, 2));
+
+            assertThat(MoneyFormat.format(minor)).isEqualTo(expected);
+            assertThat(MoneyFormat.length(minor)).isEqualTo(expected.length());
+        }
+    }
+
+    @Test
+    public void testAppend() {
+        // Appends to what is already in the builder
+        val builder = new StringBuilder("Total: ");
+        assertThat(MoneyFormat.append(builder, 4500)).isSameAs(builder);
+        assertThat(builder.toString()).isEqualTo("Total: £45.00");
+    }
+}
@@ -0,0 +1,107 @@
+package com.checkout.render;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.BasketStages;
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReceiptRendererTest {
+
+    private final ReceiptRenderer underTest = new ReceiptRenderer();
+
+    private static PricingCatalog catalog(boolean bundles) {
+        val builder = PricingCatalog.builder();
+        builder.add("A", 50, 3, 130);
+        builder.add("B", 30, 2, 45);
+        builder.add("C", 20, 0, 0);
+        if (bundles) builder.addBundle("B+C", Arrays.asList("B", "C"), 40);
+        return builder.build();
+    }
+
+    private static BasketCounts counts(PricingCatalog catalog, String basket) {
+        val counts = new BasketCounts(catalog.size());
+        for (val sku : basket.toCharArray()) {
+            counts.add(catalog.idOf(sku));
+        }
+        return counts;
+    }
+
+    private String render(PricingCatalog catalog, String basket) {
+        val counts = counts(catalog, basket);
+        return underTest.render(counts, catalog, catalog.totalMinor(counts), new StringBuilder()).toString();
+    }
+
+    @Test
+    public void testRender() {
+        val catalog = catalog(false);
+
+        // Happy Path
+        assertThat(render(catalog, "AAABC")).isEqualTo(
+                "A       x3     3 for 130     £130.00\n"
+                        + "B       x1                    £30.00\n"
+                        + "C       x1                    £20.00\n"
+                        + "Total                        £180.00\n");
+
+        // An offer is only labelled when it is applied
+        assertThat(render(catalog, "AA")).isEqualTo(
+                "A       x2                   £100.00\n"
+                        + "Total                        £100.00\n");
+    }
+
+    @Test
+    public void testRenderWithMultipleOffers() {
+        val catalog = PricingCatalog.compile(List.of(new PricingRule("A", 50, List.of(new MutablePair<>(3, 130), new MutablePair<>(5, 200)))));
+
+        // Happy Path - offers are described as in the rule table
+        assertThat(render(catalog, "AAAAA")).isEqualTo(
+                "A       x5     3 for 130 | 5 for 200     £200.00\n"
+                        + "Total                                    £200.00\n");
+    }
+
+    @Test
+    public void testRenderWithBundles() {
+        val catalog = catalog(true);
+
+        // Happy Path
+        assertThat(render(catalog, "ABC")).isEqualTo(
+                "A       x1                    £50.00\n"
+                        + "B       x1                    £30.00\n"
+                        + "C       x1                    £20.00\n"
+                        + "Bundles                      -£10.00\n"
+                        + "Total                         £90.00\n");
+    }
+
+    @Test
+    public void testRenderWithDiscounts() {
+        val catalog = catalog(true).withStages(List.of(BasketStages.percentOff(10, List.of())));
+
+        // Happy Path - bundle savings and discounts are shown together
+        assertThat(render(catalog, "ABC")).isEqualTo(
+                "A         x1                    £50.00\n"
+                        + "B         x1                    £30.00\n"
+                        + "C         x1                    £20.00\n"
+                        + "Discounts                      -£19.00\n"
+                        + "Total                           £81.00\n");
+    }
+
+    @Test
+    public void testRenderAppends() {
+        val catalog = catalog(false);
+        val counts = counts(catalog, "C");
+        val out = new StringBuilder("Receipt\n");
+
+        assertThat(underTest.render(counts, catalog, 2000, out)).isSameAs(out);
+        assertThat(out.toString()).startsWith("Receipt\nC ").endsWith("£20.00\n");
+    }
+}
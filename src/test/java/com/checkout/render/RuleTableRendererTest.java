@@ -0,0 +1,71 @@
+package com.checkout.render;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.model.PricingRule;
+import lombok.val;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Collections.emptySet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RuleTableRendererTest {
+
+    private static final String COLUMN_SPACE = "          ";
+
+    private final RuleTableRenderer underTest = new RuleTableRenderer();
+
+    @Test
+    public void testRenderRules() {
+        // Set of rules is null, empty or contains null rules
+        assertThat(RuleTableRenderer.render((Set<PricingRule>) null)).isEmpty();
+        assertThat(RuleTableRenderer.render(emptySet())).isEmpty();
+        assertThat(RuleTableRenderer.render(new HashSet<>(Arrays.asList(new PricingRule("A", 50), null)))).isEmpty();
+
+        // Happy Path
+        val rules = Set.of(
+                new PricingRule("C", 20),
+                new PricingRule("A", 50, new MutablePair<>(3, 130)),
+                new PricingRule("B", 30, new MutablePair<>(2, 45))
+        );
+        assertThat(RuleTableRenderer.render(rules)).isEqualTo(
+                "Item" + COLUMN_SPACE + "Unit Price" + COLUMN_SPACE + "Special Price\n"
+                        + "A" + COLUMN_SPACE + "50.0" + COLUMN_SPACE + "3 for 130\n"
+                        + "B" + COLUMN_SPACE + "30.0" + COLUMN_SPACE + "2 for 45\n"
+                        + "C" + COLUMN_SPACE + "20.0" + COLUMN_SPACE + "\n");
+    }
+
+    @Test
+    public void testRenderCatalog() {
+        val builder = PricingCatalog.builder();
+        builder.add("B", 30, 2, 45);
+        builder.add("A", 50, Arrays.asList(new MutablePair<>(3, 130), new MutablePair<>(5, 200)));
+        builder.add("C", 20, 0, 0);
+        builder.addBundle("A+B", Arrays.asList("A", "B"), 70);
+        val catalog = builder.build();
+
+        // Happy Path
+        val table = underTest.render(catalog);
+        assertThat(table).isEqualTo(
+                "Item" + COLUMN_SPACE + "Unit Price" + COLUMN_SPACE + "Special Price\n"
+                        + "A" + COLUMN_SPACE + "50.0" + COLUMN_SPACE + "3 for 130 | 5 for 200\n"
+                        + "A+B" + COLUMN_SPACE + "70.0" + COLUMN_SPACE + "\n"
+                        + "B" + COLUMN_SPACE + "30.0" + COLUMN_SPACE + "2 for 45\n"
+                        + "C" + COLUMN_SPACE + "20.0" + COLUMN_SPACE + "\n");
+
+        // The table of an unchanged catalog is reused, and re-rendered for a new catalog
+        assertThat(underTest.render(catalog)).isSameAs(table);
+        val changedBuilder = PricingCatalog.builder();
+        changedBuilder.add("A", 40, 0, 0);
+        val changed = changedBuilder.build();
+        assertThat(underTest.render(changed)).isEqualTo("Item" + COLUMN_SPACE + "Unit Price" + COLUMN_SPACE + "Special Price\n"
+                + "A" + COLUMN_SPACE + "40.0" + COLUMN_SPACE + "\n");
+    }
+}
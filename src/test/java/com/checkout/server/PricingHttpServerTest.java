@@ -0,0 +1,140 @@
+package com.checkout.server;
+
+import com.checkout.model.CatalogRegistry;
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.PricingCatalogSource;
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PricingHttpServerTest {
+
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicReference<PricingCatalog> catalog = new AtomicReference<>();
+    private PricingHttpServer underTest;
+
+    @Before
+    public void setUp() throws IOException {
+        catalog.set(pricingRuleService.compileRules(pricingRuleService.parseRules(new String[]{"A,50,3 for 130", "B,30,2 for 45", "C,20"})));
+        underTest = new PricingHttpServer(0, 2, 16, 64, new InputServiceImpl(), catalog::get);
+        underTest.start();
+    }
+
+    @After
+    public void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    public void testPrice() throws Exception {
+        // Happy Path
+        var response = post("/price", "AAAABBB\n");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("£255.00\n");
+
+        // Basket is invalid
+        response = post("/price", "ABX");
+        assertThat(response.statusCode()).isEqualTo(422);
+        assertThat(response.body()).isEqualTo("INVALID\n");
+
+        // Method is not POST
+        val get = client.send(HttpRequest.newBuilder(uri("/price")).GET().build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+        assertThat(get.statusCode()).isEqualTo(405);
+
+        // Body is too large
+        response = post("/price", "A".repeat(65));
+        assertThat(response.statusCode()).isEqualTo(413);
+    }
+
+    @Test
+    public void testPriceBatch() throws Exception {
+        // Happy Path - invalid baskets keep their line
+        val response = post("/price/batch", "AB\nX\nCC");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("£80.00\nINVALID\n£40.00\n");
+    }
+
+    @Test
+    public void testCatalogChange() throws Exception {
+        assertThat(post("/price", "C").body()).isEqualTo("£20.00\n");
+
+        // Requests after a change use the new catalog
+        catalog.set(pricingRuleService.compileRules(pricingRuleService.parseRules(new String[]{"C,25"})));
+        assertThat(post("/price", "C").body()).isEqualTo("£25.00\n");
+    }
+
+    @Test
+    public void testStore() throws Exception {
+        underTest.close();
+        val registry = new CatalogRegistry(catalog.get());
+        registry.register("0042", pricingRuleService.compileRules(pricingRuleService.parseRules(new String[]{"C,25", "D,10"})));
+        underTest = new PricingHttpServer(0, 1, 16, 64, new InputServiceImpl(), new PricingCatalogSource() {
+            @Override
+            public PricingCatalog current() {
+                return registry.getBase();
+            }
+
+            @Override
+            public PricingCatalog current(String store) {
+                return store == null ? registry.getBase() : registry.get(store);
+            }
+        });
+        underTest.start();
+
+        // Happy Path - requests switch between the base and the store on the same worker
+        assertThat(post("/price?store=0042", "ACD").body()).isEqualTo("£85.00\n");
+        assertThat(post("/price", "AC").body()).isEqualTo("£70.00\n");
+        assertThat(post("/price/batch?store=0042", "C\nD").body()).isEqualTo("£25.00\n£10.00\n");
+        assertThat(post("/price?store=0042&x=1", "C").body()).isEqualTo("£25.00\n");
+
+        // SKUs added by a store are only known to that store
+        assertThat(post("/price", "D").statusCode()).isEqualTo(422);
+
+        // Store is unknown
+        val response = post("/price?store=0043", "A");
+        assertThat(response.statusCode()).isEqualTo(404);
+        assertThat(response.body()).isEqualTo("Unknown store 0043\n");
+    }
+
+    @Test
+    public void testStoreOf() {
+        assertThat(PricingHttpServer.storeOf(null)).isNull();
+        assertThat(PricingHttpServer.storeOf("x=1")).isNull();
+        assertThat(PricingHttpServer.storeOf("x=1&store=0042")).isEqualTo("0042");
+        assertThat(PricingHttpServer.storeOf("store=north%20east")).isEqualTo("north east");
+        assertThat(PricingHttpServer.basketOf("store=0042&basket=R-1042")).isEqualTo("R-1042");
+        assertThat(PricingHttpServer.basketOf("store=0042")).isNull();
+    }
+
+    @Test
+    public void testHealth() throws Exception {
+        val response = client.send(HttpRequest.newBuilder(uri("/health")).GET().build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body, UTF_8)).build(),
+                HttpResponse.BodyHandlers.ofString(UTF_8));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + underTest.getPort() + path);
+    }
+}
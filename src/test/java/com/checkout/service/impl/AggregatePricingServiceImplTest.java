@@ -0,0 +1,64 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.SkuCountHistogram;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AggregatePricingServiceImplTest {
+
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+
+    @Test
+    public void testAddBaskets() throws IOException {
+        val catalog = pricingRuleService.loadCatalog(new StringReader("A,50,3 for 130;B,30,2 for 45;C,20"));
+
+        // Happy Path - lines span the buffer, and CRLF and a missing final line break are accepted
+        val underTest = new AggregatePricingServiceImpl(4);
+        val histogram = underTest.addBaskets(new StringReader("AAA\r\nABX\nBBC\nAAAB\nAAA"), new SkuCountHistogram(catalog));
+        assertThat(histogram.getBaskets()).isEqualTo(4);
+        assertThat(histogram.getInvalidBaskets()).isEqualTo(1);
+        assertThat(histogram.getFrequency(catalog.idOf('A'), 3)).isEqualTo(3);
+        assertThat(histogram.getFrequency(catalog.idOf('B'), 2)).isEqualTo(1);
+        assertThat(histogram.getFrequency(catalog.idOf('B'), 1)).isEqualTo(1);
+
+        // More baskets add to the same histogram
+        underTest.addBaskets(new StringReader("C\n"), histogram);
+        assertThat(histogram.getBaskets()).isEqualTo(5);
+        assertThat(histogram.getFrequency(catalog.idOf('C'), 1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testPriceMatchesBatchPricing() throws IOException {
+        val catalog = pricingRuleService.loadCatalog(new StringReader("A,50,3 for 130;B,30,2 for 45;C,20;D,12.5,4 for 40|10 for 90"));
+        val promotion = pricingRuleService.loadCatalog(new StringReader("A,45;B,30,3 for 60;C,20;D,12"));
+        val baskets = new StringBuilder();
+        for (var i = 0; i < 500; i++) {
+            baskets.append("ABCD", i % 4, 4).append("A".repeat(i % 7)).append("D".repeat(i % 13)).append('\n');
+        }
+
+        // Happy Path
+        val underTest = new AggregatePricingServiceImpl();
+        val histogram = underTest.addBaskets(new StringReader(baskets.toString()), new SkuCountHistogram(catalog));
+        val reports = underTest.price(histogram, Arrays.asList(catalog, promotion));
+
+        for (var candidate = 0; candidate < 2; candidate++) {
+            val totals = new StringWriter();
+            new BatchPricingServiceImpl(new InputServiceImpl()).priceBaskets(new StringReader(baskets.toString()), totals,
+                    candidate == 0 ? catalog : promotion);
+            val expected = Arrays.stream(totals.toString().split("\n"))
+                    .mapToLong(total -> Long.parseLong(total.replaceAll("[£,.]", "")))
+                    .sum();
+            assertThat(reports.get(candidate).getRevenueMinor()).isEqualTo(expected);
+        }
+    }
+}
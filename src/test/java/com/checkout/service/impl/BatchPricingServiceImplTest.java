@@ -0,0 +1,82 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static com.checkout.service.BatchPricingService.INVALID_BASKET;
+import static java.text.NumberFormat.getCurrencyInstance;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchPricingServiceImplTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private PricingCatalog catalog;
+
+    @Before
+    public void setUp() {
+        val pricingRuleService = new PricingRuleServiceImpl();
+        catalog = pricingRuleService.compileRules(pricingRuleService.parseRules(new String[]{"A,50,3 for 130", "B,30,2 for 45", "C,20"}));
+    }
+
+    @Test
+    public void testPriceBaskets() throws IOException {
+        val underTest = new BatchPricingServiceImpl(inputService);
+
+        // Input is empty
+        var totals = new StringWriter();
+        var report = underTest.priceBaskets(new StringReader(""), totals, catalog);
+        assertThat(totals.toString()).isEmpty();
+        assertThat(report.getBaskets()).isZero();
+
+        // Invalid baskets keep their line
+        totals = new StringWriter();
+        report = underTest.priceBaskets(new StringReader("AB\n\nA-B\nC\r\nCC"), totals, catalog);
+        assertThat(totals.toString().split("\n")).containsExactly("£80.00", INVALID_BASKET, INVALID_BASKET, "£20.00", "£40.00");
+        assertThat(report.getBaskets()).isEqualTo(5);
+        assertThat(report.getInvalidBaskets()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPriceBasketsMatchesInteractivePath() throws IOException {
+        val baskets = new String[]{"ABBABBA", "AAAABBB", "CCCCC", "AAAAAAAAAAAAB", "BBBBBBBBBBBC", "A"};
+        val currency = getCurrencyInstance(Locale.UK);
+        val expected = new StringBuilder();
+        for (val basket : baskets) {
+            expected.append(currency.format(inputService.calculateTotal(inputService.parseBasket(basket), catalog))).append('\n');
+        }
+
+        // Small buffers force baskets to straddle reads
+        for (val bufferSize : new int[]{1, 3, 7, BatchPricingServiceImpl.DEFAULT_BUFFER_SIZE}) {
+            val totals = new StringWriter();
+            new BatchPricingServiceImpl(inputService, bufferSize).priceBaskets(new StringReader(String.join("\n", baskets) + "\n"), totals, catalog);
+            assertThat(totals.toString()).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void testPriceBasketsWithReceipts() throws IOException {
+        val underTest = new BatchPricingServiceImpl(inputService, true);
+
+        // Happy Path
+        val totals = new StringWriter();
+        val report = underTest.priceBaskets(new StringReader("AAAAC\nA-B\n"), totals, catalog);
+        assertThat(totals.toString().split("\n")).containsExactly(
+                "A       x4     3 for 130     £180.00",
+                "C       x1                    £20.00",
+                "Total                        £200.00",
+                "",
+                INVALID_BASKET);
+        assertThat(report.getBaskets()).isEqualTo(2);
+        assertThat(report.getInvalidBaskets()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.checkout.service.impl;
+
+import com.checkout.cache.BasketTotalCache;
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingInputServiceTest {
+
+    private final CachingInputService underTest = new CachingInputService(new InputServiceImpl(), new BasketTotalCache(100));
+    private final PricingCatalog catalog = new PricingRuleServiceImpl().compileRules(
+            new PricingRuleServiceImpl().parseRules("A,50,3 for 130;B,30,2 for 45;C,20".split(";")));
+
+    @Test
+    public void testCalculateTotalMinor() {
+        // Happy Path
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket("AAABBC", catalog), catalog)).isEqualTo(19500);
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket("CBBAAA", catalog), catalog)).isEqualTo(19500);
+        assertThat(underTest.getCache().getHits()).isEqualTo(1);
+
+        // Empty basket or missing arguments are not cached
+        assertThat(underTest.calculateTotalMinor(new BasketCounts(catalog.size()), catalog)).isZero();
+        assertThat(underTest.calculateTotalMinor(null, catalog)).isZero();
+        assertThat(underTest.getCache().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCalculateTotal() {
+        // Happy Path - totals in major units go through the cache too
+        assertThat(underTest.calculateTotal(underTest.parseBasket("AAABBC", catalog), catalog)).isEqualTo(195);
+        assertThat(underTest.calculateTotal(underTest.parseBasket("CBBAAA"), catalog)).isEqualTo(195);
+        assertThat(underTest.getCache().getMisses()).isEqualTo(1);
+        assertThat(underTest.getCache().getHits()).isEqualTo(1);
+    }
+}
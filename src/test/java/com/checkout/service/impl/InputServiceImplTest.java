@@ -1,5 +1,8 @@
 package com.checkout.service.impl;
 
+import com.checkout.model.BasketCounts;
+import com.checkout.model.BasketStages;
+import com.checkout.model.PricingCatalog;
 import com.checkout.model.PricingRule;
 import lombok.val;
 import org.apache.commons.lang3.tuple.MutablePair;
@@ -9,13 +12,18 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @RunWith(MockitoJUnitRunner.class)
 public class InputServiceImplTest {
@@ -35,6 +43,22 @@ public class InputServiceImplTest {
         assertThat(underTest.loadPricingRules()).isEqualTo(inputRules);
     }
 
+    @Test
+    public void testLoadPricingRulesFromFile() throws IOException {
+        val file = Files.createTempFile("rules", ".txt");
+        try {
+            // Happy Path - rules may be split across lines
+            Files.write(file, List.of("A,50,3 for 130;B,30,2 for 45;", "", "C,20"));
+            assertThat(underTest.loadPricingRules(file)).isEqualTo("A,50,3 for 130;B,30,2 for 45;C,20");
+
+            // Rules are invalid
+            Files.write(file, List.of("A503 for 130"));
+            assertThatThrownBy(() -> underTest.loadPricingRules(file)).isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void testValidatePricingRules() {
         // Rules are null or empty or whitespace
@@ -56,12 +80,47 @@ public class InputServiceImplTest {
 
         // Rules contain duplicate SKUs
         assertThat(underTest.validatePricingRules("A,50,3 for 130;A,30,2 for 45;C,20")).isFalse();
+        assertThat(underTest.validatePricingRules("APL-001,50;BAN-002,30;apl-001,20")).isFalse();
 
         // Rules contain invalid special price
         assertThat(underTest.validatePricingRules("A,50,3 for 130;B,30,2-45;C,20")).isFalse();
 
+        // Rules contain a price that is not a number, or is in fractions of a penny
+        assertThat(underTest.validatePricingRules("A,abc;B,30")).isFalse();
+        assertThat(underTest.validatePricingRules("A,0.125;B,30")).isFalse();
+
         // Happy Path
         assertThat(underTest.validatePricingRules("A,50,3 for 130;B,30,2 for 45;C,20")).isTrue();
+
+        // Happy Path - prices in pence
+        assertThat(underTest.validatePricingRules("A,19.99;B,0.05")).isTrue();
+
+        // Happy Path - multi-character SKUs sharing a first letter
+        assertThat(underTest.validatePricingRules("APL-001,50,3 for 130;AVO-002,30;A,20")).isTrue();
+
+        // Happy Path - several offers for a SKU
+        assertThat(underTest.validatePricingRules("A,50,3 for 130|5 for 200;B,30")).isTrue();
+
+        // One of several offers is invalid
+        assertThat(underTest.validatePricingRules("A,50,3 for 130|5-200;B,30")).isFalse();
+        assertThat(underTest.validatePricingRules("A,50,3 for 130|;B,30")).isFalse();
+
+        // Happy Path - bundle deal
+        assertThat(underTest.validatePricingRules("A+B+C,60;A,50;B,30;C,20")).isTrue();
+
+        // Bundle contains an unknown SKU, or has a special price
+        assertThat(underTest.validatePricingRules("A+D,60;A,50;B,30")).isFalse();
+        assertThat(underTest.validatePricingRules("A+,60;A,50")).isFalse();
+        assertThat(underTest.validatePricingRules("A+B,60,2 for 100;A,50;B,30")).isFalse();
+
+        // Happy Path - rules with a validity window, which may have no special price
+        assertThat(underTest.validatePricingRules("A,50,3 for 130;A,50,3 for 120,2026-06-06T00:00Z..2026-06-08T00:00Z;B,30;b,25,,..2026-06-01T00:00Z")).isTrue();
+
+        // Rule with a validity window has no permanent rule, an invalid window or an invalid special price, or is a bundle
+        assertThat(underTest.validatePricingRules("A,50;B,30,2 for 45,2026-06-06T00:00Z..")).isFalse();
+        assertThat(underTest.validatePricingRules("A,50;A,45,,2026-06-06")).isFalse();
+        assertThat(underTest.validatePricingRules("A,50;A,45,2-40,2026-06-06T00:00Z..")).isFalse();
+        assertThat(underTest.validatePricingRules("A,50;B,30;A+B,60,,2026-06-06T00:00Z..")).isFalse();
     }
 
     @Test
@@ -98,6 +157,97 @@ public class InputServiceImplTest {
         assertThat(underTest.validateBasket("ABBABBA", pricingRules)).isTrue();
     }
 
+    @Test
+    public void testValidateBasketWithCatalog() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45)),
+                new PricingRule("1", 10)
+        ));
+
+        // Basket is null, empty or whitespace, or catalog is null
+        assertThat(underTest.validateBasket(null, catalog)).isFalse();
+        assertThat(underTest.validateBasket("", catalog)).isFalse();
+        assertThat(underTest.validateBasket("   ", catalog)).isFalse();
+        assertThat(underTest.validateBasket("AB", (PricingCatalog) null)).isFalse();
+
+        // Basket does not contain letters
+        assertThat(underTest.validateBasket("111", catalog)).isFalse();
+
+        // Basket items are not in the catalog
+        assertThat(underTest.validateBasket("CDB", catalog)).isFalse();
+
+        // Happy Path
+        assertThat(underTest.validateBasket("ABBABBA", catalog)).isTrue();
+    }
+
+    @Test
+    public void testParseBasketWithCatalog() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45))
+        ));
+
+        // Basket is null, empty or has whitespaces, or catalog is null
+        assertThat(underTest.parseBasket(null, catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("", catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("    ", catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("AB", null).isEmpty()).isTrue();
+
+        // Basket contains non-alphabet characters or SKUs not in the catalog
+        assertThat(underTest.parseBasket("A-B-B-A-B-B-A", catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("ABBAC", catalog).isEmpty()).isTrue();
+
+        // Happy Path
+        val counts = underTest.parseBasket("ABBABBA", catalog);
+        assertThat(counts.getCount(catalog.idOf('A'))).isEqualTo(3);
+        assertThat(counts.getCount(catalog.idOf('B'))).isEqualTo(4);
+        assertThat(counts.getTotalItems()).isEqualTo(7);
+
+        // Each basket gets its own counts
+        assertThat(underTest.parseBasket("B", catalog)).isNotSameAs(counts);
+        assertThat(counts.getTotalItems()).isEqualTo(7);
+
+        // Happy Path - counts owned by the caller are cleared and reused
+        val into = new BasketCounts(catalog.size());
+        assertThat(underTest.parseBasket("AAB", catalog, into)).isSameAs(into);
+        assertThat(underTest.parseBasket("B", catalog, into)).isSameAs(into);
+        assertThat(into.getCount(catalog.idOf('A'))).isZero();
+        assertThat(into.getTotalItems()).isEqualTo(1);
+        assertThat(underTest.parseBasket("X", catalog, into).isEmpty()).isTrue();
+
+        // Counts cannot hold the catalog
+        assertThatThrownBy(() -> underTest.parseBasket("A", catalog, new BasketCounts(1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testParseBasketWithMultiCharacterSkus() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("APL-001", 50, new MutablePair<>(3,130)),
+                new PricingRule("BAN-002", 30),
+                new PricingRule("A", 10),
+                new PricingRule("B", 20)
+        ));
+
+        // Delimited SKUs are not all in the catalog, or a token is empty
+        assertThat(underTest.parseBasket("APL-001,CHE-003", catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("APL-001,,BAN-002", catalog).isEmpty()).isTrue();
+        assertThat(underTest.parseBasket("APL-001,", catalog).isEmpty()).isTrue();
+        assertThat(underTest.validateBasket("APL-001,CHE-003", catalog)).isFalse();
+
+        // Happy Path - delimited, with whitespace around SKUs
+        val counts = underTest.parseBasket("APL-001, BAN-002 ,APL-001,A", catalog);
+        assertThat(counts.getCount(catalog.idOf("APL-001"))).isEqualTo(2);
+        assertThat(counts.getCount(catalog.idOf("BAN-002"))).isEqualTo(1);
+        assertThat(counts.getCount(catalog.idOf("A"))).isEqualTo(1);
+        assertThat(underTest.calculateTotal(counts, catalog)).isEqualTo(100 + 30 + 10);
+        assertThat(underTest.validateBasket("APL-001,BAN-002", catalog)).isTrue();
+
+        // Happy Path - a single multi-character SKU, and the undelimited format still applies
+        assertThat(underTest.parseBasket("APL-001", catalog).getTotalItems()).isEqualTo(1);
+        assertThat(underTest.parseBasket("ABBA", catalog).getCount(catalog.idOf("B"))).isEqualTo(2);
+    }
+
     @Test
     public void testParseBasket() {
         // Basket is null, empty or has whitespaces
@@ -125,14 +275,118 @@ public class InputServiceImplTest {
         );
 
         // Basket is null or empty and/or rules are null or empty
-        assertThat(underTest.calculateTotal(null, null)).isZero();
+        assertThat(underTest.calculateTotal(null, (Set<PricingRule>) null)).isZero();
         assertThat(underTest.calculateTotal(null, rules)).isZero();
-        assertThat(underTest.calculateTotal(basket, null)).isZero();
+        assertThat(underTest.calculateTotal(basket, (Set<PricingRule>) null)).isZero();
         assertThat(underTest.calculateTotal(basket, emptySet())).isZero();
         assertThat(underTest.calculateTotal(emptyMap(), rules)).isZero();
 
         // Happy Path
         assertThat(underTest.calculateTotal(basket, rules)).isEqualTo(180 + 75);
+
+        // Happy Path - rules built in code with a price in fractions of a penny are priced without compiling
+        val fractionalRules = Set.of(new PricingRule("A", 0.125), new PricingRule("B", 30, new MutablePair<>(2,45)));
+        assertThat(underTest.calculateTotal(basket, fractionalRules)).isEqualTo(0.5 + 75);
+    }
+
+    @Test
+    public void testCalculateTotalWithCatalog() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45))
+        ));
+
+        val basket = Map.of(
+                "A", List.of("A", "A", "A", "A"),
+                "B", List.of("B", "B", "B"),
+                "C", List.of("C")
+        );
+
+        // Basket is null or empty and/or catalog is null or empty
+        assertThat(underTest.calculateTotal((Map<String, List<String>>) null, (PricingCatalog) null)).isZero();
+        assertThat(underTest.calculateTotal((Map<String, List<String>>) null, catalog)).isZero();
+        assertThat(underTest.calculateTotal(basket, (PricingCatalog) null)).isZero();
+        assertThat(underTest.calculateTotal(basket, PricingCatalog.compile(emptySet()))).isZero();
+        assertThat(underTest.calculateTotal(emptyMap(), catalog)).isZero();
+
+        // Happy Path - SKUs not in the catalog are not charged
+        assertThat(underTest.calculateTotal(basket, catalog)).isEqualTo(180 + 75);
+    }
+
+    @Test
+    public void testCalculateTotalWithCounts() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45))
+        ));
+        BasketCounts basket = underTest.parseBasket("AAAABBB", catalog);
+
+        // Basket is null or empty and/or catalog is null or empty
+        assertThat(underTest.calculateTotal((BasketCounts) null, null)).isZero();
+        assertThat(underTest.calculateTotal((BasketCounts) null, catalog)).isZero();
+        assertThat(underTest.calculateTotal(basket, (PricingCatalog) null)).isZero();
+        assertThat(underTest.calculateTotal(new BasketCounts(2), catalog)).isZero();
+
+        // Happy Path - matches the map-based total
+        assertThat(underTest.calculateTotal(basket, catalog)).isEqualTo(180 + 75);
+        assertThat(underTest.calculateTotal(basket, catalog)).isEqualTo(underTest.calculateTotal(underTest.parseBasket("AAAABBB"), catalog));
+    }
+
+    @Test
+    public void testCalculateTotalWithStages() {
+        val catalog = PricingCatalog.compile(Set.of(new PricingRule("A", 50), new PricingRule("B", 30)))
+                .withStages(List.of(BasketStages.percentOff(10, List.of())));
+
+        // Happy Path - basket discounts apply to a catalog without bundles
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket("AAB", catalog), catalog)).isEqualTo(11_700);
+        assertThat(underTest.calculateTotal(underTest.parseBasket("AAB", catalog), catalog)).isEqualTo(117);
+        assertThat(underTest.calculateTotal(underTest.parseBasket("AAB"), catalog)).isEqualTo(117);
+    }
+
+    @Test
+    public void testCalculateTotalMinor() {
+        val catalog = PricingCatalog.compile(Set.of(
+                new PricingRule("A", 50, new MutablePair<>(3,130)),
+                new PricingRule("B", 30, new MutablePair<>(2,45)),
+                new PricingRule("C", 0.1)
+        ));
+
+        // Basket is null or empty and/or catalog is null
+        assertThat(underTest.calculateTotalMinor(null, catalog)).isZero();
+        assertThat(underTest.calculateTotalMinor(new BasketCounts(3), catalog)).isZero();
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket("AB", catalog), null)).isZero();
+
+        // Happy Path
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket("AAAABBB", catalog), catalog)).isEqualTo(25_500);
+
+        // Repeated sub-unit prices do not drift
+        val basket = "C".repeat(1_000_000);
+        assertThat(underTest.calculateTotalMinor(underTest.parseBasket(basket, catalog), catalog)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void testCalculateTotalMinorMatchesCalculateTotal() {
+        val random = new Random(11);
+        val skus = "ABCDEFGH";
+        for (var trial = 0; trial < 200; trial++) {
+            val rules = new HashSet<PricingRule>();
+            for (val sku : skus.toCharArray()) {
+                val unitPrice = random.nextInt(4000) / 4d;
+                rules.add(random.nextBoolean()
+                        ? new PricingRule(String.valueOf(sku), unitPrice, new MutablePair<>(1 + random.nextInt(5), random.nextInt(300)))
+                        : new PricingRule(String.valueOf(sku), unitPrice));
+            }
+            val catalog = PricingCatalog.compile(rules);
+
+            val basket = new StringBuilder();
+            val length = 1 + random.nextInt(100);
+            for (var i = 0; i < length; i++) {
+                basket.append(skus.charAt(random.nextInt(skus.length())));
+            }
+
+            val total = underTest.calculateTotal(underTest.parseBasket(basket.toString()), rules);
+            assertThat(underTest.calculateTotalMinor(underTest.parseBasket(basket.toString(), catalog), catalog)).isEqualTo(Math.round(total * 100));
+        }
     }
 
     @Test
@@ -0,0 +1,108 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ParallelBasketCounterTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static final PricingCatalog CATALOG = catalog();
+
+    private final ParallelBasketCounter underTest = new ParallelBasketCounter(POOL, 4, 16);
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    private static PricingCatalog catalog() {
+        val builder = PricingCatalog.builder();
+        for (var sku = 'A'; sku <= 'Z'; sku++) {
+            builder.add(String.valueOf(sku), 1, 0, 0);
+        }
+        builder.add("DRINK-COLA-330ML", 1, 0, 0);
+        return builder.build();
+    }
+
+    private void assertSameAsSingleThreaded(String basket) {
+        val expected = new BasketCounts(CATALOG.size());
+        val valid = BasketParser.count(basket, 0, basket.length(), CATALOG, expected);
+
+        val counts = new BasketCounts(CATALOG.size());
+        assertThat(underTest.count(basket, 0, basket.length(), CATALOG, counts)).as(basket).isEqualTo(valid);
+        assertThat(counts.toString()).as(basket).isEqualTo(expected.toString());
+        assertThat(counts.getTotalItems()).as(basket).isEqualTo(expected.getTotalItems());
+        assertThat(underTest.validate(basket, 0, basket.length(), CATALOG)).as(basket).isEqualTo(valid);
+    }
+
+    @Test
+    public void testCount() {
+        val random = new Random(42);
+        for (var basket = 0; basket < 200; basket++) {
+            val length = random.nextInt(400);
+
+            // Happy Path - undelimited baskets
+            val undelimited = new StringBuilder();
+            for (var i = 0; i < length; i++) {
+                undelimited.append((char) ('A' + random.nextInt(random.nextBoolean() ? 26 : 3)));
+            }
+            assertSameAsSingleThreaded(undelimited.toString());
+
+            // Delimited baskets, with whitespace and SKUs longer than a slice
+            val delimited = new StringBuilder();
+            for (var i = 0; i < length / 4; i++) {
+                if (i > 0) delimited.append(random.nextBoolean() ? "," : " , ");
+                delimited.append(random.nextInt(8) == 0 ? "DRINK-COLA-330ML" : String.valueOf((char) ('A' + random.nextInt(26))));
+            }
+            assertSameAsSingleThreaded(delimited.toString());
+        }
+    }
+
+    @Test
+    public void testCountInvalidBaskets() {
+        val basket = "ABCDEFGHIJKLMNOPQRSTUVWXYZ".repeat(4);
+
+        // Unknown SKUs, empty tokens and trailing delimiters anywhere in the basket
+        assertSameAsSingleThreaded(basket + "a");
+        assertSameAsSingleThreaded("1" + basket);
+        assertSameAsSingleThreaded(String.join(",", basket.split("")) + ",");
+        assertSameAsSingleThreaded("," + String.join(",", basket.split("")));
+        assertSameAsSingleThreaded(String.join(",", basket.split("")).replace("M,N", "M,,N"));
+        assertSameAsSingleThreaded(String.join(",", basket.split("")).replace("DRINK", "").replace("Q", "DRINK-COLA"));
+        assertSameAsSingleThreaded(",".repeat(100));
+
+        // Counts are cleared for an invalid basket
+        val counts = new BasketCounts(CATALOG.size());
+        counts.add(0);
+        assertThat(underTest.count(basket + "a", 0, basket.length() + 1, CATALOG, counts)).isFalse();
+        assertThat(counts.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testCountRange() {
+        val basket = "xx" + "ABC".repeat(30) + "yy";
+        val counts = new BasketCounts(CATALOG.size());
+
+        // Happy Path - only the range is counted
+        assertThat(underTest.count(basket, 2, basket.length() - 2, CATALOG, counts)).isTrue();
+        assertThat(counts.getTotalItems()).isEqualTo(90);
+        assertThat(counts.getCount(CATALOG.idOf('A'))).isEqualTo(30);
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThatThrownBy(() -> new ParallelBasketCounter(POOL, 0, 16)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelBasketCounter(POOL, 4, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
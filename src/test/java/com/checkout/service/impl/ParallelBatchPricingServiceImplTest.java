@@ -0,0 +1,79 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.PricingCatalog;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static com.checkout.service.BatchPricingService.INVALID_BASKET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ParallelBatchPricingServiceImplTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private PricingCatalog catalog;
+
+    @Before
+    public void setUp() {
+        val pricingRuleService = new PricingRuleServiceImpl();
+        catalog = pricingRuleService.compileRules(pricingRuleService.parseRules(new String[]{"A,50,3 for 130", "B,30,2 for 45", "C,20"}));
+    }
+
+    @Test
+    public void testConstructor() {
+        // Configuration is not positive
+        assertThatThrownBy(() -> new ParallelBatchPricingServiceImpl(inputService, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelBatchPricingServiceImpl(inputService, 2, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelBatchPricingServiceImpl(inputService, 2, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testPriceBaskets() throws IOException {
+        val underTest = new ParallelBatchPricingServiceImpl(inputService, 2, 4, 2);
+
+        // Input is empty
+        var totals = new StringWriter();
+        var report = underTest.priceBaskets(new StringReader(""), totals, catalog);
+        assertThat(totals.toString()).isEmpty();
+        assertThat(report.getBaskets()).isZero();
+
+        // Invalid baskets keep their line, and lines longer than a chunk are carried over
+        totals = new StringWriter();
+        report = underTest.priceBaskets(new StringReader("AB\n\nA-B\nCCCCCCCCCC\r\nC"), totals, catalog);
+        assertThat(totals.toString().split("\n")).containsExactly("£80.00", INVALID_BASKET, INVALID_BASKET, "£200.00", "£20.00");
+        assertThat(report.getBaskets()).isEqualTo(5);
+        assertThat(report.getInvalidBaskets()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPriceBasketsMatchesSequentialOrder() throws IOException {
+        val random = new Random(42);
+        val input = new StringBuilder();
+        for (var i = 0; i < 20_000; i++) {
+            val length = random.nextInt(15);
+            for (var j = 0; j < length; j++) {
+                input.append("ABCD".charAt(random.nextInt(4)));
+            }
+            input.append('\n');
+        }
+
+        val expected = new StringWriter();
+        new BatchPricingServiceImpl(inputService).priceBaskets(new StringReader(input.toString()), expected, catalog);
+
+        for (val chunkSize : new int[]{1, 64, 4096}) {
+            val totals = new StringWriter();
+            val report = new ParallelBatchPricingServiceImpl(inputService, 4, chunkSize, 3).priceBaskets(new StringReader(input.toString()), totals, catalog);
+            assertThat(totals.toString()).isEqualTo(expected.toString());
+            assertThat(report.getBaskets()).isEqualTo(20_000);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.checkout.service.impl;
 
+import com.checkout.model.BasketStage;
 import com.checkout.model.PricingRule;
+import com.checkout.service.RuleFormatException;
 import lombok.val;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.junit.Before;
@@ -9,17 +11,24 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PricingRuleServiceImplTest {
 
+    private final InputServiceImpl inputService = new InputServiceImpl();
     private PricingRuleServiceImpl underTest;
 
     @Before
@@ -39,6 +48,216 @@ public class PricingRuleServiceImplTest {
 
         // Pricing rules don't contain commas
         assertThat(underTest.parseRules(new String[]{"A503 for 100", "B302 for 45", "C20"})).isEmpty();
+
+        // Several offers for a SKU
+        val rule = underTest.parseRules(new String[]{"A,50,3 for 130 | 5 for 200"}).iterator().next();
+        assertThat(rule.getSpecialPrices()).hasSize(2);
+        assertThat(rule.getFormattedSpecialPrice()).isEqualTo("3 for 130 | 5 for 200");
+
+        // SKU is padded with spaces
+        assertThat(underTest.parseRules(new String[]{"A ,50"}).iterator().next().getItem()).isEqualTo("A");
+    }
+
+    @Test
+    public void testCompileRules() {
+        // Rules are null or empty
+        assertThat(underTest.compileRules(null).isEmpty()).isTrue();
+        assertThat(underTest.compileRules(emptySet()).isEmpty()).isTrue();
+
+        // Happy Path
+        val catalog = underTest.compileRules(underTest.parseRules(new String[]{"A,50,3 for 130", "B,30,2 for 45", "C,20"}));
+        assertThat(catalog.size()).isEqualTo(3);
+        assertThat(catalog.linePrice(catalog.idOf('A'), 4)).isEqualTo(180);
+        assertThat(catalog.linePrice(catalog.idOf('C'), 2)).isEqualTo(40);
+    }
+
+    @Test
+    public void testLoadCatalog() throws IOException {
+        // Rules are empty or blank
+        assertThat(underTest.loadCatalog(new StringReader("")).isEmpty()).isTrue();
+        assertThat(underTest.loadCatalog(new StringReader(" ;\n;; \n")).isEmpty()).isTrue();
+
+        // Happy Path - rules separated by semicolons and line breaks
+        val catalog = underTest.loadCatalog(new StringReader("A,50,3 for 130;B ,30,2 for 45\r\n  C,20 ;\nAPL-001,0.5\n"));
+        assertThat(catalog.size()).isEqualTo(4);
+        assertThat(catalog.linePrice(catalog.idOf("A"), 4)).isEqualTo(180);
+        assertThat(catalog.linePrice(catalog.idOf("B"), 2)).isEqualTo(45);
+        assertThat(catalog.linePrice(catalog.idOf("C"), 2)).isEqualTo(40);
+        assertThat(catalog.linePriceMinor(catalog.idOf("APL-001"), 3)).isEqualTo(150);
+    }
+
+    @Test
+    public void testLoadCatalogMatchesParseRules() throws IOException {
+        val rules = "A+B+C,60;A,50,3 for 130;B,30,2 for 45;C,20;D,12.5,4 for 40;E,50,3 for 130|5 for 200";
+        val catalog = underTest.loadCatalog(new StringReader(rules));
+        val expected = underTest.compileRules(underTest.parseRules(rules.split(";")));
+
+        assertThat(catalog.size()).isEqualTo(expected.size());
+        assertThat(catalog.getBundleCount()).isEqualTo(1).isEqualTo(expected.getBundleCount());
+        for (var id = 0; id < expected.size(); id++) {
+            val loadedId = catalog.idOf(expected.getItem(id));
+            for (var count = 0; count < 20; count++) {
+                assertThat(catalog.linePriceMinor(loadedId, count)).isEqualTo(expected.linePriceMinor(id, count));
+            }
+        }
+    }
+
+    @Test
+    public void testLoadCatalogErrors() {
+        // Rule is not comma-separated
+        assertRuleError("A,50;B30", 1, 6);
+
+        // SKU does not start with a letter
+        assertRuleError("A,50\n  1,20", 2, 3);
+
+        // Rule contains less than 2 or more than 4 fields
+        assertRuleError("A,50,3 for 130,7,8", 1, 1);
+
+        // Rules contain duplicate SKUs
+        assertThatThrownBy(() -> underTest.loadCatalog(new StringReader("A,50\nB,30\na,20")))
+                .isInstanceOf(RuleFormatException.class)
+                .hasMessageContaining("first defined on line 1");
+
+        // Unit price or special price is not a number
+        assertRuleError("A,50;B,abc", 1, 8);
+        assertRuleError("A,50\nB,30,2-45", 2, 6);
+        assertRuleError("A,50\nB,30,x for 45", 2, 6);
+        assertRuleError("A,50\nB,30,2 for", 2, 6);
+        assertRuleError("A,50\nB,30,2 for 45|5-200", 2, 15);
+
+        // Bundle has a special price or an unknown SKU
+        assertRuleError("A,50;A+B,60,2 for 100;B,30", 1, 13);
+        assertRuleError("A,50\n  A+D,60", 2, 3);
+
+        // Unit price has fractions of a penny
+        assertRuleError("A,0.125", 1, 3);
+    }
+
+    @Test
+    public void testLoadTimeline() throws IOException {
+        val saturday = Instant.parse("2026-06-06T00:00:00Z");
+        val rules = "A,50,3 for 130\nB,30,2 for 45\n"
+                + "A,50,3 for 120,2026-06-06T00:00Z..2026-06-08T00:00Z\n"
+                + "B,25,,2026-06-06T17:00+01:00..2026-06-06T18:00+01:00\n"
+                + "C,20";
+
+        // Happy Path - rules with a validity window may come before or after the permanent rule of their SKU
+        val timeline = underTest.loadTimeline(new StringReader(rules));
+        assertThat(timeline.getVersionCount()).isEqualTo(5);
+        val base = timeline.getBase();
+        assertThat(base.size()).isEqualTo(3);
+        assertThat(timeline.catalogAt(saturday).getSpecialValueMinor(base.idOf('A'))).isEqualTo(12000);
+        assertThat(timeline.catalogAt(Instant.parse("2026-06-06T16:30:00Z")).getUnitPrice(base.idOf('B'))).isEqualTo(25);
+        assertThat(timeline.catalogAt(Instant.parse("2026-06-06T16:30:00Z")).getOfferCount(base.idOf('B'))).isZero();
+        assertThat(underTest.loadTimeline(new StringReader("B,25,,..2026-06-01T00:00Z;B,30")).getVersionCount()).isEqualTo(2);
+
+        // The parsed rules compile to the same timeline
+        val compiled = underTest.compileTimeline(underTest.parseRules(rules.split("\n")));
+        assertThat(compiled.getVersionCount()).isEqualTo(5);
+        for (var version = 0; version < 5; version++) {
+            val expected = timeline.getVersion(version);
+            val actual = compiled.getVersion(version);
+            assertThat(compiled.getVersionStart(version)).isEqualTo(timeline.getVersionStart(version));
+            assertThat(actual.totalMinor(inputService.parseBasket("AAABBC", actual))).isEqualTo(expected.totalMinor(inputService.parseBasket("AAABBC", expected)));
+        }
+
+        // A plain catalog cannot have validity windows
+        assertRuleError(rules, 3, 1);
+    }
+
+    @Test
+    public void testLoadTimelineErrors() {
+        // No permanent rule, or overlapping windows
+        assertTimelineError("A,50\nB,30,,2026-06-06T00:00Z..", 2, 1);
+        assertTimelineError("A,50\nA,45,,2026-06-06T00:00Z..2026-06-08T00:00Z\nA,40,,2026-06-07T00:00Z..", 3, 1);
+        assertTimelineError("A,50\nA,45,,..2026-06-08T00:00Z\nA,40,,..2026-06-01T00:00Z", 3, 1);
+
+        // Invalid window or special price
+        assertTimelineError("A,50\nA,45,,2026-06-06", 2, 7);
+        assertTimelineError("A,50\nA,45,,2026-06-08T00:00Z..2026-06-06T00:00Z", 2, 7);
+        assertTimelineError("A,50\nA,45.001,,2026-06-06T00:00Z..", 2, 3);
+        assertTimelineError("A,50\nA,45,0 for 1 | 2 for 80,2026-06-06T00:00Z..", 2, 3);
+
+        // Bundle with a window
+        assertTimelineError("A,50;B,30;A+B,60,,2026-06-06T00:00Z..", 1, 19);
+    }
+
+    private void assertTimelineError(String rules, int line, int column) {
+        assertThatThrownBy(() -> underTest.loadTimeline(new StringReader(rules)))
+                .isInstanceOfSatisfying(RuleFormatException.class, e -> {
+                    assertThat(e.getLine()).isEqualTo(line);
+                    assertThat(e.getColumn()).isEqualTo(column);
+                });
+    }
+
+    @Test
+    public void testLoadStages() throws IOException {
+        // Happy Path - in the order they are written
+        val stages = underTest.loadStages(new StringReader("percent,10\r\n  spend,50,5;cap,15\n\npercent,20,A+B\n"));
+        assertThat(stages).extracting(BasketStage::getRule).containsExactly("percent,10", "spend,50,5", "cap,15", "percent,20,A+B");
+        assertThat(underTest.loadStages(new StringReader(""))).isEmpty();
+
+        // Invalid discount
+        assertThatThrownBy(() -> underTest.loadStages(new StringReader("percent,10\ncap,15; bogof")))
+                .isInstanceOfSatisfying(RuleFormatException.class, e -> {
+                    assertThat(e.getLine()).isEqualTo(2);
+                    assertThat(e.getColumn()).isEqualTo(9);
+                    assertThat(e.getMessage()).contains("Unknown discount 'bogof'");
+                });
+    }
+
+    @Test
+    public void testLoadCatalogFromFile() throws IOException {
+        val file = Files.createTempFile("rules", ".txt");
+        try {
+            val rules = new StringBuilder();
+            for (var i = 0; i < 100_000; i++) {
+                rules.append(String.format("SKU-%06d,%d,3 for %d%n", i, 1 + i % 100, 2 + i % 250));
+            }
+            Files.writeString(file, rules);
+
+            val catalog = underTest.loadCatalog(file);
+            assertThat(catalog.size()).isEqualTo(100_000);
+            assertThat(catalog.getUnitPrice(catalog.idOf("SKU-000123"))).isEqualTo(24);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLoadStores() throws IOException {
+        val directory = Files.createTempDirectory("stores");
+        try {
+            val base = underTest.loadCatalog(new StringReader("A,50,3 for 130;B,30,2 for 45;C,20"));
+            Files.writeString(directory.resolve("0001.txt"), "C,25;D,10");
+            Files.writeString(directory.resolve("0002.txt"), "A,50,3 for 130");
+            Files.writeString(directory.resolve("README.md"), "Not a store");
+
+            // Happy Path
+            val registry = underTest.loadStores(base, directory);
+            assertThat(registry.getStores()).containsExactly("0001", "0002");
+            val store = registry.get("0001");
+            assertThat(store.getUnitPrice(store.idOf('C'))).isEqualTo(25);
+            assertThat(store.getUnitPrice(store.idOf('D'))).isEqualTo(10);
+            assertThat(registry.get("0002")).isSameAs(base);
+
+            // Rules of a store are invalid
+            Files.writeString(directory.resolve("0003.txt"), "C25");
+            assertThatThrownBy(() -> underTest.loadStores(base, directory))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Rules of store 0003 are not valid");
+        } finally {
+            for (val file : Files.list(directory).toArray(Path[]::new)) Files.delete(file);
+            Files.delete(directory);
+        }
+    }
+
+    private void assertRuleError(String rules, int line, int column) {
+        assertThatThrownBy(() -> underTest.loadCatalog(new StringReader(rules)))
+                .isInstanceOfSatisfying(RuleFormatException.class, e -> {
+                    assertThat(e.getLine()).isEqualTo(line);
+                    assertThat(e.getColumn()).isEqualTo(column);
+                });
     }
 
     @Test
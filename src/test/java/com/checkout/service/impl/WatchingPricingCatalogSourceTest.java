@@ -0,0 +1,196 @@
+package com.checkout.service.impl;
+
+import com.checkout.model.BasketCounts;
+import com.checkout.model.BasketStages;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WatchingPricingCatalogSourceTest {
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private Path directory;
+    private Path rulesFile;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rules");
+        rulesFile = directory.resolve("rules.txt");
+        Files.write(rulesFile, List.of("A,50,3 for 130;B,30"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (val file : Files.list(directory).toArray(Path[]::new)) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testConstructor() throws IOException {
+        // Happy Path
+        try (val underTest = new WatchingPricingCatalogSource(rulesFile, inputService, pricingRuleService)) {
+            assertThat(underTest.current().size()).isEqualTo(2);
+        }
+
+        // Initial rules are invalid
+        Files.write(rulesFile, List.of("A503 for 130"));
+        assertThatThrownBy(() -> new WatchingPricingCatalogSource(rulesFile, inputService, pricingRuleService)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        try (val underTest = new WatchingPricingCatalogSource(rulesFile, inputService, pricingRuleService)) {
+            val original = underTest.current();
+
+            // Unchanged file keeps the same snapshot
+            assertThat(underTest.reload()).isTrue();
+            assertThat(underTest.current()).isSameAs(original);
+
+            // Invalid file never replaces a good snapshot
+            Files.write(rulesFile, List.of("A,50,3 for 130;A,20"));
+            assertThat(underTest.reload()).isFalse();
+            assertThat(underTest.current()).isSameAs(original);
+            assertThat(underTest.getFailedReloadCount()).isEqualTo(1);
+
+            // Happy Path
+            Files.write(rulesFile, List.of("A,40;B,30;C,20"));
+            assertThat(underTest.reload()).isTrue();
+            assertThat(underTest.current().size()).isEqualTo(3);
+            assertThat(underTest.current().getUnitPrice(underTest.current().idOf('A'))).isEqualTo(40);
+            assertThat(underTest.getReloadCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testTimeline() throws IOException {
+        Files.write(rulesFile, List.of("A,50,3 for 130;B,30", "A,45,,2000-01-01T00:00Z..", "B,25,,..2000-01-01T00:00Z"));
+        try (val underTest = new WatchingPricingCatalogSource(rulesFile, inputService, pricingRuleService)) {
+            // Happy Path - the version in effect now is served
+            assertThat(underTest.getTimeline().getVersionCount()).isEqualTo(2);
+            assertThat(underTest.current().getUnitPrice(underTest.current().idOf('A'))).isEqualTo(45);
+            assertThat(underTest.current().getUnitPrice(underTest.current().idOf('B'))).isEqualTo(30);
+            assertThat(underTest.current(null)).isSameAs(underTest.current());
+        }
+
+        // Rules with a validity window cannot be combined with stores
+        val stores = Files.createDirectory(directory.resolve("stores"));
+        try {
+            Files.write(stores.resolve("0001.txt"), List.of("B,35"));
+            assertThatThrownBy(() -> new WatchingPricingCatalogSource(rulesFile, stores, inputService, pricingRuleService))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("cannot be combined with store rules");
+        } finally {
+            for (val file : Files.list(stores).toArray(Path[]::new)) Files.delete(file);
+            Files.delete(stores);
+        }
+    }
+
+    @Test
+    public void testStores() throws IOException {
+        val stores = Files.createDirectory(directory.resolve("stores"));
+        try {
+            Files.write(stores.resolve("0001.txt"), List.of("B,35;D,10"));
+            try (val underTest = new WatchingPricingCatalogSource(rulesFile, stores, inputService, pricingRuleService)) {
+                // Happy Path
+                val store = underTest.current("0001");
+                assertThat(store.getUnitPrice(store.idOf('B'))).isEqualTo(35);
+                assertThat(store.getUnitPrice(store.idOf('D'))).isEqualTo(10);
+                assertThat(underTest.current(null)).isSameAs(underTest.current());
+                assertThat(underTest.current("0002")).isNull();
+
+                // Unchanged stores keep the same snapshot
+                assertThat(underTest.reload()).isTrue();
+                assertThat(underTest.current("0001")).isSameAs(store);
+
+                // Invalid store rules never replace a good snapshot, and the store's file is named as the one that failed
+                Files.write(stores.resolve("0002.txt"), List.of("B35"));
+                val err = new ByteArrayOutputStream();
+                val systemErr = System.err;
+                System.setErr(new PrintStream(err, true, UTF_8));
+                try {
+                    assertThat(underTest.reload()).isFalse();
+                } finally {
+                    System.setErr(systemErr);
+                }
+                assertThat(underTest.current("0002")).isNull();
+                assertThat(err.toString(UTF_8)).startsWith(format("Keeping current pricing rules, %s could not be loaded", stores.resolve("0002.txt").toAbsolutePath()));
+
+                // A new store is published with the base
+                Files.write(stores.resolve("0002.txt"), List.of("C,15"));
+                assertThat(underTest.reload()).isTrue();
+                assertThat(underTest.current("0002").getUnitPrice(underTest.current("0002").idOf('C'))).isEqualTo(15);
+                assertThat(underTest.getRegistry().getStoreCount()).isEqualTo(2);
+            }
+        } finally {
+            for (val file : Files.list(stores).toArray(Path[]::new)) Files.delete(file);
+            Files.delete(stores);
+        }
+    }
+
+    @Test
+    public void testStages() throws IOException {
+        val stores = Files.createDirectory(directory.resolve("stores"));
+        try {
+            Files.write(stores.resolve("0001.txt"), List.of("B,35"));
+            val stages = List.of(BasketStages.percentOff(10, List.of("B")));
+            try (val underTest = new WatchingPricingCatalogSource(rulesFile, stores, stages, inputService, pricingRuleService)) {
+                // Happy Path - the discounts apply to the base and store catalogs, and again after a reload
+                val counts = new BasketCounts(underTest.current().size());
+                counts.add(underTest.current().idOf('B'));
+                assertThat(underTest.current().totalMinor(counts)).isEqualTo(2700);
+                assertThat(underTest.current("0001").totalMinor(counts)).isEqualTo(3150);
+
+                Files.write(rulesFile, List.of("A,50,3 for 130;B,40"));
+                assertThat(underTest.reload()).isTrue();
+                // SKU ids are only stable within a catalog, so count the basket again against the reloaded one
+                val reloaded = new BasketCounts(underTest.current().size());
+                reloaded.add(underTest.current().idOf('B'));
+                assertThat(underTest.current().totalMinor(reloaded)).isEqualTo(3600);
+            }
+
+            // A discount for a SKU without a rule
+            assertThatThrownBy(() -> new WatchingPricingCatalogSource(rulesFile, null, List.of(BasketStages.percentOff(10, List.of("Z"))),
+                    inputService, pricingRuleService))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("unknown SKU Z");
+        } finally {
+            for (val file : Files.list(stores).toArray(Path[]::new)) Files.delete(file);
+            Files.delete(stores);
+        }
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        try (val underTest = new WatchingPricingCatalogSource(rulesFile, null, inputService, pricingRuleService, 50)) {
+            underTest.start();
+
+            val replacement = directory.resolve("rules.tmp");
+            Files.write(replacement, List.of("A,40;B,30;C,20"));
+            Files.move(replacement, rulesFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            val deadline = System.currentTimeMillis() + 20_000;
+            while (underTest.current().size() != 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(underTest.current().size()).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.checkout.trace;
+
+import com.checkout.model.PricingCatalog;
+import com.checkout.service.impl.InputServiceImpl;
+import com.checkout.service.impl.PricingRuleServiceImpl;
+import com.checkout.service.impl.TracingInputService;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PricingTracerTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T12:00:00.123Z"), ZoneOffset.UTC);
+
+    private final InputServiceImpl inputService = new InputServiceImpl();
+    private final PricingRuleServiceImpl pricingRuleService = new PricingRuleServiceImpl();
+    private final PricingCatalog catalog = pricingRuleService.compileRules(pricingRuleService.parseRules("A,50,3 for 130;B,30;C,20;A+B,60".split(";")));
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("trace", ".log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    private boolean trace(PricingTracer tracer, String basket) {
+        val counts = inputService.parseBasket(basket, catalog);
+        return tracer.trace(counts, catalog, inputService.calculateTotalMinor(counts, catalog));
+    }
+
+    private String header(String basketId, String amounts) {
+        return format("2026-10-18T12:00:00.123Z basket=%s catalog=%016x %s", basketId, catalog.getFingerprint(), amounts);
+    }
+
+    @Test
+    public void testTrace() throws IOException {
+        try (val underTest = new PricingTracer(file, 16, 1, emptyList(), 0, CLOCK)) {
+            // Happy Path - every line, with the branch that priced it
+            assertThat(trace(underTest, "AAAACA")).isTrue();
+            assertThat(trace(underTest, "AAAAAAAAAAAA")).isTrue();
+            assertThat(underTest.drain()).isEqualTo(5);
+            assertThat(underTest.drain()).isZero();
+
+            // Bundles lower the total below the sum of the lines
+            assertThat(trace(underTest, "AB")).isTrue();
+            assertThat(underTest.getRecorded()).isEqualTo(3);
+        }
+
+        assertThat(Files.readAllLines(file)).containsExactly(
+                header("#0", "lines=£250.00 total=£250.00"),
+                "  A x5 SPECIAL_PRICE units=1 remainder=2 line=£230.00",
+                "  C x1 UNIT_PRICE units=0 remainder=1 line=£20.00",
+                header("#3", "lines=£200.00 total=£200.00"),
+                "  A x12 SPECIAL_NOT_APPLIED units=4 remainder=0 line=£200.00",
+                header("#5", "lines=£80.00 bundles=-£20.00 total=£60.00"),
+                "  A x1 SPECIAL_PRICE units=0 remainder=1 line=£50.00",
+                "  B x1 UNIT_PRICE units=0 remainder=1 line=£30.00");
+    }
+
+    @Test
+    public void testSelectedBaskets() throws IOException {
+        try (val underTest = new PricingTracer(file, 16, 0, List.of("R-1042"), 0, CLOCK)) {
+            // Baskets that are not selected are not traced without sampling
+            assertThat(trace(underTest, "C")).isFalse();
+            PricingTracer.bindBasketId("R-1041");
+            try {
+                assertThat(trace(underTest, "C")).isFalse();
+            } finally {
+                PricingTracer.unbindBasketId();
+            }
+
+            // Happy Path
+            PricingTracer.bindBasketId("R-1042");
+            try {
+                assertThat(trace(underTest, "C")).isTrue();
+            } finally {
+                PricingTracer.unbindBasketId();
+            }
+            assertThat(underTest.getSampleRate()).isZero();
+        }
+
+        assertThat(Files.readAllLines(file)).containsExactly(
+                header("R-1042", "lines=£20.00 total=£20.00"),
+                "  C x1 UNIT_PRICE units=0 remainder=1 line=£20.00");
+    }
+
+    @Test
+    public void testFullBufferDropsBaskets() throws IOException {
+        try (val underTest = new PricingTracer(file, 4, 1, emptyList(), 0, CLOCK)) {
+            assertThat(trace(underTest, "ABC")).isTrue();
+
+            // No room until the buffer is drained
+            assertThat(trace(underTest, "C")).isFalse();
+            assertThat(underTest.getDropped()).isEqualTo(1);
+            assertThat(underTest.drain()).isEqualTo(4);
+            assertThat(trace(underTest, "C")).isTrue();
+            assertThat(underTest.getCapacity()).isEqualTo(4);
+        }
+        assertThat(Files.readAllLines(file)).hasSize(6);
+    }
+
+    @Test
+    public void testTracingInputService() throws IOException {
+        try (val underTest = new PricingTracer(file, 16, 1, emptyList(), 0, CLOCK)) {
+            val tracing = new TracingInputService(inputService, underTest);
+
+            // Happy Path - totals in major units are traced too
+            assertThat(tracing.calculateTotal(inputService.parseBasket("AAAC", catalog), catalog)).isEqualTo(150);
+            assertThat(tracing.calculateTotal(inputService.parseBasket("AB"), catalog)).isEqualTo(60);
+            assertThat(tracing.calculateTotalMinor(inputService.parseBasket("C", catalog), catalog)).isEqualTo(2_000);
+            assertThat(underTest.getRecorded()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testConcurrentTracing() throws Exception {
+        val threads = 4;
+        val baskets = 2_000;
+        try (val underTest = new PricingTracer(file, 256, 1, emptyList(), 1)) {
+            val tracing = new TracingInputService(inputService, underTest);
+            val pool = Executors.newFixedThreadPool(threads);
+            try {
+                val tasks = new ArrayList<Callable<Long>>();
+                for (var thread = 0; thread < threads; thread++) {
+                    tasks.add(() -> {
+                        var total = 0L;
+                        for (var i = 0; i < baskets; i++) {
+                            total += tracing.calculateTotalMinor(inputService.parseBasket("AAAC", catalog), catalog);
+                        }
+                        return total;
+                    });
+                }
+                for (val result : pool.invokeAll(tasks)) {
+                    assertThat(result.get()).isEqualTo(baskets * 15_000L);
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            underTest.close();
+            assertThat(underTest.getRecorded() + underTest.getDropped()).isEqualTo(threads * baskets);
+
+            // Every recorded basket is written whole, in the order it was claimed
+            val lines = Files.readAllLines(file);
+            assertThat(lines).hasSize((int) underTest.getRecorded() * 3);
+            for (var i = 0; i < lines.size(); i += 3) {
+                assertThat(lines.get(i)).endsWith("lines=£150.00 total=£150.00");
+                assertThat(lines.get(i + 1)).isEqualTo("  A x3 SPECIAL_PRICE units=1 remainder=0 line=£130.00");
+                assertThat(lines.get(i + 2)).isEqualTo("  C x1 UNIT_PRICE units=0 remainder=1 line=£20.00");
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThatThrownBy(() -> new PricingTracer(file, 1, 1, emptyList(), 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PricingTracer(file, 16, -1, emptyList(), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}